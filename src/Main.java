@@ -1,15 +1,259 @@
+import auditoria.GravadorAuditoria;
+import ciclo.Aquecimento;
+import ciclo.CicloVida;
+import ciclo.ServidorSaude;
+import controller.LoteController;
 import controller.ScannerController;
+import eventos.FeedAlteracoes;
+import inquilino.GerenciadorInquilinos;
+import inquilino.Inquilino;
+import limites.ControleAdmissao;
 import model.Menu;
+import repository.ArquivadorProdutos;
+import repository.ConfiguracaoBanco;
+import repository.MigradorEsquema;
 import repository.ProdutoRepository;
 import service.ProdutoService;
+import snapshot.SnapshotCatalogo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
 
 
 public class Main {
     public static void main(String[] args) {
+        // Vários negócios no mesmo processo: INQUILINOS=loja1,loja2 (ver GerenciadorInquilinos)
+        List<String> inquilinos = GerenciadorInquilinos.idsDoAmbiente();
+        if (!inquilinos.isEmpty()) {
+            System.exit(executarInquilinos(inquilinos, args) ? 0 : 1);
+        }
+
+        ConfiguracaoBanco configuracaoBanco = ConfiguracaoBanco.doAmbiente();
+        migrarEsquema(configuracaoBanco);
+
+        ProdutoRepository produtoRepository = new ProdutoRepository(configuracaoBanco);
+
+        // Encerramento ordenado, também no sinal de término (ver CicloVida); vivo e pronto
+        // por HTTP quando SAUDE_PORTA está definida, até o fim do encerramento
+        CicloVida cicloVida = CicloVida.doAmbiente();
+        ServidorSaude.doAmbiente(cicloVida);
+        cicloVida.monitorar("principal", produtoRepository);
+        cicloVida.aoEncerrar("réplicas de leitura", produtoRepository.getRoteadorLeitura());
+        FeedAlteracoes feed = ligarFeedAlteracoes(produtoRepository, cicloVida);
+        ligarAuditoria(produtoRepository, cicloVida);
+
+        // Snapshot do catálogo: java Main --exportar catalogo.snap / --importar catalogo.snap
+        if (args.length == 2 && args[0].equals("--exportar")) {
+            System.exit(exportarSnapshot(produtoRepository, args[1]) ? 0 : 1);
+        }
+        if (args.length == 2 && args[0].equals("--importar")) {
+            System.exit(importarSnapshot(produtoRepository, args[1]) ? 0 : 1);
+        }
+
+        // Modo em lote: java Main --lote script.txt (ou "-" para ler da entrada padrão)
+        if (args.length == 2 && args[0].equals("--lote")) {
+            ProdutoService produtoService = new ProdutoService(produtoRepository);
+            preparar(cicloVida, null, produtoService, feed);
+            System.exit(executarLote(produtoService, null, args[1], cicloVida) ? 0 : 1);
+        }
+
         ScannerController scannerController = new ScannerController();
-        ProdutoRepository produtoRepository = new ProdutoRepository();
         ProdutoService produtoService = new ProdutoService(produtoRepository, scannerController);
-        new Menu(produtoService, scannerController);
+        preparar(cicloVida, null, produtoService, feed);
+
+        // Move os produtos excluídos para produtos_arquivo em segundo plano
+        ArquivadorProdutos arquivador = new ArquivadorProdutos(produtoRepository, 500);
+        arquivador.iniciar(60);
+        cicloVida.aoEncerrar("arquivador", arquivador);
+
+        new Menu(produtoService, scannerController, cicloVida).executar();
+        cicloVida.close();
+
+    }
+
+    /**
+     * Modo com vários inquilinos. {@code --inquilino <id>} escolhe o inquilino do terminal
+     * interativo, do snapshot ou o padrão do lote (o primeiro da lista, se omitido);
+     * no lote, cada comando pode trocar de inquilino com {@code inquilino=<id>}.
+     * @return false se o modo escolhido terminou com falha
+     */
+    private static boolean executarInquilinos(List<String> ids, String[] args) {
+        String selecionado = ids.get(0);
+        if (args.length >= 2 && args[0].equals("--inquilino")) {
+            selecionado = args[1];
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        boolean lote = args.length == 2 && args[0].equals("--lote");
+        boolean exportar = args.length == 2 && args[0].equals("--exportar");
+        boolean importar = args.length == 2 && args[0].equals("--importar");
+        boolean interativo = !lote && !exportar && !importar;
+        ScannerController scannerController = interativo ? new ScannerController() : null;
+
+        CicloVida cicloVida = CicloVida.doAmbiente();
+        try (cicloVida) {
+            ServidorSaude.doAmbiente(cicloVida);
+            GerenciadorInquilinos gerenciador = new GerenciadorInquilinos(ids, scannerController);
+            cicloVida.aoEncerrar("inquilinos", gerenciador);
+            Inquilino inquilino = gerenciador.inquilino(selecionado);
+            if (exportar) {
+                return exportarSnapshot(inquilino.getProdutoRepository(), args[1]);
+            }
+            if (importar) {
+                return importarSnapshot(inquilino.getProdutoRepository(), args[1]);
+            }
+
+            // Índices e lotes já vêm carregados do gerenciador; falta aquecer cada inquilino
+            for (Inquilino cada : gerenciador.getInquilinos()) {
+                cicloVida.monitorar(cada.getId(), cada.getProdutoRepository());
+                Aquecimento.aquecer(cicloVida, cada.getId(), cada.getProdutoService());
+            }
+            cicloVida.pronto();
+            if (lote) {
+                return executarLote(inquilino.getProdutoService(), gerenciador::servico, args[1], cicloVida);
+            }
+
+            ArquivadorProdutos arquivador = new ArquivadorProdutos(inquilino.getProdutoRepository(), 500);
+            arquivador.iniciar(60);
+            cicloVida.aoEncerrar("arquivador", arquivador);
+            new Menu(inquilino.getProdutoService(), scannerController, cicloVida).executar();
+            return true;
+
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro ao iniciar os inquilinos: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Partida do serviço, em ordem: histórico de consumo, índice de pesquisa, lotes e
+     * aquecimento (conexões, produtos mais vendidos e JIT). Só depois o processo fica pronto.
+     */
+    private static void preparar(CicloVida cicloVida, String nome, ProdutoService produtoService,
+                                 FeedAlteracoes feed) {
+        if (feed != null) {
+            cicloVida.etapa("previsão de consumo", () -> produtoService.reconstruirPrevisao(feed));
+            // Listagens de catálogos muito grandes a partir da memória fora do heap (ver CatalogoForaHeap)
+            if (Boolean.parseBoolean(System.getenv("CATALOGO_FORA_HEAP"))) {
+                cicloVida.etapa("catálogo fora do heap", () -> ligarCatalogoForaHeap(cicloVida, produtoService, feed));
+            }
+        }
+        cicloVida.etapa("índice de pesquisa", produtoService::carregarIndiceTextual);
+        cicloVida.etapa("lotes com validade", produtoService::carregarLotes);
+        Aquecimento.aquecer(cicloVida, nome, produtoService);
+        cicloVida.pronto();
+    }
+
+    /**
+     * Aplica as migrações pendentes do esquema antes de abrir o sistema.
+     */
+    private static void migrarEsquema(ConfiguracaoBanco configuracaoBanco) {
+        try {
+            new MigradorEsquema(configuracaoBanco).migrar();
+        } catch (SQLException e) {
+            System.err.println("Erro ao migrar o esquema do banco: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carrega o catálogo fora do heap, que passa a servir as listagens e a seguir o feed.
+     */
+    private static void ligarCatalogoForaHeap(CicloVida cicloVida, ProdutoService produtoService, FeedAlteracoes feed) {
+        try {
+            cicloVida.aoEncerrar("catálogo fora do heap", produtoService.ligarCatalogoForaHeap(feed,
+                    Path.of(System.getenv("FEED_LOG") + ".catalogo")));
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar o catálogo fora do heap: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Liga o feed de alterações quando a variável FEED_LOG aponta para o arquivo de log.
+     * @return o feed ligado, ou null se estiver desativado
+     */
+    private static FeedAlteracoes ligarFeedAlteracoes(ProdutoRepository produtoRepository, CicloVida cicloVida) {
+        String arquivoLog = System.getenv("FEED_LOG");
+        if (arquivoLog == null || arquivoLog.isBlank()) {
+            return null;
+        }
+        try {
+            FeedAlteracoes feed = new FeedAlteracoes(Path.of(arquivoLog));
+            produtoRepository.setFeedAlteracoes(feed);
+            cicloVida.aoEncerrar("feed de alterações", feed);
+            return feed;
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir o feed de alterações: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Liga a trilha de auditoria quando a variável AUDITORIA aponta para um arquivo ou
+     * para "banco" (ver GravadorAuditoria). Os registros pendentes são gravados ao encerrar.
+     */
+    private static void ligarAuditoria(ProdutoRepository produtoRepository, CicloVida cicloVida) {
+        GravadorAuditoria auditoria = GravadorAuditoria.doAmbiente("", () -> produtoRepository::gravarAuditoria);
+        if (auditoria == null) {
+            return;
+        }
+        produtoRepository.setAuditoria(auditoria);
+        cicloVida.aoEncerrar("auditoria", auditoria);
+    }
+
+    private static boolean exportarSnapshot(ProdutoRepository produtoRepository, String arquivo) {
+        long inicio = System.nanoTime();
+        try {
+            long total = SnapshotCatalogo.exportar(produtoRepository, Path.of(arquivo));
+            System.out.printf("Snapshot exportado: %d produtos em %d ms (%d bytes)%n", total,
+                    (System.nanoTime() - inicio) / 1_000_000, Files.size(Path.of(arquivo)));
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erro ao exportar o snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean importarSnapshot(ProdutoRepository produtoRepository, String arquivo) {
+        long inicio = System.nanoTime();
+        try {
+            long total = SnapshotCatalogo.importar(Path.of(arquivo), produtoRepository);
+            System.out.printf("Snapshot importado: %d produtos em %d ms%n", total,
+                    (System.nanoTime() - inicio) / 1_000_000);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erro ao importar o snapshot: " + e.getMessage());
+            return false;
+        }
+    }
 
+    private static boolean executarLote(ProdutoService produtoService,
+                                        Function<String, ProdutoService> servicoPorInquilino, String origem,
+                                        CicloVida cicloVida) {
+        PrintWriter saida = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16), false);
+        try (BufferedReader entrada = origem.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Path.of(origem), StandardCharsets.UTF_8)) {
+            LoteController loteController = new LoteController(produtoService, servicoPorInquilino, saida);
+            // Cotas por cliente e filas por prioridade quando ADMISSAO_VAGAS está definida
+            loteController.setAdmissao(ControleAdmissao.doAmbiente(), "lote");
+            loteController.setCicloVida(cicloVida);
+            return loteController.executar(entrada);
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o script: " + e.getMessage());
+            return false;
+        } finally {
+            saida.flush();
+        }
     }
 }
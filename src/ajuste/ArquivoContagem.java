@@ -0,0 +1,59 @@
+package ajuste;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê o arquivo de uma contagem física: uma linha {@code chave;quantidade} por produto,
+ * em que a chave é o id ou o código de barras. Linhas em branco, comentários
+ * ({@code #}) e um cabeçalho antes da primeira contagem são ignorados; aceita também
+ * {@code ,} ou tabulação como separador.
+ */
+public final class ArquivoContagem {
+
+    private ArquivoContagem() {
+    }
+
+    /**
+     * @throws IllegalArgumentException na primeira linha inválida, com o número dela
+     */
+    public static List<ContagemFisica> ler(Path arquivo) throws IOException {
+        List<ContagemFisica> contagens = new ArrayList<>();
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            int numero = 0;
+            boolean cabecalho = false;
+            while ((linha = leitor.readLine()) != null) {
+                numero++;
+                linha = linha.strip();
+                if (linha.isEmpty() || linha.startsWith("#")) {
+                    continue;
+                }
+                String[] campos = linha.split("[;,\t]");
+                if (campos.length != 2) {
+                    throw new IllegalArgumentException("linha " + numero + ": esperado chave;quantidade");
+                }
+                try {
+                    long chave = Long.parseLong(campos[0].strip());
+                    int quantidade = Integer.parseInt(campos[1].strip());
+                    if (chave <= 0 || quantidade < 0) {
+                        throw new IllegalArgumentException("linha " + numero + ": chave ou quantidade inválida");
+                    }
+                    contagens.add(new ContagemFisica(chave, quantidade));
+                } catch (NumberFormatException e) {
+                    if (contagens.isEmpty() && !cabecalho) {
+                        cabecalho = true;
+                        continue;
+                    }
+                    throw new IllegalArgumentException("linha " + numero + ": número inválido");
+                }
+            }
+        }
+        return contagens;
+    }
+}
@@ -0,0 +1,10 @@
+package ajuste;
+
+/**
+ * Quantidade contada de um produto no inventário físico.
+ *
+ * @param chave id do produto ou, conforme o arquivo, o código de barras
+ * @param quantidade unidades contadas (a nova quantidade absoluta do produto)
+ */
+public record ContagemFisica(long chave, int quantidade) {
+}
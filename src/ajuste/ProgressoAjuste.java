@@ -0,0 +1,21 @@
+package ajuste;
+
+/**
+ * Andamento de um ajuste em massa, informado a cada bloco processado.
+ *
+ * @param processados produtos já analisados
+ * @param total produtos que o ajuste vai analisar
+ * @param alterados produtos efetivamente alterados até aqui
+ */
+public record ProgressoAjuste(int processados, int total, int alterados) {
+
+    /** @return andamento de 0 a 100 */
+    public int percentual() {
+        return total == 0 ? 100 : (int) (processados * 100L / total);
+    }
+
+    @Override
+    public String toString() {
+        return processados + "/" + total + " (" + percentual() + "%), " + alterados + " alterado(s)";
+    }
+}
@@ -0,0 +1,42 @@
+package ajuste;
+
+import java.util.List;
+
+/**
+ * Resultado de um ajuste em massa.
+ *
+ * @param analisados produtos que atendiam ao filtro ou constavam da contagem
+ * @param alterados ids dos produtos alterados, em ordem crescente
+ * @param valores valor gravado de cada produto de {@code alterados}, na mesma ordem:
+ *                o novo preço no reajuste, a nova quantidade na contagem
+ * @param naoEncontrados chaves (ids ou códigos de barras) sem produto ativo
+ * @param abaixoDosLotes ids cuja contagem ficou abaixo do saldo dos lotes com validade;
+ *                       esses produtos não foram alterados
+ */
+public record ResultadoAjuste(int analisados, long[] alterados, double[] valores, List<Long> naoEncontrados,
+                              List<Long> abaixoDosLotes) {
+
+    public int totalAlterados() {
+        return alterados.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder()
+                .append(analisados).append(" produto(s) analisado(s), ")
+                .append(alterados.length).append(" alterado(s)");
+        if (!naoEncontrados.isEmpty()) {
+            texto.append(", ").append(naoEncontrados.size()).append(" não encontrado(s) ")
+                    .append(amostra(naoEncontrados));
+        }
+        if (!abaixoDosLotes.isEmpty()) {
+            texto.append(", ").append(abaixoDosLotes.size()).append(" abaixo do saldo dos lotes ")
+                    .append(amostra(abaixoDosLotes));
+        }
+        return texto.toString();
+    }
+
+    private static String amostra(List<Long> chaves) {
+        return chaves.size() <= 10 ? chaves.toString() : chaves.subList(0, 10).toString().replace("]", ", ...]");
+    }
+}
@@ -0,0 +1,64 @@
+package ambiente;
+
+/**
+ * Leitura das variáveis de ambiente da configuração.
+ *
+ * Um valor que não é número é avisado no stderr e trocado pelo padrão, para que um erro
+ * de digitação na loja não impeça o sistema de subir.
+ */
+public final class Ambiente {
+
+    private Ambiente() {
+    }
+
+    /**
+     * @return o valor sem espaços nas pontas, ou null se a variável não existe ou está em branco
+     */
+    public static String texto(String variavel) {
+        String valor = System.getenv(variavel);
+        return valor != null && !valor.isBlank() ? valor.trim() : null;
+    }
+
+    public static int inteiro(String variavel, int padrao) {
+        return inteiro("", variavel, padrao);
+    }
+
+    /**
+     * Lê a variável com o prefixo do inquilino ({@code prefixo + nome}) e, se ela faltar,
+     * a variável geral {@code nome}.
+     */
+    public static int inteiro(String prefixo, String nome, int padrao) {
+        String variavel = prefixo + nome;
+        String valor = texto(variavel);
+        if (valor == null && !prefixo.isEmpty()) {
+            variavel = nome;
+            valor = texto(variavel);
+        }
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            invalido(variavel, valor, padrao);
+            return padrao;
+        }
+    }
+
+    public static double decimal(String variavel, double padrao) {
+        String valor = texto(variavel);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            invalido(variavel, valor, padrao);
+            return padrao;
+        }
+    }
+
+    private static void invalido(String variavel, String valor, Object padrao) {
+        System.err.println("Valor inválido para " + variavel + ": " + valor + ", usando " + padrao);
+    }
+}
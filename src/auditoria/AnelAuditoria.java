@@ -0,0 +1,92 @@
+package auditoria;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fila circular de tamanho fixo, sem travas, com vários produtores e um único consumidor.
+ *
+ * Cada posição guarda um número de sequência que diz se ela está livre para a volta
+ * atual do produtor ou já preenchida para o consumidor. O produtor reserva a posição com
+ * um único compare-and-set no contador de escrita, grava o registro e publica a sequência;
+ * o consumidor lê em ordem e devolve a posição para a próxima volta. Não há alocação por
+ * registro além do próprio registro.
+ */
+final class AnelAuditoria {
+
+    private final RegistroAuditoria[] registros;
+    private final AtomicLongArray sequencias;
+    private final int mascara;
+    private final AtomicLong escrita = new AtomicLong();
+
+    // Só o consumidor lê e altera
+    private long leitura;
+
+    /**
+     * @param capacidade arredondada para a próxima potência de dois
+     */
+    AnelAuditoria(int capacidade) {
+        int tamanho = capacidade <= 2 ? 2 : Integer.highestOneBit(capacidade - 1) << 1;
+        this.registros = new RegistroAuditoria[tamanho];
+        this.sequencias = new AtomicLongArray(tamanho);
+        this.mascara = tamanho - 1;
+        for (int i = 0; i < tamanho; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    /**
+     * @return false se o anel está cheio
+     */
+    boolean oferecer(RegistroAuditoria registro) {
+        long posicao = escrita.get();
+        while (true) {
+            int indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+            if (diferenca == 0) {
+                if (escrita.compareAndSet(posicao, posicao + 1)) {
+                    registros[indice] = registro;
+                    // Escrita volátil: publica o registro gravado acima para o consumidor
+                    sequencias.set(indice, posicao + 1);
+                    return true;
+                }
+                posicao = escrita.get();
+            } else if (diferenca < 0) {
+                return false;
+            } else {
+                posicao = escrita.get();
+            }
+        }
+    }
+
+    /**
+     * Move para {@code destino} até {@code maximo} registros, na ordem em que foram publicados.
+     * Só pode ser chamado pelo consumidor.
+     * @return quantidade de registros movidos
+     */
+    int drenar(List<RegistroAuditoria> destino, int maximo) {
+        int movidos = 0;
+        while (movidos < maximo) {
+            int indice = (int) (leitura & mascara);
+            if (sequencias.get(indice) != leitura + 1) {
+                break;
+            }
+            destino.add(registros[indice]);
+            registros[indice] = null;
+            sequencias.lazySet(indice, leitura + registros.length);
+            leitura++;
+            movidos++;
+        }
+        return movidos;
+    }
+
+    /** @return registros publicados e ainda não drenados (aproximado) */
+    int pendentes() {
+        return (int) Math.max(0, escrita.get() - leitura);
+    }
+
+    int capacidade() {
+        return registros.length;
+    }
+}
@@ -0,0 +1,112 @@
+package auditoria;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Grava a trilha de auditoria em um arquivo local, uma linha JSON por registro,
+ * girando o arquivo quando ele passa do tamanho máximo: {@code auditoria.log}
+ * vira {@code auditoria.log.1}, o {@code .1} vira {@code .2} e assim por diante,
+ * mantendo no máximo {@code arquivosMantidos} arquivos antigos.
+ *
+ * Cada lote é montado inteiro em memória e escrito de uma vez, seguido de flush.
+ */
+public class ArquivoAuditoria implements DestinoAuditoria {
+
+    private final Path arquivo;
+    private final long tamanhoMaximo;
+    private final int arquivosMantidos;
+    private final StringBuilder texto = new StringBuilder(64 * 1024);
+
+    private Writer saida;
+    private long tamanho;
+
+    /**
+     * @param tamanhoMaximo bytes a partir dos quais o arquivo é girado
+     * @param arquivosMantidos arquivos girados guardados além do atual
+     */
+    public ArquivoAuditoria(Path arquivo, long tamanhoMaximo, int arquivosMantidos) throws IOException {
+        this.arquivo = arquivo;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.arquivosMantidos = arquivosMantidos;
+        abrir();
+    }
+
+    @Override
+    public void gravar(List<RegistroAuditoria> registros) throws IOException {
+        if (saida == null) {
+            abrir();
+        }
+        texto.setLength(0);
+        for (RegistroAuditoria registro : registros) {
+            registro.anexarJson(texto).append('\n');
+        }
+        try {
+            saida.append(texto);
+            saida.flush();
+        } catch (IOException e) {
+            // Reabre na próxima tentativa; o lote pode sair repetido em parte, nunca perdido
+            fecharSaida();
+            throw e;
+        }
+        // Aproximado: só ASCII ocupa um byte por caractere, o que basta para decidir o giro
+        tamanho += texto.length();
+        if (tamanho >= tamanhoMaximo) {
+            girar();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (saida != null) {
+            saida.close();
+            saida = null;
+        }
+    }
+
+    private void abrir() throws IOException {
+        Path pasta = arquivo.toAbsolutePath().getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+        saida = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        tamanho = Files.size(arquivo);
+    }
+
+    private void girar() throws IOException {
+        saida.close();
+        saida = null;
+        Files.deleteIfExists(girado(arquivosMantidos));
+        for (int i = arquivosMantidos - 1; i >= 1; i--) {
+            if (Files.exists(girado(i))) {
+                Files.move(girado(i), girado(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (arquivosMantidos > 0) {
+            Files.move(arquivo, girado(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(arquivo);
+        }
+        abrir();
+    }
+
+    private Path girado(int indice) {
+        return arquivo.resolveSibling(arquivo.getFileName() + "." + indice);
+    }
+
+    private void fecharSaida() {
+        try {
+            saida.close();
+        } catch (IOException e) {
+            // a próxima tentativa reabre o arquivo
+        }
+        saida = null;
+    }
+}
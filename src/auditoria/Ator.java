@@ -0,0 +1,49 @@
+package auditoria;
+
+import java.util.function.Supplier;
+
+/**
+ * Quem está fazendo as alterações na thread atual, para a trilha de auditoria.
+ *
+ * Fora de {@link #como} vale o operador do terminal: a variável {@code OPERADOR}
+ * ou, sem ela, o usuário do sistema operacional.
+ */
+public final class Ator {
+
+    private static final String PADRAO = padrao();
+    private static final ThreadLocal<String> ATUAL = new ThreadLocal<>();
+
+    private Ator() {
+    }
+
+    /** @return o ator da thread atual */
+    public static String atual() {
+        String ator = ATUAL.get();
+        return ator != null ? ator : PADRAO;
+    }
+
+    /**
+     * Executa a ação em nome de {@code ator} (ex.: o cliente de um comando em lote).
+     */
+    public static <T> T como(String ator, Supplier<T> acao) {
+        String anterior = ATUAL.get();
+        ATUAL.set(ator);
+        try {
+            return acao.get();
+        } finally {
+            if (anterior != null) {
+                ATUAL.set(anterior);
+            } else {
+                ATUAL.remove();
+            }
+        }
+    }
+
+    private static String padrao() {
+        String operador = System.getenv("OPERADOR");
+        if (operador != null && !operador.isBlank()) {
+            return operador.trim();
+        }
+        return System.getProperty("user.name", "desconhecido");
+    }
+}
@@ -0,0 +1,23 @@
+package auditoria;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Para onde o {@link GravadorAuditoria} manda os registros: arquivo rotativo
+ * ({@link ArquivoAuditoria}) ou tabela do banco ({@code ProdutoRepository::gravarAuditoria}).
+ */
+@FunctionalInterface
+public interface DestinoAuditoria extends Closeable {
+
+    /**
+     * Grava um lote de registros, na ordem. Uma exceção faz o gravador tentar o
+     * mesmo lote de novo, então a gravação deve ser tudo ou nada.
+     */
+    void gravar(List<RegistroAuditoria> registros) throws Exception;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,193 @@
+package auditoria;
+
+import ambiente.Ambiente;
+import carga.HistogramaLatencia;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Trilha de auditoria assíncrona: quem altera um produto só publica o registro num
+ * {@link AnelAuditoria} sem travas, e uma thread de fundo grava os registros em lotes
+ * no {@link DestinoAuditoria}.
+ *
+ * O custo na operação é o de montar o registro e um compare-and-set; o tempo de cada
+ * publicação fica em {@link #getLatenciaRegistro()}. Nenhum registro é descartado: se o
+ * destino parar e o anel encher, quem publica espera por espaço (contado em
+ * {@link #getEsperasAnelCheio()}), e o gravador repete o lote com espera crescente até
+ * o destino voltar.
+ *
+ * Configuração pelas variáveis de ambiente (ver {@link #doAmbiente}):
+ * <pre>
+ * AUDITORIA=banco | /caminho/auditoria.log
+ * AUDITORIA_MAX_MB=10        tamanho para girar o arquivo
+ * AUDITORIA_ARQUIVOS=5       arquivos girados mantidos
+ * AUDITORIA_CAPACIDADE=8192  registros no anel
+ * </pre>
+ */
+public class GravadorAuditoria implements AutoCloseable {
+
+    private static final int TAMANHO_LOTE = 512;
+    private static final long PAUSA_OCIOSA_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long ESPERA_MAXIMA_MILLIS = 5_000;
+
+    private final AnelAuditoria anel;
+    private final DestinoAuditoria destino;
+    private final Thread gravador;
+    private volatile boolean ativo = true;
+
+    private final HistogramaLatencia latenciaRegistro = new HistogramaLatencia();
+    private final LongAdder esperasAnelCheio = new LongAdder();
+    private volatile long gravados;
+    private volatile long falhasGravacao;
+
+    public GravadorAuditoria(DestinoAuditoria destino, int capacidade) {
+        this.anel = new AnelAuditoria(capacidade);
+        this.destino = destino;
+        this.gravador = new Thread(this::gravarEmLotes, "gravador-auditoria");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+    }
+
+    /**
+     * Monta o gravador a partir de {@code <prefixo>AUDITORIA} e das variáveis relacionadas.
+     *
+     * @param prefixo prefixo das variáveis ({@code ""} no modo de inquilino único)
+     * @param destinoBanco destino da opção {@code banco} (a tabela auditoria do repositório)
+     * @return o gravador, ou null se a auditoria estiver desligada ou o arquivo não abrir
+     */
+    public static GravadorAuditoria doAmbiente(String prefixo, Supplier<DestinoAuditoria> destinoBanco) {
+        String valor = System.getenv(prefixo + "AUDITORIA");
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        int capacidade = Ambiente.inteiro(prefixo + "AUDITORIA_CAPACIDADE", 8192);
+        if (valor.trim().equalsIgnoreCase("banco")) {
+            return new GravadorAuditoria(destinoBanco.get(), capacidade);
+        }
+        try {
+            long tamanhoMaximo = Ambiente.inteiro(prefixo + "AUDITORIA_MAX_MB", 10) * 1024L * 1024L;
+            int arquivos = Ambiente.inteiro(prefixo + "AUDITORIA_ARQUIVOS", 5);
+            return new GravadorAuditoria(new ArquivoAuditoria(Path.of(valor.trim()), tamanhoMaximo, arquivos),
+                    capacidade);
+        } catch (Exception e) {
+            System.err.println("Erro ao abrir o arquivo de auditoria: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Publica um registro para gravação. Só espera se o anel estiver cheio.
+     */
+    public void registrar(RegistroAuditoria registro) {
+        long inicio = System.nanoTime();
+        if (!anel.oferecer(registro)) {
+            esperasAnelCheio.increment();
+            LockSupport.unpark(gravador);
+            while (!anel.oferecer(registro)) {
+                if (!ativo) {
+                    System.err.println("Erro ao registrar auditoria: gravador encerrado; registro perdido: "
+                            + registro.anexarJson(new StringBuilder()));
+                    return;
+                }
+                LockSupport.parkNanos(50_000);
+            }
+        }
+        latenciaRegistro.registrar(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Para de aceitar registros, grava os pendentes e fecha o destino.
+     */
+    @Override
+    public void close() {
+        ativo = false;
+        LockSupport.unpark(gravador);
+        try {
+            gravador.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (gravador.isAlive()) {
+            System.err.println("Erro ao encerrar a auditoria: " + anel.pendentes() + " registro(s) não gravado(s)");
+            gravador.interrupt();
+        }
+        try {
+            destino.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o destino da auditoria: " + e.getMessage());
+        }
+    }
+
+    /** @return tempo gasto por quem altera o produto para publicar o registro */
+    public HistogramaLatencia getLatenciaRegistro() {
+        return latenciaRegistro;
+    }
+
+    public long getEsperasAnelCheio() {
+        return esperasAnelCheio.sum();
+    }
+
+    public long getGravados() {
+        return gravados;
+    }
+
+    public long getFalhasGravacao() {
+        return falhasGravacao;
+    }
+
+    public int getPendentes() {
+        return anel.pendentes();
+    }
+
+    private void gravarEmLotes() {
+        List<RegistroAuditoria> lote = new ArrayList<>(TAMANHO_LOTE);
+        while (true) {
+            // Lê "ativo" antes de drenar: depois de fechado, um anel vazio quer dizer que acabou
+            boolean continuar = ativo;
+            lote.clear();
+            if (anel.drenar(lote, TAMANHO_LOTE) == 0) {
+                if (!continuar) {
+                    return;
+                }
+                LockSupport.parkNanos(this, PAUSA_OCIOSA_NANOS);
+                continue;
+            }
+            if (!gravarComRetentativa(lote)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false se a thread foi interrompida antes de o lote ser gravado
+     */
+    private boolean gravarComRetentativa(List<RegistroAuditoria> lote) {
+        long espera = 100;
+        while (true) {
+            try {
+                destino.gravar(lote);
+                gravados += lote.size();
+                return true;
+            } catch (Exception e) {
+                falhasGravacao++;
+                System.err.println("Erro ao gravar auditoria (" + lote.size() + " registro(s), nova tentativa em "
+                        + espera + " ms): " + e.getMessage());
+            }
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                System.err.println("Erro ao gravar auditoria: interrompido com " + lote.size()
+                        + " registro(s) no lote");
+                return false;
+            }
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_MILLIS);
+        }
+    }
+}
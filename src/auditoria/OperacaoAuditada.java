@@ -0,0 +1,15 @@
+package auditoria;
+
+/**
+ * Alterações de produtos que entram na trilha de auditoria.
+ */
+public enum OperacaoAuditada {
+    CADASTRO,
+    ENTRADA,
+    BAIXA,
+    RECEBIMENTO_LOTE,
+    EXCLUSAO,
+    RESTAURACAO,
+    REAJUSTE_PRECO,
+    CONTAGEM
+}
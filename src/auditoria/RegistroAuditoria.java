@@ -0,0 +1,66 @@
+package auditoria;
+
+/**
+ * Uma alteração de produto na trilha de auditoria: quem fez, quando, o quê, e o
+ * preço e a quantidade antes e depois.
+ *
+ * @param instante milissegundos desde a época, no momento da alteração
+ * @param ator operador, cliente do lote ou terminal que pediu a alteração
+ * @param antes estado anterior, ou null num cadastro
+ * @param depois estado posterior, ou null numa exclusão
+ * @param detalhe informação extra da operação (ex.: lotes baixados), ou null
+ */
+public record RegistroAuditoria(long instante, String ator, OperacaoAuditada operacao, long produtoId,
+                                Estado antes, Estado depois, String detalhe) {
+
+    /**
+     * Preço e quantidade do produto num lado da alteração.
+     */
+    public record Estado(double preco, int quantidade) {
+    }
+
+    /**
+     * Anexa o registro como uma linha JSON, sem quebra de linha no fim.
+     */
+    public StringBuilder anexarJson(StringBuilder destino) {
+        destino.append("{\"instante\":").append(instante).append(",\"ator\":");
+        anexarTexto(destino, ator);
+        destino.append(",\"operacao\":\"").append(operacao.name())
+                .append("\",\"produtoId\":").append(produtoId)
+                .append(",\"antes\":");
+        anexarEstado(destino, antes);
+        destino.append(",\"depois\":");
+        anexarEstado(destino, depois);
+        destino.append(",\"detalhe\":");
+        anexarTexto(destino, detalhe);
+        return destino.append('}');
+    }
+
+    private static void anexarEstado(StringBuilder destino, Estado estado) {
+        if (estado == null) {
+            destino.append("null");
+        } else {
+            destino.append("{\"preco\":").append(estado.preco())
+                    .append(",\"quantidade\":").append(estado.quantidade()).append('}');
+        }
+    }
+
+    private static void anexarTexto(StringBuilder destino, String texto) {
+        if (texto == null) {
+            destino.append("null");
+            return;
+        }
+        destino.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                destino.append('\\').append(c);
+            } else if (c < 0x20) {
+                destino.append(String.format("\\u%04x", (int) c));
+            } else {
+                destino.append(c);
+            }
+        }
+        destino.append('"');
+    }
+}
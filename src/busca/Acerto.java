@@ -0,0 +1,14 @@
+package busca;
+
+import model.TipoProduto;
+
+/**
+ * Produto encontrado pela busca textual, com a pontuação BM25 que definiu a sua posição.
+ */
+public record Acerto(long produtoId, String nome, TipoProduto tipo, double pontuacao) {
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s (%s) - relevância %.2f", produtoId, nome, tipo, pontuacao);
+    }
+}
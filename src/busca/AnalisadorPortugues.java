@@ -0,0 +1,108 @@
+package busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Quebra textos em português nos termos do índice textual.
+ *
+ * O texto vai para minúsculas e perde os acentos; letras e dígitos formam tokens,
+ * separados também na troca entre número e letra ("5kg" vira "5" e "kg", igual a
+ * "5 kg"). Palavras vazias são descartadas e as demais passam por um radicalizador
+ * leve (plural e vogal final), de modo que "integrais", "integral", "feijões" e
+ * "feijão" caiam no mesmo termo.
+ */
+public final class AnalisadorPortugues {
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "e", "as", "os", "um", "uma", "uns", "umas",
+            "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos",
+            "ao", "aos", "para", "pra", "por", "pelo", "pela", "com", "sem",
+            "que", "se", "ou", "mais", "muito");
+
+    private AnalisadorPortugues() {
+    }
+
+    /**
+     * @return os termos do texto, na ordem em que aparecem (com repetições)
+     */
+    public static List<String> termos(String texto) {
+        List<String> termos = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return termos;
+        }
+        String normalizado = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder token = new StringBuilder(16);
+        boolean tokenNumerico = false;
+        for (int i = 0; i < normalizado.length(); i++) {
+            char c = normalizado.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue; // acento separado da letra pela normalização
+            }
+            boolean letra = Character.isLetter(c);
+            boolean digito = Character.isDigit(c);
+            if ((!letra && !digito) || (token.length() > 0 && digito != tokenNumerico)) {
+                emitir(token, tokenNumerico, termos);
+            }
+            if (letra || digito) {
+                token.append(c);
+                tokenNumerico = digito;
+            }
+        }
+        emitir(token, tokenNumerico, termos);
+        return termos;
+    }
+
+    private static void emitir(StringBuilder token, boolean numerico, List<String> termos) {
+        if (token.length() == 0) {
+            return;
+        }
+        String palavra = token.toString();
+        token.setLength(0);
+        if (numerico) {
+            termos.add(palavra);
+        } else if (!PALAVRAS_VAZIAS.contains(palavra)) {
+            termos.add(radical(palavra));
+        }
+    }
+
+    /**
+     * Radicalizador leve: reduz o plural ao singular e remove a vogal final
+     * (gênero), sem tentar derivar sufixos — errar para menos é preferível
+     * a juntar palavras diferentes.
+     */
+    static String radical(String palavra) {
+        if (palavra.length() <= 3) {
+            return palavra;
+        }
+        String p = singular(palavra);
+        int fim = p.length() - 1;
+        char ultima = p.charAt(fim);
+        if (p.length() > 3 && (ultima == 'a' || ultima == 'e' || ultima == 'o')) {
+            p = p.substring(0, fim);
+        }
+        return p;
+    }
+
+    private static String singular(String p) {
+        if (p.endsWith("oes") || p.endsWith("aes")) {
+            return p.substring(0, p.length() - 3) + "ao";
+        }
+        if (p.endsWith("ais") || p.endsWith("eis") || p.endsWith("ois")) {
+            return p.substring(0, p.length() - 2) + "l";
+        }
+        if (p.endsWith("ns")) {
+            return p.substring(0, p.length() - 2) + "m";
+        }
+        if (p.endsWith("res") && p.length() > 4) {
+            return p.substring(0, p.length() - 2);
+        }
+        if (p.endsWith("s") && !p.endsWith("ss") && !p.endsWith("us") && !p.endsWith("is")) {
+            return p.substring(0, p.length() - 1);
+        }
+        return p;
+    }
+}
@@ -0,0 +1,334 @@
+package busca;
+
+import model.Produto;
+import model.TipoProduto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória sobre nome e descrição dos produtos, com ranking BM25.
+ *
+ * Cada termo aponta para a lista dos documentos (produtos) em que aparece e a
+ * frequência em cada um. O nome pesa o dobro da descrição: cada ocorrência no
+ * nome conta duas vezes na frequência e no comprimento do documento.
+ *
+ * As atualizações são incrementais: cadastrar acrescenta o documento nas listas
+ * dos seus termos e excluir apenas o marca como removido (e desconta as
+ * estatísticas). Quando os removidos passam de um terço das listas, elas são
+ * compactadas de uma vez. Buscas usam o lock de leitura e rodam em paralelo
+ * entre si.
+ */
+public class IndiceTextual {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int PESO_NOME = 2;
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postagens> termos = new HashMap<>();
+    private final Map<Long, Integer> documentoPorId = new HashMap<>();
+
+    // Dados por documento, indexados pelo número interno do documento
+    private long[] ids = new long[CAPACIDADE_INICIAL];
+    private String[] nomes = new String[CAPACIDADE_INICIAL];
+    private TipoProduto[] tipos = new TipoProduto[CAPACIDADE_INICIAL];
+    private int[] comprimentos = new int[CAPACIDADE_INICIAL];
+    private String[][] termosDocumento = new String[CAPACIDADE_INICIAL][];
+    private boolean[] removidos = new boolean[CAPACIDADE_INICIAL];
+
+    private int totalDocumentos;
+    private int documentosAtivos;
+    private long somaComprimentos;
+
+    /** Lista de documentos de um termo, em ordem crescente de documento. */
+    private static final class Postagens {
+        int[] documentos = new int[4];
+        int[] frequencias = new int[4];
+        int tamanho;
+        int documentosAtivos;
+
+        void acrescentar(int documento, int frequencia) {
+            if (tamanho == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanho * 2);
+                frequencias = Arrays.copyOf(frequencias, tamanho * 2);
+            }
+            documentos[tamanho] = documento;
+            frequencias[tamanho] = frequencia;
+            tamanho++;
+            documentosAtivos++;
+        }
+    }
+
+    /**
+     * Inclui o produto no índice, substituindo a versão anterior se o id já estiver indexado.
+     */
+    public void registrar(Produto produto) {
+        // A análise do texto fica fora do lock
+        Map<String, Integer> frequencias = new LinkedHashMap<>();
+        int comprimento = 0;
+        for (String termo : AnalisadorPortugues.termos(produto.getNome())) {
+            frequencias.merge(termo, PESO_NOME, Integer::sum);
+            comprimento += PESO_NOME;
+        }
+        for (String termo : AnalisadorPortugues.termos(produto.getDescricao())) {
+            frequencias.merge(termo, 1, Integer::sum);
+            comprimento++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removerSemLock(produto.getId());
+            int documento = alocarDocumento();
+            ids[documento] = produto.getId();
+            nomes[documento] = produto.getNome();
+            tipos[documento] = produto.getTipo();
+            comprimentos[documento] = comprimento;
+
+            String[] distintos = new String[frequencias.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entrada : frequencias.entrySet()) {
+                Postagens postagens = termos.computeIfAbsent(entrada.getKey(), t -> new Postagens());
+                postagens.acrescentar(documento, entrada.getValue());
+                distintos[i++] = entrada.getKey();
+            }
+            termosDocumento[documento] = distintos;
+
+            documentoPorId.put(produto.getId(), documento);
+            documentosAtivos++;
+            somaComprimentos += comprimento;
+            compactarSeNecessario();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retira o produto do índice.
+     * @return true se o produto estava indexado
+     */
+    public boolean remover(long produtoId) {
+        lock.writeLock().lock();
+        try {
+            boolean removido = removerSemLock(produtoId);
+            compactarSeNecessario();
+            return removido;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os produtos que contêm algum termo da consulta, do mais relevante para o menos.
+     *
+     * @param consulta texto livre (ex.: "arroz integral 5kg")
+     * @param tipo filtro por tipo, ou null para todos
+     * @param pagina página desejada, a partir de 1
+     * @param tamanhoPagina acertos por página
+     */
+    public ResultadoBusca buscar(String consulta, TipoProduto tipo, int pagina, int tamanhoPagina) {
+        if (pagina < 1 || tamanhoPagina < 1) {
+            throw new IllegalArgumentException("página e tamanho da página devem ser maiores que zero");
+        }
+        List<String> termosConsulta = AnalisadorPortugues.termos(consulta).stream().distinct().toList();
+
+        lock.readLock().lock();
+        try {
+            if (termosConsulta.isEmpty() || documentosAtivos == 0) {
+                return new ResultadoBusca(0, pagina, tamanhoPagina, List.of());
+            }
+            double[] pontuacoes = new double[totalDocumentos];
+            int[] encontrados = new int[Math.min(totalDocumentos, 1024)];
+            int totalEncontrados = 0;
+            double comprimentoMedio = (double) somaComprimentos / documentosAtivos;
+            // K1 * (1 - B + B * comprimento / médio), separado em parte fixa e parte por comprimento
+            double normalizacaoFixa = K1 * (1 - B);
+            double normalizacaoPorComprimento = K1 * B / comprimentoMedio;
+
+            for (String termo : termosConsulta) {
+                Postagens postagens = termos.get(termo);
+                if (postagens == null || postagens.documentosAtivos == 0) {
+                    continue;
+                }
+                double df = postagens.documentosAtivos;
+                double idf = Math.log(1 + (documentosAtivos - df + 0.5) / (df + 0.5));
+                double peso = idf * (K1 + 1);
+                for (int i = 0; i < postagens.tamanho; i++) {
+                    int documento = postagens.documentos[i];
+                    if (removidos[documento] || (tipo != null && tipos[documento] != tipo)) {
+                        continue;
+                    }
+                    double tf = postagens.frequencias[i];
+                    double normalizacao = normalizacaoFixa + normalizacaoPorComprimento * comprimentos[documento];
+                    if (pontuacoes[documento] == 0) {
+                        if (totalEncontrados == encontrados.length) {
+                            encontrados = Arrays.copyOf(encontrados, encontrados.length * 2);
+                        }
+                        encontrados[totalEncontrados++] = documento;
+                    }
+                    pontuacoes[documento] += peso * tf / (tf + normalizacao);
+                }
+            }
+
+            // Só os melhores até o fim da página pedida precisam de ordenação
+            long limite = (long) pagina * tamanhoPagina;
+            int manter = (int) Math.min(limite, totalEncontrados);
+            PriorityQueue<Integer> melhores = new PriorityQueue<>(Math.max(1, manter),
+                    (a, b) -> comparar(pontuacoes, b, a));
+            for (int i = 0; i < totalEncontrados; i++) {
+                int documento = encontrados[i];
+                if (melhores.size() < manter) {
+                    melhores.add(documento);
+                } else if (manter > 0 && comparar(pontuacoes, documento, melhores.peek()) < 0) {
+                    melhores.poll();
+                    melhores.add(documento);
+                }
+            }
+            Integer[] ordenados = melhores.toArray(new Integer[0]);
+            Arrays.sort(ordenados, (a, b) -> comparar(pontuacoes, a, b));
+
+            int inicio = (int) Math.min((long) (pagina - 1) * tamanhoPagina, ordenados.length);
+            List<Acerto> acertos = new ArrayList<>(ordenados.length - inicio);
+            for (int i = inicio; i < ordenados.length; i++) {
+                int documento = ordenados[i];
+                acertos.add(new Acerto(ids[documento], nomes[documento], tipos[documento], pontuacoes[documento]));
+            }
+            return new ResultadoBusca(totalEncontrados, pagina, tamanhoPagina, acertos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta todo o conteúdo do índice.
+     */
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            termos.clear();
+            documentoPorId.clear();
+            ids = new long[CAPACIDADE_INICIAL];
+            nomes = new String[CAPACIDADE_INICIAL];
+            tipos = new TipoProduto[CAPACIDADE_INICIAL];
+            comprimentos = new int[CAPACIDADE_INICIAL];
+            termosDocumento = new String[CAPACIDADE_INICIAL][];
+            removidos = new boolean[CAPACIDADE_INICIAL];
+            totalDocumentos = 0;
+            documentosAtivos = 0;
+            somaComprimentos = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return quantidade de produtos indexados */
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return documentosAtivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return quantidade de termos distintos no índice */
+    public int totalTermos() {
+        lock.readLock().lock();
+        try {
+            return termos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ordem do ranking: maior pontuação primeiro; empate pelo menor id, para páginas estáveis.
+     */
+    private int comparar(double[] pontuacoes, int a, int b) {
+        int porPontuacao = Double.compare(pontuacoes[b], pontuacoes[a]);
+        return porPontuacao != 0 ? porPontuacao : Long.compare(ids[a], ids[b]);
+    }
+
+    private boolean removerSemLock(long produtoId) {
+        Integer documento = documentoPorId.remove(produtoId);
+        if (documento == null) {
+            return false;
+        }
+        removidos[documento] = true;
+        for (String termo : termosDocumento[documento]) {
+            termos.get(termo).documentosAtivos--;
+        }
+        documentosAtivos--;
+        somaComprimentos -= comprimentos[documento];
+        return true;
+    }
+
+    private int alocarDocumento() {
+        if (totalDocumentos == ids.length) {
+            int capacidade = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidade);
+            nomes = Arrays.copyOf(nomes, capacidade);
+            tipos = Arrays.copyOf(tipos, capacidade);
+            comprimentos = Arrays.copyOf(comprimentos, capacidade);
+            termosDocumento = Arrays.copyOf(termosDocumento, capacidade);
+            removidos = Arrays.copyOf(removidos, capacidade);
+        }
+        return totalDocumentos++;
+    }
+
+    private void compactarSeNecessario() {
+        if ((totalDocumentos - documentosAtivos) * 3 > totalDocumentos) {
+            compactar();
+        }
+    }
+
+    /**
+     * Renumera os documentos ativos e tira os removidos das listas de postagens.
+     */
+    private void compactar() {
+        int[] novoNumero = new int[totalDocumentos];
+        int ativos = 0;
+        for (int documento = 0; documento < totalDocumentos; documento++) {
+            if (removidos[documento]) {
+                novoNumero[documento] = -1;
+                continue;
+            }
+            novoNumero[documento] = ativos;
+            ids[ativos] = ids[documento];
+            nomes[ativos] = nomes[documento];
+            tipos[ativos] = tipos[documento];
+            comprimentos[ativos] = comprimentos[documento];
+            termosDocumento[ativos] = termosDocumento[documento];
+            removidos[ativos] = false;
+            documentoPorId.put(ids[ativos], ativos);
+            ativos++;
+        }
+        Arrays.fill(nomes, ativos, totalDocumentos, null);
+        Arrays.fill(tipos, ativos, totalDocumentos, null);
+        Arrays.fill(termosDocumento, ativos, totalDocumentos, null);
+        Arrays.fill(removidos, ativos, totalDocumentos, false);
+        totalDocumentos = ativos;
+
+        termos.values().removeIf(postagens -> {
+            int mantidas = 0;
+            for (int i = 0; i < postagens.tamanho; i++) {
+                int documento = novoNumero[postagens.documentos[i]];
+                if (documento >= 0) {
+                    postagens.documentos[mantidas] = documento;
+                    postagens.frequencias[mantidas] = postagens.frequencias[i];
+                    mantidas++;
+                }
+            }
+            postagens.tamanho = mantidas;
+            return mantidas == 0;
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package busca;
+
+import java.util.List;
+
+/**
+ * Uma página da busca textual.
+ *
+ * @param total quantidade de produtos que atendem à busca (todas as páginas)
+ * @param pagina número da página, a partir de 1
+ * @param tamanhoPagina máximo de acertos por página
+ * @param acertos acertos desta página, do mais relevante para o menos relevante
+ */
+public record ResultadoBusca(int total, int pagina, int tamanhoPagina, List<Acerto> acertos) {
+
+    /** @return true se existem acertos depois desta página */
+    public boolean temProximaPagina() {
+        return (long) pagina * tamanhoPagina < total;
+    }
+}
@@ -0,0 +1,222 @@
+package carga;
+
+import formatacao.FormatadorMoeda;
+import model.Produto;
+import model.ResumoProduto;
+import model.TipoProduto;
+import repository.ConfiguracaoBanco;
+import repository.MigradorEsquema;
+import repository.ProdutoRepository;
+import repository.ProdutoRepositoryMemoria;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Mede quantos bytes são alocados por linha no mapeamento de produtos e na formatação
+ * da listagem e do relatório, comparando a forma antiga ({@code String.format}, concatenação,
+ * colunas por nome e {@code TipoProduto.valueOf}) com a atual.
+ *
+ * A contagem vem de {@code ThreadMXBean.getThreadAllocatedBytes} da própria thread, depois
+ * de um aquecimento para que o JIT já tenha compilado os laços. Cada etapa devolve um
+ * total tirado do que produziu, publicado em {@link #resultado} para que o JIT não possa
+ * descartar o trabalho medido.
+ *
+ * Uso: {@code java -cp "bin;lib/*" carga.BenchmarkFormatacao [linhas]}
+ */
+public class BenchmarkFormatacao {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int RODADAS = 20;
+
+    private final List<Produto> produtos = new ArrayList<>();
+    private final List<ResumoProduto> resumos = new ArrayList<>();
+
+    // Soma dos totais devolvidos pelas etapas; volatile para que a escrita não seja eliminada
+    private static volatile long resultado;
+
+    public static void main(String[] args) throws SQLException {
+        int linhas = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        BenchmarkFormatacao benchmark = new BenchmarkFormatacao(linhas);
+
+        System.out.printf("%-34s %14s %14s%n", "Etapa (" + linhas + " linhas)", "antes (B/lin)", "agora (B/lin)");
+        benchmark.comparar("Listagem (ResumoProduto)", benchmark::listagemAntiga, benchmark::listagemAtual);
+        benchmark.comparar("Detalhe (Produto.toString)", benchmark::detalheAntigo, benchmark::detalheAtual);
+        benchmark.comparar("Linhas do relatório", benchmark::relatorioAntigo, benchmark::relatorioAtual);
+        benchmark.compararBanco();
+    }
+
+    BenchmarkFormatacao(int linhas) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TipoProduto[] tipos = TipoProduto.values();
+        for (int i = 1; i <= linhas; i++) {
+            Produto produto = new Produto(i, "Produto " + i, "Descrição do produto " + i,
+                    Math.round(random.nextDouble(1, 5000) * 100) / 100.0, random.nextInt(0, 1000),
+                    tipos[random.nextInt(tipos.length)], 7890000000000L + i);
+            produtos.add(produto);
+            resumos.add(new ResumoProduto(i, produto.getNome(), produto.getPreco(),
+                    produto.getQuantidade(), produto.getTipo()));
+        }
+    }
+
+    // --- listagem --------------------------------------------------------------------------
+
+    private long listagemAntiga() {
+        long total = 0;
+        for (ResumoProduto r : resumos) {
+            total += String.format("#%-6d %-30s R$ %10.2f  qtd: %-6d %s",
+                    r.id(), r.nome(), r.preco(), r.quantidade(), r.tipo()).length();
+        }
+        return total;
+    }
+
+    private long listagemAtual() {
+        long total = 0;
+        StringBuilder saida = new StringBuilder(128);
+        for (ResumoProduto r : resumos) {
+            saida.setLength(0);
+            total += r.formatar(saida).length();
+        }
+        return total;
+    }
+
+    // --- detalhe ---------------------------------------------------------------------------
+
+    private long detalheAntigo() {
+        long total = 0;
+        for (Produto p : produtos) {
+            String texto = "Produto {\n" +
+                    "  id = " + p.getId() + ",\n" +
+                    "  nome = '" + p.getNome() + "',\n" +
+                    "  descricao = '" + p.getDescricao() + "',\n" +
+                    "  preco = " + p.getPreco() + ",\n" +
+                    "  quantidade = " + p.getQuantidade() + ",\n" +
+                    "  tipo = " + p.getTipo() + ",\n" +
+                    "  codigoBarras = " + (p.getCodigoBarras() != 0 ? p.getCodigoBarras() : "-") + "\n" +
+                    '}';
+            total += texto.length();
+        }
+        return total;
+    }
+
+    private long detalheAtual() {
+        long total = 0;
+        StringBuilder saida = new StringBuilder(256);
+        for (Produto p : produtos) {
+            saida.setLength(0);
+            total += p.formatar(saida).length();
+        }
+        return total;
+    }
+
+    // --- relatório -------------------------------------------------------------------------
+
+    private long relatorioAntigo() {
+        long total = 0;
+        for (Produto p : produtos) {
+            total += p.getNome().length() + ("R$ " + p.getPreco()).length()
+                    + String.valueOf(p.getQuantidade()).length();
+        }
+        return total;
+    }
+
+    private long relatorioAtual() {
+        long total = 0;
+        StringBuilder celula = new StringBuilder(32);
+        for (Produto p : produtos) {
+            celula.setLength(0);
+            total += p.getNome().length() + FormatadorMoeda.REAL.anexar(celula, p.getPreco()).length()
+                    + celula.append(p.getQuantidade()).length();
+        }
+        return total;
+    }
+
+    // --- banco -----------------------------------------------------------------------------
+
+    /**
+     * Mapeamento no banco embutido, na mesma conexão: colunas por nome com {@code valueOf},
+     * como era, contra colunas por posição com {@link TipoProduto#doBanco}, como faz o
+     * mapeador do repositório. Depois, {@link ProdutoRepository#listaProdutos()} inteiro,
+     * que inclui o custo de leitura repetível do driver.
+     */
+    private void compararBanco() throws SQLException {
+        ConfiguracaoBanco configuracao = ConfiguracaoBanco.embutidoEmMemoria("benchmark_formatacao");
+        new MigradorEsquema(configuracao).migrar();
+        ProdutoRepository repositorio = new ProdutoRepository(configuracao);
+        repositorio.restaurarProdutos(produtos);
+
+        try (Connection conn = DriverManager.getConnection(configuracao.getUrl(),
+                configuracao.getUsuario(), configuracao.getSenha())) {
+            comparar("Mapeamento (banco embutido)", () -> mapear(conn, false), () -> mapear(conn, true));
+        }
+        comparar("listaProdutos (repositório)", null, () -> repositorio.listaProdutos().size());
+
+        ProdutoRepositoryMemoria memoria = new ProdutoRepositoryMemoria();
+        memoria.restaurarProdutos(produtos);
+        comparar("Relatório (repositório em memória)", this::relatorioAntigo,
+                () -> memoria.gerarRelatorio() ? memoria.getCaracteresRelatorio() : 0);
+    }
+
+    private long mapear(Connection conn, boolean porPosicao) {
+        List<Produto> lidos = new ArrayList<>(produtos.size());
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM produtos WHERE excluido_em IS NULL")) {
+            if (porPosicao) {
+                int id = rs.findColumn("id");
+                int nome = rs.findColumn("nome");
+                int descricao = rs.findColumn("descricao");
+                int preco = rs.findColumn("preco");
+                int quantidade = rs.findColumn("quantidade");
+                int tipo = rs.findColumn("tipo");
+                int codigoBarras = rs.findColumn("codigo_barras");
+                while (rs.next()) {
+                    lidos.add(new Produto(rs.getLong(id), rs.getString(nome), rs.getString(descricao),
+                            rs.getDouble(preco), rs.getInt(quantidade), TipoProduto.doBanco(rs.getString(tipo)),
+                            rs.getLong(codigoBarras)));
+                }
+            } else {
+                while (rs.next()) {
+                    lidos.add(new Produto(rs.getLong("id"), rs.getString("nome"), rs.getString("descricao"),
+                            rs.getDouble("preco"), rs.getInt("quantidade"), TipoProduto.valueOf(rs.getString("tipo")),
+                            rs.getLong("codigo_barras")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return lidos.size();
+    }
+
+    // --- medição ---------------------------------------------------------------------------
+
+    /**
+     * @param antes forma antiga, ou null quando só a atual é medida
+     */
+    private void comparar(String etapa, LongSupplier antes, LongSupplier agora) {
+        String anterior = antes != null ? String.format("%14.1f", bytesPorLinha(antes)) : String.format("%14s", "-");
+        System.out.printf("%-34s %s %14.1f%n", etapa, anterior, bytesPorLinha(agora));
+    }
+
+    private double bytesPorLinha(LongSupplier etapa) {
+        for (int i = 0; i < RODADAS; i++) {
+            resultado += etapa.getAsLong();
+        }
+        long thread = Thread.currentThread().getId();
+        long inicio = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < RODADAS; i++) {
+            resultado += etapa.getAsLong();
+        }
+        long alocados = THREADS.getThreadAllocatedBytes(thread) - inicio;
+        return (double) alocados / RODADAS / produtos.size();
+    }
+}
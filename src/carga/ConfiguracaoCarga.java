@@ -0,0 +1,139 @@
+package carga;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parâmetros de uma execução do gerador de carga.
+ * Lidos da linha de comando no formato {@code --chave valor}.
+ *
+ * <ul>
+ *   <li>{@code --clientes}: número de terminais virtuais simultâneos (padrão 64)</li>
+ *   <li>{@code --duracao}: duração da medição em segundos (padrão 30)</li>
+ *   <li>{@code --aquecimento}: segundos de aquecimento não medidos (padrão 5)</li>
+ *   <li>{@code --produtos}: produtos cadastrados antes do teste (padrão 1000)</li>
+ *   <li>{@code --mix}: pesos por operação, ex. {@code buscar=50,adicionar=20,remover=20,listar=5,cadastrar=4,relatorio=1}</li>
+ *   <li>{@code --banco}: {@code memoria} (padrão, repositório em memória) ou {@code embutido}
+ *   (H2 em memória com as migrações do esquema)</li>
+ *   <li>{@code --jdbc}: URL JDBC de um banco já criado; tem precedência sobre {@code --banco}</li>
+ *   <li>{@code --usuario}/{@code --senha}: credenciais do banco informado em {@code --jdbc}</li>
+ *   <li>{@code --pausa}: milissegundos entre as operações de cada terminal (padrão 0)</li>
+ *   <li>{@code --admissao}: vagas do controle de admissão na frente do serviço (padrão 0, desligado)</li>
+ *   <li>{@code --abusivos}: clientes extras de um lote que dispara relatórios e listagens sem pausa,
+ *   todos com o mesmo id de cliente (padrão 0)</li>
+ *   <li>{@code --auditoria}: liga a trilha de auditoria gravando em um arquivo ou em {@code banco}
+ *   (só com banco embutido ou {@code --jdbc}), para medir o custo dela nas movimentações</li>
+ * </ul>
+ */
+public class ConfiguracaoCarga {
+
+    int clientes = 64;
+    int duracaoSegundos = 30;
+    int aquecimentoSegundos = 5;
+    int produtosIniciais = 1000;
+    String banco = "memoria";
+    String jdbcUrl;
+    String usuario;
+    String senha;
+    int pausaMillis;
+    int vagasAdmissao;
+    int clientesAbusivos;
+    String auditoria;
+    final Map<OperacaoCarga, Integer> pesos = new EnumMap<>(OperacaoCarga.class);
+
+    public ConfiguracaoCarga() {
+        pesos.put(OperacaoCarga.BUSCAR, 50);
+        pesos.put(OperacaoCarga.ADICIONAR, 20);
+        pesos.put(OperacaoCarga.REMOVER, 20);
+        pesos.put(OperacaoCarga.LISTAR, 5);
+        pesos.put(OperacaoCarga.CADASTRAR, 4);
+        pesos.put(OperacaoCarga.RELATORIO, 1);
+    }
+
+    /**
+     * Lê a configuração a partir dos argumentos da linha de comando.
+     * @throws IllegalArgumentException se algum argumento for inválido
+     */
+    public static ConfiguracaoCarga deArgumentos(String[] args) {
+        ConfiguracaoCarga config = new ConfiguracaoCarga();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valor ausente para " + args[i]);
+            }
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--clientes" -> config.clientes = positivo(args[i], valor);
+                case "--duracao" -> config.duracaoSegundos = positivo(args[i], valor);
+                case "--aquecimento" -> config.aquecimentoSegundos = Integer.parseInt(valor);
+                case "--produtos" -> config.produtosIniciais = positivo(args[i], valor);
+                case "--mix" -> config.lerMix(valor);
+                case "--banco" -> config.banco = lerBanco(valor);
+                case "--jdbc" -> config.jdbcUrl = valor;
+                case "--usuario" -> config.usuario = valor;
+                case "--senha" -> config.senha = valor;
+                case "--pausa" -> config.pausaMillis = Integer.parseInt(valor);
+                case "--admissao" -> config.vagasAdmissao = positivo(args[i], valor);
+                case "--abusivos" -> config.clientesAbusivos = Integer.parseInt(valor);
+                case "--auditoria" -> config.auditoria = valor;
+                default -> throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Sorteia uma operação respeitando os pesos do mix.
+     * @param sorteio número entre 0 (inclusive) e a soma dos pesos (exclusive)
+     */
+    OperacaoCarga escolher(int sorteio) {
+        for (Map.Entry<OperacaoCarga, Integer> entrada : pesos.entrySet()) {
+            sorteio -= entrada.getValue();
+            if (sorteio < 0) {
+                return entrada.getKey();
+            }
+        }
+        return OperacaoCarga.BUSCAR;
+    }
+
+    int somaPesos() {
+        int soma = 0;
+        for (int peso : pesos.values()) {
+            soma += peso;
+        }
+        return soma;
+    }
+
+    private void lerMix(String mix) {
+        pesos.clear();
+        for (String parte : mix.split(",")) {
+            String[] chaveValor = parte.split("=");
+            if (chaveValor.length != 2) {
+                throw new IllegalArgumentException("Mix inválido: " + parte);
+            }
+            OperacaoCarga operacao = OperacaoCarga.valueOf(chaveValor[0].trim().toUpperCase());
+            int peso = Integer.parseInt(chaveValor[1].trim());
+            if (peso > 0) {
+                pesos.put(operacao, peso);
+            }
+        }
+        if (pesos.isEmpty()) {
+            throw new IllegalArgumentException("O mix precisa de ao menos uma operação com peso positivo");
+        }
+    }
+
+    private static String lerBanco(String valor) {
+        String banco = valor.toLowerCase();
+        if (!banco.equals("memoria") && !banco.equals("embutido")) {
+            throw new IllegalArgumentException("--banco deve ser memoria ou embutido");
+        }
+        return banco;
+    }
+
+    private static int positivo(String nome, String valor) {
+        int numero = Integer.parseInt(valor);
+        if (numero <= 0) {
+            throw new IllegalArgumentException(nome + " deve ser maior que zero");
+        }
+        return numero;
+    }
+}
@@ -0,0 +1,403 @@
+package carga;
+
+import auditoria.ArquivoAuditoria;
+import auditoria.GravadorAuditoria;
+import limites.ClasseOperacao;
+import limites.ControleAdmissao;
+import limites.RequisicaoRecusada;
+import model.Produto;
+import model.TipoProduto;
+import repository.ConfiguracaoBanco;
+import repository.MigradorEsquema;
+import repository.ProdutoRepository;
+import repository.ProdutoRepositoryMemoria;
+import service.ProdutoService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga e teste de resistência para a camada de serviço.
+ * Simula vários terminais simultâneos disparando um mix configurável de
+ * cadastros, buscas, movimentações de estoque, listagens e relatórios,
+ * e ao final exibe vazão, percentis de latência, taxa de falhas e a
+ * conferência de consistência do estoque.
+ *
+ * Com {@code --admissao}, as operações passam pelo {@link ControleAdmissao}, cada terminal
+ * como um cliente; {@code --abusivos} junta um lote mal comportado que dispara relatórios e
+ * listagens sem parar, para conferir que a latência das movimentações não se altera.
+ * Com {@code --auditoria}, as alterações passam pelo {@link GravadorAuditoria} e o resultado
+ * inclui o tempo de publicação dos registros.
+ *
+ * Uso: {@code java -cp "bin;lib/*" carga.GeradorCarga --clientes 200 --duracao 60}
+ * (ver {@link ConfiguracaoCarga} para todas as opções).
+ */
+public class GeradorCarga {
+
+    private final ConfiguracaoCarga config;
+    private final ProdutoService produtoService;
+
+    private final Map<OperacaoCarga, HistogramaLatencia> latencias = new EnumMap<>(OperacaoCarga.class);
+    private final Map<OperacaoCarga, LongAdder> falhas = new EnumMap<>(OperacaoCarga.class);
+    private final Map<OperacaoCarga, LongAdder> erros = new EnumMap<>(OperacaoCarga.class);
+    private final Map<OperacaoCarga, LongAdder> recusadas = new EnumMap<>(OperacaoCarga.class);
+    private final ControleAdmissao admissao;
+
+    // Produtos semeados e o saldo líquido de movimentações bem-sucedidas de cada um
+    private final List<Produto> semeados = new ArrayList<>();
+    private final Map<Long, LongAdder> saldoMovimentado = new HashMap<>();
+    private final LongAdder cadastradosDuranteTeste = new LongAdder();
+    private final AtomicLong sequenciaNomes = new AtomicLong();
+
+    private volatile long inicioMedicao;
+
+    public GeradorCarga(ConfiguracaoCarga config, ProdutoService produtoService) {
+        this.config = config;
+        this.produtoService = produtoService;
+        for (OperacaoCarga operacao : OperacaoCarga.values()) {
+            latencias.put(operacao, new HistogramaLatencia());
+            falhas.put(operacao, new LongAdder());
+            erros.put(operacao, new LongAdder());
+            recusadas.put(operacao, new LongAdder());
+        }
+        this.admissao = config.vagasAdmissao > 0 ? new ControleAdmissao(config.vagasAdmissao) : null;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ConfiguracaoCarga config;
+        try {
+            config = ConfiguracaoCarga.deArgumentos(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro nos argumentos: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        ProdutoRepository repositorio;
+        if (config.jdbcUrl != null) {
+            repositorio = new ProdutoRepository(config.jdbcUrl, config.usuario, config.senha);
+        } else if (config.banco.equals("embutido")) {
+            ConfiguracaoBanco embutido = ConfiguracaoBanco.embutidoEmMemoria("carga");
+            try {
+                new MigradorEsquema(embutido).migrar();
+            } catch (SQLException e) {
+                System.err.println("Erro ao preparar o banco embutido: " + e.getMessage());
+                System.exit(2);
+                return;
+            }
+            repositorio = new ProdutoRepository(embutido);
+        } else {
+            repositorio = new ProdutoRepositoryMemoria();
+        }
+
+        GravadorAuditoria auditoria = null;
+        if (config.auditoria != null) {
+            auditoria = ligarAuditoria(config.auditoria, repositorio);
+            if (auditoria == null) {
+                System.exit(2);
+                return;
+            }
+        }
+
+        GeradorCarga gerador = new GeradorCarga(config, new ProdutoService(repositorio));
+        gerador.semear();
+        gerador.executar();
+        boolean consistente = gerador.imprimirResultado();
+        if (auditoria != null) {
+            auditoria.close();
+            imprimirAuditoria(auditoria);
+        }
+        System.exit(consistente ? 0 : 1);
+    }
+
+    /**
+     * @return o gravador ligado ao repositório, ou null se o destino não puder ser usado
+     */
+    private static GravadorAuditoria ligarAuditoria(String destino, ProdutoRepository repositorio) {
+        GravadorAuditoria auditoria;
+        if (destino.equalsIgnoreCase("banco")) {
+            if (repositorio instanceof ProdutoRepositoryMemoria) {
+                System.err.println("Erro nos argumentos: --auditoria banco exige --banco embutido ou --jdbc");
+                return null;
+            }
+            auditoria = new GravadorAuditoria(repositorio::gravarAuditoria, 8192);
+        } else {
+            try {
+                auditoria = new GravadorAuditoria(new ArquivoAuditoria(Path.of(destino), 64L * 1024 * 1024, 2), 8192);
+            } catch (IOException e) {
+                System.err.println("Erro ao abrir o arquivo de auditoria: " + e.getMessage());
+                return null;
+            }
+        }
+        repositorio.setAuditoria(auditoria);
+        return auditoria;
+    }
+
+    private static void imprimirAuditoria(GravadorAuditoria auditoria) {
+        HistogramaLatencia h = auditoria.getLatenciaRegistro();
+        System.out.printf("Auditoria: %d registros gravados, %d falhas de gravação, %d esperas por anel cheio%n",
+                auditoria.getGravados(), auditoria.getFalhasGravacao(), auditoria.getEsperasAnelCheio());
+        System.out.printf("Publicação do registro (µs): p50 %.1f  p99 %.1f  p99.9 %.1f  máx %.1f%n",
+                h.percentil(50) / 1000.0, h.percentil(99) / 1000.0, h.percentil(99.9) / 1000.0,
+                h.maximo() / 1000.0);
+    }
+
+    /**
+     * Cadastra o catálogo inicial usado pelas buscas e movimentações.
+     */
+    void semear() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < config.produtosIniciais; i++) {
+            Produto produto = novoProduto(random);
+            if (!produtoService.cadastrar(produto)) {
+                throw new IllegalStateException("Falha ao semear o produto " + produto.getNome());
+            }
+        }
+        // Relê do repositório para obter ids e quantidades como foram gravados
+        for (Produto produto : produtoService.listar()) {
+            semeados.add(produto);
+            saldoMovimentado.put(produto.getId(), new LongAdder());
+        }
+        System.out.printf("Catálogo inicial: %d produtos%n", semeados.size());
+    }
+
+    /**
+     * Dispara os clientes virtuais durante o aquecimento e a medição.
+     */
+    void executar() throws InterruptedException {
+        long agora = System.nanoTime();
+        inicioMedicao = agora + TimeUnit.SECONDS.toNanos(config.aquecimentoSegundos);
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(config.duracaoSegundos);
+
+        System.out.printf("Executando %d clientes%s: %ds de aquecimento + %ds de medição...%n",
+                config.clientes,
+                config.clientesAbusivos > 0 ? " e " + config.clientesAbusivos + " abusivos" : "",
+                config.aquecimentoSegundos, config.duracaoSegundos);
+
+        ExecutorService executor = criarExecutor();
+        for (int i = 0; i < config.clientes; i++) {
+            String id = "terminal-" + i;
+            executor.execute(() -> cliente(id, fim));
+        }
+        for (int i = 0; i < config.clientesAbusivos; i++) {
+            executor.execute(() -> clienteAbusivo(fim));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(config.aquecimentoSegundos + config.duracaoSegundos + 60L, TimeUnit.SECONDS)) {
+            System.err.println("Aviso: clientes não terminaram no tempo esperado");
+            executor.shutdownNow();
+        }
+    }
+
+    private void cliente(String id, long fim) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int somaPesos = config.somaPesos();
+        while (System.nanoTime() < fim) {
+            medirOperacao(id, config.escolher(random.nextInt(somaPesos)), random);
+            if (config.pausaMillis > 0) {
+                try {
+                    Thread.sleep(config.pausaMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lote mal comportado: relatórios e listagens sem pausa, todos com o mesmo id de cliente.
+     */
+    private void clienteAbusivo(long fim) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean relatorio = false;
+        while (System.nanoTime() < fim) {
+            relatorio = !relatorio;
+            medirOperacao("lote", relatorio ? OperacaoCarga.RELATORIO : OperacaoCarga.LISTAR, random);
+        }
+    }
+
+    private void medirOperacao(String cliente, OperacaoCarga operacao, ThreadLocalRandom random) {
+        boolean medir = System.nanoTime() >= inicioMedicao;
+        long inicio = System.nanoTime();
+        try {
+            boolean ok = admissao == null
+                    ? executarOperacao(operacao, random)
+                    : admissao.executar(cliente, classe(operacao), () -> executarOperacao(operacao, random));
+            if (medir && !ok) {
+                falhas.get(operacao).increment();
+            }
+        } catch (RequisicaoRecusada e) {
+            // Recusas são respondidas na hora; não entram na latência das operações executadas
+            if (medir) {
+                recusadas.get(operacao).increment();
+            }
+            return;
+        } catch (Exception e) {
+            if (medir) {
+                erros.get(operacao).increment();
+            }
+        }
+        if (medir) {
+            latencias.get(operacao).registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    private static ClasseOperacao classe(OperacaoCarga operacao) {
+        return switch (operacao) {
+            case ADICIONAR, REMOVER -> ClasseOperacao.MOVIMENTACAO;
+            case BUSCAR, LISTAR -> ClasseOperacao.CONSULTA;
+            case CADASTRAR -> ClasseOperacao.CADASTRO;
+            case RELATORIO -> ClasseOperacao.RELATORIO;
+        };
+    }
+
+    private boolean executarOperacao(OperacaoCarga operacao, ThreadLocalRandom random) {
+        Produto alvo = semeados.get(random.nextInt(semeados.size()));
+        switch (operacao) {
+            case CADASTRAR -> {
+                boolean ok = produtoService.cadastrar(novoProduto(random));
+                if (ok) {
+                    cadastradosDuranteTeste.increment();
+                }
+                return ok;
+            }
+            case BUSCAR -> {
+                return produtoService.buscarPorNome(alvo.getNome()) != null;
+            }
+            case ADICIONAR -> {
+                int quantidade = 1 + random.nextInt(5);
+                boolean ok = produtoService.adicionarQuantidade(alvo.getId(), quantidade);
+                if (ok) {
+                    saldoMovimentado.get(alvo.getId()).add(quantidade);
+                }
+                return ok;
+            }
+            case REMOVER -> {
+                int quantidade = 1 + random.nextInt(5);
+                boolean ok = produtoService.removerQuantidade(alvo.getId(), quantidade);
+                if (ok) {
+                    saldoMovimentado.get(alvo.getId()).add(-quantidade);
+                }
+                return ok;
+            }
+            case LISTAR -> {
+                return !produtoService.listarResumos().isEmpty();
+            }
+            case RELATORIO -> {
+                return produtoService.emitirRelatorio();
+            }
+            default -> throw new IllegalStateException("Operação não suportada: " + operacao);
+        }
+    }
+
+    /**
+     * Exibe as métricas coletadas e confere o estoque final.
+     * @return true se o estoque final bate com as movimentações confirmadas
+     */
+    boolean imprimirResultado() {
+        double segundos = config.duracaoSegundos;
+        long totalOperacoes = 0;
+
+        System.out.println();
+        System.out.println("=== RESULTADO DO TESTE DE CARGA ===");
+        System.out.printf("%-10s %10s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operação", "ops/s", "falhas", "erros", "recusadas",
+                "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "máx(ms)");
+        for (OperacaoCarga operacao : OperacaoCarga.values()) {
+            HistogramaLatencia h = latencias.get(operacao);
+            long recusas = recusadas.get(operacao).sum();
+            if (h.contagem() == 0 && recusas == 0) {
+                continue;
+            }
+            totalOperacoes += h.contagem();
+            System.out.printf("%-10s %10.1f %8d %8d %9d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    operacao.name().toLowerCase(),
+                    h.contagem() / segundos,
+                    falhas.get(operacao).sum(),
+                    erros.get(operacao).sum(),
+                    recusas,
+                    ms(h.percentil(50)), ms(h.percentil(90)), ms(h.percentil(99)),
+                    ms(h.percentil(99.9)), ms(h.maximo()));
+        }
+        long totalErros = 0;
+        for (LongAdder contador : erros.values()) {
+            totalErros += contador.sum();
+        }
+        System.out.printf("Vazão total: %.1f ops/s (%d operações, %d clientes)%n",
+                totalOperacoes / segundos, totalOperacoes, config.clientes);
+        System.out.printf("Taxa de erros: %.4f%%%n", totalOperacoes == 0 ? 0.0 : 100.0 * totalErros / totalOperacoes);
+
+        return conferirEstoque();
+    }
+
+    private boolean conferirEstoque() {
+        Map<Long, Produto> finais = new HashMap<>();
+        for (Produto produto : produtoService.listar()) {
+            finais.put(produto.getId(), produto);
+        }
+
+        int divergencias = 0;
+        for (Produto inicial : semeados) {
+            Produto atual = finais.get(inicial.getId());
+            long esperado = inicial.getQuantidade() + saldoMovimentado.get(inicial.getId()).sum();
+            if (atual == null || atual.getQuantidade() != esperado || atual.getQuantidade() < 0) {
+                if (divergencias++ < 10) {
+                    System.err.printf("Divergência no produto %d: esperado %d, encontrado %s%n",
+                            inicial.getId(), esperado, atual == null ? "ausente" : atual.getQuantidade());
+                }
+            }
+        }
+
+        long esperadoTotal = semeados.size() + cadastradosDuranteTeste.sum();
+        boolean totalOk = finais.size() == esperadoTotal;
+        if (!totalOk) {
+            System.err.printf("Total de produtos divergente: esperado %d, encontrado %d%n", esperadoTotal, finais.size());
+        }
+
+        boolean consistente = divergencias == 0 && totalOk;
+        System.out.println(consistente
+                ? "✅ Estoque final consistente com as movimentações confirmadas"
+                : "❌ Estoque final inconsistente (" + divergencias + " produtos divergentes)");
+        return consistente;
+    }
+
+    private Produto novoProduto(ThreadLocalRandom random) {
+        long n = sequenciaNomes.incrementAndGet();
+        Produto produto = new Produto();
+        produto.setNome(String.format("Produto-%07d", n));
+        produto.setDescricao("Produto gerado pelo teste de carga #" + n);
+        produto.setPreco(1 + random.nextInt(100_000) / 100.0);
+        produto.setQuantidade(100 + random.nextInt(900));
+        produto.setTipo(n % 2 == 0 ? TipoProduto.CONSUMO : TipoProduto.RESERVADO);
+        return produto;
+    }
+
+    /**
+     * Usa threads virtuais quando a JVM oferece (Java 21+); caso contrário,
+     * uma thread de plataforma por cliente.
+     */
+    private ExecutorService criarExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(config.clientes + config.clientesAbusivos);
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,119 @@
+package carga;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências com faixas log-lineares (16 subfaixas por potência de 2),
+ * com erro relativo máximo de ~6%. Ocupa memória fixa independentemente do número
+ * de amostras, o que permite rodar testes de longa duração, e aceita registros
+ * concorrentes sem bloqueio.
+ */
+public class HistogramaLatencia {
+
+    private static final int SUBFAIXAS_BITS = 4;
+    private static final int SUBFAIXAS = 1 << SUBFAIXAS_BITS;
+    private static final int TOTAL_FAIXAS = 64 * SUBFAIXAS;
+
+    private final AtomicLongArray faixas = new AtomicLongArray(TOTAL_FAIXAS);
+    private final AtomicLong contagem = new AtomicLong();
+    private final AtomicLong soma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra uma amostra de latência.
+     * @param nanos duração em nanossegundos
+     */
+    public void registrar(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        faixas.incrementAndGet(indice(nanos));
+        contagem.incrementAndGet();
+        soma.addAndGet(nanos);
+        maximo.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Retorna o valor (limite superior da faixa) abaixo do qual estão {@code percentil}% das amostras.
+     * @param percentil valor entre 0 e 100
+     * @return latência em nanossegundos, ou 0 se não houver amostras
+     */
+    public long percentil(double percentil) {
+        long total = contagem.get();
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            acumulado += faixas.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public long contagem() {
+        return contagem.get();
+    }
+
+    public long maximo() {
+        return maximo.get();
+    }
+
+    /**
+     * @return média das amostras em nanossegundos
+     */
+    public double media() {
+        long total = contagem.get();
+        return total == 0 ? 0 : (double) soma.get() / total;
+    }
+
+    /**
+     * Soma as amostras de {@code outro} às deste histograma (ex.: para juntar intervalos).
+     */
+    public void acumular(HistogramaLatencia outro) {
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            long valor = outro.faixas.get(i);
+            if (valor != 0) {
+                faixas.addAndGet(i, valor);
+            }
+        }
+        contagem.addAndGet(outro.contagem.get());
+        soma.addAndGet(outro.soma.get());
+        maximo.accumulateAndGet(outro.maximo.get(), Math::max);
+    }
+
+    /**
+     * Descarta todas as amostras registradas.
+     */
+    public void limpar() {
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            faixas.set(i, 0);
+        }
+        contagem.set(0);
+        soma.set(0);
+        maximo.set(0);
+    }
+
+    private static int indice(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) ((valor >>> (expoente - SUBFAIXAS_BITS)) & (SUBFAIXAS - 1));
+        return (expoente - SUBFAIXAS_BITS + 1) * SUBFAIXAS + sub;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUBFAIXAS) {
+            return indice;
+        }
+        int expoente = indice / SUBFAIXAS + SUBFAIXAS_BITS - 1;
+        int sub = indice % SUBFAIXAS;
+        long inferior = (long) (SUBFAIXAS + sub) << (expoente - SUBFAIXAS_BITS);
+        return inferior + (1L << (expoente - SUBFAIXAS_BITS)) - 1;
+    }
+}
@@ -0,0 +1,14 @@
+package carga;
+
+/**
+ * Tipos de operação que o gerador de carga pode disparar contra o serviço.
+ * Cada uma corresponde a uma opção do Menu.
+ */
+public enum OperacaoCarga {
+    CADASTRAR,
+    BUSCAR,
+    ADICIONAR,
+    REMOVER,
+    LISTAR,
+    RELATORIO;
+}
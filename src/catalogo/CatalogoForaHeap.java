@@ -0,0 +1,420 @@
+package catalogo;
+
+import eventos.EventoProduto;
+import model.Produto;
+import model.TipoProduto;
+import repository.ProdutoRepository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Catálogo de produtos mantido fora do heap, para cachear milhões de SKUs no
+ * processo sem pressionar o coletor de lixo.
+ *
+ * Cada produto ocupa um registro de tamanho fixo ({@value #TAMANHO_REGISTRO} bytes)
+ * em blocos de {@link ByteBuffer#allocateDirect memória direta}; nome e descrição
+ * ficam no {@link DicionarioTextos}, que guarda cada texto distinto uma única vez.
+ * O índice por id usa apenas arrays primitivos. No heap sobra só um punhado de
+ * arrays, independentemente do tamanho do catálogo.
+ *
+ * As leituras e varreduras podem ser concorrentes entre si; as escritas são serializadas.
+ */
+public class CatalogoForaHeap {
+
+    // Layout do registro
+    static final int ID = 0;
+    static final int PRECO = 8;
+    static final int CODIGO_BARRAS = 16;
+    static final int QUANTIDADE = 24;
+    static final int NOME = 28;
+    static final int DESCRICAO = 32;
+    static final int TIPO = 36;
+    static final int ATIVO = 37;
+    static final int TAMANHO_REGISTRO = 40;
+
+    static final TipoProduto[] TIPOS = TipoProduto.values();
+
+    private static final int REGISTROS_POR_BLOCO_PADRAO = 1 << 16;
+
+    private final int registrosPorBloco;
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    private final DicionarioTextos textos = new DicionarioTextos();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Índice id -> número do registro (endereçamento aberto; id 0 marca posição vazia)
+    private long[] ids = new long[1024];
+    private int[] registros = new int[1024];
+
+    private int[] registrosLivres = new int[64];
+    private int totalLivres;
+    private int proximoRegistro;
+    private int tamanho;
+
+    public CatalogoForaHeap() {
+        this(REGISTROS_POR_BLOCO_PADRAO);
+    }
+
+    /**
+     * @param registrosPorBloco quantos produtos cabem em cada bloco de memória direta
+     */
+    public CatalogoForaHeap(int registrosPorBloco) {
+        this.registrosPorBloco = registrosPorBloco;
+    }
+
+    /**
+     * Carrega (ou atualiza) todos os produtos ativos do repositório, linha a linha.
+     * @return quantidade de produtos no catálogo após a carga
+     */
+    public int carregar(ProdutoRepository produtoRepository) {
+        produtoRepository.percorrerProdutos(this::salvar);
+        return tamanho();
+    }
+
+    /**
+     * Inclui o produto ou substitui o registro existente com o mesmo id.
+     */
+    public void salvar(Produto produto) {
+        if (produto.getId() <= 0) {
+            throw new IllegalArgumentException("Produto sem id não pode ir para o catálogo");
+        }
+        lock.writeLock().lock();
+        try {
+            int registro = localizar(produto.getId());
+            if (registro < 0) {
+                registro = alocarRegistro();
+                indexar(produto.getId(), registro);
+                tamanho++;
+            }
+            ByteBuffer bloco = blocos.get(registro / registrosPorBloco);
+            int offset = (registro % registrosPorBloco) * TAMANHO_REGISTRO;
+            bloco.putLong(offset + ID, produto.getId());
+            bloco.putDouble(offset + PRECO, produto.getPreco());
+            bloco.putLong(offset + CODIGO_BARRAS, produto.getCodigoBarras());
+            bloco.putInt(offset + QUANTIDADE, produto.getQuantidade());
+            bloco.putInt(offset + NOME, textos.codificar(produto.getNome()));
+            bloco.putInt(offset + DESCRICAO, textos.codificar(produto.getDescricao()));
+            bloco.put(offset + TIPO, (byte) produto.getTipo().ordinal());
+            bloco.put(offset + ATIVO, (byte) 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Soma a variação à quantidade do produto.
+     * @return false se o produto não estiver no catálogo
+     */
+    public boolean ajustarQuantidade(long id, int variacao) {
+        lock.writeLock().lock();
+        try {
+            int registro = localizar(id);
+            if (registro < 0) {
+                return false;
+            }
+            ByteBuffer bloco = blocos.get(registro / registrosPorBloco);
+            int offset = (registro % registrosPorBloco) * TAMANHO_REGISTRO + QUANTIDADE;
+            bloco.putInt(offset, bloco.getInt(offset) + variacao);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Troca o preço do produto.
+     * @return false se o produto não estiver no catálogo
+     */
+    public boolean alterarPreco(long id, double preco) {
+        lock.writeLock().lock();
+        try {
+            int registro = localizar(id);
+            if (registro < 0) {
+                return false;
+            }
+            blocos.get(registro / registrosPorBloco)
+                    .putDouble((registro % registrosPorBloco) * TAMANHO_REGISTRO + PRECO, preco);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retira o produto do catálogo; o registro é reaproveitado pelo próximo cadastro.
+     */
+    public boolean remover(long id) {
+        lock.writeLock().lock();
+        try {
+            int registro = localizar(id);
+            if (registro < 0) {
+                return false;
+            }
+            desindexar(id);
+            blocos.get(registro / registrosPorBloco).put((registro % registrosPorBloco) * TAMANHO_REGISTRO + ATIVO, (byte) 0);
+            if (totalLivres == registrosLivres.length) {
+                registrosLivres = Arrays.copyOf(registrosLivres, totalLivres * 2);
+            }
+            registrosLivres[totalLivres++] = registro;
+            tamanho--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mantém o catálogo sincronizado a partir do feed de alterações.
+     */
+    public void aplicar(EventoProduto evento) {
+        switch (evento.getTipo()) {
+            case CRIADO -> salvar(evento.getProduto());
+            case QUANTIDADE_ALTERADA, QUANTIDADE_CORRIGIDA, QUANTIDADE_DESCARTADA ->
+                    ajustarQuantidade(evento.getProdutoId(), evento.getQuantidade());
+            case EXCLUIDO -> remover(evento.getProdutoId());
+            case PRECO_ALTERADO -> alterarPreco(evento.getProdutoId(), evento.getPreco());
+        }
+    }
+
+    /**
+     * Materializa um produto do catálogo no heap.
+     * @return o produto, ou null se não estiver no catálogo
+     */
+    public Produto buscar(long id) {
+        lock.readLock().lock();
+        try {
+            int registro = localizar(id);
+            if (registro < 0) {
+                return null;
+            }
+            VisaoProduto visao = new VisaoProduto(this);
+            posicionar(visao, registro);
+            return visao.paraProduto();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Posiciona o flyweight no produto, sem alocação. A visão acompanha o registro,
+     * então uma escrita posterior no mesmo produto aparece nela.
+     * @return false se o produto não estiver no catálogo
+     */
+    public boolean ler(long id, VisaoProduto visao) {
+        lock.readLock().lock();
+        try {
+            int registro = localizar(id);
+            if (registro < 0) {
+                return false;
+            }
+            posicionar(visao, registro);
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cria um flyweight para uso com {@link #ler(long, VisaoProduto)}.
+     */
+    public VisaoProduto novaVisao() {
+        return new VisaoProduto(this);
+    }
+
+    /**
+     * Percorre todos os produtos ativos com um único flyweight reposicionado a cada
+     * registro. Se a ação não alocar, a varredura inteira não gera lixo.
+     */
+    public void varrer(Consumer<VisaoProduto> acao) {
+        lock.readLock().lock();
+        try {
+            VisaoProduto visao = new VisaoProduto(this);
+            for (int b = 0; b < blocos.size(); b++) {
+                ByteBuffer bloco = blocos.get(b);
+                int limite = Math.min(registrosPorBloco, proximoRegistro - b * registrosPorBloco);
+                for (int r = 0; r < limite; r++) {
+                    int offset = r * TAMANHO_REGISTRO;
+                    if (bloco.get(offset + ATIVO) != 0) {
+                        visao.posicionar(bloco, offset);
+                        acao.accept(visao);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Valor total do estoque (preço × quantidade), lido direto dos blocos.
+     */
+    public double valorEmEstoque() {
+        lock.readLock().lock();
+        try {
+            double total = 0;
+            for (int b = 0; b < blocos.size(); b++) {
+                ByteBuffer bloco = blocos.get(b);
+                int limite = Math.min(registrosPorBloco, proximoRegistro - b * registrosPorBloco);
+                for (int r = 0; r < limite; r++) {
+                    int offset = r * TAMANHO_REGISTRO;
+                    if (bloco.get(offset + ATIVO) != 0) {
+                        total += bloco.getDouble(offset + PRECO) * bloco.getInt(offset + QUANTIDADE);
+                    }
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Soma das quantidades em estoque dos produtos de um tipo.
+     */
+    public long quantidadeTotal(TipoProduto tipo) {
+        byte ordinal = (byte) tipo.ordinal();
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (int b = 0; b < blocos.size(); b++) {
+                ByteBuffer bloco = blocos.get(b);
+                int limite = Math.min(registrosPorBloco, proximoRegistro - b * registrosPorBloco);
+                for (int r = 0; r < limite; r++) {
+                    int offset = r * TAMANHO_REGISTRO;
+                    if (bloco.get(offset + ATIVO) != 0 && bloco.get(offset + TIPO) == ordinal) {
+                        total += bloco.getInt(offset + QUANTIDADE);
+                    }
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return tamanho;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes de memória direta reservados (registros + dicionário de textos)
+     */
+    public long bytesForaHeap() {
+        lock.readLock().lock();
+        try {
+            return (long) blocos.size() * registrosPorBloco * TAMANHO_REGISTRO + textos.bytesReservados();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return quantidade de textos distintos no dicionário (nomes e descrições)
+     */
+    public int textosDistintos() {
+        lock.readLock().lock();
+        try {
+            return textos.total();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    DicionarioTextos textos() {
+        return textos;
+    }
+
+    private void posicionar(VisaoProduto visao, int registro) {
+        visao.posicionar(blocos.get(registro / registrosPorBloco), (registro % registrosPorBloco) * TAMANHO_REGISTRO);
+    }
+
+    private int alocarRegistro() {
+        if (totalLivres > 0) {
+            return registrosLivres[--totalLivres];
+        }
+        if (proximoRegistro == blocos.size() * registrosPorBloco) {
+            blocos.add(ByteBuffer.allocateDirect(registrosPorBloco * TAMANHO_REGISTRO));
+        }
+        return proximoRegistro++;
+    }
+
+    // ===== Índice id -> registro =====
+
+    private int localizar(long id) {
+        int mascara = ids.length - 1;
+        int i = posicaoInicial(id, mascara);
+        while (ids[i] != 0) {
+            if (ids[i] == id) {
+                return registros[i];
+            }
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    private void indexar(long id, int registro) {
+        if ((tamanho + 1) * 2 > ids.length) {
+            redimensionarIndice();
+        }
+        int mascara = ids.length - 1;
+        int i = posicaoInicial(id, mascara);
+        while (ids[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        ids[i] = id;
+        registros[i] = registro;
+    }
+
+    private void desindexar(long id) {
+        int mascara = ids.length - 1;
+        int i = posicaoInicial(id, mascara);
+        while (ids[i] != id) {
+            i = (i + 1) & mascara;
+        }
+        // Deslocamento para trás, sem lápides
+        int vazio = i;
+        int j = (i + 1) & mascara;
+        while (ids[j] != 0) {
+            int ideal = posicaoInicial(ids[j], mascara);
+            if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+                ids[vazio] = ids[j];
+                registros[vazio] = registros[j];
+                vazio = j;
+            }
+            j = (j + 1) & mascara;
+        }
+        ids[vazio] = 0;
+    }
+
+    private void redimensionarIndice() {
+        long[] antigosIds = ids;
+        int[] antigosRegistros = registros;
+        ids = new long[antigosIds.length * 2];
+        registros = new int[antigosIds.length * 2];
+        int mascara = ids.length - 1;
+        for (int j = 0; j < antigosIds.length; j++) {
+            if (antigosIds[j] != 0) {
+                int i = posicaoInicial(antigosIds[j], mascara);
+                while (ids[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                ids[i] = antigosIds[j];
+                registros[i] = antigosRegistros[j];
+            }
+        }
+    }
+
+    private static int posicaoInicial(long id, int mascara) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,170 @@
+package catalogo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dicionário de textos fora do heap. Cada texto distinto é gravado uma única vez,
+ * em UTF-8, em blocos de memória direta, e passa a ser representado por uma
+ * referência {@code int}; textos repetidos (nomes de variações, descrições padrão)
+ * reaproveitam a mesma referência.
+ *
+ * A deduplicação usa uma tabela de hash de arrays primitivos, então o dicionário
+ * não cria nenhum objeto por texto armazenado. Não é thread-safe: o
+ * {@link CatalogoForaHeap} serializa as escritas.
+ */
+class DicionarioTextos {
+
+    /** Referência usada para texto nulo. */
+    static final int NULO = -1;
+
+    private static final int BITS_OFFSET = 24;
+    private static final int TAMANHO_BLOCO = 1 << BITS_OFFSET;
+
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    private ByteBuffer blocoAtual;
+
+    // Tabela de hash: referência + 1 (0 = vazio) e o hash do texto, para evitar comparar bytes à toa
+    private int[] referencias = new int[1024];
+    private int[] hashes = new int[1024];
+    private int total;
+
+    /**
+     * Retorna a referência do texto, gravando-o se ainda não existir.
+     */
+    int codificar(String texto) {
+        if (texto == null) {
+            return NULO;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int mascara = referencias.length - 1;
+        int i = hash & mascara;
+        while (referencias[i] != 0) {
+            if (hashes[i] == hash && iguais(referencias[i] - 1, bytes)) {
+                return referencias[i] - 1;
+            }
+            i = (i + 1) & mascara;
+        }
+
+        int referencia = gravar(bytes);
+        referencias[i] = referencia + 1;
+        hashes[i] = hash;
+        if (++total * 2 > referencias.length) {
+            redimensionar();
+        }
+        return referencia;
+    }
+
+    /**
+     * Decodifica o texto para uma nova String.
+     */
+    String decodificar(int referencia) {
+        if (referencia == NULO) {
+            return null;
+        }
+        ByteBuffer bloco = blocos.get(referencia >>> BITS_OFFSET);
+        int offset = referencia & (TAMANHO_BLOCO - 1);
+        int tamanho = bloco.getInt(offset);
+        byte[] bytes = new byte[tamanho];
+        bloco.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodifica o texto anexando-o ao destino, sem criar objetos intermediários.
+     */
+    void decodificar(int referencia, StringBuilder destino) {
+        if (referencia == NULO) {
+            return;
+        }
+        ByteBuffer bloco = blocos.get(referencia >>> BITS_OFFSET);
+        int offset = referencia & (TAMANHO_BLOCO - 1);
+        int fim = offset + 4 + bloco.getInt(offset);
+        int i = offset + 4;
+        while (i < fim) {
+            int b = bloco.get(i++) & 0xFF;
+            if (b < 0x80) {
+                destino.append((char) b);
+            } else if (b < 0xE0) {
+                destino.append((char) (((b & 0x1F) << 6) | (bloco.get(i++) & 0x3F)));
+            } else if (b < 0xF0) {
+                destino.append((char) (((b & 0x0F) << 12) | ((bloco.get(i++) & 0x3F) << 6) | (bloco.get(i++) & 0x3F)));
+            } else {
+                int cp = ((b & 0x07) << 18) | ((bloco.get(i++) & 0x3F) << 12)
+                        | ((bloco.get(i++) & 0x3F) << 6) | (bloco.get(i++) & 0x3F);
+                destino.appendCodePoint(cp);
+            }
+        }
+    }
+
+    /** @return quantidade de textos distintos */
+    int total() {
+        return total;
+    }
+
+    /** @return bytes reservados fora do heap */
+    long bytesReservados() {
+        return (long) blocos.size() * TAMANHO_BLOCO;
+    }
+
+    private int gravar(byte[] bytes) {
+        int necessario = 4 + bytes.length;
+        if (necessario > TAMANHO_BLOCO) {
+            throw new IllegalArgumentException("Texto maior que o bloco do dicionário: " + bytes.length + " bytes");
+        }
+        if (blocoAtual == null || blocoAtual.remaining() < necessario) {
+            if (blocos.size() == 1 << (31 - BITS_OFFSET)) {
+                throw new IllegalStateException("Dicionário de textos cheio");
+            }
+            blocoAtual = ByteBuffer.allocateDirect(TAMANHO_BLOCO);
+            blocos.add(blocoAtual);
+        }
+        int offset = blocoAtual.position();
+        blocoAtual.putInt(bytes.length);
+        blocoAtual.put(bytes);
+        return ((blocos.size() - 1) << BITS_OFFSET) | offset;
+    }
+
+    private boolean iguais(int referencia, byte[] bytes) {
+        ByteBuffer bloco = blocos.get(referencia >>> BITS_OFFSET);
+        int offset = referencia & (TAMANHO_BLOCO - 1);
+        if (bloco.getInt(offset) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bloco.get(offset + 4 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void redimensionar() {
+        int[] antigasReferencias = referencias;
+        int[] antigosHashes = hashes;
+        referencias = new int[antigasReferencias.length * 2];
+        hashes = new int[antigasReferencias.length * 2];
+        int mascara = referencias.length - 1;
+        for (int j = 0; j < antigasReferencias.length; j++) {
+            if (antigasReferencias[j] != 0) {
+                int i = antigosHashes[j] & mascara;
+                while (referencias[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                referencias[i] = antigasReferencias[j];
+                hashes[i] = antigosHashes[j];
+            }
+        }
+    }
+
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ b) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,73 @@
+package catalogo;
+
+import eventos.AssinaturaFeed;
+import eventos.EventoProduto;
+import eventos.FeedAlteracoes;
+import repository.ProdutoRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém um {@link CatalogoForaHeap} em dia com o {@link FeedAlteracoes}: carrega os
+ * produtos ativos do banco e, numa thread própria, aplica cada evento publicado depois
+ * da carga. Assim as listagens podem ler do catálogo em vez de ir ao banco.
+ *
+ * Deve ser criado na partida, antes de o processo atender, para que nenhuma alteração
+ * fique entre a carga e o início da assinatura.
+ */
+public class ReplicadorCatalogo implements AutoCloseable {
+
+    private final CatalogoForaHeap catalogo;
+    private final AssinaturaFeed assinatura;
+    private final Thread thread;
+    private volatile boolean ativo = true;
+
+    /**
+     * @param arquivoOffset posição da assinatura; é reescrito a cada partida, já que o
+     *                      catálogo sempre recomeça do banco
+     */
+    public ReplicadorCatalogo(CatalogoForaHeap catalogo, ProdutoRepository produtoRepository, FeedAlteracoes feed,
+                              Path arquivoOffset) throws IOException {
+        this.catalogo = catalogo;
+        catalogo.carregar(produtoRepository);
+        Files.writeString(arquivoOffset, Long.toString(feed.getUltimoOffset()));
+        this.assinatura = feed.assinar("catalogo-fora-heap", 4096, arquivoOffset);
+        this.thread = new Thread(this::acompanhar, "catalogo-fora-heap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public CatalogoForaHeap getCatalogo() {
+        return catalogo;
+    }
+
+    private void acompanhar() {
+        while (ativo) {
+            try {
+                EventoProduto evento = assinatura.proximo(200, TimeUnit.MILLISECONDS);
+                if (evento != null) {
+                    catalogo.aplicar(evento);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erro ao aplicar o feed no catálogo fora do heap: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        ativo = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assinatura.close();
+    }
+}
@@ -0,0 +1,84 @@
+package catalogo;
+
+import model.Produto;
+import model.TipoProduto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight de leitura sobre um registro do {@link CatalogoForaHeap}. A mesma
+ * instância é reposicionada a cada registro durante uma varredura, e os campos
+ * numéricos são lidos direto da memória fora do heap, sem alocação.
+ *
+ * Só é válida durante a varredura ou leitura que a posicionou; para guardar o
+ * produto, use {@link #paraProduto()}.
+ */
+public class VisaoProduto {
+
+    private final CatalogoForaHeap catalogo;
+    private ByteBuffer bloco;
+    private int offset;
+
+    VisaoProduto(CatalogoForaHeap catalogo) {
+        this.catalogo = catalogo;
+    }
+
+    void posicionar(ByteBuffer bloco, int offset) {
+        this.bloco = bloco;
+        this.offset = offset;
+    }
+
+    public long getId() {
+        return bloco.getLong(offset + CatalogoForaHeap.ID);
+    }
+
+    public double getPreco() {
+        return bloco.getDouble(offset + CatalogoForaHeap.PRECO);
+    }
+
+    public int getQuantidade() {
+        return bloco.getInt(offset + CatalogoForaHeap.QUANTIDADE);
+    }
+
+    public long getCodigoBarras() {
+        return bloco.getLong(offset + CatalogoForaHeap.CODIGO_BARRAS);
+    }
+
+    public TipoProduto getTipo() {
+        return CatalogoForaHeap.TIPOS[bloco.get(offset + CatalogoForaHeap.TIPO)];
+    }
+
+    /**
+     * Decodifica o nome para uma nova String (aloca; em varreduras prefira {@link #anexarNome}).
+     */
+    public String getNome() {
+        return catalogo.textos().decodificar(bloco.getInt(offset + CatalogoForaHeap.NOME));
+    }
+
+    public String getDescricao() {
+        return catalogo.textos().decodificar(bloco.getInt(offset + CatalogoForaHeap.DESCRICAO));
+    }
+
+    /**
+     * Anexa o nome ao destino sem criar Strings intermediárias.
+     */
+    public void anexarNome(StringBuilder destino) {
+        catalogo.textos().decodificar(bloco.getInt(offset + CatalogoForaHeap.NOME), destino);
+    }
+
+    /**
+     * Referência do nome no dicionário: produtos com o mesmo nome têm a mesma referência,
+     * o que permite agrupar por nome sem decodificar texto.
+     */
+    public int getReferenciaNome() {
+        return bloco.getInt(offset + CatalogoForaHeap.NOME);
+    }
+
+    /**
+     * Materializa o registro como um Produto comum no heap.
+     */
+    public Produto paraProduto() {
+        return new Produto(getId(), getNome(), getDescricao(), getPreco(), getQuantidade(), getTipo(),
+                getCodigoBarras());
+    }
+}
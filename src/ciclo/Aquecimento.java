@@ -0,0 +1,51 @@
+package ciclo;
+
+import ambiente.Ambiente;
+import model.Produto;
+import service.ProdutoService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Etapas de aquecimento de um serviço na partida, depois de carregados os índices e
+ * os lotes e antes de o processo ficar pronto:
+ * <ol>
+ *   <li>conexões: primeira conexão com o primário e com uma réplica;</li>
+ *   <li>produtos quentes: os {@code AQUECIMENTO_PRODUTOS} (padrão 500) de maior consumo
+ *   vão para o índice de código de barras;</li>
+ *   <li>JIT: {@code AQUECIMENTO_ITERACOES} (padrão 20000) passadas pelos trechos em memória
+ *   da consulta e da movimentação, sem gravar nada.</li>
+ * </ol>
+ * Assim a primeira leva de requisições depois de um reinício não paga a conexão, o
+ * cache vazio e o código ainda interpretado.
+ */
+public final class Aquecimento {
+
+    private Aquecimento() {
+    }
+
+    /**
+     * @param nome identifica o serviço nas mensagens (id do inquilino), ou null
+     */
+    public static void aquecer(CicloVida ciclo, String nome, ProdutoService servico) {
+        String sufixo = nome != null ? " [" + nome + "]" : "";
+        int produtos = Ambiente.inteiro("AQUECIMENTO_PRODUTOS", 500);
+        int iteracoes = Ambiente.inteiro("AQUECIMENTO_ITERACOES", 20_000);
+
+        ciclo.etapa("conexões com o banco" + sufixo, servico::aquecerConexoes);
+        List<Produto> quentes = new ArrayList<>();
+        if (produtos > 0) {
+            ciclo.etapa("produtos mais vendidos no cache" + sufixo, () -> {
+                quentes.addAll(servico.preCarregarMaisVendidos(produtos));
+                System.out.println("  " + quentes.size() + " produto(s) carregado(s)");
+            });
+        }
+        if (iteracoes > 0) {
+            ciclo.etapa("aquecimento do JIT" + sufixo, () -> {
+                int noIndice = servico.aquecerCaminhos(quentes, iteracoes);
+                System.out.println("  " + iteracoes + " passada(s), " + noIndice + " com o produto no índice");
+            });
+        }
+    }
+}
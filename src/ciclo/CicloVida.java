@@ -0,0 +1,259 @@
+package ciclo;
+
+import ambiente.Ambiente;
+import repository.Disjuntor;
+import repository.ProdutoRepository;
+import repository.RoteadorLeitura;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ciclo de vida do processo: partida em etapas ordenadas, sinais de vida e de prontidão
+ * e um encerramento que espera as requisições em andamento antes de fechar os recursos.
+ *
+ * <ol>
+ *   <li>INICIANDO: as etapas de {@link #etapa} rodam em ordem (conexões, caches,
+ *   aquecimento); o processo está vivo, mas ainda não pronto.</li>
+ *   <li>PRONTO: depois de {@link #pronto()}, enquanto o disjuntor de cada banco
+ *   monitorado não estiver aberto.</li>
+ *   <li>ENCERRANDO: por {@link #close()} ou pelo sinal de término da JVM. Deixa de
+ *   estar pronto na hora, espera {@code ENCERRAMENTO_PAUSA_SEGUNDOS} (padrão 0) para o
+ *   balanceador tirar o processo do rodízio, espera as requisições em andamento por até
+ *   {@code ENCERRAMENTO_SEGUNDOS} (padrão 30) e fecha os recursos na ordem inversa do
+ *   registro em {@link #aoEncerrar}, gravando o que estiver pendente.</li>
+ *   <li>ENCERRADO.</li>
+ * </ol>
+ */
+public class CicloVida implements AutoCloseable {
+
+    public enum Estado { INICIANDO, PRONTO, ENCERRANDO, ENCERRADO }
+
+    private record Recurso(String nome, AutoCloseable recurso) {
+    }
+
+    private final long esperaEncerramentoMillis;
+    private final long pausaRetiradaMillis;
+    private final Deque<Recurso> recursos = new ArrayDeque<>();
+    private final Map<String, ProdutoRepository> repositorios = new LinkedHashMap<>();
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicBoolean encerramentoIniciado = new AtomicBoolean();
+    private final Thread gancho;
+
+    private volatile Estado estado = Estado.INICIANDO;
+    private final long inicio = System.nanoTime();
+
+    public CicloVida(long esperaEncerramentoMillis, long pausaRetiradaMillis) {
+        this.esperaEncerramentoMillis = esperaEncerramentoMillis;
+        this.pausaRetiradaMillis = pausaRetiradaMillis;
+        this.gancho = new Thread(this::encerrar, "encerramento");
+        Runtime.getRuntime().addShutdownHook(gancho);
+    }
+
+    /**
+     * Cria o ciclo com os tempos de {@code ENCERRAMENTO_SEGUNDOS} e {@code ENCERRAMENTO_PAUSA_SEGUNDOS}.
+     */
+    public static CicloVida doAmbiente() {
+        return new CicloVida(TimeUnit.SECONDS.toMillis(Ambiente.inteiro("ENCERRAMENTO_SEGUNDOS", 30)),
+                TimeUnit.SECONDS.toMillis(Ambiente.inteiro("ENCERRAMENTO_PAUSA_SEGUNDOS", 0)));
+    }
+
+    // ===== Partida =====
+
+    /**
+     * Executa uma etapa da partida, medindo o tempo. Uma etapa que falha não impede as
+     * seguintes: o sistema sobe sem o que ela prepararia, como antes.
+     * @return true se a etapa terminou sem erro
+     */
+    public boolean etapa(String nome, Runnable acao) {
+        long inicioEtapa = System.nanoTime();
+        try {
+            acao.run();
+            System.out.printf("Partida: %s (%d ms)%n", nome, (System.nanoTime() - inicioEtapa) / 1_000_000);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erro na partida (" + nome + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Marca o fim da partida: a partir daqui o processo pode receber requisições.
+     */
+    public void pronto() {
+        if (estado == Estado.INICIANDO) {
+            estado = Estado.PRONTO;
+            System.out.printf("Pronto para atender (partida em %d ms)%n", (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    /**
+     * Registra um recurso para fechar no encerramento. Os recursos são fechados na ordem
+     * inversa do registro: registre primeiro o que os outros usam (ex.: o banco antes da
+     * auditoria que grava nele).
+     */
+    public synchronized void aoEncerrar(String nome, AutoCloseable recurso) {
+        if (recurso != null) {
+            recursos.push(new Recurso(nome, recurso));
+        }
+    }
+
+    /**
+     * Inclui o banco do repositório nos sinais de prontidão e de saúde.
+     */
+    public synchronized void monitorar(String nome, ProdutoRepository repositorio) {
+        repositorios.put(nome, repositorio);
+    }
+
+    // ===== Requisições =====
+
+    /**
+     * Reserva a execução de uma requisição; o encerramento espera todas as reservadas.
+     * @return false se o processo já está encerrando (a requisição não deve começar)
+     */
+    public boolean entrar() {
+        emAndamento.incrementAndGet();
+        if (encerrando()) {
+            emAndamento.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void sair() {
+        emAndamento.decrementAndGet();
+    }
+
+    /** @return true a partir do início do encerramento; quem atende em laço deve parar */
+    public boolean encerrando() {
+        return estado.compareTo(Estado.ENCERRANDO) >= 0;
+    }
+
+    // ===== Sinais =====
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    /** @return false só depois do encerramento */
+    public boolean estaVivo() {
+        return estado != Estado.ENCERRADO;
+    }
+
+    /** @return true se a partida terminou, não está encerrando e nenhum disjuntor está aberto */
+    public synchronized boolean estaPronto() {
+        if (estado != Estado.PRONTO) {
+            return false;
+        }
+        for (ProdutoRepository repositorio : repositorios.values()) {
+            if (repositorio.getEstadoDisjuntor() == Disjuntor.Estado.ABERTO) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Anexa o estado do processo e de cada banco monitorado como JSON.
+     */
+    public synchronized StringBuilder anexarSaude(StringBuilder json) {
+        json.append("{\"estado\":\"").append(estado.name())
+                .append("\",\"vivo\":").append(estaVivo())
+                .append(",\"pronto\":").append(estaPronto())
+                .append(",\"emAndamento\":").append(emAndamento.get())
+                .append(",\"bancos\":[");
+        boolean primeiro = true;
+        for (Map.Entry<String, ProdutoRepository> entrada : repositorios.entrySet()) {
+            ProdutoRepository repositorio = entrada.getValue();
+            if (!primeiro) {
+                json.append(',');
+            }
+            primeiro = false;
+            json.append("{\"nome\":\"").append(entrada.getKey())
+                    .append("\",\"disjuntor\":\"").append(repositorio.getEstadoDisjuntor().name())
+                    .append("\",\"conexoesEmUso\":").append(repositorio.getConexoesEmUso());
+            RoteadorLeitura roteador = repositorio.getRoteadorLeitura();
+            if (roteador != null) {
+                json.append(",\"replicasSaudaveis\":").append(roteador.getReplicasSaudaveis())
+                        .append(",\"replicas\":").append(roteador.getTotalReplicas());
+            }
+            json.append('}');
+        }
+        return json.append("]}");
+    }
+
+    // ===== Encerramento =====
+
+    /**
+     * Encerra o processo uma única vez, seja pelo fim normal do programa, seja pelo sinal
+     * de término (o gancho de encerramento da JVM chama este mesmo método).
+     */
+    @Override
+    public void close() {
+        encerrar();
+        try {
+            Runtime.getRuntime().removeShutdownHook(gancho);
+        } catch (IllegalStateException e) {
+            // a JVM já está encerrando e o gancho já rodou
+        }
+    }
+
+    private void encerrar() {
+        if (!encerramentoIniciado.compareAndSet(false, true)) {
+            return;
+        }
+        estado = Estado.ENCERRANDO;
+        long inicioEncerramento = System.nanoTime();
+        if (pausaRetiradaMillis > 0) {
+            dormir(pausaRetiradaMillis);
+        }
+        aguardarEmAndamento();
+
+        Recurso recurso;
+        while ((recurso = proximoRecurso()) != null) {
+            try {
+                recurso.recurso().close();
+            } catch (Exception e) {
+                System.err.println("Erro ao fechar " + recurso.nome() + ": " + e.getMessage());
+            }
+        }
+        estado = Estado.ENCERRADO;
+        System.out.printf("Encerrado em %d ms%n", (System.nanoTime() - inicioEncerramento) / 1_000_000);
+    }
+
+    private void aguardarEmAndamento() {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaEncerramentoMillis);
+        while (emAndamento.get() > 0) {
+            if (System.nanoTime() - limite >= 0) {
+                System.err.println("Erro ao encerrar: " + emAndamento.get()
+                        + " requisição(ões) ainda em andamento após " + esperaEncerramentoMillis + " ms");
+                return;
+            }
+            dormir(10);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private synchronized Recurso proximoRecurso() {
+        return recursos.poll();
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ciclo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Expõe os sinais do {@link CicloVida} por HTTP, para o orquestrador ou o balanceador:
+ * <pre>
+ * GET /vivo    200 enquanto o processo não terminou de encerrar (liveness)
+ * GET /pronto  200 só quando pode receber requisições (readiness); 503 na partida,
+ *              no encerramento e com o disjuntor do banco aberto
+ * GET /saude   JSON com o estado, as requisições em andamento e, por banco, o disjuntor,
+ *              as conexões em uso e as réplicas saudáveis
+ * </pre>
+ * Ligado pela variável {@code SAUDE_PORTA}. Usa o servidor HTTP do próprio JDK, com uma
+ * única thread, para não depender de nada além da JVM.
+ */
+public class ServidorSaude implements AutoCloseable {
+
+    private final HttpServer servidor;
+    private final CicloVida ciclo;
+
+    public ServidorSaude(CicloVida ciclo, int porta) throws IOException {
+        this.ciclo = ciclo;
+        this.servidor = HttpServer.create(new InetSocketAddress(porta), 16);
+        servidor.createContext("/vivo", troca -> responder(troca, ciclo.estaVivo(), ciclo.estaVivo() ? "vivo" : "encerrado"));
+        servidor.createContext("/pronto", troca -> responder(troca, ciclo.estaPronto(), ciclo.getEstado().name()));
+        servidor.createContext("/saude", troca -> responder(troca, ciclo.estaPronto(),
+                ciclo.anexarSaude(new StringBuilder(256)).toString()));
+        servidor.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "servidor-saude");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        servidor.start();
+    }
+
+    /**
+     * Liga o servidor na porta de {@code SAUDE_PORTA} e o registra para fechar por último
+     * no encerramento, para que a prontidão continue respondendo 503 enquanto o processo drena.
+     * @return o servidor, ou null se a variável não estiver definida ou a porta não abrir
+     */
+    public static ServidorSaude doAmbiente(CicloVida ciclo) {
+        String valor = System.getenv("SAUDE_PORTA");
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            ServidorSaude servidor = new ServidorSaude(ciclo, Integer.parseInt(valor.trim()));
+            ciclo.aoEncerrar("servidor de saúde", servidor);
+            return servidor;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Erro ao abrir o servidor de saúde na porta " + valor + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** @return porta em que o servidor está ouvindo */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    private void responder(HttpExchange troca, boolean ok, String corpo) throws IOException {
+        byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type",
+                corpo.startsWith("{") ? "application/json; charset=utf-8" : "text/plain; charset=utf-8");
+        troca.sendResponseHeaders(ok ? 200 : 503, bytes.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+    }
+}
@@ -0,0 +1,78 @@
+package controller;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comando lido de uma sessão em lote: nome, argumentos nomeados ({@code chave=valor})
+ * e argumentos posicionais, além da linha de origem para mensagens de erro.
+ */
+public class Comando {
+
+    private final int linha;
+    private final String nome;
+    private final Map<String, String> argumentos;
+    private final List<String> posicionais;
+
+    public Comando(int linha, String nome, Map<String, String> argumentos, List<String> posicionais) {
+        this.linha = linha;
+        this.nome = nome;
+        this.argumentos = argumentos;
+        this.posicionais = posicionais;
+    }
+
+    public int getLinha() {
+        return linha;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public List<String> getPosicionais() {
+        return posicionais;
+    }
+
+    /**
+     * @return o valor do argumento, ou o primeiro posicional se o argumento nomeado não existir
+     * @throws IllegalArgumentException se nenhum dos dois foi informado
+     */
+    public String texto(String chave) {
+        String valor = argumentos.get(chave);
+        if (valor == null && argumentos.isEmpty() && posicionais.size() == 1) {
+            valor = posicionais.get(0);
+        }
+        if (valor == null) {
+            throw new IllegalArgumentException("argumento '" + chave + "' ausente");
+        }
+        return valor;
+    }
+
+    public String textoOpcional(String chave, String padrao) {
+        return argumentos.getOrDefault(chave, padrao);
+    }
+
+    public long longo(String chave) {
+        try {
+            return Long.parseLong(texto(chave));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("argumento '" + chave + "' deve ser um número inteiro");
+        }
+    }
+
+    public int inteiro(String chave) {
+        try {
+            return Integer.parseInt(texto(chave));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("argumento '" + chave + "' deve ser um número inteiro");
+        }
+    }
+
+    public double decimal(String chave) {
+        try {
+            return Double.parseDouble(texto(chave).replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("argumento '" + chave + "' deve ser um número");
+        }
+    }
+}
@@ -0,0 +1,604 @@
+package controller;
+
+import ajuste.ArquivoContagem;
+import ajuste.ContagemFisica;
+import ajuste.ProgressoAjuste;
+import ajuste.ResultadoAjuste;
+import auditoria.Ator;
+import busca.Acerto;
+import ciclo.CicloVida;
+import busca.ResultadoBusca;
+import historico.DataConsulta;
+import historico.ValorEstoque;
+import historico.VersaoProduto;
+import limites.ClasseOperacao;
+import limites.ControleAdmissao;
+import limites.RequisicaoRecusada;
+import model.Produto;
+import model.TipoProduto;
+import previsao.SugestaoReposicao;
+import repository.ErroBanco;
+import service.ProdutoService;
+import validade.LoteProduto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Executa sessões em lote (arquivo de script ou entrada redirecionada) sem prompts,
+ * respondendo cada comando com uma linha JSON. Permite que operadores e tarefas
+ * agendadas disparem milhares de operações pelo mesmo CLI.
+ *
+ * Comandos aceitos:
+ * <pre>
+ * listar
+ * buscar nome=... | buscar id=...
+ * pesquisar texto=... [tipo=CONSUMO|RESERVADO] [pagina=1] [tamanho=10]
+ * codigo &lt;código&gt; [&lt;código&gt; ...]
+ * cadastrar nome=... descricao=... preco=... quantidade=... tipo=CONSUMO|RESERVADO [codigo=...]
+ * adicionar id=... quantidade=...
+ * remover id=... quantidade=...
+ * excluir id=...
+ * relatorio
+ * reposicao
+ * versao id=... em=AAAA-MM-DD[THH:MM]
+ * valor em=AAAA-MM-DD[THH:MM]
+ * receber id=... lote=... validade=AAAA-MM-DD quantidade=...
+ * lotes id=...
+ * vencendo dias=...
+ * descartar
+ * reajustar percentual=... tipo=CONSUMO|RESERVADO|TODOS | ids=1,2,3
+ * contagem arquivo=... [por=id|codigo]
+ * </pre>
+ *
+ * {@code reajustar} e {@code contagem} são ajustes em massa: o andamento vai para a saída de
+ * erros a cada bloco, e a resposta traz os totais e as chaves não encontradas ou recusadas.
+ *
+ * Com vários inquilinos no processo, qualquer comando aceita {@code inquilino=<id>} para
+ * escolher o negócio atendido; sem ele vale o inquilino padrão da sessão, se houver.
+ *
+ * Com o controle de admissão ligado, cada comando consome a cota do cliente {@code cliente=<id>}
+ * (ou do cliente padrão da sessão) na sua {@link ClasseOperacao}; comandos recusados respondem
+ * na hora com {@code tipoErro} COTA ou SOBRECARGA.
+ *
+ * No encerramento do processo (ver {@link CicloVida}), o comando em andamento termina e os
+ * seguintes não são lidos; o resumo traz {@code interrompido} e {@code proximaLinha}, a linha
+ * a partir da qual o script deve ser retomado.
+ *
+ * Cada resposta contém {@code linha}, {@code comando} e {@code ok}; em caso de falha, {@code erro}
+ * e, quando a falha veio do banco ou da admissão, {@code tipoErro} (INDISPONIVEL, TEMPO_ESGOTADO,
+ * CONFLITO, SOBRECARGA, COTA ou FALHA).
+ */
+public class LoteController {
+
+    private final ProdutoService servicoPadrao;
+    private final Function<String, ProdutoService> servicoPorInquilino;
+    private final PrintWriter saida;
+    private final StringBuilder json = new StringBuilder(256);
+
+    private ControleAdmissao admissao;
+    private String clientePadrao = "lote";
+    private CicloVida cicloVida;
+
+    private int executados;
+    private int falhas;
+
+    public LoteController(ProdutoService produtoService, PrintWriter saida) {
+        this(produtoService, null, saida);
+    }
+
+    /**
+     * @param servicoPadrao serviço dos comandos sem {@code inquilino=}, ou null para exigir o argumento
+     * @param servicoPorInquilino localiza o serviço de cada inquilino, ou null no modo de inquilino único
+     */
+    public LoteController(ProdutoService servicoPadrao, Function<String, ProdutoService> servicoPorInquilino,
+                          PrintWriter saida) {
+        this.servicoPadrao = servicoPadrao;
+        this.servicoPorInquilino = servicoPorInquilino;
+        this.saida = saida;
+    }
+
+    /**
+     * Passa cada comando pelo controle de admissão antes de executá-lo.
+     * @param clientePadrao cliente dos comandos sem {@code cliente=}
+     */
+    public void setAdmissao(ControleAdmissao admissao, String clientePadrao) {
+        this.admissao = admissao;
+        this.clientePadrao = clientePadrao;
+    }
+
+    /**
+     * Para de ler comandos quando o processo começar a encerrar. A sessão inteira conta
+     * como uma requisição em andamento, para que o encerramento espere o resumo.
+     */
+    public void setCicloVida(CicloVida cicloVida) {
+        this.cicloVida = cicloVida;
+    }
+
+    /**
+     * Executa todos os comandos da entrada até o fim.
+     * @return true se todos os comandos foram executados com sucesso
+     */
+    public boolean executar(BufferedReader entrada) throws IOException {
+        if (cicloVida != null && !cicloVida.entrar()) {
+            return false;
+        }
+        try {
+            return executarComandos(entrada);
+        } finally {
+            if (cicloVida != null) {
+                cicloVida.sair();
+            }
+        }
+    }
+
+    private boolean executarComandos(BufferedReader entrada) throws IOException {
+        TokenizadorComandos tokenizador = new TokenizadorComandos(entrada);
+        boolean interrompido = false;
+        while (true) {
+            if (cicloVida != null && cicloVida.encerrando()) {
+                interrompido = true;
+                break;
+            }
+            Comando comando;
+            try {
+                comando = tokenizador.proximo();
+            } catch (IllegalArgumentException e) {
+                executados++;
+                responderErro(tokenizador.getNumeroLinha(), "?", e.getMessage());
+                continue;
+            }
+            if (comando == null) {
+                break;
+            }
+            executarComando(comando);
+        }
+
+        json.setLength(0);
+        json.append("{\"resumo\":true,\"executados\":").append(executados)
+                .append(",\"falhas\":").append(falhas);
+        if (interrompido) {
+            json.append(",\"interrompido\":true,\"proximaLinha\":").append(tokenizador.getNumeroLinha() + 1);
+        }
+        json.append('}');
+        saida.println(json);
+        saida.flush();
+        return falhas == 0 && !interrompido;
+    }
+
+    private void executarComando(Comando comando) {
+        executados++;
+        try {
+            ProdutoService produtoService = servico(comando);
+            String cliente = cliente(comando);
+            if (admissao == null) {
+                despachar(comando, produtoService, cliente);
+            } else {
+                admissao.executar(cliente, classe(comando.getNome()), () -> {
+                    despachar(comando, produtoService, cliente);
+                    return null;
+                });
+            }
+        } catch (ErroBanco e) {
+            responderErro(comando.getLinha(), comando.getNome(), e.getMessage(), e.getTipo().name());
+        } catch (RequisicaoRecusada e) {
+            responderErro(comando.getLinha(), comando.getNome(), e.getMessage(), e.getMotivo().name());
+        } catch (Exception e) {
+            responderErro(comando.getLinha(), comando.getNome(), e.getMessage());
+        }
+    }
+
+    /**
+     * Executa o comando em nome do cliente, que fica como ator na trilha de auditoria.
+     */
+    private void despachar(Comando comando, ProdutoService produtoService, String cliente) {
+        Ator.como(cliente, () -> {
+            despachar(comando, produtoService);
+            return null;
+        });
+    }
+
+    private void despachar(Comando comando, ProdutoService produtoService) {
+        switch (comando.getNome()) {
+            case "listar" -> responderProdutos(comando, produtoService.listar());
+            case "buscar" -> responderProduto(comando, comando.textoOpcional("id", null) != null
+                    ? produtoService.buscarPorId(comando.longo("id"))
+                    : produtoService.buscarPorNome(comando.texto("nome")));
+            case "pesquisar" -> responderBusca(comando, produtoService.pesquisar(comando.texto("texto"),
+                    tipoOpcional(comando),
+                    Integer.parseInt(comando.textoOpcional("pagina", "1")),
+                    Integer.parseInt(comando.textoOpcional("tamanho", "10"))));
+            case "codigo" -> responderProdutos(comando, codigos(produtoService, comando));
+            case "cadastrar" -> {
+                Produto produto = new Produto();
+                produto.setNome(comando.texto("nome"));
+                produto.setDescricao(comando.textoOpcional("descricao", ""));
+                produto.setPreco(comando.decimal("preco"));
+                produto.setQuantidade(comando.inteiro("quantidade"));
+                produto.setTipo(TipoProduto.valueOf(comando.texto("tipo").toUpperCase()));
+                String codigo = comando.textoOpcional("codigo", null);
+                produto.setCodigoBarras(codigo != null ? Long.parseLong(codigo) : 0);
+                validar(produto);
+                responderResultado(comando, produtoService.cadastrar(produto), "falha ao cadastrar");
+            }
+            case "adicionar" -> responderResultado(comando,
+                    produtoService.adicionarQuantidade(comando.longo("id"), positivo(comando.inteiro("quantidade"))),
+                    "produto não encontrado");
+            case "remover" -> responderResultado(comando,
+                    produtoService.removerQuantidade(comando.longo("id"), positivo(comando.inteiro("quantidade"))),
+                    "produto não encontrado ou quantidade insuficiente");
+            case "excluir" -> responderResultado(comando, produtoService.excluir(comando.longo("id")),
+                    "produto não encontrado");
+            case "relatorio" -> responderResultado(comando, produtoService.emitirRelatorio(),
+                    "falha ao gerar relatório");
+            case "reposicao" -> responderSugestoes(comando, produtoService.sugerirReposicao());
+            case "versao" -> responderVersao(comando, produtoService.versaoEm(comando.longo("id"),
+                    DataConsulta.instante(comando.texto("em"))));
+            case "valor" -> responderValor(comando, produtoService.valorEstoqueEm(
+                    DataConsulta.instante(comando.texto("em"))));
+            case "receber" -> responderLote(comando, produtoService.receberLote(comando.longo("id"),
+                    comando.texto("lote"), data(comando.texto("validade")), positivo(comando.inteiro("quantidade"))));
+            case "lotes" -> responderLotes(comando, produtoService.lotesDoProduto(comando.longo("id")));
+            case "vencendo" -> responderLotes(comando, produtoService.lotesVencendo(
+                    Integer.parseInt(comando.textoOpcional("dias", "7"))));
+            case "descartar" -> {
+                int descartadas = produtoService.descartarVencidos();
+                iniciar(comando.getLinha(), comando.getNome(), true);
+                json.append(",\"unidades\":").append(descartadas);
+                finalizar();
+            }
+            case "reajustar" -> responderAjuste(comando, produtoService.reajustarPrecos(comando.decimal("percentual"),
+                    tipoReajuste(comando), idsOpcionais(comando), progresso(comando)));
+            case "contagem" -> responderAjuste(comando, produtoService.conciliarContagem(contagem(comando),
+                    porCodigo(comando), progresso(comando)));
+            default -> throw new IllegalArgumentException("comando desconhecido");
+        }
+    }
+
+    /**
+     * Classe de admissão de cada comando: baixas e entradas são do caixa e passam na frente;
+     * relatório, reposição, valor do estoque e ajustes em massa percorrem o catálogo inteiro
+     * e ficam por último.
+     */
+    private static ClasseOperacao classe(String comando) {
+        return switch (comando) {
+            case "adicionar", "remover", "receber" -> ClasseOperacao.MOVIMENTACAO;
+            case "listar", "buscar", "pesquisar", "codigo", "versao", "lotes", "vencendo" -> ClasseOperacao.CONSULTA;
+            case "cadastrar", "excluir", "descartar" -> ClasseOperacao.CADASTRO;
+            case "relatorio", "reposicao", "valor", "reajustar", "contagem" -> ClasseOperacao.RELATORIO;
+            default -> throw new IllegalArgumentException("comando desconhecido");
+        };
+    }
+
+    /** @return o cliente do comando; com vários inquilinos, a cota é separada por inquilino */
+    private String cliente(Comando comando) {
+        String cliente = comando.textoOpcional("cliente", clientePadrao);
+        String inquilino = comando.textoOpcional("inquilino", null);
+        return inquilino != null ? inquilino + "/" + cliente : cliente;
+    }
+
+    private ProdutoService servico(Comando comando) {
+        String inquilino = comando.textoOpcional("inquilino", null);
+        if (inquilino == null) {
+            if (servicoPadrao == null) {
+                throw new IllegalArgumentException("argumento 'inquilino' ausente");
+            }
+            return servicoPadrao;
+        }
+        if (servicoPorInquilino == null) {
+            throw new IllegalArgumentException("argumento 'inquilino' não se aplica a um único inquilino");
+        }
+        return servicoPorInquilino.apply(inquilino);
+    }
+
+    private List<Produto> codigos(ProdutoService produtoService, Comando comando) {
+        List<String> posicionais = comando.getPosicionais();
+        if (posicionais.isEmpty()) {
+            throw new IllegalArgumentException("informe ao menos um código");
+        }
+        long[] codigos = new long[posicionais.size()];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = Long.parseLong(posicionais.get(i));
+        }
+        List<Produto> encontrados = new ArrayList<>(codigos.length);
+        for (Produto produto : produtoService.buscarPorCodigosBarras(codigos)) {
+            if (produto != null) {
+                encontrados.add(produto);
+            }
+        }
+        return encontrados;
+    }
+
+    private static LocalDate data(String texto) {
+        try {
+            return LocalDate.parse(texto);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("data inválida (use AAAA-MM-DD): " + texto);
+        }
+    }
+
+    private TipoProduto tipoOpcional(Comando comando) {
+        String tipo = comando.textoOpcional("tipo", null);
+        return tipo != null ? TipoProduto.valueOf(tipo.toUpperCase()) : null;
+    }
+
+    /** @return o tipo do reajuste, ou null para todos; exige tipo= ou ids= para não reajustar tudo por engano */
+    private TipoProduto tipoReajuste(Comando comando) {
+        String tipo = comando.textoOpcional("tipo", null);
+        if (tipo == null) {
+            if (comando.textoOpcional("ids", null) == null) {
+                throw new IllegalArgumentException("informe tipo=... ou ids=... (tipo=TODOS para o catálogo inteiro)");
+            }
+            return null;
+        }
+        return tipo.equalsIgnoreCase("TODOS") ? null : TipoProduto.valueOf(tipo.toUpperCase());
+    }
+
+    private long[] idsOpcionais(Comando comando) {
+        String ids = comando.textoOpcional("ids", null);
+        return ids != null ? ProdutoService.lerIds(ids) : null;
+    }
+
+    private List<ContagemFisica> contagem(Comando comando) {
+        try {
+            return ArquivoContagem.ler(Path.of(comando.texto("arquivo")));
+        } catch (IOException e) {
+            throw new UncheckedIOException("erro ao ler o arquivo da contagem: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean porCodigo(Comando comando) {
+        String por = comando.textoOpcional("por", "id");
+        return switch (por) {
+            case "id" -> false;
+            case "codigo" -> true;
+            default -> throw new IllegalArgumentException("por deve ser id ou codigo: " + por);
+        };
+    }
+
+    /** Andamento dos ajustes em massa na saída de erros, para não misturar com as respostas JSON. */
+    private static Consumer<ProgressoAjuste> progresso(Comando comando) {
+        return p -> System.err.println("linha " + comando.getLinha() + ": " + comando.getNome() + " " + p);
+    }
+
+    private void validar(Produto produto) {
+        if (produto.getNome().isBlank()) {
+            throw new IllegalArgumentException("nome não pode ser vazio");
+        }
+        if (produto.getPreco() <= 0) {
+            throw new IllegalArgumentException("preço deve ser maior que zero");
+        }
+        positivo(produto.getQuantidade());
+    }
+
+    private int positivo(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("quantidade deve ser maior que zero");
+        }
+        return quantidade;
+    }
+
+    // ===== Respostas em JSON (uma linha por comando) =====
+
+    private void responderResultado(Comando comando, boolean ok, String mensagemFalha) {
+        if (!ok) {
+            responderErro(comando.getLinha(), comando.getNome(), mensagemFalha);
+            return;
+        }
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        finalizar();
+    }
+
+    private void responderProduto(Comando comando, Produto produto) {
+        if (produto == null) {
+            responderErro(comando.getLinha(), comando.getNome(), "produto não encontrado");
+            return;
+        }
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"produto\":");
+        anexarProduto(produto);
+        finalizar();
+    }
+
+    private void responderProdutos(Comando comando, List<Produto> produtos) {
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"total\":").append(produtos.size()).append(",\"produtos\":[");
+        for (int i = 0; i < produtos.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            anexarProduto(produtos.get(i));
+        }
+        json.append(']');
+        finalizar();
+    }
+
+    private void responderBusca(Comando comando, ResultadoBusca resultado) {
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"total\":").append(resultado.total())
+                .append(",\"pagina\":").append(resultado.pagina())
+                .append(",\"acertos\":[");
+        List<Acerto> acertos = resultado.acertos();
+        for (int i = 0; i < acertos.size(); i++) {
+            Acerto a = acertos.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(a.produtoId()).append(",\"nome\":");
+            anexarTexto(a.nome());
+            json.append(",\"tipo\":\"").append(a.tipo()).append('"')
+                    .append(",\"pontuacao\":").append(a.pontuacao()).append('}');
+        }
+        json.append(']');
+        finalizar();
+    }
+
+    private void responderSugestoes(Comando comando, List<SugestaoReposicao> sugestoes) {
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"total\":").append(sugestoes.size()).append(",\"sugestoes\":[");
+        for (int i = 0; i < sugestoes.size(); i++) {
+            SugestaoReposicao s = sugestoes.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(s.produtoId()).append(",\"nome\":");
+            anexarTexto(s.nome());
+            json.append(",\"quantidade\":").append(s.quantidadeAtual())
+                    .append(",\"consumoDiario\":").append(s.consumoDiario())
+                    .append(",\"mediaMovel\":").append(s.mediaMovel())
+                    .append(",\"diasAteRuptura\":").append(s.diasAteRuptura())
+                    .append(",\"comprar\":").append(s.quantidadeSugerida()).append('}');
+        }
+        json.append(']');
+        finalizar();
+    }
+
+    private void responderVersao(Comando comando, VersaoProduto versao) {
+        if (versao == null) {
+            responderErro(comando.getLinha(), comando.getNome(), "produto não existia nessa data");
+            return;
+        }
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"id\":").append(versao.produtoId())
+                .append(",\"instante\":").append(versao.instante())
+                .append(",\"preco\":").append(versao.preco())
+                .append(",\"quantidade\":").append(versao.quantidade())
+                .append(",\"excluido\":").append(versao.excluido());
+        finalizar();
+    }
+
+    private void responderValor(Comando comando, ValorEstoque valor) {
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"instante\":").append(valor.instante())
+                .append(",\"produtos\":").append(valor.produtos())
+                .append(",\"unidades\":").append(valor.unidades())
+                .append(",\"valor\":").append(valor.valor());
+        finalizar();
+    }
+
+    private void responderLote(Comando comando, LoteProduto lote) {
+        if (lote == null) {
+            responderErro(comando.getLinha(), comando.getNome(), "produto não encontrado ou não é de consumo");
+            return;
+        }
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"lote\":");
+        anexarLote(lote);
+        finalizar();
+    }
+
+    private void responderLotes(Comando comando, List<LoteProduto> lotes) {
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"total\":").append(lotes.size()).append(",\"lotes\":[");
+        for (int i = 0; i < lotes.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            anexarLote(lotes.get(i));
+        }
+        json.append(']');
+        finalizar();
+    }
+
+    private void responderAjuste(Comando comando, ResultadoAjuste resultado) {
+        iniciar(comando.getLinha(), comando.getNome(), true);
+        json.append(",\"analisados\":").append(resultado.analisados())
+                .append(",\"alterados\":").append(resultado.totalAlterados());
+        anexarChaves("naoEncontrados", resultado.naoEncontrados());
+        anexarChaves("abaixoDosLotes", resultado.abaixoDosLotes());
+        finalizar();
+    }
+
+    private void anexarChaves(String campo, List<Long> chaves) {
+        json.append(",\"").append(campo).append("\":[");
+        for (int i = 0; i < chaves.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(chaves.get(i));
+        }
+        json.append(']');
+    }
+
+    private void responderErro(int linha, String comando, String mensagem) {
+        responderErro(linha, comando, mensagem, null);
+    }
+
+    private void responderErro(int linha, String comando, String mensagem, String tipoErro) {
+        falhas++;
+        iniciar(linha, comando, false);
+        json.append(",\"erro\":");
+        anexarTexto(mensagem != null ? mensagem : "erro inesperado");
+        if (tipoErro != null) {
+            json.append(",\"tipoErro\":\"").append(tipoErro).append('"');
+        }
+        finalizar();
+    }
+
+    private void iniciar(int linha, String comando, boolean ok) {
+        json.setLength(0);
+        json.append("{\"linha\":").append(linha).append(",\"comando\":");
+        anexarTexto(comando);
+        json.append(",\"ok\":").append(ok);
+    }
+
+    private void finalizar() {
+        json.append('}');
+        saida.println(json);
+    }
+
+    private void anexarProduto(Produto p) {
+        json.append("{\"id\":").append(p.getId()).append(",\"nome\":");
+        anexarTexto(p.getNome());
+        json.append(",\"descricao\":");
+        anexarTexto(p.getDescricao());
+        json.append(",\"preco\":").append(p.getPreco())
+                .append(",\"quantidade\":").append(p.getQuantidade())
+                .append(",\"tipo\":\"").append(p.getTipo()).append('"')
+                .append(",\"codigoBarras\":").append(p.getCodigoBarras()).append('}');
+    }
+
+    private void anexarLote(LoteProduto lote) {
+        json.append("{\"id\":").append(lote.getId())
+                .append(",\"produtoId\":").append(lote.getProdutoId())
+                .append(",\"codigo\":");
+        anexarTexto(lote.getCodigo());
+        json.append(",\"validade\":\"").append(lote.getValidade()).append('"')
+                .append(",\"saldo\":").append(lote.getSaldo()).append('}');
+    }
+
+    private void anexarTexto(String texto) {
+        if (texto == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -3,6 +3,9 @@ package controller;
 import model.TipoProduto;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class ScannerController {
@@ -40,6 +43,57 @@ public class ScannerController {
         return id;
     }
 
+    /**
+     * Lê um código de barras opcional (apenas dígitos).
+     * @return o código digitado, ou 0 se o usuário apenas pressionar ENTER
+     */
+    public long lerCodigoBarrasOpcional() {
+        while (true) {
+            String texto = scanner.nextLine().trim();
+            if (texto.isEmpty()) {
+                return 0;
+            }
+            try {
+                long codigo = Long.parseLong(texto);
+                if (codigo > 0) {
+                    return codigo;
+                }
+            } catch (NumberFormatException e) {
+                // trata abaixo
+            }
+            System.out.print("Código inválido! Digite apenas números (ou ENTER para nenhum): ");
+        }
+    }
+
+    /**
+     * Lê um ou mais códigos de barras separados por espaço, vírgula ou ponto e vírgula.
+     * @return códigos válidos (>0) na ordem digitada
+     */
+    public long[] lerCodigosBarras() {
+        while (true) {
+            String[] partes = scanner.nextLine().trim().split("[\\s,;]+");
+            long[] codigos = new long[partes.length];
+            int total = 0;
+            boolean valido = true;
+            for (String parte : partes) {
+                if (parte.isEmpty()) {
+                    continue;
+                }
+                try {
+                    codigos[total] = Long.parseLong(parte);
+                    valido &= codigos[total] > 0;
+                    total++;
+                } catch (NumberFormatException e) {
+                    valido = false;
+                }
+            }
+            if (valido && total > 0) {
+                return Arrays.copyOf(codigos, total);
+            }
+            System.out.print("Código inválido! Digite apenas números: ");
+        }
+    }
+
     /**
      * Lê um preço válido (double) maior que zero.
      * Trata entradas inválidas e limpa buffer do scanner.
@@ -317,6 +371,44 @@ public class ScannerController {
         return numero;
     }
 
+    /**
+     * Lê um percentual de reajuste, positivo ou negativo, entre -99,99 e 1000 (aceita vírgula).
+     * @param mensagem mensagem para solicitar entrada
+     * @return percentual diferente de zero
+     */
+    public double lerPercentualValido(String mensagem) {
+        while (true) {
+            System.out.print(mensagem + ": ");
+            String texto = scanner.nextLine().trim().replace("%", "").replace(',', '.');
+            try {
+                double percentual = Double.parseDouble(texto);
+                if (percentual > -100 && percentual <= 1000 && percentual != 0) {
+                    return percentual;
+                }
+                System.out.println("❌ O percentual deve ser diferente de zero e estar entre -99,99 e 1000!");
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Entrada inválida! Digite um número (ex.: 10 ou -5,5).");
+            }
+        }
+    }
+
+    /**
+     * Lê uma data no formato AAAA-MM-DD.
+     * @param mensagem mensagem para solicitar entrada
+     * @return data válida
+     */
+    public LocalDate lerDataValida(String mensagem) {
+        while (true) {
+            System.out.print(mensagem + ": ");
+            String texto = scanner.nextLine().trim();
+            try {
+                return LocalDate.parse(texto);
+            } catch (DateTimeParseException e) {
+                System.out.println("❌ Data inválida! Use o formato AAAA-MM-DD.");
+            }
+        }
+    }
+
     /**
      * Pausa a execução até que o usuário pressione Enter.
      * @param mensagem mensagem exibida antes da pausa
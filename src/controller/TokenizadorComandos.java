@@ -0,0 +1,111 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tokenizador único das sessões em lote. Lê comandos linha a linha de um
+ * {@link BufferedReader}, sem prompts, no formato:
+ *
+ * <pre>
+ * cadastrar nome="Arroz integral 5kg" descricao="Tipo 1" preco=27.90 quantidade=40 tipo=CONSUMO
+ * adicionar id=12 quantidade=5
+ * codigo 7891000100103 7891000100110
+ * </pre>
+ *
+ * Valores com espaços vão entre aspas duplas (com {@code \"} e {@code \\} como escapes).
+ * Linhas em branco e iniciadas por {@code #} são ignoradas.
+ */
+public class TokenizadorComandos {
+
+    private final BufferedReader leitor;
+    private final StringBuilder token = new StringBuilder(64);
+    private int numeroLinha;
+
+    public TokenizadorComandos(BufferedReader leitor) {
+        this.leitor = leitor;
+    }
+
+    /**
+     * Lê o próximo comando.
+     * @return o comando, ou null no fim da entrada
+     * @throws IllegalArgumentException se a linha estiver malformada (a leitura pode continuar)
+     */
+    public Comando proximo() throws IOException {
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            String conteudo = linha.strip();
+            if (!conteudo.isEmpty() && conteudo.charAt(0) != '#') {
+                return interpretar(conteudo);
+            }
+        }
+        return null;
+    }
+
+    public int getNumeroLinha() {
+        return numeroLinha;
+    }
+
+    private Comando interpretar(String linha) {
+        String nome = null;
+        Map<String, String> argumentos = new HashMap<>();
+        List<String> posicionais = new ArrayList<>();
+
+        int i = 0;
+        int tamanho = linha.length();
+        while (i < tamanho) {
+            while (i < tamanho && Character.isWhitespace(linha.charAt(i))) {
+                i++;
+            }
+            if (i == tamanho) {
+                break;
+            }
+
+            token.setLength(0);
+            int separador = -1;
+            while (i < tamanho && !Character.isWhitespace(linha.charAt(i))) {
+                char c = linha.charAt(i++);
+                if (c == '"') {
+                    i = lerAspas(linha, i);
+                } else if (c == '=' && separador < 0) {
+                    separador = token.length();
+                    token.append(c);
+                } else {
+                    token.append(c);
+                }
+            }
+
+            if (nome == null) {
+                nome = token.toString().toLowerCase();
+            } else if (separador > 0) {
+                argumentos.put(token.substring(0, separador).toLowerCase(), token.substring(separador + 1));
+            } else {
+                posicionais.add(token.toString());
+            }
+        }
+        return new Comando(numeroLinha, nome, argumentos, posicionais);
+    }
+
+    /**
+     * Copia o conteúdo entre aspas para o token.
+     * @return posição logo após as aspas de fechamento
+     */
+    private int lerAspas(String linha, int i) {
+        while (i < linha.length()) {
+            char c = linha.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i < linha.length()) {
+                c = linha.charAt(i++);
+            }
+            token.append(c);
+        }
+        throw new IllegalArgumentException("aspas não fechadas na linha " + numeroLinha);
+    }
+}
@@ -0,0 +1,258 @@
+package diagnostico;
+
+import ambiente.Ambiente;
+import carga.HistogramaLatencia;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Modo de diagnóstico, para descobrir por que uma operação está lenta em uma loja sem
+ * conectar um profiler.
+ *
+ * Ligado, cada operação executada por {@link #medir} tem o tempo dividido em
+ * {@link Fase}s (conexão, consulta, mapeamento, renderização, PDF), marcadas pelo código
+ * com {@link #fase}/{@link #voltar}. As durações vão para histogramas dos últimos
+ * {@code DIAGNOSTICO_JANELA_MINUTOS} (padrão 15) minutos, por operação e por fase, e uma
+ * gravação JFR contínua guarda o mesmo período para {@link #gravarJfr} gerar o arquivo
+ * quando pedido. Desligado, as marcações de fase só leem uma flag.
+ *
+ * Começa ligado com {@code DIAGNOSTICO=true} (ver {@link #doAmbiente()}).
+ */
+public final class Diagnostico {
+
+    private static final Fase[] FASES = Fase.values();
+    private static final DateTimeFormatter NOME_ARQUIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final long JANELA_NANOS =
+            Duration.ofMinutes(Math.max(1, Ambiente.inteiro("DIAGNOSTICO_JANELA_MINUTOS", 15))).toNanos();
+    private static final ThreadLocal<MedicaoOperacao> ATUAL = new ThreadLocal<>();
+    // Por operação: o total na posição 0 e cada fase na posição ordinal() + 1
+    private static final Map<String, JanelaLatencia[]> JANELAS = new ConcurrentHashMap<>();
+
+    private static volatile boolean ligado;
+    private static Recording gravacao;
+
+    private Diagnostico() {
+    }
+
+    /**
+     * Liga o diagnóstico se {@code DIAGNOSTICO} for {@code true} ou {@code 1}.
+     */
+    public static void doAmbiente() {
+        String valor = Ambiente.texto("DIAGNOSTICO");
+        if (valor != null && (valor.equalsIgnoreCase("true") || valor.equals("1"))) {
+            ligar(true);
+        }
+    }
+
+    public static boolean ligado() {
+        return ligado;
+    }
+
+    /**
+     * Liga ou desliga a medição e a gravação JFR contínua. Ao desligar, a gravação é
+     * descartada (gere o arquivo antes); os histogramas continuam disponíveis.
+     */
+    public static synchronized void ligar(boolean ligar) {
+        if (ligar == ligado) {
+            return;
+        }
+        ligado = ligar;
+        if (ligar) {
+            iniciarGravacao();
+        } else if (gravacao != null) {
+            gravacao.close();
+            gravacao = null;
+        }
+    }
+
+    // ===== Medição =====
+
+    /**
+     * Executa a operação medindo as fases; uma operação dentro de outra conta como parte
+     * da de fora.
+     * @return a medição, ou null se o diagnóstico estava desligado
+     */
+    public static MedicaoOperacao medir(String operacao, Runnable acao) {
+        if (!ligado || ATUAL.get() != null) {
+            acao.run();
+            return null;
+        }
+        MedicaoOperacao medicao = new MedicaoOperacao(operacao);
+        EventoOperacao evento = new EventoOperacao();
+        evento.begin();
+        ATUAL.set(medicao);
+        try {
+            acao.run();
+        } finally {
+            ATUAL.remove();
+            medicao.terminar();
+            registrar(medicao, evento);
+        }
+        return medicao;
+    }
+
+    /**
+     * Marca o início de uma fase na operação em andamento na thread.
+     * @return a fase anterior, para {@link #voltar}; null se não há medição
+     */
+    public static Fase fase(Fase fase) {
+        return fase(fase, true);
+    }
+
+    /**
+     * @param contar false para um trecho que não é uma nova entrada na fase (ex.: a espera
+     *               por vaga antes de abrir a conexão, contada só na abertura)
+     */
+    public static Fase fase(Fase fase, boolean contar) {
+        if (!ligado) {
+            return null;
+        }
+        MedicaoOperacao medicao = ATUAL.get();
+        return medicao != null ? medicao.entrar(fase, contar) : null;
+    }
+
+    /**
+     * Termina a fase aberta por {@link #fase}, voltando para a que estava em andamento.
+     */
+    public static void voltar(Fase anterior) {
+        if (anterior == null) {
+            return;
+        }
+        MedicaoOperacao medicao = ATUAL.get();
+        if (medicao != null) {
+            medicao.voltar(anterior);
+        }
+    }
+
+    private static void registrar(MedicaoOperacao medicao, EventoOperacao evento) {
+        JanelaLatencia[] janelas = JANELAS.computeIfAbsent(medicao.getOperacao(), chave -> {
+            JanelaLatencia[] novas = new JanelaLatencia[FASES.length + 1];
+            for (int i = 0; i < novas.length; i++) {
+                novas[i] = new JanelaLatencia(JANELA_NANOS);
+            }
+            return novas;
+        });
+        janelas[0].registrar(medicao.getTotal());
+        for (Fase fase : FASES) {
+            if (medicao.getVezes(fase) > 0 || (fase == Fase.OUTROS && medicao.getNanos(fase) > 0)) {
+                janelas[fase.ordinal() + 1].registrar(medicao.getNanos(fase));
+            }
+        }
+
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.operacao = medicao.getOperacao();
+            evento.conexao = medicao.getNanos(Fase.CONEXAO);
+            evento.consulta = medicao.getNanos(Fase.CONSULTA);
+            evento.mapeamento = medicao.getNanos(Fase.MAPEAMENTO);
+            evento.renderizacao = medicao.getNanos(Fase.RENDERIZACAO);
+            evento.pdf = medicao.getNanos(Fase.PDF);
+            evento.commit();
+        }
+    }
+
+    // ===== Histogramas =====
+
+    /**
+     * Tabela com contagem, p50, p90, p99 e máximo de cada operação da janela e, abaixo
+     * dela, de cada fase pela qual a operação passou.
+     */
+    public static String relatorio() {
+        StringBuilder texto = new StringBuilder(1024);
+        texto.append(String.format("Últimos %d min (diagnóstico %s)%n", Duration.ofNanos(JANELA_NANOS).toMinutes(),
+                ligado ? "ligado" : "desligado"));
+        texto.append(String.format("%-30s %6s %10s %10s %10s %10s%n", "Operação / fase", "n", "p50", "p90", "p99", "máx"));
+        boolean vazio = true;
+        for (Map.Entry<String, JanelaLatencia[]> entrada : new ConcurrentSkipListMap<>(JANELAS).entrySet()) {
+            HistogramaLatencia total = entrada.getValue()[0].consolidar();
+            if (total.contagem() == 0) {
+                continue;
+            }
+            vazio = false;
+            linha(texto, entrada.getKey(), total);
+            for (Fase fase : FASES) {
+                HistogramaLatencia histograma = entrada.getValue()[fase.ordinal() + 1].consolidar();
+                if (histograma.contagem() > 0) {
+                    linha(texto, "  " + fase.getDescricao(), histograma);
+                }
+            }
+        }
+        if (vazio) {
+            texto.append("Nenhuma operação medida na janela.").append(System.lineSeparator());
+        }
+        return texto.toString();
+    }
+
+    /** Descarta as amostras de todas as operações. */
+    public static void limpar() {
+        JANELAS.clear();
+    }
+
+    private static void linha(StringBuilder texto, String nome, HistogramaLatencia histograma) {
+        texto.append(String.format("%-30s %6d %10s %10s %10s %10s%n", nome, histograma.contagem(),
+                milis(histograma.percentil(50)), milis(histograma.percentil(90)),
+                milis(histograma.percentil(99)), milis(histograma.maximo())));
+    }
+
+    private static String milis(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+
+    // ===== JFR =====
+
+    /**
+     * Grava em {@code diretorio} tudo o que as gravações JFR em andamento guardaram: a
+     * contínua do diagnóstico e as iniciadas com {@code -XX:StartFlightRecording}.
+     * @return o arquivo gerado, ou null se não havia gravação em andamento
+     */
+    public static Path gravarJfr(Path diretorio) throws IOException {
+        if (!FlightRecorder.isAvailable()) {
+            return null;
+        }
+        try (Recording instantaneo = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+            if (instantaneo.getSize() == 0) {
+                return null;
+            }
+            Path arquivo = diretorio.resolve("diagnostico-" + LocalDateTime.now().format(NOME_ARQUIVO) + ".jfr");
+            instantaneo.dump(arquivo);
+            return arquivo.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * @return diretório de {@code DIAGNOSTICO_DIR} para os arquivos JFR, ou o diretório atual
+     */
+    public static Path diretorioJfr() {
+        String valor = Ambiente.texto("DIAGNOSTICO_DIR");
+        return Path.of(valor != null ? valor : ".");
+    }
+
+    private static void iniciarGravacao() {
+        if (!FlightRecorder.isAvailable()) {
+            System.err.println("Erro ao iniciar a gravação JFR: JFR indisponível nesta JVM");
+            return;
+        }
+        try {
+            // Configuração "default": sobrecarga abaixo de 1%, para poder ficar ligada na loja
+            Recording nova = new Recording(Configuration.getConfiguration("default"));
+            nova.setName("diagnostico");
+            nova.setToDisk(true);
+            nova.setMaxAge(Duration.ofNanos(JANELA_NANOS));
+            nova.start();
+            gravacao = nova;
+        } catch (Exception e) {
+            System.err.println("Erro ao iniciar a gravação JFR: " + e.getMessage());
+        }
+    }
+}
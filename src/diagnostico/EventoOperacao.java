@@ -0,0 +1,42 @@
+package diagnostico;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Uma operação medida, na gravação JFR: no JDK Mission Control aparece na linha do
+ * tempo ao lado das amostras de CPU, das pausas do GC e das esperas de socket.
+ */
+@Name("estoque.Operacao")
+@Label("Operação")
+@Category("Gerenciador de Produtos")
+@StackTrace(false)
+class EventoOperacao extends Event {
+
+    @Label("Operação")
+    String operacao;
+
+    @Label("Conexão")
+    @Timespan
+    long conexao;
+
+    @Label("Consulta")
+    @Timespan
+    long consulta;
+
+    @Label("Mapeamento")
+    @Timespan
+    long mapeamento;
+
+    @Label("Renderização")
+    @Timespan
+    long renderizacao;
+
+    @Label("Escrita do PDF")
+    @Timespan
+    long pdf;
+}
@@ -0,0 +1,30 @@
+package diagnostico;
+
+/**
+ * Fases em que se divide o tempo de uma operação medida pelo {@link Diagnostico}.
+ * Cada instante conta para uma única fase: a mais interna em andamento.
+ */
+public enum Fase {
+    /** Espera por uma vaga de conexão e abertura da conexão com o banco. */
+    CONEXAO("conexão"),
+    /** Execução dos comandos no banco, até a primeira linha do resultado. */
+    CONSULTA("consulta"),
+    /** Leitura das linhas do resultado e montagem dos objetos. */
+    MAPEAMENTO("mapeamento"),
+    /** Formatação da saída no console. */
+    RENDERIZACAO("renderização"),
+    /** Montagem e gravação do relatório PDF. */
+    PDF("escrita do PDF"),
+    /** O restante: lógica em memória, caches e a digitação pedida pela própria operação. */
+    OUTROS("outros");
+
+    private final String descricao;
+
+    Fase(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
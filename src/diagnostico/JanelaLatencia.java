@@ -0,0 +1,50 @@
+package diagnostico;
+
+import carga.HistogramaLatencia;
+
+/**
+ * Histograma das latências dos últimos minutos: a janela é dividida em {@value #INTERVALOS}
+ * intervalos, cada um com seu {@link HistogramaLatencia}; o intervalo mais antigo é
+ * esvaziado e reaproveitado quando o tempo passa. A memória fica fixa e as amostras de
+ * um incidente antigo não escondem o comportamento atual.
+ */
+class JanelaLatencia {
+
+    static final int INTERVALOS = 6;
+
+    private final long intervaloNanos;
+    private final HistogramaLatencia[] histogramas = new HistogramaLatencia[INTERVALOS];
+    private final long[] numeros = new long[INTERVALOS];
+
+    JanelaLatencia(long janelaNanos) {
+        this.intervaloNanos = Math.max(1, janelaNanos / INTERVALOS);
+        for (int i = 0; i < INTERVALOS; i++) {
+            histogramas[i] = new HistogramaLatencia();
+            numeros[i] = -1;
+        }
+    }
+
+    void registrar(long nanos) {
+        long numero = System.nanoTime() / intervaloNanos;
+        int posicao = (int) Math.floorMod(numero, (long) INTERVALOS);
+        synchronized (this) {
+            if (numeros[posicao] != numero) {
+                histogramas[posicao].limpar();
+                numeros[posicao] = numero;
+            }
+        }
+        histogramas[posicao].registrar(nanos);
+    }
+
+    /** @return cópia com as amostras dos intervalos que ainda estão dentro da janela */
+    synchronized HistogramaLatencia consolidar() {
+        long atual = System.nanoTime() / intervaloNanos;
+        HistogramaLatencia consolidado = new HistogramaLatencia();
+        for (int i = 0; i < INTERVALOS; i++) {
+            if (numeros[i] >= 0 && atual - numeros[i] < INTERVALOS) {
+                consolidado.acumular(histogramas[i]);
+            }
+        }
+        return consolidado;
+    }
+}
@@ -0,0 +1,95 @@
+package diagnostico;
+
+/**
+ * Tempo de uma operação dividido por {@link Fase}. Pertence à thread que executa a
+ * operação, então não precisa de sincronização.
+ */
+public final class MedicaoOperacao {
+
+    private static final Fase[] FASES = Fase.values();
+
+    private final String operacao;
+    private final long inicio = System.nanoTime();
+    private final long[] nanos = new long[FASES.length];
+    private final int[] vezes = new int[FASES.length];
+    private Fase atual = Fase.OUTROS;
+    private long desde = inicio;
+    private long total = -1;
+
+    MedicaoOperacao(String operacao) {
+        this.operacao = operacao;
+    }
+
+    /**
+     * Passa a contar o tempo em {@code nova}; entrar na fase que já está em andamento
+     * não conta como nova entrada.
+     * @return a fase que estava em andamento
+     */
+    Fase entrar(Fase nova, boolean contar) {
+        Fase anterior = trocar(nova);
+        if (contar && anterior != nova) {
+            vezes[nova.ordinal()]++;
+        }
+        return anterior;
+    }
+
+    /** Volta para a fase devolvida por {@link #entrar}, sem contar uma nova entrada. */
+    void voltar(Fase anterior) {
+        trocar(anterior);
+    }
+
+    void terminar() {
+        trocar(Fase.OUTROS);
+        total = desde - inicio;
+    }
+
+    private Fase trocar(Fase nova) {
+        long agora = System.nanoTime();
+        nanos[atual.ordinal()] += agora - desde;
+        desde = agora;
+        Fase anterior = atual;
+        atual = nova;
+        return anterior;
+    }
+
+    public String getOperacao() {
+        return operacao;
+    }
+
+    /** @return duração total em nanossegundos (até agora, se ainda não terminou) */
+    public long getTotal() {
+        return total >= 0 ? total : System.nanoTime() - inicio;
+    }
+
+    /** @return tempo gasto na fase, em nanossegundos */
+    public long getNanos(Fase fase) {
+        return nanos[fase.ordinal()];
+    }
+
+    /** @return quantas vezes a operação entrou na fase (ex.: idas ao banco) */
+    public int getVezes(Fase fase) {
+        return vezes[fase.ordinal()];
+    }
+
+    /**
+     * Ex.: {@code Listar produtos: 153,2 ms | conexão 2,1 ms (1x) | consulta 120,0 ms (1x) | outros 31,1 ms};
+     * só aparecem as fases em que a operação passou.
+     */
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder(128).append(operacao).append(": ")
+                .append(String.format("%.1f ms", getTotal() / 1e6));
+        for (Fase fase : FASES) {
+            long tempo = nanos[fase.ordinal()];
+            if (fase == Fase.OUTROS ? tempo == 0 : vezes[fase.ordinal()] == 0) {
+                continue;
+            }
+            texto.append(" | ").append(fase.getDescricao()).append(' ')
+                    .append(String.format("%.1f ms", tempo / 1e6));
+            if (fase != Fase.OUTROS) {
+                texto.append(" (").append(vezes[fase.ordinal()]).append("x)");
+            }
+        }
+        return texto.toString();
+    }
+}
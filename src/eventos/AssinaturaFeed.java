@@ -0,0 +1,163 @@
+package eventos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assinatura do {@link FeedAlteracoes}. Deve ser consumida por uma única thread.
+ *
+ * Começa lendo do log a partir do offset confirmado e, ao alcançar o fim, passa a
+ * receber os eventos ao vivo por uma fila limitada. Eventos repetidos (offset já
+ * entregue) são descartados, então a entrega é em ordem e sem duplicatas.
+ *
+ * <pre>
+ * AssinaturaFeed assinatura = feed.assinar("bi", 1024, Path.of("bi.offset"));
+ * EventoProduto evento;
+ * while ((evento = assinatura.proximo(1, TimeUnit.SECONDS)) != null) {
+ *     aplicar(evento);
+ *     assinatura.confirmar();
+ * }
+ * </pre>
+ */
+public class AssinaturaFeed implements Closeable {
+
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final FeedAlteracoes feed;
+    private final String nome;
+    private final Path arquivoOffset;
+    private final ArrayBlockingQueue<EventoProduto> fila;
+
+    private volatile boolean aoVivo;
+    private FeedAlteracoes.LeitorLog leitor;
+    private long ultimoEntregue;
+    private long offsetConfirmado;
+
+    AssinaturaFeed(FeedAlteracoes feed, String nome, int capacidade, Path arquivoOffset, long offsetInicial) {
+        this.feed = feed;
+        this.nome = nome;
+        this.arquivoOffset = arquivoOffset;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.ultimoEntregue = offsetInicial;
+        this.offsetConfirmado = offsetInicial;
+    }
+
+    /**
+     * Retorna o próximo evento, esperando até o tempo informado.
+     * @return o evento, ou null se nenhum chegou dentro do prazo
+     */
+    public EventoProduto proximo(long tempo, TimeUnit unidade) throws InterruptedException, IOException {
+        long limite = System.nanoTime() + unidade.toNanos(tempo);
+        while (true) {
+            if (!aoVivo) {
+                EventoProduto evento = lerDoLog();
+                if (evento != null) {
+                    return entregue(evento);
+                }
+                if (!feed.entrarAoVivo(this, ultimoEntregue)) {
+                    continue; // chegaram eventos novos no log enquanto lia
+                }
+            }
+
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                return null;
+            }
+            // Espera em fatias curtas para perceber se foi tirada do modo ao vivo
+            EventoProduto evento = fila.poll(Math.min(restante, ESPERA_MAXIMA_NANOS), TimeUnit.NANOSECONDS);
+            if (evento != null && evento.getOffset() > ultimoEntregue) {
+                return entregue(evento);
+            }
+        }
+    }
+
+    /**
+     * Confirma de forma durável todos os eventos já entregues.
+     */
+    public void confirmar() throws IOException {
+        confirmar(ultimoEntregue);
+    }
+
+    /**
+     * Grava o offset confirmado; ao reabrir a assinatura, a leitura recomeça logo após ele.
+     */
+    public void confirmar(long offset) throws IOException {
+        Path temporario = arquivoOffset.resolveSibling(arquivoOffset.getFileName() + ".tmp");
+        Files.writeString(temporario, Long.toString(offset));
+        Files.move(temporario, arquivoOffset, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        offsetConfirmado = offset;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public long getOffsetConfirmado() {
+        return offsetConfirmado;
+    }
+
+    /** @return true enquanto recebe eventos diretamente do publicador (e não do log) */
+    public boolean isAoVivo() {
+        return aoVivo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        feed.cancelar(this);
+        aoVivo = false;
+        fecharLeitor();
+    }
+
+    // ===== Chamados pelo feed com o lock do feed =====
+
+    boolean entregar(EventoProduto evento, long tempoMaximoNanos) {
+        try {
+            return fila.offer(evento, tempoMaximoNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void prepararAoVivo() {
+        fila.clear();
+        aoVivo = true;
+    }
+
+    void marcarAtrasada() {
+        aoVivo = false;
+    }
+
+    private EventoProduto lerDoLog() throws IOException {
+        if (leitor == null) {
+            leitor = new FeedAlteracoes.LeitorLog(feed.getArquivoLog());
+        }
+        while (leitor.getPosicao() < feed.getBytesConfirmados()) {
+            EventoProduto evento = leitor.proximo();
+            if (evento == null) {
+                break;
+            }
+            if (evento.getOffset() > ultimoEntregue) {
+                return evento;
+            }
+        }
+        return null;
+    }
+
+    private EventoProduto entregue(EventoProduto evento) {
+        ultimoEntregue = evento.getOffset();
+        return evento;
+    }
+
+    private void fecharLeitor() throws IOException {
+        if (leitor != null) {
+            leitor.close();
+            leitor = null;
+        }
+    }
+}
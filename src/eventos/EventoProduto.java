@@ -0,0 +1,126 @@
+package eventos;
+
+import model.Produto;
+import model.TipoProduto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Alteração de um produto publicada no feed.
+ *
+ * O {@code offset} é global e crescente (posição no log do feed); a {@code sequencia}
+ * é crescente por produto, permitindo que o consumidor aplique os eventos de cada
+ * produto na ordem certa. Em {@link TipoEvento#QUANTIDADE_ALTERADA},
+ * {@link TipoEvento#QUANTIDADE_CORRIGIDA} e {@link TipoEvento#QUANTIDADE_DESCARTADA},
+ * {@code quantidade} é a variação aplicada (negativa em remoções, descartes e contagens
+ * abaixo do saldo); em {@link TipoEvento#CRIADO}, é a
+ * quantidade inicial e {@code produto} traz os demais dados do cadastro; em
+ * {@link TipoEvento#PRECO_ALTERADO}, é o novo preço em centavos (o formato do log
+ * continua o mesmo, então logs antigos seguem legíveis).
+ */
+public class EventoProduto {
+
+    private final long offset;
+    private final long instante;
+    private final TipoEvento tipo;
+    private final long produtoId;
+    private final long sequencia;
+    private final int quantidade;
+    private final Produto produto;
+
+    public EventoProduto(long offset, long instante, TipoEvento tipo, long produtoId, long sequencia,
+                         int quantidade, Produto produto) {
+        this.offset = offset;
+        this.instante = instante;
+        this.tipo = tipo;
+        this.produtoId = produtoId;
+        this.sequencia = sequencia;
+        this.quantidade = quantidade;
+        this.produto = produto;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /** Momento da publicação em milissegundos desde a época. */
+    public long getInstante() {
+        return instante;
+    }
+
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+
+    public long getProdutoId() {
+        return produtoId;
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    /** Novo preço de um evento {@link TipoEvento#PRECO_ALTERADO}. */
+    public double getPreco() {
+        return quantidade / 100.0;
+    }
+
+    /** Dados do produto, presentes apenas em eventos {@link TipoEvento#CRIADO}. */
+    public Produto getProduto() {
+        return produto;
+    }
+
+    /**
+     * Grava o evento no formato binário do log.
+     */
+    void gravar(DataOutput saida) throws IOException {
+        saida.writeLong(offset);
+        saida.writeLong(instante);
+        saida.writeByte(tipo.ordinal());
+        saida.writeLong(produtoId);
+        saida.writeLong(sequencia);
+        saida.writeInt(quantidade);
+        saida.writeBoolean(produto != null);
+        if (produto != null) {
+            saida.writeUTF(produto.getNome());
+            saida.writeUTF(produto.getDescricao() != null ? produto.getDescricao() : "");
+            saida.writeDouble(produto.getPreco());
+            saida.writeByte(produto.getTipo().ordinal());
+            saida.writeLong(produto.getCodigoBarras());
+        }
+    }
+
+    /**
+     * Lê um evento gravado por {@link #gravar(DataOutput)}.
+     */
+    static EventoProduto ler(DataInput entrada) throws IOException {
+        long offset = entrada.readLong();
+        long instante = entrada.readLong();
+        TipoEvento tipo = TipoEvento.values()[entrada.readByte()];
+        long produtoId = entrada.readLong();
+        long sequencia = entrada.readLong();
+        int quantidade = entrada.readInt();
+        Produto produto = null;
+        if (entrada.readBoolean()) {
+            String nome = entrada.readUTF();
+            String descricao = entrada.readUTF();
+            double preco = entrada.readDouble();
+            TipoProduto tipoProduto = TipoProduto.values()[entrada.readByte()];
+            long codigoBarras = entrada.readLong();
+            produto = new Produto(produtoId, nome, descricao, preco, quantidade, tipoProduto, codigoBarras);
+        }
+        return new EventoProduto(offset, instante, tipo, produtoId, sequencia, quantidade, produto);
+    }
+
+    @Override
+    public String toString() {
+        return "EventoProduto{offset=" + offset + ", tipo=" + tipo + ", produtoId=" + produtoId
+                + ", sequencia=" + sequencia + ", quantidade=" + quantidade + '}';
+    }
+}
@@ -0,0 +1,300 @@
+package eventos;
+
+import model.Produto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Feed em processo com as alterações de produtos feitas pelo repositório
+ * (cadastro, exclusão e variações de quantidade e de preço).
+ *
+ * Todo evento é gravado em um log binário append-only antes de ser entregue às
+ * assinaturas ao vivo, o que garante a ordem global pelo offset e permite que um
+ * assinante retome a partir do último offset confirmado. Cada assinatura tem uma
+ * fila limitada: quando está cheia, o publicador espera até {@code tempoMaximoBloqueio}
+ * (contrapressão) e, se ainda assim não houver espaço, a assinatura sai do modo ao vivo
+ * e passa a ler do log até alcançar o fim, sem perder eventos.
+ */
+public class FeedAlteracoes implements Closeable {
+
+    private final Path arquivoLog;
+    private final long tempoMaximoBloqueioNanos;
+    private final Map<Long, Long> sequencias = new HashMap<>();
+    private final List<AssinaturaFeed> aoVivo = new ArrayList<>();
+    private final FileOutputStream arquivo;
+    private final DataOutputStream saida;
+
+    private long ultimoOffset;
+    private volatile long bytesConfirmados;
+
+    public FeedAlteracoes(Path arquivoLog) throws IOException {
+        this(arquivoLog, Duration.ofMillis(200));
+    }
+
+    /**
+     * Abre (ou cria) o log do feed, recuperando o último offset e as sequências por produto.
+     * Um registro incompleto no fim do arquivo (queda durante a gravação) é descartado.
+     *
+     * @param tempoMaximoBloqueio quanto o publicador espera por uma assinatura com fila cheia
+     */
+    public FeedAlteracoes(Path arquivoLog, Duration tempoMaximoBloqueio) throws IOException {
+        this.arquivoLog = arquivoLog;
+        this.tempoMaximoBloqueioNanos = tempoMaximoBloqueio.toNanos();
+        recuperar();
+        this.arquivo = new FileOutputStream(arquivoLog.toFile(), true);
+        this.saida = new DataOutputStream(new BufferedOutputStream(arquivo, 8192));
+    }
+
+    public void publicarCriacao(Produto produto) {
+        publicar(TipoEvento.CRIADO, produto.getId(), produto.getQuantidade(), produto);
+    }
+
+    public void publicarQuantidade(long produtoId, int variacao) {
+        publicar(TipoEvento.QUANTIDADE_ALTERADA, produtoId, variacao, null);
+    }
+
+    /**
+     * Correção da quantidade pela contagem física, publicada como variação para que os
+     * consumidores possam aplicá-la como as demais, mas sem contar como venda ou entrada.
+     */
+    public void publicarCorrecao(long produtoId, int variacao) {
+        publicar(TipoEvento.QUANTIDADE_CORRIGIDA, produtoId, variacao, null);
+    }
+
+    /**
+     * Baixa por perda de lotes vencidos, publicada como variação (negativa) que não conta
+     * como venda.
+     */
+    public void publicarDescarte(long produtoId, int variacao) {
+        publicar(TipoEvento.QUANTIDADE_DESCARTADA, produtoId, variacao, null);
+    }
+
+    /**
+     * @param preco novo preço, já arredondado em centavos
+     */
+    public void publicarPreco(long produtoId, double preco) {
+        publicar(TipoEvento.PRECO_ALTERADO, produtoId, (int) Math.min(Integer.MAX_VALUE, Math.round(preco * 100)), null);
+    }
+
+    public void publicarExclusao(long produtoId) {
+        publicar(TipoEvento.EXCLUIDO, produtoId, 0, null);
+    }
+
+    /**
+     * Cria uma assinatura que retoma a partir do offset salvo em {@code arquivoOffset}
+     * (ou do início do log, se o arquivo não existir).
+     *
+     * @param capacidade tamanho máximo da fila de eventos ao vivo
+     */
+    public AssinaturaFeed assinar(String nome, int capacidade, Path arquivoOffset) throws IOException {
+        long offset = 0;
+        if (Files.exists(arquivoOffset)) {
+            offset = Long.parseLong(Files.readString(arquivoOffset).trim());
+        }
+        return new AssinaturaFeed(this, nome, capacidade, arquivoOffset, offset);
+    }
+
+    /**
+     * Percorre todos os eventos já gravados no log, do mais antigo ao mais recente,
+     * sem criar assinatura nem offset salvo. Útil para reconstruir estado derivado na partida.
+     * @return quantidade de eventos lidos
+     */
+    public long reproduzir(Consumer<EventoProduto> consumidor) throws IOException {
+        long limite = bytesConfirmados;
+        long lidos = 0;
+        try (LeitorLog leitor = new LeitorLog(arquivoLog)) {
+            EventoProduto evento;
+            while (leitor.getPosicao() < limite && (evento = leitor.proximo()) != null) {
+                consumidor.accept(evento);
+                lidos++;
+            }
+        }
+        return lidos;
+    }
+
+    public synchronized long getUltimoOffset() {
+        return ultimoOffset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        aoVivo.clear();
+        saida.close();
+    }
+
+    // ===== Uso interno pelas assinaturas =====
+
+    Path getArquivoLog() {
+        return arquivoLog;
+    }
+
+    long getBytesConfirmados() {
+        return bytesConfirmados;
+    }
+
+    /**
+     * Coloca a assinatura no modo ao vivo se ela já leu tudo o que está no log.
+     * @return true se a assinatura passou a receber os eventos diretamente
+     */
+    synchronized boolean entrarAoVivo(AssinaturaFeed assinatura, long ultimoEntregue) {
+        if (ultimoEntregue < ultimoOffset) {
+            return false;
+        }
+        assinatura.prepararAoVivo();
+        aoVivo.add(assinatura);
+        return true;
+    }
+
+    synchronized void cancelar(AssinaturaFeed assinatura) {
+        aoVivo.remove(assinatura);
+    }
+
+    private synchronized void publicar(TipoEvento tipo, long produtoId, int quantidade, Produto produto) {
+        long sequencia = tipo == TipoEvento.EXCLUIDO
+                ? sequencias.getOrDefault(produtoId, 0L) + 1
+                : sequencias.merge(produtoId, 1L, Long::sum);
+        if (tipo == TipoEvento.EXCLUIDO) {
+            // Ids não são reaproveitados, então a sequência de um produto excluído não é mais necessária
+            sequencias.remove(produtoId);
+        }
+        EventoProduto evento = new EventoProduto(ultimoOffset + 1, System.currentTimeMillis(), tipo, produtoId,
+                sequencia, quantidade, produto);
+        try {
+            evento.gravar(saida);
+            saida.flush();
+            ultimoOffset = evento.getOffset();
+            bytesConfirmados = arquivo.getChannel().size();
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar alteração no feed: " + e.getMessage());
+            return;
+        }
+
+        for (int i = aoVivo.size() - 1; i >= 0; i--) {
+            AssinaturaFeed assinatura = aoVivo.get(i);
+            if (!assinatura.entregar(evento, tempoMaximoBloqueioNanos)) {
+                // Assinante lento: sai do modo ao vivo e volta a ler do log quando puder
+                aoVivo.remove(i);
+                assinatura.marcarAtrasada();
+            }
+        }
+    }
+
+    private void recuperar() throws IOException {
+        if (!Files.exists(arquivoLog)) {
+            Files.createFile(arquivoLog);
+            return;
+        }
+        long tamanhoValido = 0;
+        try (LeitorLog leitor = new LeitorLog(arquivoLog)) {
+            while (true) {
+                EventoProduto evento = leitor.proximo();
+                if (evento == null) {
+                    break;
+                }
+                ultimoOffset = evento.getOffset();
+                if (evento.getTipo() == TipoEvento.EXCLUIDO) {
+                    sequencias.remove(evento.getProdutoId());
+                } else {
+                    sequencias.put(evento.getProdutoId(), evento.getSequencia());
+                }
+                tamanhoValido = leitor.getPosicao();
+            }
+        }
+        try (FileChannel canal = FileChannel.open(arquivoLog, StandardOpenOption.WRITE)) {
+            if (canal.size() > tamanhoValido) {
+                canal.truncate(tamanhoValido);
+            }
+        }
+        bytesConfirmados = tamanhoValido;
+    }
+
+    /**
+     * Leitor sequencial do log, que sabe em que byte está para nunca ler um registro incompleto.
+     */
+    static final class LeitorLog implements Closeable {
+
+        private final FileChannel canal;
+        private final EntradaContada contador;
+        private final DataInputStream entrada;
+
+        LeitorLog(Path arquivo) throws IOException {
+            canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            contador = new EntradaContada(new BufferedInputStream(Channels.newInputStream(canal), 8192));
+            entrada = new DataInputStream(contador);
+        }
+
+        long getPosicao() {
+            return contador.lidos;
+        }
+
+        /**
+         * @return o próximo evento, ou null no fim do arquivo ou diante de um registro incompleto
+         */
+        EventoProduto proximo() throws IOException {
+            try {
+                return EventoProduto.ler(entrada);
+            } catch (EOFException | UTFDataFormatException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            entrada.close();
+        }
+    }
+
+    private static final class EntradaContada extends FilterInputStream {
+        long lidos;
+
+        EntradaContada(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                lidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                lidos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long pulados = super.skip(n);
+            lidos += pulados;
+            return pulados;
+        }
+    }
+}
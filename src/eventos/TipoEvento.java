@@ -0,0 +1,15 @@
+package eventos;
+
+/**
+ * Tipos de alteração publicados no feed de produtos.
+ */
+public enum TipoEvento {
+    CRIADO,
+    QUANTIDADE_ALTERADA,
+    EXCLUIDO,
+    PRECO_ALTERADO,
+    /** quantidade acertada pela contagem física; não é entrada nem baixa de estoque */
+    QUANTIDADE_CORRIGIDA,
+    /** baixa por perda de lotes vencidos; também não é consumo */
+    QUANTIDADE_DESCARTADA;
+}
@@ -0,0 +1,33 @@
+package formatacao;
+
+/**
+ * Alinhamento de colunas de texto de largura fixa em um {@link StringBuilder}
+ * reaproveitado, no lugar de {@code String.format} por linha.
+ */
+public final class Colunas {
+
+    private Colunas() {
+    }
+
+    /**
+     * Completa com espaços à direita o que foi escrito desde {@code inicio}
+     * (equivale a {@code %-Ns}).
+     */
+    public static StringBuilder esquerda(StringBuilder destino, int inicio, int largura) {
+        for (int i = destino.length() - inicio; i < largura; i++) {
+            destino.append(' ');
+        }
+        return destino;
+    }
+
+    /**
+     * Empurra para a direita, com espaços à esquerda, o que foi escrito desde {@code inicio}
+     * (equivale a {@code %Ns}).
+     */
+    public static StringBuilder direita(StringBuilder destino, int inicio, int largura) {
+        for (int i = destino.length() - inicio; i < largura; i++) {
+            destino.insert(inicio, ' ');
+        }
+        return destino;
+    }
+}
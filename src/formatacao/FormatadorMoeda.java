@@ -0,0 +1,100 @@
+package formatacao;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Formata valores em moeda direto em um {@link StringBuilder}, sem criar objetos
+ * por valor: os símbolos do locale são lidos uma vez na construção e os dígitos
+ * são escritos um a um, com separador de milhar.
+ *
+ * {@code NumberFormat} faz o mesmo, mas aloca buffers a cada chamada e não é seguro
+ * entre threads; esta classe é imutável e pode ser compartilhada.
+ */
+public final class FormatadorMoeda {
+
+    private static final long[] POTENCIAS_DE_DEZ = new long[19];
+
+    static {
+        long potencia = 1;
+        for (int i = 0; i < POTENCIAS_DE_DEZ.length; i++) {
+            POTENCIAS_DE_DEZ[i] = potencia;
+            potencia *= 10;
+        }
+    }
+
+    // Depois da tabela de potências, que o construtor usa
+    /** Real brasileiro: {@code R$ 1.234,56}. */
+    public static final FormatadorMoeda REAL = new FormatadorMoeda(Locale.forLanguageTag("pt-BR"));
+
+    private final String simbolo;
+    private final char separadorMilhar;
+    private final char separadorDecimal;
+    private final char sinalNegativo;
+    private final int casasDecimais;
+    private final long fator;
+
+    public FormatadorMoeda(Locale locale) {
+        DecimalFormatSymbols simbolos = DecimalFormatSymbols.getInstance(locale);
+        Currency moeda = Currency.getInstance(locale);
+        this.simbolo = moeda.getSymbol(locale);
+        this.separadorMilhar = simbolos.getMonetaryGroupingSeparator();
+        this.separadorDecimal = simbolos.getMonetaryDecimalSeparator();
+        this.sinalNegativo = simbolos.getMinusSign();
+        this.casasDecimais = Math.max(0, moeda.getDefaultFractionDigits());
+        this.fator = POTENCIAS_DE_DEZ[casasDecimais];
+    }
+
+    /**
+     * Anexa o valor com o símbolo da moeda (ex.: {@code R$ 1.234,56} ou {@code -R$ 0,50}).
+     */
+    public StringBuilder anexar(StringBuilder destino, double valor) {
+        if (valor < 0 && Math.round(-valor * fator) != 0) {
+            destino.append(sinalNegativo);
+            valor = -valor;
+        }
+        destino.append(simbolo).append(' ');
+        return anexarValor(destino, Math.abs(valor));
+    }
+
+    /**
+     * Anexa só o número, com separadores e casas decimais da moeda (ex.: {@code 1.234,56}).
+     */
+    public StringBuilder anexarValor(StringBuilder destino, double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor) || Math.abs(valor) >= 9.0e15 / fator) {
+            return destino.append(valor);
+        }
+        long unidades = Math.round(Math.abs(valor) * fator);
+        if (valor < 0 && unidades != 0) {
+            destino.append(sinalNegativo);
+        }
+        anexarAgrupado(destino, unidades / fator);
+        if (casasDecimais > 0) {
+            destino.append(separadorDecimal);
+            long centavos = unidades % fator;
+            for (int i = casasDecimais - 1; i >= 0; i--) {
+                destino.append((char) ('0' + (centavos / POTENCIAS_DE_DEZ[i]) % 10));
+            }
+        }
+        return destino;
+    }
+
+    /** @return o valor formatado, para quem precisa de uma String (ex.: célula do PDF) */
+    public String formatar(double valor) {
+        return anexar(new StringBuilder(24), valor).toString();
+    }
+
+    private void anexarAgrupado(StringBuilder destino, long inteiro) {
+        int digitos = 1;
+        while (digitos < POTENCIAS_DE_DEZ.length && inteiro >= POTENCIAS_DE_DEZ[digitos]) {
+            digitos++;
+        }
+        for (int i = digitos - 1; i >= 0; i--) {
+            destino.append((char) ('0' + (inteiro / POTENCIAS_DE_DEZ[i]) % 10));
+            if (i > 0 && i % 3 == 0) {
+                destino.append(separadorMilhar);
+            }
+        }
+    }
+}
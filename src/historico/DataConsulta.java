@@ -0,0 +1,38 @@
+package historico;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converte a data informada pelo operador no instante da consulta histórica.
+ */
+public final class DataConsulta {
+
+    private DataConsulta() {
+    }
+
+    /**
+     * Aceita {@code AAAA-MM-DD} (fim do dia, para fechamentos como "estoque em 30/09"),
+     * {@code AAAA-MM-DDTHH:MM[:SS]} no fuso do sistema ou milissegundos desde a época.
+     *
+     * @return instante em milissegundos desde a época
+     * @throws IllegalArgumentException se o texto não estiver em nenhum dos formatos
+     */
+    public static long instante(String texto) {
+        String valor = texto.trim();
+        ZoneId fuso = ZoneId.systemDefault();
+        try {
+            if (valor.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(valor);
+            }
+            if (valor.length() == 10) {
+                return LocalDate.parse(valor).plusDays(1).atStartOfDay(fuso).toInstant().toEpochMilli() - 1;
+            }
+            return LocalDateTime.parse(valor).atZone(fuso).toInstant().toEpochMilli();
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("data inválida (use AAAA-MM-DD ou AAAA-MM-DDTHH:MM): " + texto);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package historico;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato compacto de um trecho do histórico de um produto (tabela produtos_historico).
+ *
+ * As versões são gravadas em ordem de tempo, cada uma como diferença da anterior:
+ * <pre>
+ * [varint versões]
+ * por versão: [marcas] [varint Δinstante] [double preço, só se mudou] [zigzag Δquantidade]
+ * </pre>
+ * O instante da primeira versão fica na coluna {@code inicio_ms}. Uma baixa de estoque
+ * típica ocupa de 3 a 5 bytes, contra dezenas numa linha de produtos_versoes.
+ */
+public final class SegmentoHistorico {
+
+    /** Versões por segmento; acima disso a compactação abre um segmento novo. */
+    public static final int MAX_VERSOES = 256;
+
+    private static final int PRECO_MUDOU = 1;
+    private static final int EXCLUIDO = 2;
+
+    private SegmentoHistorico() {
+    }
+
+    /**
+     * @param versoes versões de um único produto, em ordem de tempo
+     */
+    public static byte[] codificar(List<VersaoProduto> versoes) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(8 + versoes.size() * 5);
+        escreverVarint(saida, versoes.size());
+        long instanteAnterior = versoes.isEmpty() ? 0 : versoes.get(0).instante();
+        double precoAnterior = Double.NaN;
+        int quantidadeAnterior = 0;
+        for (VersaoProduto versao : versoes) {
+            boolean precoMudou = Double.doubleToLongBits(versao.preco()) != Double.doubleToLongBits(precoAnterior);
+            saida.write((precoMudou ? PRECO_MUDOU : 0) | (versao.excluido() ? EXCLUIDO : 0));
+            escreverVarint(saida, versao.instante() - instanteAnterior);
+            if (precoMudou) {
+                long bits = Double.doubleToLongBits(versao.preco());
+                for (int i = 56; i >= 0; i -= 8) {
+                    saida.write((int) (bits >>> i));
+                }
+            }
+            escreverVarint(saida, zigzag(versao.quantidade() - quantidadeAnterior));
+            instanteAnterior = versao.instante();
+            precoAnterior = versao.preco();
+            quantidadeAnterior = versao.quantidade();
+        }
+        return saida.toByteArray();
+    }
+
+    /**
+     * @param inicio instante da primeira versão (coluna {@code inicio_ms})
+     */
+    public static List<VersaoProduto> decodificar(long produtoId, long inicio, byte[] dados) {
+        Leitor leitor = new Leitor(produtoId, inicio, dados);
+        List<VersaoProduto> versoes = new ArrayList<>(leitor.restantes);
+        VersaoProduto versao;
+        while ((versao = leitor.proxima()) != null) {
+            versoes.add(versao);
+        }
+        return versoes;
+    }
+
+    /**
+     * Decodifica só até o instante pedido, sem montar a lista.
+     * @return a última versão até {@code instante}, ou null se o segmento começa depois dele
+     */
+    public static VersaoProduto versaoEm(long produtoId, long inicio, byte[] dados, long instante) {
+        Leitor leitor = new Leitor(produtoId, inicio, dados);
+        VersaoProduto encontrada = null;
+        VersaoProduto versao;
+        while ((versao = leitor.proxima()) != null && versao.instante() <= instante) {
+            encontrada = versao;
+        }
+        return encontrada;
+    }
+
+    private static final class Leitor {
+        final long produtoId;
+        final byte[] dados;
+        int posicao;
+        int restantes;
+        long instante;
+        double preco;
+        int quantidade;
+
+        Leitor(long produtoId, long inicio, byte[] dados) {
+            this.produtoId = produtoId;
+            this.dados = dados;
+            this.instante = inicio;
+            this.restantes = (int) lerVarint();
+        }
+
+        VersaoProduto proxima() {
+            if (restantes == 0) {
+                return null;
+            }
+            restantes--;
+            int marcas = dados[posicao++];
+            instante += lerVarint();
+            if ((marcas & PRECO_MUDOU) != 0) {
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | (dados[posicao++] & 0xFF);
+                }
+                preco = Double.longBitsToDouble(bits);
+            }
+            long z = lerVarint();
+            quantidade += (int) ((z >>> 1) ^ -(z & 1));
+            return new VersaoProduto(produtoId, instante, preco, quantidade, (marcas & EXCLUIDO) != 0);
+        }
+
+        private long lerVarint() {
+            long valor = 0;
+            for (int deslocamento = 0; ; deslocamento += 7) {
+                byte b = dados[posicao++];
+                valor |= (long) (b & 0x7F) << deslocamento;
+                if (b >= 0) {
+                    return valor;
+                }
+            }
+        }
+    }
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static void escreverVarint(ByteArrayOutputStream saida, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            saida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+}
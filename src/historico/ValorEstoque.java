@@ -0,0 +1,16 @@
+package historico;
+
+import java.time.Instant;
+
+/**
+ * Valor do catálogo inteiro em um instante: soma de preço × quantidade dos produtos
+ * que existiam e não estavam excluídos naquele momento.
+ */
+public record ValorEstoque(long instante, int produtos, long unidades, double valor) {
+
+    @Override
+    public String toString() {
+        return "Estoque em " + Instant.ofEpochMilli(instante) + ": " + produtos + " produto(s), "
+                + unidades + " unidade(s), R$ " + String.format("%.2f", valor);
+    }
+}
@@ -0,0 +1,24 @@
+package historico;
+
+import java.time.Instant;
+
+/**
+ * Preço e quantidade de um produto a partir de um instante, até a próxima versão.
+ *
+ * @param instante momento da alteração, em milissegundos desde a época
+ * @param excluido true na versão gravada pela exclusão do produto
+ */
+public record VersaoProduto(long produtoId, long instante, double preco, int quantidade, boolean excluido) {
+
+    /** @return valor do estoque do produto nesta versão (zero se excluído) */
+    public double valor() {
+        return excluido ? 0 : preco * quantidade;
+    }
+
+    @Override
+    public String toString() {
+        return "Produto " + produtoId + " em " + Instant.ofEpochMilli(instante)
+                + (excluido ? ": excluído" : ": R$ " + String.format("%.2f", preco) + " x " + quantidade
+                + " = R$ " + String.format("%.2f", valor()));
+    }
+}
@@ -0,0 +1,146 @@
+package inquilino;
+
+import auditoria.GravadorAuditoria;
+import controller.ScannerController;
+import repository.ConfiguracaoBanco;
+import repository.MigradorEsquema;
+import repository.PoliticaResiliencia;
+import repository.ProdutoRepository;
+import service.ProdutoService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Atende vários negócios (inquilinos) no mesmo processo, no lugar de uma JVM por cliente.
+ *
+ * Os inquilinos são listados em {@code INQUILINOS} (ex.: {@code INQUILINOS=padaria,mercado})
+ * e cada um é configurado pelas mesmas variáveis do modo de inquilino único, prefixadas
+ * com o seu id em maiúsculas:
+ * <pre>
+ * PADARIA_DB_URL=jdbc:mysql://banco:3306/padaria
+ * PADARIA_DB_MAX_CONEXOES=4
+ * PADARIA_DB_COTA_OPS=200
+ * PADARIA_RELATORIO_PDF=/relatorios/padaria.pdf
+ * PADARIA_AUDITORIA=/auditoria/padaria.log
+ * </pre>
+ *
+ * Cada inquilino tem repositório próprio (conexões, cota e disjuntor separados) e
+ * serviço próprio (caches, índices e previsão separados), então a carga de um não
+ * consome os limites nem invalida os caches do outro.
+ */
+public class GerenciadorInquilinos implements AutoCloseable {
+
+    private final Map<String, Inquilino> inquilinos = new LinkedHashMap<>();
+    private final ScannerController scannerController;
+
+    /**
+     * Cria os inquilinos informados a partir das variáveis de ambiente, aplicando as
+     * migrações e montando o índice de pesquisa de cada um.
+     *
+     * @param scannerController console para o modo interativo, ou null no modo em lote
+     */
+    public GerenciadorInquilinos(List<String> ids, ScannerController scannerController) {
+        this.scannerController = scannerController;
+        for (String id : ids) {
+            String prefixo = id.toUpperCase(Locale.ROOT) + "_";
+            ConfiguracaoBanco configuracao = ConfiguracaoBanco.doAmbiente(prefixo);
+            try {
+                new MigradorEsquema(configuracao).migrar();
+            } catch (SQLException e) {
+                System.err.println("Erro ao migrar o esquema do inquilino " + id + ": " + e.getMessage());
+            }
+            ProdutoRepository repositorio = new ProdutoRepository(configuracao, PoliticaResiliencia.doAmbiente(prefixo));
+            String relatorio = System.getenv(prefixo + "RELATORIO_PDF");
+            repositorio.setArquivoRelatorio(relatorio != null ? relatorio
+                    : repositorio.getArquivoRelatorio().replace(".pdf", "_" + id + ".pdf"));
+            GravadorAuditoria auditoria = GravadorAuditoria.doAmbiente(prefixo, () -> repositorio::gravarAuditoria);
+            if (auditoria != null) {
+                repositorio.setAuditoria(auditoria);
+            }
+            registrar(id, repositorio);
+        }
+    }
+
+    /**
+     * Lê a lista de inquilinos de {@code INQUILINOS}.
+     * @return ids dos inquilinos, ou lista vazia no modo de inquilino único
+     */
+    public static List<String> idsDoAmbiente() {
+        List<String> ids = new ArrayList<>();
+        String valor = System.getenv("INQUILINOS");
+        if (valor != null) {
+            for (String id : valor.split(",")) {
+                id = id.trim();
+                if (id.isEmpty()) {
+                    continue;
+                }
+                if (!id.matches("[A-Za-z0-9_]+")) {
+                    System.err.println("Id de inquilino inválido ignorado: " + id);
+                    continue;
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Inclui um inquilino com um repositório já montado (ex.: em memória, para testes de carga),
+     * carregando o índice de pesquisa e os lotes dele.
+     */
+    public Inquilino registrar(String id, ProdutoRepository repositorio) {
+        if (inquilinos.containsKey(id)) {
+            throw new IllegalArgumentException("inquilino repetido: " + id);
+        }
+        ProdutoService servico = new ProdutoService(repositorio, scannerController);
+        try {
+            servico.carregarIndiceTextual();
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar o índice de pesquisa do inquilino " + id + ": " + e.getMessage());
+        }
+        try {
+            servico.carregarLotes();
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar os lotes do inquilino " + id + ": " + e.getMessage());
+        }
+        Inquilino inquilino = new Inquilino(id, repositorio, servico);
+        inquilinos.put(id, inquilino);
+        return inquilino;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o inquilino não existir
+     */
+    public Inquilino inquilino(String id) {
+        Inquilino inquilino = inquilinos.get(id);
+        if (inquilino == null) {
+            throw new IllegalArgumentException("inquilino desconhecido: " + id);
+        }
+        return inquilino;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o inquilino não existir
+     */
+    public ProdutoService servico(String id) {
+        return inquilino(id).getProdutoService();
+    }
+
+    public Collection<Inquilino> getInquilinos() {
+        return Collections.unmodifiableCollection(inquilinos.values());
+    }
+
+    @Override
+    public void close() {
+        for (Inquilino inquilino : inquilinos.values()) {
+            inquilino.close();
+        }
+    }
+}
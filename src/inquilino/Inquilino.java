@@ -0,0 +1,51 @@
+package inquilino;
+
+import auditoria.GravadorAuditoria;
+import repository.ProdutoRepository;
+import repository.RoteadorLeitura;
+import service.ProdutoService;
+
+/**
+ * Um negócio atendido pelo processo, com o seu próprio banco, limites de uso
+ * (no repositório) e caches e índices (no serviço).
+ */
+public class Inquilino implements AutoCloseable {
+
+    private final String id;
+    private final ProdutoRepository produtoRepository;
+    private final ProdutoService produtoService;
+
+    Inquilino(String id, ProdutoRepository produtoRepository, ProdutoService produtoService) {
+        this.id = id;
+        this.produtoRepository = produtoRepository;
+        this.produtoService = produtoService;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ProdutoRepository getProdutoRepository() {
+        return produtoRepository;
+    }
+
+    public ProdutoService getProdutoService() {
+        return produtoService;
+    }
+
+    /**
+     * Encerra a verificação das réplicas de leitura do inquilino e grava os registros de
+     * auditoria pendentes, se houver.
+     */
+    @Override
+    public void close() {
+        RoteadorLeitura roteador = produtoRepository.getRoteadorLeitura();
+        if (roteador != null) {
+            roteador.close();
+        }
+        GravadorAuditoria auditoria = produtoRepository.getAuditoria();
+        if (auditoria != null) {
+            auditoria.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package limites;
+
+/**
+ * Balde de fichas (token bucket): permite rajadas de até {@code capacidade}
+ * operações e repõe {@code fichasPorSegundo} fichas continuamente.
+ *
+ * A reposição é calculada na hora do consumo, pelo tempo decorrido desde a
+ * última chamada, então o balde não precisa de thread própria.
+ */
+public class BaldeFichas {
+
+    private final double capacidade;
+    private final double fichasPorNano;
+    private final double fichasPorSegundo;
+
+    private double fichas;
+    private long ultimaReposicao;
+
+    public BaldeFichas(double fichasPorSegundo, double capacidade) {
+        if (fichasPorSegundo <= 0 || capacidade < 1) {
+            throw new IllegalArgumentException("taxa deve ser positiva e capacidade de pelo menos uma ficha");
+        }
+        this.capacidade = capacidade;
+        this.fichasPorSegundo = fichasPorSegundo;
+        this.fichasPorNano = fichasPorSegundo / 1_000_000_000.0;
+        this.fichas = capacidade;
+        this.ultimaReposicao = System.nanoTime();
+    }
+
+    /**
+     * Retira uma ficha, se houver.
+     * @return false se o balde está vazio
+     */
+    public boolean tentarConsumir() {
+        return tentarConsumir(1);
+    }
+
+    /**
+     * Retira a quantidade de fichas informada, se houver todas.
+     * @return false se não há fichas suficientes (nada é retirado)
+     */
+    public synchronized boolean tentarConsumir(double quantidade) {
+        repor();
+        if (fichas >= quantidade) {
+            fichas -= quantidade;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Devolve uma ficha retirada por uma operação que acabou não executando, sem
+     * passar da capacidade.
+     */
+    public synchronized void devolver() {
+        repor();
+        fichas = Math.min(capacidade, fichas + 1);
+    }
+
+    /**
+     * @return nanossegundos até haver a quantidade de fichas informada (0 se já há)
+     */
+    public synchronized long esperaNanos(double quantidade) {
+        repor();
+        return fichas >= quantidade ? 0 : (long) Math.ceil((quantidade - fichas) / fichasPorNano);
+    }
+
+    /**
+     * @return true se o balde já se encheu de novo; trocá-lo por um novo não muda nada
+     */
+    public synchronized boolean cheio() {
+        repor();
+        return fichas >= capacidade;
+    }
+
+    /** @return fichas disponíveis agora */
+    public synchronized double getFichas() {
+        repor();
+        return fichas;
+    }
+
+    public double getFichasPorSegundo() {
+        return fichasPorSegundo;
+    }
+
+    public double getCapacidade() {
+        return capacidade;
+    }
+
+    private void repor() {
+        long agora = System.nanoTime();
+        fichas = Math.min(capacidade, fichas + (agora - ultimaReposicao) * fichasPorNano);
+        ultimaReposicao = agora;
+    }
+}
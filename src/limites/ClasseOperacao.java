@@ -0,0 +1,48 @@
+package limites;
+
+/**
+ * Classes de operação vistas pelo controle de admissão, em ordem de prioridade:
+ * as movimentações de estoque do caixa passam na frente de tudo e os relatórios
+ * ficam por último.
+ *
+ * Os valores padrão de cada classe valem por cliente e podem ser trocados pelas
+ * variáveis {@code ADMISSAO_<CLASSE>_OPS}, {@code ADMISSAO_<CLASSE>_RAJADA} e
+ * {@code ADMISSAO_<CLASSE>_ALVO_MS} (ver {@link ControleAdmissao#doAmbiente()}).
+ */
+public enum ClasseOperacao {
+    MOVIMENTACAO("movimentação de estoque", 200, 50, 250),
+    CONSULTA("consulta", 100, 50, 100),
+    CADASTRO("cadastro", 20, 10, 100),
+    RELATORIO("relatório", 0.2, 1, 20);
+
+    private final String descricao;
+    private final double operacoesPorSegundo;
+    private final double rajada;
+    private final long alvoEsperaMillis;
+
+    ClasseOperacao(String descricao, double operacoesPorSegundo, double rajada, long alvoEsperaMillis) {
+        this.descricao = descricao;
+        this.operacoesPorSegundo = operacoesPorSegundo;
+        this.rajada = rajada;
+        this.alvoEsperaMillis = alvoEsperaMillis;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    /** @return operações por segundo aceitas de cada cliente, por padrão */
+    public double getOperacoesPorSegundo() {
+        return operacoesPorSegundo;
+    }
+
+    /** @return rajada aceita de cada cliente acima da taxa, por padrão */
+    public double getRajada() {
+        return rajada;
+    }
+
+    /** @return espera na fila acima da qual novas operações são recusadas, por padrão */
+    public long getAlvoEsperaMillis() {
+        return alvoEsperaMillis;
+    }
+}
@@ -0,0 +1,353 @@
+package limites;
+
+import ambiente.Ambiente;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Controle de admissão na frente da camada de serviço.
+ *
+ * Cada operação passa por três etapas antes de executar:
+ * <ol>
+ *   <li><b>Cota:</b> um {@link BaldeFichas} por cliente e por {@link ClasseOperacao};
+ *   quem passa da cota é recusado na hora. Os baldes que voltaram a ficar cheios são
+ *   descartados a cada minuto, para que clientes que já saíram não fiquem na memória.</li>
+ *   <li><b>Vagas:</b> no máximo {@code vagas} operações executam ao mesmo tempo, e cada
+ *   classe tem o seu teto (relatórios não ocupam todas as vagas). Sem vaga, a operação
+ *   entra na fila da sua classe.</li>
+ *   <li><b>Prioridade e descarte:</b> quando uma vaga é liberada, ela vai para a fila da
+ *   classe mais prioritária. Se o primeiro da fila já espera mais que o alvo da classe,
+ *   novas operações dela são recusadas sem entrar na fila; quem espera o dobro do alvo
+ *   desiste. Essas recusas devolvem a ficha da cota, já que a operação não executou.</li>
+ * </ol>
+ *
+ * Assim um lote que dispara relatórios sem parar gasta só a própria cota e as vagas
+ * de relatório, e as baixas do caixa continuam com a latência de sempre.
+ */
+public class ControleAdmissao {
+
+    private static final ClasseOperacao[] CLASSES = ClasseOperacao.values();
+    private static final long INTERVALO_LIMPEZA_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int vagas;
+    private final int[] tetoPorClasse = new int[CLASSES.length];
+    private final double[] operacoesPorSegundo = new double[CLASSES.length];
+    private final double[] rajada = new double[CLASSES.length];
+    private final long[] alvoEsperaNanos = new long[CLASSES.length];
+
+    private final Map<String, AtomicReferenceArray<BaldeFichas>> cotas = new ConcurrentHashMap<>();
+    private final AtomicLong proximaLimpeza = new AtomicLong(System.nanoTime() + INTERVALO_LIMPEZA_NANOS);
+
+    // Vagas e filas protegidas pela mesma trava
+    private final ReentrantLock trava = new ReentrantLock();
+    private final int[] emExecucao = new int[CLASSES.length];
+    private final List<ArrayDeque<Espera>> filas = new ArrayList<>(CLASSES.length);
+    private int ocupadas;
+
+    private final LongAdder[] admitidas = new LongAdder[CLASSES.length];
+    private final LongAdder[] recusadasPorCota = new LongAdder[CLASSES.length];
+    private final LongAdder[] recusadasPorSobrecarga = new LongAdder[CLASSES.length];
+
+    /**
+     * Cria o controle com os valores padrão de cada classe.
+     * Movimentações e consultas podem usar todas as vagas, cadastros metade e
+     * relatórios um quarto (ao menos uma).
+     */
+    public ControleAdmissao(int vagas) {
+        if (vagas <= 0) {
+            throw new IllegalArgumentException("o número de vagas deve ser positivo");
+        }
+        this.vagas = vagas;
+        for (ClasseOperacao classe : CLASSES) {
+            int i = classe.ordinal();
+            operacoesPorSegundo[i] = classe.getOperacoesPorSegundo();
+            rajada[i] = classe.getRajada();
+            alvoEsperaNanos[i] = TimeUnit.MILLISECONDS.toNanos(classe.getAlvoEsperaMillis());
+            filas.add(new ArrayDeque<>());
+            admitidas[i] = new LongAdder();
+            recusadasPorCota[i] = new LongAdder();
+            recusadasPorSobrecarga[i] = new LongAdder();
+        }
+        tetoPorClasse[ClasseOperacao.MOVIMENTACAO.ordinal()] = vagas;
+        tetoPorClasse[ClasseOperacao.CONSULTA.ordinal()] = vagas;
+        tetoPorClasse[ClasseOperacao.CADASTRO.ordinal()] = Math.max(1, vagas / 2);
+        tetoPorClasse[ClasseOperacao.RELATORIO.ordinal()] = Math.max(1, vagas / 4);
+    }
+
+    /**
+     * Monta o controle a partir das variáveis de ambiente:
+     * <ul>
+     *   <li>{@code ADMISSAO_VAGAS}: operações simultâneas; sem ela (ou com 0) o controle fica desligado</li>
+     *   <li>{@code ADMISSAO_<CLASSE>_OPS} e {@code ADMISSAO_<CLASSE>_RAJADA}: cota de cada cliente
+     *   (0 desliga a cota da classe)</li>
+     *   <li>{@code ADMISSAO_<CLASSE>_ALVO_MS}: espera máxima na fila antes de recusar</li>
+     *   <li>{@code ADMISSAO_<CLASSE>_VAGAS}: teto de vagas da classe</li>
+     * </ul>
+     * @return o controle configurado, ou null se {@code ADMISSAO_VAGAS} não estiver definida ou não for positiva
+     */
+    public static ControleAdmissao doAmbiente() {
+        int vagas = Ambiente.inteiro("ADMISSAO_VAGAS", 0);
+        if (vagas <= 0) {
+            return null;
+        }
+        ControleAdmissao controle = new ControleAdmissao(vagas);
+        for (ClasseOperacao classe : CLASSES) {
+            String prefixo = "ADMISSAO_" + classe.name() + "_";
+            controle.configurar(classe,
+                    Ambiente.decimal(prefixo + "OPS", classe.getOperacoesPorSegundo()),
+                    Ambiente.decimal(prefixo + "RAJADA", classe.getRajada()),
+                    (long) Ambiente.decimal(prefixo + "ALVO_MS", classe.getAlvoEsperaMillis()),
+                    (int) Ambiente.decimal(prefixo + "VAGAS", controle.tetoPorClasse[classe.ordinal()]));
+        }
+        return controle;
+    }
+
+    /**
+     * Troca os limites de uma classe. Os baldes dos clientes já vistos são refeitos
+     * na próxima operação de cada um.
+     *
+     * @param operacoesPorSegundo cota por cliente, ou 0 para não limitar a classe
+     * @param tetoVagas quantas vagas a classe pode ocupar ao mesmo tempo
+     */
+    public void configurar(ClasseOperacao classe, double operacoesPorSegundo, double rajada,
+                           long alvoEsperaMillis, int tetoVagas) {
+        if (operacoesPorSegundo < 0 || alvoEsperaMillis <= 0 || tetoVagas <= 0) {
+            throw new IllegalArgumentException("limites inválidos para " + classe.getDescricao());
+        }
+        int i = classe.ordinal();
+        this.operacoesPorSegundo[i] = operacoesPorSegundo;
+        this.rajada[i] = Math.max(1, rajada);
+        this.alvoEsperaNanos[i] = TimeUnit.MILLISECONDS.toNanos(alvoEsperaMillis);
+        this.tetoPorClasse[i] = Math.min(vagas, tetoVagas);
+        cotas.clear();
+    }
+
+    /**
+     * Executa a operação se ela for admitida, liberando a vaga ao terminar.
+     *
+     * @param cliente quem dispara a operação (terminal, sessão de lote, inquilino)
+     * @throws RequisicaoRecusada se a cota do cliente acabou ou a fila da classe está acima do alvo
+     */
+    public <T> T executar(String cliente, ClasseOperacao classe, Supplier<T> operacao) {
+        admitir(cliente, classe);
+        try {
+            return operacao.get();
+        } finally {
+            liberar(classe);
+        }
+    }
+
+    /**
+     * Reserva uma vaga para a operação. Cada chamada bem-sucedida exige um {@link #liberar}.
+     * @throws RequisicaoRecusada se a operação não for admitida
+     */
+    public void admitir(String cliente, ClasseOperacao classe) {
+        int i = classe.ordinal();
+        BaldeFichas cota = cota(cliente, i);
+        if (cota != null && !cota.tentarConsumir()) {
+            recusadasPorCota[i].increment();
+            throw new RequisicaoRecusada(classe, RequisicaoRecusada.Motivo.COTA,
+                    "cota de " + classe.getDescricao() + " do cliente " + cliente + " excedida ("
+                            + cota.getFichasPorSegundo() + " por segundo)");
+        }
+
+        try {
+            esperarVaga(classe, i);
+        } catch (RequisicaoRecusada e) {
+            // Recusada por sobrecarga: a operação não executou, então não gasta a cota
+            if (cota != null) {
+                cota.devolver();
+            }
+            throw e;
+        }
+    }
+
+    private void esperarVaga(ClasseOperacao classe, int i) {
+        ArrayDeque<Espera> fila = filas.get(i);
+        Espera espera;
+        trava.lock();
+        try {
+            if (podeExecutar(i) && fila.isEmpty()) {
+                ocupar(i);
+                return;
+            }
+            Espera primeiro = fila.peekFirst();
+            if (primeiro != null && System.nanoTime() - primeiro.chegada > alvoEsperaNanos[i]) {
+                recusadasPorSobrecarga[i].increment();
+                throw sobrecarga(classe);
+            }
+            espera = new Espera(trava.newCondition());
+            fila.addLast(espera);
+
+            long restante = 2 * alvoEsperaNanos[i];
+            while (!espera.admitida) {
+                if (restante <= 0) {
+                    fila.remove(espera);
+                    recusadasPorSobrecarga[i].increment();
+                    throw sobrecarga(classe);
+                }
+                try {
+                    restante = espera.sinal.awaitNanos(restante);
+                } catch (InterruptedException e) {
+                    if (espera.admitida) {
+                        // A vaga já foi entregue; executa e deixa a interrupção para depois
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    fila.remove(espera);
+                    Thread.currentThread().interrupt();
+                    recusadasPorSobrecarga[i].increment();
+                    throw new RequisicaoRecusada(classe, RequisicaoRecusada.Motivo.SOBRECARGA,
+                            "espera por vaga interrompida");
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Devolve a vaga e a entrega à operação mais prioritária na fila.
+     */
+    public void liberar(ClasseOperacao classe) {
+        trava.lock();
+        try {
+            ocupadas--;
+            emExecucao[classe.ordinal()]--;
+            despachar();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /** @return operações executando agora */
+    public int getOcupadas() {
+        trava.lock();
+        try {
+            return ocupadas;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /** @return operações esperando vaga na fila da classe */
+    public int getNaFila(ClasseOperacao classe) {
+        trava.lock();
+        try {
+            return filas.get(classe.ordinal()).size();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public long getAdmitidas(ClasseOperacao classe) {
+        return admitidas[classe.ordinal()].sum();
+    }
+
+    public long getRecusadas(ClasseOperacao classe, RequisicaoRecusada.Motivo motivo) {
+        return motivo == RequisicaoRecusada.Motivo.COTA
+                ? recusadasPorCota[classe.ordinal()].sum()
+                : recusadasPorSobrecarga[classe.ordinal()].sum();
+    }
+
+    /** @return contagem de operações admitidas por classe */
+    public Map<ClasseOperacao, Long> getAdmitidasPorClasse() {
+        Map<ClasseOperacao, Long> resultado = new EnumMap<>(ClasseOperacao.class);
+        for (ClasseOperacao classe : CLASSES) {
+            resultado.put(classe, getAdmitidas(classe));
+        }
+        return resultado;
+    }
+
+    // ===== Internos (chamados com a trava) =====
+
+    private boolean podeExecutar(int i) {
+        return ocupadas < vagas && emExecucao[i] < tetoPorClasse[i];
+    }
+
+    private void ocupar(int i) {
+        ocupadas++;
+        emExecucao[i]++;
+        admitidas[i].increment();
+    }
+
+    private void despachar() {
+        for (int i = 0; i < CLASSES.length && ocupadas < vagas; i++) {
+            ArrayDeque<Espera> fila = filas.get(i);
+            while (!fila.isEmpty() && podeExecutar(i)) {
+                Espera espera = fila.pollFirst();
+                espera.admitida = true;
+                ocupar(i);
+                espera.sinal.signal();
+            }
+        }
+    }
+
+    private RequisicaoRecusada sobrecarga(ClasseOperacao classe) {
+        return new RequisicaoRecusada(classe, RequisicaoRecusada.Motivo.SOBRECARGA,
+                "fila de " + classe.getDescricao() + " acima de "
+                        + TimeUnit.NANOSECONDS.toMillis(alvoEsperaNanos[classe.ordinal()]) + " ms de espera");
+    }
+
+    private BaldeFichas cota(String cliente, int i) {
+        if (operacoesPorSegundo[i] <= 0) {
+            return null;
+        }
+        limparCotasOciosas();
+        AtomicReferenceArray<BaldeFichas> baldes =
+                cotas.computeIfAbsent(cliente, c -> new AtomicReferenceArray<>(CLASSES.length));
+        BaldeFichas balde = baldes.get(i);
+        if (balde == null) {
+            baldes.compareAndSet(i, null, new BaldeFichas(operacoesPorSegundo[i], rajada[i]));
+            balde = baldes.get(i);
+        }
+        return balde;
+    }
+
+    /**
+     * Uma vez por minuto, descarta os baldes dos clientes que estão todos cheios: um balde
+     * cheio é igual ao que seria criado na próxima operação do cliente. Sem isso, uma
+     * sessão de lote longa com muitos clientes distintos faria o mapa crescer sem limite.
+     */
+    private void limparCotasOciosas() {
+        long agora = System.nanoTime();
+        long prevista = proximaLimpeza.get();
+        if (agora - prevista < 0 || !proximaLimpeza.compareAndSet(prevista, agora + INTERVALO_LIMPEZA_NANOS)) {
+            return;
+        }
+        cotas.entrySet().removeIf(entrada -> ocioso(entrada.getValue()));
+    }
+
+    private static boolean ocioso(AtomicReferenceArray<BaldeFichas> baldes) {
+        for (int i = 0; i < baldes.length(); i++) {
+            BaldeFichas balde = baldes.get(i);
+            if (balde != null && !balde.cheio()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Operação esperando vaga na fila da sua classe. */
+    private static final class Espera {
+        final long chegada = System.nanoTime();
+        final Condition sinal;
+        boolean admitida;
+
+        Espera(Condition sinal) {
+            this.sinal = sinal;
+        }
+    }
+}
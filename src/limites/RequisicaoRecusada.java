@@ -0,0 +1,36 @@
+package limites;
+
+/**
+ * Operação recusada pelo {@link ControleAdmissao} antes de chegar ao serviço.
+ * É lançada na hora, sem esperar, para o cliente poder tentar de novo mais tarde;
+ * por isso não preenche o stack trace, que custaria mais que a própria recusa.
+ */
+public class RequisicaoRecusada extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Por que a operação foi recusada. */
+    public enum Motivo {
+        /** o cliente passou da cota da classe de operação */
+        COTA,
+        /** a fila da classe já espera mais que o alvo de latência */
+        SOBRECARGA
+    }
+
+    private final ClasseOperacao classe;
+    private final Motivo motivo;
+
+    public RequisicaoRecusada(ClasseOperacao classe, Motivo motivo, String mensagem) {
+        super(mensagem, null, false, false);
+        this.classe = classe;
+        this.motivo = motivo;
+    }
+
+    public ClasseOperacao getClasse() {
+        return classe;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+}
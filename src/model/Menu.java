@@ -1,8 +1,14 @@
 package model;
 
+import ciclo.CicloVida;
 import controller.ScannerController;
+import diagnostico.Diagnostico;
+import diagnostico.MedicaoOperacao;
 import service.ProdutoService;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * Classe responsável por exibir o menu do sistema e interagir com o usuário.
  * Controla o fluxo principal do Gerenciador de Dispensa.
@@ -15,19 +21,39 @@ public class Menu {
     // Serviço que contém a lógica de negócio dos produtos
     private final ProdutoService produtoService;
 
+    // Ciclo de vida do processo: cada opção conta como requisição em andamento
+    private final CicloVida cicloVida;
+
     // Flag para controle do loop principal do sistema
     private boolean sistemaAtivo = true;
 
     /**
      * Construtor da classe Menu.
-     * Inicializa as dependências e inicia o sistema.
+     * Inicializa as dependências; o sistema começa em {@link #executar()}.
      *
      * @param produtoService serviço para manipulação de produtos
      * @param scannerController controlador de entrada de dados
      */
     public Menu(ProdutoService produtoService, ScannerController scannerController) {
+        this(produtoService, scannerController, null);
+    }
+
+    /**
+     * @param cicloVida ciclo de vida do processo, ou null; no encerramento o menu termina a
+     *                  opção em andamento e não aceita outra
+     */
+    public Menu(ProdutoService produtoService, ScannerController scannerController, CicloVida cicloVida) {
         this.produtoService = produtoService;
         this.scannerController = scannerController;
+        this.cicloVida = cicloVida;
+    }
+
+    /**
+     * Exibe as boas-vindas e atende o usuário até ele escolher sair.
+     * Com {@code DIAGNOSTICO=true} o menu já começa com o diagnóstico de desempenho ligado.
+     */
+    public void executar() {
+        Diagnostico.doAmbiente();
         iniciarSistema();
     }
 
@@ -38,12 +64,28 @@ public class Menu {
         exibirBoasVindas();
 
         while (sistemaAtivo) {
+            int opcao;
             try {
-                int opcao = exibirMenuPrincipal();  // Exibe o menu e captura a opção do usuário
-                processarOpcao(opcao);              // Processa a opção escolhida
+                opcao = exibirMenuPrincipal();  // Exibe o menu e captura a opção do usuário
             } catch (Exception e) {
                 System.err.println("Erro inesperado: " + e.getMessage());
                 System.out.println("Voltando ao menu principal...\n");
+                continue;
+            }
+            if (cicloVida != null && !cicloVida.entrar()) {
+                System.out.println("⚠️ Sistema em encerramento; a opção não foi executada.");
+                sistemaAtivo = false;
+                break;
+            }
+            try {
+                processarOpcao(opcao);
+            } catch (Exception e) {
+                System.err.println("Erro inesperado: " + e.getMessage());
+                System.out.println("Voltando ao menu principal...\n");
+            } finally {
+                if (cicloVida != null) {
+                    cicloVida.sair();
+                }
             }
         }
 
@@ -74,10 +116,17 @@ public class Menu {
         System.out.println("│  4 - Buscar produto                          │");
         System.out.println("│  5 - Excluir produto                         │");
         System.out.println("│  6 - Gerar relatório                         │");
-        System.out.println("│  7 - Sair do sistema                         │");
+        System.out.println("│  7 - Buscar por código de barras             │");
+        System.out.println("│  8 - Sugestões de reposição                  │");
+        System.out.println("│  9 - Pesquisar por texto                     │");
+        System.out.println("│ 10 - Histórico e valor do estoque            │");
+        System.out.println("│ 11 - Lotes e validade                        │");
+        System.out.println("│ 12 - Ajustes em massa                        │");
+        System.out.println("│ 13 - Diagnóstico de desempenho" + (Diagnostico.ligado() ? " (ligado)" : "         ") + "      │");
+        System.out.println("│ 14 - Sair do sistema                         │");
         System.out.println("└──────────────────────────────────────────────┘");
 
-        return scannerController.lerOpcaoMenu(1, 7);
+        return scannerController.lerOpcaoMenu(1, 14);
     }
 
     /**
@@ -113,7 +162,35 @@ public class Menu {
                 System.out.println("📊 === GERANDO RELATÓRIO ===");
                 gerarRelatorio();
             }
-            case 7 -> confirmarSaida();
+            case 7 -> {
+                System.out.println("🏷️ === BUSCANDO POR CÓDIGO DE BARRAS ===");
+                buscarPorCodigoBarras();
+            }
+            case 8 -> {
+                System.out.println("🛒 === SUGESTÕES DE REPOSIÇÃO ===");
+                sugerirReposicao();
+            }
+            case 9 -> {
+                System.out.println("🔎 === PESQUISANDO POR TEXTO ===");
+                pesquisarTexto();
+            }
+            case 10 -> {
+                System.out.println("🕰️ === HISTÓRICO E VALOR DO ESTOQUE ===");
+                consultarHistorico();
+            }
+            case 11 -> {
+                System.out.println("📦 === LOTES E VALIDADE ===");
+                gerenciarLotes();
+            }
+            case 12 -> {
+                System.out.println("🧮 === AJUSTES EM MASSA ===");
+                ajustesEmMassa();
+            }
+            case 13 -> {
+                System.out.println("🩺 === DIAGNÓSTICO DE DESEMPENHO ===");
+                diagnostico();
+            }
+            case 14 -> confirmarSaida();
             default -> System.out.println("❌ Opção inválida! Tente novamente.\n");
         }
     }
@@ -123,7 +200,7 @@ public class Menu {
      */
     private void listarProdutos() {
         try {
-            produtoService.listarProdutos();
+            medir("Listar produtos", produtoService::listarProdutos);
         } catch (Exception e) {
             System.err.println("❌ Erro ao listar produtos: " + e.getMessage());
         }
@@ -138,7 +215,7 @@ public class Menu {
      */
     private void cadastrarProduto() {
         try {
-            produtoService.cadastrarProduto();
+            medir("Cadastrar produto", produtoService::cadastrarProduto);
         } catch (Exception e) {
             System.err.println("❌ Erro ao cadastrar produto: " + e.getMessage());
         }
@@ -153,7 +230,7 @@ public class Menu {
      */
     private void atualizarQuantidade() {
         try {
-            produtoService.atualizarQuantidade();
+            medir("Atualizar quantidade", produtoService::atualizarQuantidade);
         } catch (Exception e) {
             System.err.println("❌ Erro ao atualizar quantidade: " + e.getMessage());
         }
@@ -168,7 +245,7 @@ public class Menu {
      */
     private void buscarProduto() {
         try {
-            produtoService.buscarProduto();
+            medir("Buscar produto", produtoService::buscarProduto);
         } catch (Exception e) {
             System.err.println("❌ Erro ao buscar produto: " + e.getMessage());
         }
@@ -178,12 +255,120 @@ public class Menu {
                 this::buscarProduto);
     }
 
+    /**
+     * Busca produtos por código de barras e oferece opção de continuar a operação.
+     */
+    private void buscarPorCodigoBarras() {
+        try {
+            medir("Buscar por código de barras", produtoService::buscarProdutoPorCodigoBarras);
+        } catch (Exception e) {
+            System.err.println("❌ Erro ao buscar por código de barras: " + e.getMessage());
+        }
+
+        voltarOuContinuar("🏷️ Buscar outro código",
+                () -> {},
+                this::buscarPorCodigoBarras);
+    }
+
+    /**
+     * Pesquisa produtos por palavras do nome ou da descrição e oferece opção de continuar a operação.
+     */
+    private void pesquisarTexto() {
+        try {
+            medir("Pesquisar por texto", produtoService::pesquisarTexto);
+        } catch (Exception e) {
+            System.err.println("❌ Erro ao pesquisar produtos: " + e.getMessage());
+        }
+
+        voltarOuContinuar("🔎 Fazer outra pesquisa",
+                () -> {},
+                this::pesquisarTexto);
+    }
+
+    /**
+     * Consulta preço, quantidade ou valor do estoque em uma data passada.
+     */
+    private void consultarHistorico() {
+        try {
+            medir("Histórico e valor do estoque", produtoService::consultarHistorico);
+        } catch (Exception e) {
+            System.err.println("❌ Erro ao consultar o histórico: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recebe lotes, consulta validades e descarta lotes vencidos.
+     */
+    private void gerenciarLotes() {
+        try {
+            medir("Lotes e validade", produtoService::gerenciarLotes);
+        } catch (Exception e) {
+            System.err.println("❌ Erro ao gerenciar lotes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reajuste de preços e conciliação com a contagem física.
+     */
+    private void ajustesEmMassa() {
+        try {
+            medir("Ajustes em massa", produtoService::ajustesEmMassa);
+        } catch (Exception e) {
+            System.err.println("❌ Erro no ajuste em massa: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Liga ou desliga o diagnóstico, mostra os histogramas das operações e grava o arquivo JFR
+     * para análise fora da loja.
+     */
+    private void diagnostico() {
+        try {
+            System.out.println("Diagnóstico " + (Diagnostico.ligado() ? "ligado" : "desligado") + ".");
+            int opcao = scannerController.lerInteiroValido(1, 4, "1 - " + (Diagnostico.ligado() ? "Desligar" : "Ligar")
+                    + " | 2 - Histogramas | 3 - Gravar arquivo JFR | 4 - Limpar histogramas");
+            switch (opcao) {
+                case 1 -> {
+                    Diagnostico.ligar(!Diagnostico.ligado());
+                    System.out.println(Diagnostico.ligado()
+                            ? "✅ Diagnóstico ligado: cada opção mostra o tempo por fase ao terminar."
+                            : "✅ Diagnóstico desligado.");
+                }
+                case 2 -> System.out.print(Diagnostico.relatorio());
+                case 3 -> {
+                    Path arquivo = Diagnostico.gravarJfr(Diagnostico.diretorioJfr());
+                    System.out.println(arquivo != null ? "✅ Gravação JFR salva em " + arquivo
+                            : "Nenhuma gravação JFR em andamento; ligue o diagnóstico e repita a operação lenta.");
+                }
+                default -> {
+                    Diagnostico.limpar();
+                    System.out.println("✅ Histogramas limpos.");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Erro ao gravar o arquivo JFR: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ Erro no diagnóstico: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mostra as sugestões de reposição calculadas a partir do consumo.
+     */
+    private void sugerirReposicao() {
+        try {
+            medir("Sugestões de reposição", produtoService::exibirSugestoesReposicao);
+        } catch (Exception e) {
+            System.err.println("❌ Erro ao calcular sugestões de reposição: " + e.getMessage());
+        }
+    }
+
     /**
      * Exclui um produto e oferece opção de continuar a operação.
      */
     private void excluirProduto() {
         try {
-            produtoService.deletarProduto();
+            medir("Excluir produto", produtoService::deletarProduto);
         } catch (Exception e) {
             System.err.println("❌ Erro ao excluir produto: " + e.getMessage());
         }
@@ -198,7 +383,7 @@ public class Menu {
      */
     private void gerarRelatorio() {
         try {
-            produtoService.gerarRelatorio();
+            medir("Gerar relatório", produtoService::gerarRelatorio);
         } catch (Exception e) {
             System.err.println("❌ Erro ao gerar relatório: " + e.getMessage());
             e.printStackTrace();
@@ -209,6 +394,18 @@ public class Menu {
                 this::gerarRelatorio);
     }
 
+    /**
+     * Executa a chamada ao serviço de uma opção. No modo de diagnóstico mede só a chamada,
+     * sem a pergunta de voltar ao menu nem as repetições da opção, e mostra em que foi
+     * gasto o tempo.
+     */
+    private void medir(String operacao, Runnable chamada) {
+        MedicaoOperacao medicao = Diagnostico.medir(operacao, chamada);
+        if (medicao != null) {
+            System.out.println("⏱️ " + medicao);
+        }
+    }
+
     /**
      * Pergunta ao usuário se deseja realmente sair do sistema.
      * Caso afirmativo, desativa o loop principal.
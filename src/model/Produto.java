@@ -35,6 +35,9 @@ public class Produto {
     /** Tipo do produto (enum TipoProduto) */
     private TipoProduto tipo;
 
+    /** Código de barras (EAN/GTIN) ou SKU numérico; 0 quando o produto não possui */
+    private long codigoBarras;
+
     /**
      * Construtor padrão sem argumentos.
      * Útil para frameworks ou quando se deseja criar o objeto e setar os valores depois.
@@ -61,6 +64,38 @@ public class Produto {
         this.tipo = tipo;
     }
 
+    /**
+     * Construtor completo incluindo o código de barras.
+     *
+     * @param codigoBarras código de barras ou SKU numérico (0 se não houver)
+     */
+    public Produto(long id, String nome, String descricao, double preco, int quantidade, TipoProduto tipo,
+                   long codigoBarras) {
+        this(id, nome, descricao, preco, quantidade, tipo);
+        this.codigoBarras = codigoBarras;
+    }
+
+    /**
+     * Anexa o produto no formato de {@link #toString()}, para quem exibe vários
+     * produtos reaproveitando o mesmo StringBuilder.
+     */
+    public StringBuilder formatar(StringBuilder destino) {
+        destino.append("Produto {\n")
+                .append("  id = ").append(id).append(",\n")
+                .append("  nome = '").append(nome).append("',\n")
+                .append("  descricao = '").append(descricao).append("',\n")
+                .append("  preco = ").append(preco).append(",\n")
+                .append("  quantidade = ").append(quantidade).append(",\n")
+                .append("  tipo = ").append(tipo).append(",\n")
+                .append("  codigoBarras = ");
+        if (codigoBarras != 0) {
+            destino.append(codigoBarras);
+        } else {
+            destino.append('-');
+        }
+        return destino.append("\n}");
+    }
+
     /**
      * Sobrescreve o método toString para exibir o produto de forma legível.
      * Útil para logs, debugging e exibição no terminal.
@@ -69,13 +104,6 @@ public class Produto {
      */
     @Override
     public String toString() {
-        return "Produto {\n" +
-                "  id = " + id + ",\n" +
-                "  nome = '" + nome + "',\n" +
-                "  descricao = '" + descricao + "',\n" +
-                "  preco = " + preco + ",\n" +
-                "  quantidade = " + quantidade + ",\n" +
-                "  tipo = " + tipo + "\n" +
-                '}';
+        return formatar(new StringBuilder(160)).toString();
     }
 }
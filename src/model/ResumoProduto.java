@@ -0,0 +1,38 @@
+package model;
+
+import formatacao.Colunas;
+import formatacao.FormatadorMoeda;
+
+/**
+ * Visão leve de um produto, sem a descrição, usada nas telas de listagem
+ * e nas conferências de estoque. A descrição pode ser carregada sob demanda
+ * pelo id quando for realmente exibida.
+ *
+ * @param id identificador do produto
+ * @param nome nome do produto
+ * @param preco preço do produto
+ * @param quantidade quantidade em estoque
+ * @param tipo tipo do produto
+ */
+public record ResumoProduto(long id, String nome, double preco, int quantidade, TipoProduto tipo) {
+
+    /**
+     * Anexa a linha da listagem ({@code #id nome R$ preço qtd: n TIPO}) em colunas fixas,
+     * sem criar objetos por linha.
+     */
+    public StringBuilder formatar(StringBuilder destino) {
+        int inicio = destino.append('#').length();
+        Colunas.esquerda(destino.append(id), inicio, 6).append(' ');
+        inicio = destino.length();
+        Colunas.esquerda(destino.append(nome), inicio, 30).append(" R$ ");
+        inicio = destino.length();
+        Colunas.direita(FormatadorMoeda.REAL.anexarValor(destino, preco), inicio, 10).append("  qtd: ");
+        inicio = destino.length();
+        return Colunas.esquerda(destino.append(quantidade), inicio, 6).append(' ').append(tipo.name());
+    }
+
+    @Override
+    public String toString() {
+        return formatar(new StringBuilder(72)).toString();
+    }
+}
@@ -3,4 +3,39 @@ package model;
 public enum TipoProduto {
     CONSUMO,
     RESERVADO;
+
+    // Tipo pela inicial do nome; null quando duas constantes começam com a mesma letra
+    private static final TipoProduto[] POR_INICIAL = new TipoProduto[128];
+
+    static {
+        boolean[] repetida = new boolean[128];
+        for (TipoProduto tipo : values()) {
+            char inicial = tipo.name().charAt(0);
+            if (POR_INICIAL[inicial] != null) {
+                repetida[inicial] = true;
+            }
+            POR_INICIAL[inicial] = tipo;
+        }
+        for (int i = 0; i < repetida.length; i++) {
+            if (repetida[i]) {
+                POR_INICIAL[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Converte o texto gravado no banco pela tabela de iniciais, conferindo o nome,
+     * sem passar pelo mapa de {@link #valueOf(String)} a cada linha lida.
+     *
+     * @throws IllegalArgumentException se o texto não for o nome de um tipo
+     */
+    public static TipoProduto doBanco(String nome) {
+        if (nome != null && !nome.isEmpty() && nome.charAt(0) < POR_INICIAL.length) {
+            TipoProduto tipo = POR_INICIAL[nome.charAt(0)];
+            if (tipo != null && tipo.name().equals(nome)) {
+                return tipo;
+            }
+        }
+        return valueOf(nome);
+    }
 }
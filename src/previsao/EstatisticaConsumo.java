@@ -0,0 +1,104 @@
+package previsao;
+
+/**
+ * Estatísticas de consumo diário de um produto, atualizadas incrementalmente a
+ * cada baixa de estoque: média móvel simples dos últimos {@value #DIAS_JANELA} dias
+ * e média móvel exponencial (EWMA). Dias sem baixa contam como consumo zero.
+ *
+ * O dia corrente só entra nas médias quando termina, para que uma manhã sem
+ * vendas não derrube a previsão.
+ */
+public class EstatisticaConsumo {
+
+    static final int DIAS_JANELA = 7;
+
+    private final double alfa;
+    private final long[] janela = new long[DIAS_JANELA];
+    private int posicaoJanela;
+    private int diasNaJanela;
+    private long somaJanela;
+
+    private double ewma;
+    private boolean ewmaIniciada;
+
+    private long diaAtual = -1;
+    private long consumoDiaAtual;
+    private long consumoTotal;
+
+    /**
+     * @param alfa peso do dia mais recente na EWMA (entre 0 e 1)
+     */
+    public EstatisticaConsumo(double alfa) {
+        this.alfa = alfa;
+    }
+
+    /**
+     * Registra uma baixa de estoque.
+     * @param dia dia da baixa (dias desde a época)
+     * @param quantidade unidades consumidas
+     */
+    public synchronized void registrar(long dia, int quantidade) {
+        avancarAte(dia);
+        consumoDiaAtual += quantidade;
+        consumoTotal += quantidade;
+    }
+
+    /**
+     * Consumo diário estimado pela EWMA dos dias já encerrados até {@code hoje}.
+     * Sem nenhum dia encerrado, usa o consumo parcial do dia corrente.
+     */
+    public synchronized double consumoDiario(long hoje) {
+        avancarAte(hoje);
+        return ewmaIniciada ? ewma : consumoDiaAtual;
+    }
+
+    /**
+     * Média simples do consumo nos últimos dias encerrados.
+     */
+    public synchronized double mediaMovel(long hoje) {
+        avancarAte(hoje);
+        return diasNaJanela == 0 ? consumoDiaAtual : (double) somaJanela / diasNaJanela;
+    }
+
+    public synchronized long getConsumoTotal() {
+        return consumoTotal;
+    }
+
+    private void avancarAte(long dia) {
+        if (diaAtual < 0) {
+            diaAtual = dia;
+            return;
+        }
+        if (dia <= diaAtual) {
+            return; // baixas atrasadas entram no dia corrente
+        }
+        fecharDia(consumoDiaAtual);
+        long diasVazios = dia - diaAtual - 1;
+        if (diasVazios > 0) {
+            // Cada dia sem consumo multiplica a EWMA por (1 - alfa)
+            ewma *= Math.pow(1 - alfa, diasVazios);
+            for (long i = 0; i < Math.min(diasVazios, DIAS_JANELA); i++) {
+                empurrarJanela(0);
+            }
+        }
+        consumoDiaAtual = 0;
+        diaAtual = dia;
+    }
+
+    private void fecharDia(long consumo) {
+        ewma = ewmaIniciada ? alfa * consumo + (1 - alfa) * ewma : consumo;
+        ewmaIniciada = true;
+        empurrarJanela(consumo);
+    }
+
+    private void empurrarJanela(long consumo) {
+        if (diasNaJanela == DIAS_JANELA) {
+            somaJanela -= janela[posicaoJanela];
+        } else {
+            diasNaJanela++;
+        }
+        janela[posicaoJanela] = consumo;
+        somaJanela += consumo;
+        posicaoJanela = (posicaoJanela + 1) % DIAS_JANELA;
+    }
+}
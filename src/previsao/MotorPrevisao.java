@@ -0,0 +1,190 @@
+package previsao;
+
+import eventos.EventoProduto;
+import eventos.TipoEvento;
+import model.Produto;
+import model.TipoProduto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de previsão de estoque: acumula as baixas de cada produto em
+ * {@link EstatisticaConsumo} e, sob demanda, projeta os dias até a ruptura e
+ * sugere quantidades de reposição para os produtos de {@link TipoProduto#CONSUMO}.
+ * Produtos RESERVADOS ficam de fora, pois a saída deles não é consumo.
+ *
+ * O cálculo das sugestões divide o catálogo em fatias processadas em paralelo
+ * no {@link ForkJoinPool}.
+ */
+public class MotorPrevisao {
+
+    private static final int LIMITE_FATIA = 4096;
+
+    private final Map<Long, EstatisticaConsumo> estatisticas = new ConcurrentHashMap<>();
+    private final double alfa;
+    private final int prazoEntregaDias;
+    private final int diasCobertura;
+    private final int diasSeguranca;
+    private final ZoneId fuso = ZoneId.systemDefault();
+
+    public MotorPrevisao() {
+        this(0.3, 7, 30, 3);
+    }
+
+    /**
+     * @param alfa peso do dia mais recente na EWMA
+     * @param prazoEntregaDias dias entre o pedido e a chegada da mercadoria
+     * @param diasCobertura dias de consumo que cada compra deve cobrir
+     * @param diasSeguranca estoque de segurança, em dias de consumo
+     */
+    public MotorPrevisao(double alfa, int prazoEntregaDias, int diasCobertura, int diasSeguranca) {
+        this.alfa = alfa;
+        this.prazoEntregaDias = prazoEntregaDias;
+        this.diasCobertura = diasCobertura;
+        this.diasSeguranca = diasSeguranca;
+    }
+
+    /**
+     * Registra uma baixa de estoque.
+     * @param instante momento da baixa em milissegundos desde a época
+     */
+    public void registrarConsumo(long produtoId, int quantidade, long instante) {
+        estatisticas.computeIfAbsent(produtoId, id -> new EstatisticaConsumo(alfa))
+                .registrar(dia(instante), quantidade);
+    }
+
+    /**
+     * Reconstrói o histórico a partir do feed de alterações: cada variação negativa
+     * de quantidade é uma baixa, e exclusões descartam as estatísticas do produto.
+     * Correções da contagem física ({@link TipoEvento#QUANTIDADE_CORRIGIDA}) e descartes
+     * de lotes vencidos ({@link TipoEvento#QUANTIDADE_DESCARTADA}) não são consumo e ficam
+     * de fora.
+     */
+    public void aplicar(EventoProduto evento) {
+        if (evento.getTipo() == TipoEvento.QUANTIDADE_ALTERADA && evento.getQuantidade() < 0) {
+            registrarConsumo(evento.getProdutoId(), -evento.getQuantidade(), evento.getInstante());
+        } else if (evento.getTipo() == TipoEvento.EXCLUIDO) {
+            estatisticas.remove(evento.getProdutoId());
+        }
+    }
+
+    /**
+     * Calcula as sugestões de reposição em paralelo.
+     * @return produtos que precisam de compra, do mais urgente para o menos urgente
+     */
+    public List<SugestaoReposicao> gerarSugestoes(List<Produto> produtos) {
+        long hoje = dia(System.currentTimeMillis());
+        List<SugestaoReposicao> sugestoes = ForkJoinPool.commonPool()
+                .invoke(new TarefaSugestoes(produtos, 0, produtos.size(), hoje));
+        sugestoes.sort(Comparator.comparingDouble(SugestaoReposicao::diasAteRuptura));
+        return sugestoes;
+    }
+
+    /**
+     * Avalia um produto.
+     * @return a sugestão, ou null se o produto não precisa de compra
+     */
+    SugestaoReposicao avaliar(Produto produto, long hoje) {
+        if (produto.getTipo() != TipoProduto.CONSUMO) {
+            return null;
+        }
+        EstatisticaConsumo estatistica = estatisticas.get(produto.getId());
+        if (estatistica == null) {
+            return null;
+        }
+        double consumoDiario = estatistica.consumoDiario(hoje);
+        if (consumoDiario <= 0) {
+            return null;
+        }
+
+        int quantidade = produto.getQuantidade();
+        double diasAteRuptura = quantidade / consumoDiario;
+        double pontoPedido = consumoDiario * (prazoEntregaDias + diasSeguranca);
+        if (quantidade > pontoPedido) {
+            return null;
+        }
+        int sugerida = (int) Math.ceil(consumoDiario * (prazoEntregaDias + diasSeguranca + diasCobertura) - quantidade);
+        return new SugestaoReposicao(produto.getId(), produto.getNome(), quantidade, consumoDiario,
+                estatistica.mediaMovel(hoje), diasAteRuptura, Math.max(sugerida, 0));
+    }
+
+    /**
+     * Produtos de maior consumo diário, para pré-carregar nos caches na partida.
+     * @return ids do mais consumido para o menos consumido, no máximo {@code limite}
+     */
+    public long[] maisConsumidos(int limite) {
+        long hoje = dia(System.currentTimeMillis());
+        List<Map.Entry<Long, Double>> consumos = new ArrayList<>(estatisticas.size());
+        for (Map.Entry<Long, EstatisticaConsumo> entrada : estatisticas.entrySet()) {
+            double consumoDiario = entrada.getValue().consumoDiario(hoje);
+            if (consumoDiario > 0) {
+                consumos.add(Map.entry(entrada.getKey(), consumoDiario));
+            }
+        }
+        consumos.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+        long[] ids = new long[Math.min(limite, consumos.size())];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = consumos.get(i).getKey();
+        }
+        return ids;
+    }
+
+    /** @return quantidade de produtos com histórico de consumo */
+    public int produtosMonitorados() {
+        return estatisticas.size();
+    }
+
+    private long dia(long instante) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(instante), fuso).toEpochDay();
+    }
+
+    /**
+     * Avalia uma fatia do catálogo, dividindo-a ao meio enquanto for grande.
+     */
+    private final class TarefaSugestoes extends RecursiveTask<List<SugestaoReposicao>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Produto> produtos;
+        private final int inicio;
+        private final int fim;
+        private final long hoje;
+
+        TarefaSugestoes(List<Produto> produtos, int inicio, int fim, long hoje) {
+            this.produtos = produtos;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.hoje = hoje;
+        }
+
+        @Override
+        protected List<SugestaoReposicao> compute() {
+            if (fim - inicio <= LIMITE_FATIA) {
+                List<SugestaoReposicao> sugestoes = new ArrayList<>();
+                for (int i = inicio; i < fim; i++) {
+                    SugestaoReposicao sugestao = avaliar(produtos.get(i), hoje);
+                    if (sugestao != null) {
+                        sugestoes.add(sugestao);
+                    }
+                }
+                return sugestoes;
+            }
+            int meio = (inicio + fim) >>> 1;
+            TarefaSugestoes esquerda = new TarefaSugestoes(produtos, inicio, meio, hoje);
+            esquerda.fork();
+            List<SugestaoReposicao> direita = new TarefaSugestoes(produtos, meio, fim, hoje).compute();
+            List<SugestaoReposicao> sugestoes = esquerda.join();
+            sugestoes.addAll(direita);
+            return sugestoes;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package previsao;
+
+/**
+ * Sugestão de compra para um produto.
+ *
+ * @param produtoId id do produto
+ * @param nome nome do produto
+ * @param quantidadeAtual estoque no momento do cálculo
+ * @param consumoDiario consumo diário estimado (EWMA)
+ * @param mediaMovel consumo médio dos últimos 7 dias
+ * @param diasAteRuptura dias até o estoque zerar no ritmo atual
+ * @param quantidadeSugerida unidades a comprar para cobrir o prazo de entrega e a cobertura desejada
+ */
+public record SugestaoReposicao(long produtoId, String nome, int quantidadeAtual, double consumoDiario,
+                                double mediaMovel, double diasAteRuptura, int quantidadeSugerida) {
+
+    @Override
+    public String toString() {
+        return String.format("#%-6d %-30s estoque: %-6d consumo/dia: %7.2f  ruptura em: %6.1f dias  comprar: %d",
+                produtoId, nome, quantidadeAtual, consumoDiario, diasAteRuptura, quantidadeSugerida);
+    }
+}
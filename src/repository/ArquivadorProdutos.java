@@ -0,0 +1,101 @@
+package repository;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarefa de fundo que move periodicamente os produtos excluídos logicamente
+ * para a tabela de arquivo, em lotes pequenos para não segurar travas por muito tempo.
+ * Na mesma passada, compacta em segmentos as versões do histórico de preço e
+ * quantidade mais antigas que {@link #JANELA_HISTORICO_MILLIS}.
+ */
+public class ArquivadorProdutos implements AutoCloseable {
+
+    /** Versões mais novas que isto ficam em produtos_versoes, sem compactar. */
+    public static final long JANELA_HISTORICO_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ProdutoRepository produtoRepository;
+    private final int tamanhoLote;
+    private final ScheduledExecutorService agendador;
+
+    public ArquivadorProdutos(ProdutoRepository produtoRepository, int tamanhoLote) {
+        this.produtoRepository = produtoRepository;
+        this.tamanhoLote = tamanhoLote;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "arquivador-produtos");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Agenda o arquivamento a cada {@code intervaloSegundos}.
+     */
+    public void iniciar(long intervaloSegundos) {
+        agendador.scheduleWithFixedDelay(this::arquivarAgendado, intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Arquiva lote após lote até não restar produto excluído na tabela principal.
+     * @return total de produtos arquivados
+     */
+    public int arquivarPendentes() {
+        int total = 0;
+        int arquivados;
+        do {
+            arquivados = produtoRepository.arquivarExcluidos(tamanhoLote);
+            total += arquivados;
+        } while (arquivados == tamanhoLote && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    /**
+     * Compacta, lote após lote de produtos, as versões anteriores à janela do histórico.
+     * @return total de versões compactadas
+     */
+    public int compactarHistorico() {
+        long corte = System.currentTimeMillis() - JANELA_HISTORICO_MILLIS;
+        int total = 0;
+        int compactadas;
+        do {
+            compactadas = produtoRepository.compactarHistorico(corte, tamanhoLote);
+            total += compactadas;
+        } while (compactadas > 0 && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    /**
+     * Execução agendada: uma falha do banco não pode escapar, senão o executor
+     * cancela as próximas execuções.
+     */
+    private void arquivarAgendado() {
+        try {
+            arquivarPendentes();
+        } catch (ErroBanco e) {
+            System.err.println("Erro ao arquivar produtos excluídos: " + e.getMessage());
+        }
+        try {
+            compactarHistorico();
+        } catch (ErroBanco e) {
+            System.err.println("Erro ao compactar o histórico de produtos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancela as próximas passadas e espera a passada em andamento terminar o lote atual
+     * por até 10 segundos; depois disso ela é interrompida.
+     */
+    @Override
+    public void close() {
+        agendador.shutdown();
+        try {
+            if (!agendador.awaitTermination(10, TimeUnit.SECONDS)) {
+                agendador.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            agendador.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package repository;
+
+import ambiente.Ambiente;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Dados de conexão com o banco, escolhidos pelo perfil de execução.
+ *
+ * <ul>
+ *   <li>{@code DB_PERFIL=mysql} (padrão): usa DB_URL, DB_USER e DB_PASSWORD.</li>
+ *   <li>{@code DB_PERFIL=embutido}: banco H2 no próprio processo, em modo de compatibilidade
+ *   MySQL, gravado em {@code ./dados} (ou em DB_URL, se informado). Sobe em milissegundos e
+ *   dispensa servidor, servindo para quiosques de loja única, testes e benchmarks.</li>
+ * </ul>
+ *
+ * Réplicas de leitura são opcionais: {@code DB_REPLICAS} recebe URLs JDBC separadas por
+ * vírgula (com as mesmas credenciais do primário). Listagens, buscas e relatórios passam a
+ * ser atendidos por elas; {@code DB_REPLICA_ATRASO_MAX} (segundos, padrão 2) é o atraso de
+ * replicação tolerado e {@code DB_REPLICA_VERIFICACAO} (segundos, padrão 5) o intervalo das
+ * verificações de saúde.
+ *
+ * Com vários inquilinos, cada um lê as mesmas variáveis com o seu prefixo (ex.:
+ * {@code LOJA1_DB_URL}, {@code LOJA1_DB_REPLICAS}); perfil, usuário, senha e os
+ * parâmetros das réplicas valem o geral quando o inquilino não os define.
+ */
+public class ConfiguracaoBanco {
+
+    private static final String OPCOES_H2 = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+
+    private final String url;
+    private final String usuario;
+    private final String senha;
+    private final List<String> replicas;
+    private final int atrasoMaximoReplicaSegundos;
+    private final int intervaloVerificacaoSegundos;
+
+    public ConfiguracaoBanco(String url, String usuario, String senha) {
+        this(url, usuario, senha, List.of(), 2, 5);
+    }
+
+    public ConfiguracaoBanco(String url, String usuario, String senha, List<String> replicas,
+                             int atrasoMaximoReplicaSegundos, int intervaloVerificacaoSegundos) {
+        this.url = url;
+        this.usuario = usuario;
+        this.senha = senha;
+        this.replicas = List.copyOf(replicas);
+        this.atrasoMaximoReplicaSegundos = atrasoMaximoReplicaSegundos;
+        this.intervaloVerificacaoSegundos = intervaloVerificacaoSegundos;
+    }
+
+    /**
+     * Monta a configuração a partir das variáveis de ambiente.
+     */
+    public static ConfiguracaoBanco doAmbiente() {
+        return doAmbiente("");
+    }
+
+    /**
+     * Monta a configuração de um inquilino a partir das variáveis com o prefixo informado.
+     * No perfil embutido, cada inquilino ganha o seu arquivo em {@code ./dados}.
+     */
+    public static ConfiguracaoBanco doAmbiente(String prefixo) {
+        String perfil = variavel(prefixo, "DB_PERFIL", true);
+        String url = variavel(prefixo, "DB_URL", false);
+        if ("embutido".equalsIgnoreCase(perfil)) {
+            String arquivo = prefixo.isEmpty() ? "gerenciadorestoque"
+                    : "gerenciadorestoque_" + prefixo.substring(0, prefixo.length() - 1).toLowerCase(Locale.ROOT);
+            return new ConfiguracaoBanco(
+                    url != null ? url : "jdbc:h2:./dados/" + arquivo + OPCOES_H2,
+                    valorOuPadrao(variavel(prefixo, "DB_USER", true), "sa"),
+                    valorOuPadrao(variavel(prefixo, "DB_PASSWORD", true), ""));
+        }
+        return new ConfiguracaoBanco(url, variavel(prefixo, "DB_USER", true), variavel(prefixo, "DB_PASSWORD", true),
+                lerReplicas(variavel(prefixo, "DB_REPLICAS", false)),
+                Ambiente.inteiro(prefixo, "DB_REPLICA_ATRASO_MAX", 2),
+                Ambiente.inteiro(prefixo, "DB_REPLICA_VERIFICACAO", 5));
+    }
+
+    /**
+     * Banco H2 somente em memória, descartado quando o processo termina.
+     * @param nome nome do banco, para isolar execuções no mesmo processo
+     */
+    public static ConfiguracaoBanco embutidoEmMemoria(String nome) {
+        return new ConfiguracaoBanco("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1" + OPCOES_H2, "sa", "");
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public String getSenha() {
+        return senha;
+    }
+
+    /** @return URLs das réplicas de leitura (vazia se não houver) */
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    public int getAtrasoMaximoReplicaSegundos() {
+        return atrasoMaximoReplicaSegundos;
+    }
+
+    public int getIntervaloVerificacaoSegundos() {
+        return intervaloVerificacaoSegundos;
+    }
+
+    private static List<String> lerReplicas(String valor) {
+        List<String> replicas = new ArrayList<>();
+        if (valor != null) {
+            for (String url : valor.split(",")) {
+                if (!url.isBlank()) {
+                    replicas.add(url.trim());
+                }
+            }
+        }
+        return replicas;
+    }
+
+    /**
+     * Lê a variável com o prefixo do inquilino; com {@code herdar}, cai na variável geral se ela faltar.
+     */
+    private static String variavel(String prefixo, String nome, boolean herdar) {
+        String valor = System.getenv(prefixo + nome);
+        if (valor == null && herdar && !prefixo.isEmpty()) {
+            valor = System.getenv(nome);
+        }
+        return valor;
+    }
+
+    private static String valorOuPadrao(String valor, String padrao) {
+        return valor != null ? valor : padrao;
+    }
+}
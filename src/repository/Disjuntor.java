@@ -0,0 +1,78 @@
+package repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disjuntor (circuit breaker) do acesso ao banco.
+ *
+ * Depois de {@code limiteFalhas} falhas de indisponibilidade seguidas, abre e passa
+ * a recusar operações na hora, sem abrir conexão, durante a pausa configurada.
+ * Passada a pausa, deixa uma única operação de teste passar: se ela funcionar o
+ * disjuntor fecha, se falhar volta a abrir por mais uma pausa.
+ */
+public class Disjuntor {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private final int limiteFalhas;
+    private final long pausaNanos;
+
+    private final AtomicInteger falhasSeguidas = new AtomicInteger();
+    // 0 = fechado; caso contrário, instante (nanoTime) a partir do qual um teste é permitido
+    private final AtomicLong abertoAte = new AtomicLong();
+    private final AtomicInteger testesEmAndamento = new AtomicInteger();
+
+    public Disjuntor(int limiteFalhas, long pausaMillis) {
+        this.limiteFalhas = limiteFalhas;
+        this.pausaNanos = pausaMillis * 1_000_000L;
+    }
+
+    /**
+     * Verifica se a operação pode seguir.
+     * @return true se a operação é o teste do estado meio aberto (deve ser finalizada
+     * com {@link #registrarSucesso()} ou {@link #registrarFalha()})
+     * @throws ErroBanco do tipo INDISPONIVEL se o disjuntor estiver aberto
+     */
+    public boolean permitir() {
+        long limite = abertoAte.get();
+        if (limite == 0) {
+            return false;
+        }
+        if (System.nanoTime() - limite >= 0 && testesEmAndamento.compareAndSet(0, 1)) {
+            return true;
+        }
+        throw new ErroBanco(TipoErroBanco.INDISPONIVEL, TipoErroBanco.INDISPONIVEL.getDescricao()
+                + ": disjuntor aberto após " + limiteFalhas + " falhas seguidas");
+    }
+
+    public void registrarSucesso() {
+        falhasSeguidas.set(0);
+        abertoAte.set(0);
+        testesEmAndamento.set(0);
+    }
+
+    public void registrarFalha() {
+        if (falhasSeguidas.incrementAndGet() >= limiteFalhas || abertoAte.get() != 0) {
+            // |1 evita o valor 0, reservado para "fechado"
+            abertoAte.set((System.nanoTime() + pausaNanos) | 1);
+        }
+        testesEmAndamento.set(0);
+    }
+
+    /**
+     * Libera o teste do estado meio aberto quando a operação terminou sem dizer nada
+     * sobre a saúde do banco (ex.: erro de restrição).
+     */
+    public void liberarTeste() {
+        testesEmAndamento.set(0);
+    }
+
+    public Estado getEstado() {
+        long limite = abertoAte.get();
+        if (limite == 0) {
+            return Estado.FECHADO;
+        }
+        return System.nanoTime() - limite >= 0 ? Estado.MEIO_ABERTO : Estado.ABERTO;
+    }
+}
@@ -0,0 +1,36 @@
+package repository;
+
+/**
+ * Falha de acesso ao banco lançada pelo {@link ProdutoRepository}, com a categoria
+ * do erro e o SQLState original (quando houver).
+ *
+ * Os métodos do repositório continuam retornando false/null quando a operação
+ * simplesmente não se aplica (produto inexistente, estoque insuficiente); esta
+ * exceção indica que o banco não conseguiu responder.
+ */
+public class ErroBanco extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TipoErroBanco tipo;
+    private final String sqlState;
+
+    public ErroBanco(TipoErroBanco tipo, String mensagem, String sqlState, Throwable causa) {
+        super(mensagem, causa);
+        this.tipo = tipo;
+        this.sqlState = sqlState;
+    }
+
+    public ErroBanco(TipoErroBanco tipo, String mensagem) {
+        this(tipo, mensagem, null, null);
+    }
+
+    public TipoErroBanco getTipo() {
+        return tipo;
+    }
+
+    /** @return o SQLState do driver, ou null se a falha não veio do driver */
+    public String getSqlState() {
+        return sqlState;
+    }
+}
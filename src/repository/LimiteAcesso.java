@@ -0,0 +1,68 @@
+package repository;
+
+import limites.BaldeFichas;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limites de uso do banco por repositório: quantas conexões podem estar abertas
+ * ao mesmo tempo e quantas operações por segundo são aceitas.
+ *
+ * Com vários inquilinos no mesmo processo, cada um tem o seu repositório e,
+ * portanto, os seus limites; um inquilino que gera relatórios pesados esgota
+ * apenas as próprias conexões e a própria cota. Quem passa do limite recebe
+ * {@link ErroBanco} do tipo SOBRECARGA na hora, sem chegar ao banco.
+ */
+final class LimiteAcesso {
+
+    private final int maxConexoes;
+    private final Semaphore conexoes;
+    private final BaldeFichas cota;
+    private final long esperaConexaoMillis;
+
+    LimiteAcesso(PoliticaResiliencia politica) {
+        this.maxConexoes = politica.getMaxConexoes();
+        this.conexoes = maxConexoes > 0 ? new Semaphore(maxConexoes, true) : null;
+        this.cota = politica.getCotaOperacoesPorSegundo() > 0
+                ? new BaldeFichas(politica.getCotaOperacoesPorSegundo(),
+                        Math.max(1, politica.getCotaRajada()))
+                : null;
+        this.esperaConexaoMillis = TimeUnit.SECONDS.toMillis(politica.getTimeoutConexaoSegundos());
+    }
+
+    /**
+     * Consome uma ficha da cota e reserva uma conexão, esperando por ela no máximo
+     * o tempo limite de conexão. Cada chamada bem-sucedida exige um {@link #sair()}.
+     */
+    void entrar() {
+        if (cota != null && !cota.tentarConsumir()) {
+            throw new ErroBanco(TipoErroBanco.SOBRECARGA, TipoErroBanco.SOBRECARGA.getDescricao()
+                    + ": cota de " + (int) cota.getFichasPorSegundo() + " operações por segundo excedida");
+        }
+        if (conexoes == null) {
+            return;
+        }
+        try {
+            if (!conexoes.tryAcquire(esperaConexaoMillis, TimeUnit.MILLISECONDS)) {
+                throw new ErroBanco(TipoErroBanco.SOBRECARGA, TipoErroBanco.SOBRECARGA.getDescricao()
+                        + ": as " + maxConexoes + " conexões permitidas estão em uso");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ErroBanco(TipoErroBanco.SOBRECARGA, TipoErroBanco.SOBRECARGA.getDescricao()
+                    + ": espera por conexão interrompida");
+        }
+    }
+
+    void sair() {
+        if (conexoes != null) {
+            conexoes.release();
+        }
+    }
+
+    /** @return conexões reservadas no momento (0 se não há limite) */
+    int getConexoesEmUso() {
+        return conexoes != null ? maxConexoes - conexoes.availablePermits() : 0;
+    }
+}
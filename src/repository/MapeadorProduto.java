@@ -0,0 +1,50 @@
+package repository;
+
+import model.Produto;
+import model.TipoProduto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converte as linhas de um {@code SELECT * FROM produtos} em {@link Produto}.
+ *
+ * As posições das colunas são resolvidas uma vez por ResultSet, na construção; cada
+ * linha é então lida por índice, sem a busca por nome que o driver faz a cada
+ * {@code getXxx("coluna")}, e o tipo sai da tabela de {@link TipoProduto#doBanco}.
+ */
+final class MapeadorProduto {
+
+    private final int id;
+    private final int nome;
+    private final int descricao;
+    private final int preco;
+    private final int quantidade;
+    private final int tipo;
+    private final int codigoBarras;
+
+    MapeadorProduto(ResultSet rs) throws SQLException {
+        this.id = rs.findColumn("id");
+        this.nome = rs.findColumn("nome");
+        this.descricao = rs.findColumn("descricao");
+        this.preco = rs.findColumn("preco");
+        this.quantidade = rs.findColumn("quantidade");
+        this.tipo = rs.findColumn("tipo");
+        this.codigoBarras = rs.findColumn("codigo_barras");
+    }
+
+    /**
+     * Converte a linha atual do ResultSet.
+     */
+    Produto mapear(ResultSet rs) throws SQLException {
+        return new Produto(
+                rs.getLong(id),
+                rs.getString(nome),
+                rs.getString(descricao),
+                rs.getDouble(preco),
+                rs.getInt(quantidade),
+                TipoProduto.doBanco(rs.getString(tipo)),
+                rs.getLong(codigoBarras)
+        );
+    }
+}
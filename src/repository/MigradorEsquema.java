@@ -0,0 +1,154 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Aplica as migrações versionadas do esquema, registrando cada versão aplicada
+ * na tabela schema_versao. Só executa as versões ainda não aplicadas, então pode
+ * ser chamado a cada inicialização. Os comandos usam SQL compatível com MySQL e
+ * com o H2 em modo MySQL (perfil embutido).
+ */
+public class MigradorEsquema {
+
+    /**
+     * Uma versão do esquema e os comandos que a produzem.
+     */
+    private record Migracao(int versao, String descricao, String... comandos) {
+    }
+
+    private static final List<Migracao> MIGRACOES = List.of(
+            new Migracao(1, "cria tabela produtos",
+                    "CREATE TABLE IF NOT EXISTS produtos ("
+                            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                            + "nome VARCHAR(255) NOT NULL, "
+                            + "descricao TEXT, "
+                            + "preco DOUBLE NOT NULL, "
+                            + "quantidade INT NOT NULL, "
+                            + "tipo VARCHAR(20) NOT NULL)"),
+            new Migracao(2, "código de barras com índice único",
+                    "ALTER TABLE produtos ADD COLUMN codigo_barras BIGINT NULL",
+                    "CREATE UNIQUE INDEX ux_produtos_codigo_barras ON produtos (codigo_barras)"),
+            new Migracao(3, "exclusão lógica e tabela de arquivo",
+                    "ALTER TABLE produtos ADD COLUMN excluido_em TIMESTAMP NULL",
+                    "CREATE INDEX ix_produtos_excluido_em ON produtos (excluido_em)",
+                    "CREATE TABLE produtos_arquivo ("
+                            + "id BIGINT PRIMARY KEY, "
+                            + "nome VARCHAR(255) NOT NULL, "
+                            + "descricao TEXT, "
+                            + "preco DOUBLE NOT NULL, "
+                            + "quantidade INT NOT NULL, "
+                            + "tipo VARCHAR(20) NOT NULL, "
+                            + "codigo_barras BIGINT NULL, "
+                            + "excluido_em TIMESTAMP NOT NULL)",
+                    "CREATE INDEX ix_arquivo_excluido_em ON produtos_arquivo (excluido_em)"),
+            new Migracao(4, "índices de busca por nome e tipo",
+                    "CREATE INDEX ix_produtos_nome ON produtos (nome)",
+                    "CREATE INDEX ix_produtos_tipo ON produtos (tipo)"),
+            new Migracao(5, "histórico de preço e quantidade",
+                    "CREATE TABLE produtos_versoes ("
+                            + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                            + "produto_id BIGINT NOT NULL, "
+                            + "instante_ms BIGINT NOT NULL, "
+                            + "preco DOUBLE NOT NULL, "
+                            + "quantidade INT NOT NULL, "
+                            + "excluido BOOLEAN NOT NULL)",
+                    "CREATE INDEX ix_versoes_produto_instante ON produtos_versoes (produto_id, instante_ms)",
+                    "CREATE INDEX ix_versoes_instante ON produtos_versoes (instante_ms)",
+                    "CREATE TABLE produtos_historico ("
+                            + "produto_id BIGINT NOT NULL, "
+                            + "inicio_ms BIGINT NOT NULL, "
+                            + "fim_ms BIGINT NOT NULL, "
+                            + "versoes INT NOT NULL, "
+                            + "dados BLOB NOT NULL)",
+                    "CREATE INDEX ix_historico_produto_inicio ON produtos_historico (produto_id, inicio_ms)",
+                    // O histórico começa com o estado de cada produto no momento da migração
+                    "INSERT INTO produtos_versoes (produto_id, instante_ms, preco, quantidade, excluido) "
+                            + "SELECT id, UNIX_TIMESTAMP() * 1000.0, preco, quantidade, excluido_em IS NOT NULL "
+                            + "FROM produtos"),
+            new Migracao(6, "lotes com validade",
+                    "CREATE TABLE produtos_lotes ("
+                            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                            + "produto_id BIGINT NOT NULL, "
+                            + "codigo VARCHAR(60) NOT NULL, "
+                            + "validade DATE NOT NULL, "
+                            + "quantidade INT NOT NULL, "
+                            + "recebido_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)",
+                    "CREATE INDEX ix_lotes_produto_validade ON produtos_lotes (produto_id, validade)",
+                    "CREATE INDEX ix_lotes_validade ON produtos_lotes (validade)"),
+            new Migracao(7, "trilha de auditoria",
+                    "CREATE TABLE auditoria ("
+                            + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                            + "instante_ms BIGINT NOT NULL, "
+                            + "ator VARCHAR(120) NOT NULL, "
+                            + "operacao VARCHAR(30) NOT NULL, "
+                            + "produto_id BIGINT NOT NULL, "
+                            + "preco_antes DOUBLE NULL, "
+                            + "quantidade_antes INT NULL, "
+                            + "preco_depois DOUBLE NULL, "
+                            + "quantidade_depois INT NULL, "
+                            + "detalhe VARCHAR(500) NULL)",
+                    "CREATE INDEX ix_auditoria_produto_instante ON auditoria (produto_id, instante_ms)",
+                    "CREATE INDEX ix_auditoria_instante ON auditoria (instante_ms)")
+    );
+
+    private final ConfiguracaoBanco configuracao;
+
+    public MigradorEsquema(ConfiguracaoBanco configuracao) {
+        this.configuracao = configuracao;
+    }
+
+    /**
+     * Aplica as migrações pendentes, em ordem.
+     * @return quantidade de migrações aplicadas nesta chamada
+     * @throws SQLException se alguma migração falhar (as anteriores permanecem aplicadas)
+     */
+    public int migrar() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(
+                configuracao.getUrl(), configuracao.getUsuario(), configuracao.getSenha())) {
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_versao ("
+                        + "versao INT PRIMARY KEY, "
+                        + "descricao VARCHAR(200) NOT NULL, "
+                        + "aplicada_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+
+            int versaoAtual = versaoAtual(conn);
+            int aplicadas = 0;
+            for (Migracao migracao : MIGRACOES) {
+                if (migracao.versao() <= versaoAtual) {
+                    continue;
+                }
+                try (Statement stmt = conn.createStatement();
+                     PreparedStatement registrar = conn.prepareStatement(
+                             "INSERT INTO schema_versao (versao, descricao) VALUES (?, ?)")) {
+                    for (String comando : migracao.comandos()) {
+                        stmt.execute(comando);
+                    }
+                    registrar.setInt(1, migracao.versao());
+                    registrar.setString(2, migracao.descricao());
+                    registrar.executeUpdate();
+                } catch (SQLException e) {
+                    throw new SQLException("Falha na migração V" + migracao.versao() + " (" + migracao.descricao()
+                            + "): " + e.getMessage(), e);
+                }
+                System.out.println("Migração aplicada: V" + migracao.versao() + " - " + migracao.descricao());
+                aplicadas++;
+            }
+            return aplicadas;
+        }
+    }
+
+    private int versaoAtual(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(versao), 0) FROM schema_versao")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
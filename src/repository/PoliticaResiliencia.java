@@ -0,0 +1,117 @@
+package repository;
+
+import ambiente.Ambiente;
+
+/**
+ * Limites de tempo, tentativas, disjuntor e uso do banco aplicados pelo {@link ProdutoRepository}.
+ *
+ * <ul>
+ *   <li>{@code DB_TIMEOUT_CONEXAO}: segundos para abrir uma conexão (padrão 3)</li>
+ *   <li>{@code DB_TIMEOUT_CONSULTA}: segundos por comando SQL (padrão 5)</li>
+ *   <li>{@code DB_TENTATIVAS}: tentativas por operação em falhas transitórias (padrão 3)</li>
+ *   <li>{@code DB_ESPERA_BASE_MS}: espera base entre tentativas, dobrada a cada uma e sorteada
+ *   entre zero e o teto (padrão 50)</li>
+ *   <li>{@code DB_DISJUNTOR_FALHAS}: falhas seguidas que abrem o disjuntor (padrão 5)</li>
+ *   <li>{@code DB_DISJUNTOR_PAUSA}: segundos com o disjuntor aberto antes de testar o banco (padrão 10)</li>
+ *   <li>{@code DB_MAX_CONEXOES}: conexões abertas ao mesmo tempo (padrão 0, sem limite)</li>
+ *   <li>{@code DB_COTA_OPS}: operações por segundo aceitas (padrão 0, sem cota)</li>
+ *   <li>{@code DB_COTA_RAJADA}: operações aceitas de uma vez acima da cota (padrão igual à cota)</li>
+ * </ul>
+ *
+ * Com vários inquilinos, cada variável pode ser definida por inquilino com o prefixo
+ * do inquilino (ex.: {@code LOJA1_DB_COTA_OPS}); sem ela vale o valor geral.
+ */
+public class PoliticaResiliencia {
+
+    private final int timeoutConexaoSegundos;
+    private final int timeoutConsultaSegundos;
+    private final int tentativas;
+    private final long esperaBaseMillis;
+    private final int limiteFalhas;
+    private final long pausaDisjuntorMillis;
+    private final int maxConexoes;
+    private final int cotaOperacoesPorSegundo;
+    private final int cotaRajada;
+
+    public PoliticaResiliencia(int timeoutConexaoSegundos, int timeoutConsultaSegundos, int tentativas,
+                               long esperaBaseMillis, int limiteFalhas, long pausaDisjuntorMillis) {
+        this(timeoutConexaoSegundos, timeoutConsultaSegundos, tentativas, esperaBaseMillis, limiteFalhas,
+                pausaDisjuntorMillis, 0, 0, 0);
+    }
+
+    public PoliticaResiliencia(int timeoutConexaoSegundos, int timeoutConsultaSegundos, int tentativas,
+                               long esperaBaseMillis, int limiteFalhas, long pausaDisjuntorMillis,
+                               int maxConexoes, int cotaOperacoesPorSegundo, int cotaRajada) {
+        this.timeoutConexaoSegundos = timeoutConexaoSegundos;
+        this.timeoutConsultaSegundos = timeoutConsultaSegundos;
+        this.tentativas = Math.max(1, tentativas);
+        this.esperaBaseMillis = esperaBaseMillis;
+        this.limiteFalhas = limiteFalhas;
+        this.pausaDisjuntorMillis = pausaDisjuntorMillis;
+        this.maxConexoes = maxConexoes;
+        this.cotaOperacoesPorSegundo = cotaOperacoesPorSegundo;
+        this.cotaRajada = cotaRajada > 0 ? cotaRajada : cotaOperacoesPorSegundo;
+    }
+
+    /**
+     * Monta a política a partir das variáveis de ambiente, com os padrões acima.
+     */
+    public static PoliticaResiliencia doAmbiente() {
+        return doAmbiente("");
+    }
+
+    /**
+     * Monta a política de um inquilino: cada variável é lida primeiro com o prefixo
+     * (ex.: {@code LOJA1_DB_TENTATIVAS}) e, se ausente, sem ele.
+     */
+    public static PoliticaResiliencia doAmbiente(String prefixo) {
+        return new PoliticaResiliencia(
+                Ambiente.inteiro(prefixo, "DB_TIMEOUT_CONEXAO", 3),
+                Ambiente.inteiro(prefixo, "DB_TIMEOUT_CONSULTA", 5),
+                Ambiente.inteiro(prefixo, "DB_TENTATIVAS", 3),
+                Ambiente.inteiro(prefixo, "DB_ESPERA_BASE_MS", 50),
+                Ambiente.inteiro(prefixo, "DB_DISJUNTOR_FALHAS", 5),
+                Ambiente.inteiro(prefixo, "DB_DISJUNTOR_PAUSA", 10) * 1000L,
+                Ambiente.inteiro(prefixo, "DB_MAX_CONEXOES", 0),
+                Ambiente.inteiro(prefixo, "DB_COTA_OPS", 0),
+                Ambiente.inteiro(prefixo, "DB_COTA_RAJADA", 0));
+    }
+
+    public int getTimeoutConexaoSegundos() {
+        return timeoutConexaoSegundos;
+    }
+
+    public int getTimeoutConsultaSegundos() {
+        return timeoutConsultaSegundos;
+    }
+
+    public int getTentativas() {
+        return tentativas;
+    }
+
+    public long getEsperaBaseMillis() {
+        return esperaBaseMillis;
+    }
+
+    public int getLimiteFalhas() {
+        return limiteFalhas;
+    }
+
+    public long getPausaDisjuntorMillis() {
+        return pausaDisjuntorMillis;
+    }
+
+    /** @return máximo de conexões abertas ao mesmo tempo (0 = sem limite) */
+    public int getMaxConexoes() {
+        return maxConexoes;
+    }
+
+    /** @return operações por segundo aceitas (0 = sem cota) */
+    public int getCotaOperacoesPorSegundo() {
+        return cotaOperacoesPorSegundo;
+    }
+
+    public int getCotaRajada() {
+        return cotaRajada;
+    }
+}
@@ -6,198 +6,1787 @@ import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.UnitValue;
+import ajuste.ContagemFisica;
+import ajuste.ProgressoAjuste;
+import ajuste.ResultadoAjuste;
+import auditoria.Ator;
+import auditoria.GravadorAuditoria;
+import auditoria.OperacaoAuditada;
+import auditoria.RegistroAuditoria;
+import diagnostico.Diagnostico;
+import diagnostico.Fase;
+import eventos.FeedAlteracoes;
+import formatacao.FormatadorMoeda;
+import historico.SegmentoHistorico;
+import historico.ValorEstoque;
+import historico.VersaoProduto;
 import model.Produto;
+import model.ResumoProduto;
 import model.TipoProduto;
+import validade.BaixaLote;
+import validade.LoteProduto;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Repositório para operações de CRUD em produtos
  * e geração de relatórios em PDF.
+ *
+ * Todo acesso ao banco passa por {@link #executar}, que aplica os limites de tempo
+ * de conexão e de consulta, repete falhas transitórias com espera aleatória e
+ * consulta o {@link Disjuntor}, conforme a {@link PoliticaResiliencia}. Falhas do
+ * banco chegam ao chamador como {@link ErroBanco}; false/null continuam significando
+ * que a operação não se aplicou (produto inexistente, estoque insuficiente).
+ *
+ * Com réplicas configuradas ({@link ConfiguracaoBanco#getReplicas()}), as escritas
+ * seguem para o primário e as leituras para as réplicas, via {@link RoteadorLeitura}.
+ * O relatório nunca cai para o primário, para não disputar capacidade com o caixa.
+ *
+ * Cada repositório tem os próprios limites de uso (cota de operações e conexões
+ * simultâneas, ver {@link PoliticaResiliencia}); com vários inquilinos no mesmo
+ * processo, cada inquilino tem o seu repositório.
  */
 public class ProdutoRepository {
 
-    private final String url = System.getenv("DB_URL");
-    private final String user = System.getenv("DB_USER");
-    private final String password = System.getenv("DB_PASSWORD");
-    private final String query = "SELECT nome, preco, quantidade FROM produtos";
+    private final String url;
+    private final String user;
+    private final String password;
+    /** Produtos por bloco nos ajustes em massa: limita o IN de cada comando e o tamanho dos lotes de versões. */
+    private static final int BLOCO_AJUSTE = 500;
+
+    private final String query = "SELECT nome, preco, quantidade FROM produtos WHERE excluido_em IS NULL";
+    private final PoliticaResiliencia politica;
+    private final Disjuntor disjuntor;
+    private final LimiteAcesso limite;
+    private final RoteadorLeitura roteadorLeitura;
+    private final long atrasoMaximoReplicaNanos;
+    private FeedAlteracoes feedAlteracoes;
+    private volatile GravadorAuditoria auditoria;
+    private String arquivoRelatorio = "C:/Users/Usuario/Documents/relatorio_produtos.pdf";
+
+    /**
+     * Cria o repositório usando o perfil e as credenciais das variáveis de ambiente
+     * (ver {@link ConfiguracaoBanco#doAmbiente()}).
+     */
+    public ProdutoRepository() {
+        this(ConfiguracaoBanco.doAmbiente());
+    }
+
+    public ProdutoRepository(ConfiguracaoBanco configuracao) {
+        this(configuracao, PoliticaResiliencia.doAmbiente());
+    }
+
+    public ProdutoRepository(ConfiguracaoBanco configuracao, PoliticaResiliencia politica) {
+        this.url = configuracao.getUrl();
+        this.user = configuracao.getUsuario();
+        this.password = configuracao.getSenha();
+        this.politica = politica;
+        this.disjuntor = new Disjuntor(politica.getLimiteFalhas(), politica.getPausaDisjuntorMillis());
+        this.limite = new LimiteAcesso(politica);
+        this.atrasoMaximoReplicaNanos = TimeUnit.SECONDS.toNanos(configuracao.getAtrasoMaximoReplicaSegundos());
+        this.roteadorLeitura = configuracao.getReplicas().isEmpty() ? null
+                : new RoteadorLeitura(configuracao.getReplicas(), this::conectar,
+                        configuracao.getAtrasoMaximoReplicaSegundos(), politica.getTimeoutConsultaSegundos(),
+                        configuracao.getIntervaloVerificacaoSegundos());
+    }
+
+    /**
+     * Cria o repositório apontando para um banco específico.
+     */
+    public ProdutoRepository(String url, String user, String password) {
+        this(url, user, password, PoliticaResiliencia.doAmbiente());
+    }
+
+    public ProdutoRepository(String url, String user, String password, PoliticaResiliencia politica) {
+        this(new ConfiguracaoBanco(url, user, password), politica);
+    }
+
+    /**
+     * Liga o feed que passa a receber cada cadastro, exclusão e variação de quantidade ou de preço.
+     */
+    public void setFeedAlteracoes(FeedAlteracoes feedAlteracoes) {
+        this.feedAlteracoes = feedAlteracoes;
+    }
+
+    /**
+     * Liga a trilha de auditoria: cada cadastro, entrada, baixa, recebimento de lote,
+     * exclusão, restauração, reajuste de preço e contagem física passa a gerar um {@link RegistroAuditoria} com o ator da
+     * thread ({@link Ator}) e os valores antes e depois.
+     */
+    public void setAuditoria(GravadorAuditoria auditoria) {
+        this.auditoria = auditoria;
+    }
+
+    public GravadorAuditoria getAuditoria() {
+        return auditoria;
+    }
 
     /**
-     * Salva um produto no banco de dados.
+     * Define o caminho do PDF gravado por {@link #gerarRelatorio()}.
+     */
+    public void setArquivoRelatorio(String arquivoRelatorio) {
+        this.arquivoRelatorio = arquivoRelatorio;
+    }
+
+    public String getArquivoRelatorio() {
+        return arquivoRelatorio;
+    }
+
+    /**
+     * Salva um produto no banco de dados e preenche o id gerado.
+     * A primeira versão do histórico é gravada na mesma transação.
      */
     public boolean salvarProduto(Produto produto) {
-        String sql = "INSERT INTO produtos (nome, descricao, preco, quantidade, tipo) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String sql = "INSERT INTO produtos (nome, descricao, preco, quantidade, tipo, codigo_barras) VALUES (?, ?, ?, ?, ?, ?)";
+        int rows = executar(false, conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = preparar(conn, sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            stmt.setString(1, produto.getNome());
-            stmt.setString(2, produto.getDescricao());
-            stmt.setDouble(3, produto.getPreco());
-            stmt.setInt(4, produto.getQuantidade());
-            stmt.setString(5, produto.getTipo().name());
+                stmt.setString(1, produto.getNome());
+                stmt.setString(2, produto.getDescricao());
+                stmt.setDouble(3, produto.getPreco());
+                stmt.setInt(4, produto.getQuantidade());
+                stmt.setString(5, produto.getTipo().name());
+                if (produto.getCodigoBarras() != 0) {
+                    stmt.setLong(6, produto.getCodigoBarras());
+                } else {
+                    stmt.setNull(6, Types.BIGINT);
+                }
 
-            int rows = stmt.executeUpdate();
-            return rows > 0;
+                int inseridas = stmt.executeUpdate();
+                try (ResultSet chaves = stmt.getGeneratedKeys()) {
+                    if (chaves.next()) {
+                        produto.setId(chaves.getLong(1));
+                    }
+                }
+                registrarVersao(conn, produto.getId());
+                conn.commit();
+                return inseridas;
 
-        } catch (SQLException e) {
-            System.err.println("Erro ao salvar produto: " + e.getMessage());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        });
+        if (rows > 0) {
+            publicarCriacao(produto);
+            auditar(OperacaoAuditada.CADASTRO, produto.getId(), null,
+                    new RegistroAuditoria.Estado(produto.getPreco(), produto.getQuantidade()), produto.getNome());
         }
-        return false;
+        return rows > 0;
     }
 
     /**
      * Adiciona quantidade ao estoque do produto.
      */
     public boolean adicionarQuantidade(Long id, int quantidadeAdicionar) {
-        String sql = "UPDATE produtos SET quantidade = quantidade + ? WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, quantidadeAdicionar);
-            stmt.setLong(2, id);
-
-            int rows = stmt.executeUpdate();
-            return rows > 0;
-
-        } catch (SQLException e) {
-            System.err.println("Erro ao adicionar quantidade: " + e.getMessage());
+        String sql = "UPDATE produtos SET quantidade = quantidade + ? WHERE id = ? AND excluido_em IS NULL";
+        VersaoProduto[] versao = {null};
+        int rows = alterarComVersao(id, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setInt(1, quantidadeAdicionar);
+                stmt.setLong(2, id);
+                return stmt.executeUpdate();
+            }
+        }, versao);
+        if (rows > 0) {
+            publicarQuantidade(id, quantidadeAdicionar);
+            auditarQuantidade(OperacaoAuditada.ENTRADA, id, quantidadeAdicionar, versao[0], null);
         }
-        return false;
+        return rows > 0;
     }
 
     /**
      * Remove quantidade do estoque do produto, se houver suficiente.
      */
     public boolean removerQuantidade(Long id, int quantidadeRemover) {
-        String sql = "UPDATE produtos SET quantidade = quantidade - ? WHERE id = ? AND quantidade >= ?";
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        return removerQuantidade(id, quantidadeRemover, List.of());
+    }
 
-            stmt.setInt(1, quantidadeRemover);
-            stmt.setLong(2, id);
-            stmt.setInt(3, quantidadeRemover);
+    /**
+     * Remove quantidade do estoque do produto, baixando antes o saldo dos lotes indicados,
+     * tudo na mesma transação. A parte da retirada que não vem de lotes só é aceita se o
+     * produto continuar com ao menos o saldo que resta nos lotes, para que unidades com
+     * validade controlada não saiam como se fossem de estoque sem lote.
+     *
+     * @param baixas retiradas por lote, escolhidas pela ordem FEFO (pode ser vazia)
+     * @return false se o produto não existe, o saldo não basta ou algum lote não tem o
+     *         saldo esperado; nesse caso nada é alterado
+     */
+    public boolean removerQuantidade(Long id, int quantidadeRemover, List<BaixaLote> baixas) {
+        return baixar(id, quantidadeRemover, baixas, false);
+    }
 
-            int rows = stmt.executeUpdate();
-            return rows > 0;
+    /**
+     * Dá baixa, como perda, nas unidades de lotes vencidos. Grava como
+     * {@link #removerQuantidade(Long, int, List)}, mas publica no feed um descarte, que a
+     * previsão de consumo não conta como venda.
+     */
+    public boolean descartarQuantidade(Long id, int quantidade, List<BaixaLote> baixas) {
+        return baixar(id, quantidade, baixas, true);
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Erro ao remover quantidade: " + e.getMessage());
+    /**
+     * @param descarte true para perda (lotes vencidos), false para saída de estoque
+     */
+    protected boolean baixar(Long id, int quantidadeRemover, List<BaixaLote> baixas, boolean descarte) {
+        String sqlLote = "UPDATE produtos_lotes SET quantidade = quantidade - ? WHERE id = ? AND produto_id = ? AND quantidade >= ?";
+        String sqlEsgotados = "DELETE FROM produtos_lotes WHERE produto_id = ? AND quantidade = 0";
+        String sql = "UPDATE produtos SET quantidade = quantidade - ? WHERE id = ? AND excluido_em IS NULL "
+                + "AND quantidade - ? >= (SELECT COALESCE(SUM(l.quantidade), 0) FROM produtos_lotes l WHERE l.produto_id = ?)";
+        VersaoProduto[] versao = {null};
+        int rows = alterarComVersao(id, conn -> {
+            boolean esgotou = false;
+            if (!baixas.isEmpty()) {
+                try (PreparedStatement stmt = preparar(conn, sqlLote)) {
+                    for (BaixaLote baixa : baixas) {
+                        stmt.setInt(1, baixa.quantidade());
+                        stmt.setLong(2, baixa.loteId());
+                        stmt.setLong(3, id);
+                        stmt.setInt(4, baixa.quantidade());
+                        if (stmt.executeUpdate() == 0) {
+                            conn.rollback();
+                            return 0;
+                        }
+                        esgotou |= baixa.esgota();
+                    }
+                }
+            }
+            if (esgotou) {
+                try (PreparedStatement stmt = preparar(conn, sqlEsgotados)) {
+                    stmt.setLong(1, id);
+                    stmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setInt(1, quantidadeRemover);
+                stmt.setLong(2, id);
+                stmt.setInt(3, quantidadeRemover);
+                stmt.setLong(4, id);
+                int alteradas = stmt.executeUpdate();
+                if (alteradas == 0 && !baixas.isEmpty()) {
+                    conn.rollback();
+                }
+                return alteradas;
+            }
+        }, versao);
+        if (rows > 0) {
+            if (descarte) {
+                publicarDescarte(id, -quantidadeRemover);
+            } else {
+                publicarQuantidade(id, -quantidadeRemover);
+            }
+            auditarQuantidade(OperacaoAuditada.BAIXA, id, -quantidadeRemover, versao[0], baixas);
+        }
+        return rows > 0;
+    }
+
+    /**
+     * Recebe um lote de um produto de consumo: grava o lote e soma as unidades ao
+     * estoque do produto na mesma transação.
+     *
+     * @return o lote gravado, ou null se o produto não existe ou não é de consumo
+     */
+    public LoteProduto receberLote(long produtoId, String codigo, LocalDate validade, int quantidade) {
+        String sqlProduto = "UPDATE produtos SET quantidade = quantidade + ? WHERE id = ? AND tipo = ? AND excluido_em IS NULL";
+        String sqlLote = "INSERT INTO produtos_lotes (produto_id, codigo, validade, quantidade) VALUES (?, ?, ?, ?)";
+        long[] loteId = {0};
+        VersaoProduto[] versao = {null};
+        int rows = alterarComVersao(produtoId, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sqlProduto)) {
+                stmt.setInt(1, quantidade);
+                stmt.setLong(2, produtoId);
+                stmt.setString(3, TipoProduto.CONSUMO.name());
+                if (stmt.executeUpdate() == 0) {
+                    return 0;
+                }
+            }
+            try (PreparedStatement stmt = preparar(conn, sqlLote, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setLong(1, produtoId);
+                stmt.setString(2, codigo);
+                stmt.setDate(3, Date.valueOf(validade));
+                stmt.setInt(4, quantidade);
+                stmt.executeUpdate();
+                try (ResultSet chaves = stmt.getGeneratedKeys()) {
+                    if (chaves.next()) {
+                        loteId[0] = chaves.getLong(1);
+                    }
+                }
+            }
+            return 1;
+        }, versao);
+        if (rows == 0) {
+            return null;
         }
-        return false;
+        LoteProduto lote = new LoteProduto(loteId[0], produtoId, codigo, validade, quantidade);
+        publicarQuantidade(produtoId, quantidade);
+        auditarQuantidade(OperacaoAuditada.RECEBIMENTO_LOTE, produtoId, quantidade, versao[0], List.of(lote));
+        return lote;
+    }
+
+    /**
+     * Percorre os lotes com saldo, para montar as filas FEFO na inicialização.
+     * Lê do primário, como as demais leituras que alimentam escritas.
+     */
+    public void percorrerLotes(Consumer<LoteProduto> acao) {
+        String sql = "SELECT id, produto_id, codigo, validade, quantidade FROM produtos_lotes WHERE quantidade > 0";
+        executar(false, conn -> {
+            try (Statement stmt = criar(conn)) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        acao.accept(new LoteProduto(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                                rs.getDate(4).toLocalDate(), rs.getInt(5)));
+                    }
+                }
+            }
+            return null;
+        });
     }
 
     /**
      * Retorna a lista completa de produtos do banco.
      */
     public List<Produto> listaProdutos() {
-        List<Produto> produtos = new ArrayList<>();
-        String sql = "SELECT * FROM produtos";
+        String sql = "SELECT * FROM produtos WHERE excluido_em IS NULL";
+        return executarLeitura(null, true, true, conn -> {
+            List<Produto> produtos = new ArrayList<>();
+            try (Statement stmt = criar(conn);
+                 ResultSet rs = stmt.executeQuery(sql)) {
 
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+                Fase anterior = Diagnostico.fase(Fase.MAPEAMENTO);
+                try {
+                    MapeadorProduto mapeador = new MapeadorProduto(rs);
+                    while (rs.next()) {
+                        produtos.add(mapeador.mapear(rs));
+                    }
+                } finally {
+                    Diagnostico.voltar(anterior);
+                }
+            }
+            return produtos;
+        });
+    }
 
-            while (rs.next()) {
-                Produto p = new Produto(
-                        rs.getLong("id"),
-                        rs.getString("nome"),
-                        rs.getString("descricao"),
-                        rs.getDouble("preco"),
-                        rs.getInt("quantidade"),
-                        TipoProduto.valueOf(rs.getString("tipo"))
-                );
-                produtos.add(p);
+    /**
+     * Busca um produto pelo nome.
+     */
+    public Produto buscarProduto(String nome) {
+        return buscarProduto(nome, null);
+    }
+
+    /**
+     * Busca um produto pelo nome, lendo do primário se o token tiver escrita recente.
+     */
+    public Produto buscarProduto(String nome, TokenConsistencia token) {
+        String sql = "SELECT * FROM produtos WHERE nome = ? AND excluido_em IS NULL";
+        return executarLeitura(token, true, true, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setString(1, nome);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? mapearProduto(rs) : null;
+                }
             }
+        });
+    }
+
+    /**
+     * Percorre os produtos ativos um a um, sem montar a lista inteira em memória,
+     * para cargas de catálogos grandes.
+     */
+    public void percorrerProdutos(Consumer<Produto> acao) {
+        String sql = "SELECT * FROM produtos WHERE excluido_em IS NULL";
+        // Não repete: a ação já pode ter recebido parte dos produtos
+        executarLeitura(null, false, true, conn -> {
+            try (Statement stmt = criar(conn)) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    MapeadorProduto mapeador = new MapeadorProduto(rs);
+                    while (rs.next()) {
+                        acao.accept(mapeador.mapear(rs));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Lista os produtos ativos sem a descrição, lendo só as colunas do resumo.
+     */
+    public List<ResumoProduto> listaResumos() {
+        String sql = "SELECT id, nome, preco, quantidade, tipo FROM produtos WHERE excluido_em IS NULL";
+        return executarLeitura(null, true, true, conn -> {
+            List<ResumoProduto> resumos = new ArrayList<>();
+            try (Statement stmt = criar(conn);
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                Fase anterior = Diagnostico.fase(Fase.MAPEAMENTO);
+                try {
+                    while (rs.next()) {
+                        resumos.add(mapearResumo(rs));
+                    }
+                } finally {
+                    Diagnostico.voltar(anterior);
+                }
+            }
+            return resumos;
+        });
+    }
+
+    /**
+     * Busca o resumo (sem descrição) de um produto pelo nome.
+     */
+    public ResumoProduto buscarResumo(String nome) {
+        return buscarResumo(nome, null);
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Erro ao listar produtos: " + e.getMessage());
+    /**
+     * Busca o resumo de um produto pelo nome, lendo do primário se o token tiver escrita recente.
+     */
+    public ResumoProduto buscarResumo(String nome, TokenConsistencia token) {
+        String sql = "SELECT id, nome, preco, quantidade, tipo FROM produtos WHERE nome = ? AND excluido_em IS NULL";
+        return executarLeitura(token, true, true, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setString(1, nome);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? mapearResumo(rs) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Carrega apenas a descrição de um produto ativo, para exibição sob demanda.
+     * @return a descrição ("" se não tiver), ou null se o produto não existir ou estiver excluído
+     */
+    public String carregarDescricao(long id) {
+        String sql = "SELECT descricao FROM produtos WHERE id = ? AND excluido_em IS NULL";
+        return executarLeitura(null, true, true, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setLong(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    String descricao = rs.getString(1);
+                    return descricao != null ? descricao : "";
+                }
+            }
+        });
+    }
+
+    /**
+     * Busca um produto pelo código de barras (coluna com índice único).
+     */
+    public Produto buscarPorCodigoBarras(long codigoBarras) {
+        String sql = "SELECT * FROM produtos WHERE codigo_barras = ? AND excluido_em IS NULL";
+        return executarLeitura(null, true, true, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setLong(1, codigoBarras);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? mapearProduto(rs) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Busca vários produtos pelo código de barras em uma única consulta.
+     * Códigos não encontrados simplesmente não aparecem na lista.
+     */
+    public List<Produto> buscarPorCodigosBarras(long[] codigosBarras) {
+        return buscarPorColuna("codigo_barras", codigosBarras);
+    }
+
+    /**
+     * Busca vários produtos pelo id em uma única consulta.
+     * @return os produtos encontrados, em qualquer ordem
+     */
+    public List<Produto> buscarPorIds(long[] ids) {
+        return buscarPorColuna("id", ids);
+    }
+
+    /**
+     * Exclui logicamente um produto pelo ID, marcando excluido_em.
+     * A linha sai do conjunto ativo na hora e é movida para produtos_arquivo
+     * depois, em lote, por {@link #arquivarExcluidos(int)}. Os lotes do produto
+     * são apagados na mesma transação.
+     */
+    public boolean excluirProduto(long id) {
+        String sql = "UPDATE produtos SET excluido_em = CURRENT_TIMESTAMP WHERE id = ? AND excluido_em IS NULL";
+        String sqlLotes = "DELETE FROM produtos_lotes WHERE produto_id = ?";
+        VersaoProduto[] versao = {null};
+        int rows = alterarComVersao(id, conn -> {
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setLong(1, id);
+                if (stmt.executeUpdate() == 0) {
+                    return 0;
+                }
+            }
+            try (PreparedStatement stmt = preparar(conn, sqlLotes)) {
+                stmt.setLong(1, id);
+                stmt.executeUpdate();
+            }
+            return 1;
+        }, versao);
+        if (rows > 0) {
+            publicarExclusao(id);
+            if (versao[0] != null) {
+                auditar(OperacaoAuditada.EXCLUSAO, id,
+                        new RegistroAuditoria.Estado(versao[0].preco(), versao[0].quantidade()), null, null);
+            }
         }
+        return rows > 0;
+    }
+
+    /**
+     * Move um lote de produtos excluídos logicamente para a tabela produtos_arquivo,
+     * mantendo a tabela principal só com o conjunto ativo.
+     *
+     * @param tamanhoLote máximo de linhas movidas nesta chamada
+     * @return quantidade de linhas arquivadas (0 se não havia pendências)
+     */
+    public int arquivarExcluidos(int tamanhoLote) {
+        String selecionar = "SELECT id FROM produtos WHERE excluido_em IS NOT NULL ORDER BY id LIMIT ? FOR UPDATE";
 
-        return produtos;
+        // Pode repetir: a transação inteira é desfeita em caso de falha
+        return executar(true, conn -> {
+            conn.setAutoCommit(false);
+            try {
+                // Copia e apaga só as linhas travadas: um produto ativo no meio da faixa de ids
+                // pode ser excluído durante a transação e não pode ser apagado sem a cópia
+                long[] ids = new long[tamanhoLote];
+                int total = 0;
+                try (PreparedStatement stmtSelecionar = preparar(conn, selecionar)) {
+                    stmtSelecionar.setInt(1, tamanhoLote);
+                    try (ResultSet rs = stmtSelecionar.executeQuery()) {
+                        while (rs.next() && total < ids.length) {
+                            ids[total++] = rs.getLong(1);
+                        }
+                    }
+                }
+                if (total == 0) {
+                    conn.rollback();
+                    return 0;
+                }
+
+                String lista = marcadores(total);
+                try (PreparedStatement stmtCopiar = preparar(conn,
+                        "INSERT INTO produtos_arquivo (id, nome, descricao, preco, quantidade, tipo, codigo_barras, excluido_em) "
+                                + "SELECT id, nome, descricao, preco, quantidade, tipo, codigo_barras, excluido_em FROM produtos "
+                                + "WHERE excluido_em IS NOT NULL AND id IN " + lista);
+                     PreparedStatement stmtApagar = preparar(conn,
+                             "DELETE FROM produtos WHERE excluido_em IS NOT NULL AND id IN " + lista)) {
+                    definirIds(stmtCopiar, 1, ids, total);
+                    int copiados = stmtCopiar.executeUpdate();
+                    definirIds(stmtApagar, 1, ids, total);
+                    int arquivados = stmtApagar.executeUpdate();
+                    if (arquivados != copiados) {
+                        conn.rollback();
+                        return 0;
+                    }
+                    conn.commit();
+                    return arquivados;
+                }
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        });
     }
 
     /**
-     * Busca um produto pelo nome.
+     * Grava produtos já identificados preservando os ids (restauração de snapshot),
+     * em lote e em uma única transação. Ids ou códigos de barras já existentes no
+     * destino desfazem o lote inteiro com um {@link ErroBanco} do tipo CONFLITO.
+     *
+     * @return quantidade de produtos gravados
      */
-    public Produto buscarProduto(String nome) {
-        String sql = "SELECT * FROM produtos WHERE nome = ?";
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public int restaurarProdutos(List<Produto> produtos) {
+        String sql = "INSERT INTO produtos (id, nome, descricao, preco, quantidade, tipo, codigo_barras) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String versao = "INSERT INTO produtos_versoes (produto_id, instante_ms, preco, quantidade, excluido) VALUES (?, ?, ?, ?, FALSE)";
+        int gravados = executar(false, conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = preparar(conn, sql);
+                 PreparedStatement stmtVersao = preparar(conn, versao)) {
+                long instante = System.currentTimeMillis();
+                for (Produto produto : produtos) {
+                    stmt.setLong(1, produto.getId());
+                    stmt.setString(2, produto.getNome());
+                    stmt.setString(3, produto.getDescricao());
+                    stmt.setDouble(4, produto.getPreco());
+                    stmt.setInt(5, produto.getQuantidade());
+                    stmt.setString(6, produto.getTipo().name());
+                    if (produto.getCodigoBarras() != 0) {
+                        stmt.setLong(7, produto.getCodigoBarras());
+                    } else {
+                        stmt.setNull(7, Types.BIGINT);
+                    }
+                    stmt.addBatch();
+                    stmtVersao.setLong(1, produto.getId());
+                    stmtVersao.setLong(2, instante);
+                    stmtVersao.setDouble(3, produto.getPreco());
+                    stmtVersao.setInt(4, produto.getQuantidade());
+                    stmtVersao.addBatch();
+                }
+                stmt.executeBatch();
+                stmtVersao.executeBatch();
+                conn.commit();
+                return produtos.size();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        });
+        for (Produto produto : produtos) {
+            publicarCriacao(produto);
+            auditar(OperacaoAuditada.RESTAURACAO, produto.getId(), null,
+                    new RegistroAuditoria.Estado(produto.getPreco(), produto.getQuantidade()), produto.getNome());
+        }
+        return gravados;
+    }
+
+    // ===== Ajustes em massa =====
 
-            stmt.setString(1, nome);
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Reajusta o preço de todos os produtos ativos que atendem ao filtro, em percentual
+     * (ex.: 10 para +10%, -5 para -5%), arredondando para centavos.
+     *
+     * O reajuste é uma única transação, percorrida em blocos de {@value #BLOCO_AJUSTE}
+     * produtos pela ordem do id: cada bloco é travado, reajustado por um UPDATE sobre o
+     * conjunto e tem as versões gravadas em lote. Como um percentual aplicado duas vezes
+     * não é o mesmo que uma, uma falha no meio desfaz tudo e o reajuste pode ser repetido
+     * com segurança.
+     *
+     * @param tipo só produtos deste tipo, ou null para todos
+     * @param ids só estes produtos, ou null para todos
+     * @param progresso recebe o andamento a cada bloco (pode ser null)
+     */
+    public ResultadoAjuste reajustarPrecos(double percentual, TipoProduto tipo, long[] ids,
+                                           Consumer<ProgressoAjuste> progresso) {
+        double fator = fatorReajuste(percentual);
+        long[] alvo = ids != null ? ordenarSemRepetir(ids) : null;
+        String filtro = "excluido_em IS NULL" + (tipo != null ? " AND tipo = ?" : "");
+        String contar = "SELECT COUNT(*) FROM produtos WHERE " + filtro;
+        String selecionar = "SELECT id, preco FROM produtos WHERE " + filtro + " AND id > ? ORDER BY id LIMIT ? FOR UPDATE";
+        String versao = "INSERT INTO produtos_versoes (produto_id, instante_ms, preco, quantidade, excluido) "
+                + "SELECT id, ?, preco, quantidade, FALSE FROM produtos WHERE ";
+        String detalhe = String.format("reajuste de %+.2f%%", percentual);
+        GravadorAuditoria gravador = auditoria;
+        List<RegistroAuditoria> registros = new ArrayList<>();
+
+        ResultadoAjuste resultado = executar(false, conn -> {
+            conn.setAutoCommit(false);
+            try {
+                int total;
+                if (alvo != null) {
+                    total = alvo.length;
+                } else {
+                    try (PreparedStatement stmt = preparar(conn, contar)) {
+                        if (tipo != null) {
+                            stmt.setString(1, tipo.name());
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            total = rs.next() ? rs.getInt(1) : 0;
+                        }
+                    }
+                }
+
+                long instante = System.currentTimeMillis();
+                long[] alterados = new long[Math.max(total, 16)];
+                double[] precos = new double[alterados.length];
+                int quantos = 0;
+                int processados = 0;
+                long ultimoId = 0;
+                long[] bloco = new long[BLOCO_AJUSTE];
+                double[] antes = new double[BLOCO_AJUSTE];
+                while (alvo == null || processados < alvo.length) {
+                    // Trava o próximo bloco: pela faixa de ids ou pelo trecho da lista informada
+                    int tamanho = 0;
+                    if (alvo == null) {
+                        try (PreparedStatement stmt = preparar(conn, selecionar)) {
+                            int i = 1;
+                            if (tipo != null) {
+                                stmt.setString(i++, tipo.name());
+                            }
+                            stmt.setLong(i++, ultimoId);
+                            stmt.setInt(i, BLOCO_AJUSTE);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    bloco[tamanho] = rs.getLong(1);
+                                    antes[tamanho++] = rs.getDouble(2);
+                                }
+                            }
+                        }
+                        processados += tamanho;
+                    } else {
+                        int fim = Math.min(alvo.length, processados + BLOCO_AJUSTE);
+                        String sql = "SELECT id, preco FROM produtos WHERE " + filtro + " AND id IN "
+                                + marcadores(fim - processados) + " ORDER BY id FOR UPDATE";
+                        try (PreparedStatement stmt = preparar(conn, sql)) {
+                            int i = 1;
+                            if (tipo != null) {
+                                stmt.setString(i++, tipo.name());
+                            }
+                            for (int j = processados; j < fim; j++) {
+                                stmt.setLong(i++, alvo[j]);
+                            }
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    bloco[tamanho] = rs.getLong(1);
+                                    antes[tamanho++] = rs.getDouble(2);
+                                }
+                            }
+                        }
+                        processados = fim;
+                    }
+                    if (tamanho == 0 && alvo == null) {
+                        break;
+                    }
+
+                    if (tamanho > 0) {
+                        ultimoId = bloco[tamanho - 1];
+                        // Só as linhas travadas: uma faixa de ids pegaria também as que entraram no
+                        // filtro depois do SELECT e desalinharia os preços anteriores da auditoria
+                        String condicao = "id IN " + marcadores(tamanho);
+                        try (PreparedStatement stmt = preparar(conn,
+                                "UPDATE produtos SET preco = ROUND(preco * ?, 2) WHERE " + condicao)) {
+                            stmt.setDouble(1, fator);
+                            definirIds(stmt, 2, bloco, tamanho);
+                            stmt.executeUpdate();
+                        }
+                        try (PreparedStatement stmt = preparar(conn, versao + condicao)) {
+                            stmt.setLong(1, instante);
+                            definirIds(stmt, 2, bloco, tamanho);
+                            stmt.executeUpdate();
+                        }
+                        if (quantos + tamanho > alterados.length) {
+                            alterados = Arrays.copyOf(alterados, Math.max(alterados.length * 2, quantos + tamanho));
+                            precos = Arrays.copyOf(precos, alterados.length);
+                        }
+                        // Lê de volta o preço gravado, para o índice e a auditoria terem o arredondamento do banco
+                        try (PreparedStatement stmt = preparar(conn,
+                                "SELECT id, preco, quantidade FROM produtos WHERE " + condicao + " ORDER BY id")) {
+                            definirIds(stmt, 1, bloco, tamanho);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                int j = 0;
+                                while (rs.next()) {
+                                    alterados[quantos] = rs.getLong(1);
+                                    precos[quantos++] = rs.getDouble(2);
+                                    if (gravador != null) {
+                                        int quantidade = rs.getInt(3);
+                                        registros.add(new RegistroAuditoria(instante, Ator.atual(),
+                                                OperacaoAuditada.REAJUSTE_PRECO, rs.getLong(1),
+                                                new RegistroAuditoria.Estado(antes[j], quantidade),
+                                                new RegistroAuditoria.Estado(rs.getDouble(2), quantidade), detalhe));
+                                    }
+                                    j++;
+                                }
+                            }
+                        }
+                    }
+                    if (progresso != null) {
+                        progresso.accept(new ProgressoAjuste(Math.min(processados, total), total, quantos));
+                    }
+                }
+                conn.commit();
+
+                List<Long> naoEncontrados = new ArrayList<>();
+                if (alvo != null) {
+                    for (long id : alvo) {
+                        if (Arrays.binarySearch(alterados, 0, quantos, id) < 0) {
+                            naoEncontrados.add(id);
+                        }
+                    }
+                }
+                return new ResultadoAjuste(alvo != null ? alvo.length : quantos, Arrays.copyOf(alterados, quantos),
+                        Arrays.copyOf(precos, quantos), naoEncontrados, List.of());
 
-            if (rs.next()) {
-                return new Produto(
-                        rs.getLong("id"),
-                        rs.getString("nome"),
-                        rs.getString("descricao"),
-                        rs.getDouble("preco"),
-                        rs.getInt("quantidade"),
-                        TipoProduto.valueOf(rs.getString("tipo"))
-                );
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
+        });
 
-        } catch (SQLException e) {
-            System.err.println("Erro ao buscar produto: " + e.getMessage());
+        for (int i = 0; i < resultado.alterados().length; i++) {
+            publicarPreco(resultado.alterados()[i], resultado.valores()[i]);
         }
-        return null;
+        for (RegistroAuditoria registro : registros) {
+            gravador.registrar(registro);
+        }
+        return resultado;
     }
 
     /**
-     * Exclui um produto pelo ID.
+     * Concilia o estoque com uma contagem física: grava a quantidade contada de cada
+     * produto como a nova quantidade absoluta.
+     *
+     * Os produtos são processados em blocos de {@value #BLOCO_AJUSTE}, cada bloco na sua
+     * transação: trava as linhas, grava as quantidades em lote e as versões em lote. Como
+     * a quantidade contada é absoluta, repetir a conciliação depois de uma falha no meio dá
+     * o mesmo resultado, e as linhas ficam travadas só pelo tempo de um bloco, sem parar o
+     * caixa durante a conciliação inteira. Produtos já com a quantidade contada não geram
+     * versão. Uma contagem abaixo do saldo dos lotes com validade é recusada, pela mesma
+     * regra da baixa de estoque.
+     *
+     * @param contagens quantidade contada por id; ids repetidos ficam com a última contagem
+     * @param progresso recebe o andamento a cada bloco (pode ser null)
      */
-    public boolean excluirProduto(long id) {
-        String sql = "DELETE FROM produtos WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public ResultadoAjuste conciliarContagem(List<ContagemFisica> contagens, Consumer<ProgressoAjuste> progresso) {
+        long[] ids = new long[contagens.size()];
+        Map<Long, Integer> contadas = new HashMap<>(contagens.size() * 2);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = contagens.get(i).chave();
+            contadas.put(ids[i], contagens.get(i).quantidade());
+        }
+        // Ordem crescente de id: transações simultâneas travam as linhas na mesma ordem
+        ids = ordenarSemRepetir(ids);
 
-            stmt.setLong(1, id);
-            int rows = stmt.executeUpdate();
-            return rows > 0;
+        String atualizar = "UPDATE produtos SET quantidade = ? WHERE id = ? AND excluido_em IS NULL "
+                + "AND ? >= (SELECT COALESCE(SUM(l.quantidade), 0) FROM produtos_lotes l WHERE l.produto_id = ?)";
+        String versao = "INSERT INTO produtos_versoes (produto_id, instante_ms, preco, quantidade, excluido) VALUES (?, ?, ?, ?, FALSE)";
+        long[] alterados = new long[16];
+        double[] quantidades = new double[16];
+        int quantos = 0;
+        List<Long> naoEncontrados = new ArrayList<>();
+        List<Long> abaixoDosLotes = new ArrayList<>();
+
+        for (int inicio = 0; inicio < ids.length; inicio += BLOCO_AJUSTE) {
+            long[] bloco = Arrays.copyOfRange(ids, inicio, Math.min(ids.length, inicio + BLOCO_AJUSTE));
+            List<Long> gravados = new ArrayList<>();
 
-        } catch (SQLException e) {
-            System.err.println("Erro ao excluir produto: " + e.getMessage());
+            // Pode repetir: o bloco é desfeito inteiro em caso de falha e a quantidade é absoluta
+            Map<Long, RegistroAuditoria.Estado> atuais = executar(true, conn -> {
+                gravados.clear();
+                conn.setAutoCommit(false);
+                try {
+                    Map<Long, RegistroAuditoria.Estado> lidos = new HashMap<>(bloco.length * 2);
+                    try (PreparedStatement stmt = preparar(conn, "SELECT id, preco, quantidade FROM produtos "
+                            + "WHERE excluido_em IS NULL AND id IN " + marcadores(bloco.length) + " ORDER BY id FOR UPDATE")) {
+                        definirIds(stmt, 1, bloco, bloco.length);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                lidos.put(rs.getLong(1), new RegistroAuditoria.Estado(rs.getDouble(2), rs.getInt(3)));
+                            }
+                        }
+                    }
+
+                    long[] candidatos = new long[bloco.length];
+                    int totalCandidatos = 0;
+                    try (PreparedStatement stmt = preparar(conn, atualizar)) {
+                        for (long id : bloco) {
+                            RegistroAuditoria.Estado atual = lidos.get(id);
+                            int contada = contadas.get(id);
+                            if (atual == null || atual.quantidade() == contada) {
+                                continue;
+                            }
+                            stmt.setInt(1, contada);
+                            stmt.setLong(2, id);
+                            stmt.setInt(3, contada);
+                            stmt.setLong(4, id);
+                            stmt.addBatch();
+                            candidatos[totalCandidatos++] = id;
+                        }
+                        if (totalCandidatos > 0) {
+                            stmt.executeBatch();
+                        }
+                    }
+
+                    if (totalCandidatos > 0) {
+                        // Com o lote reescrito, o driver pode não informar as linhas de cada comando; a releitura informa
+                        try (PreparedStatement stmt = preparar(conn, "SELECT id, quantidade FROM produtos WHERE id IN "
+                                + marcadores(totalCandidatos) + " ORDER BY id")) {
+                            definirIds(stmt, 1, candidatos, totalCandidatos);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    if (rs.getInt(2) == contadas.get(rs.getLong(1))) {
+                                        gravados.add(rs.getLong(1));
+                                    }
+                                }
+                            }
+                        }
+                        long instante = System.currentTimeMillis();
+                        try (PreparedStatement stmt = preparar(conn, versao)) {
+                            for (long id : gravados) {
+                                stmt.setLong(1, id);
+                                stmt.setLong(2, instante);
+                                stmt.setDouble(3, lidos.get(id).preco());
+                                stmt.setInt(4, contadas.get(id));
+                                stmt.addBatch();
+                            }
+                            if (!gravados.isEmpty()) {
+                                stmt.executeBatch();
+                            }
+                        }
+                    }
+                    conn.commit();
+                    return lidos;
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            });
+
+            int g = 0;
+            for (long id : bloco) {
+                RegistroAuditoria.Estado atual = atuais.get(id);
+                int contada = contadas.get(id);
+                if (atual == null) {
+                    naoEncontrados.add(id);
+                } else if (g < gravados.size() && gravados.get(g) == id) {
+                    g++;
+                    if (quantos == alterados.length) {
+                        alterados = Arrays.copyOf(alterados, quantos * 2);
+                        quantidades = Arrays.copyOf(quantidades, quantos * 2);
+                    }
+                    alterados[quantos] = id;
+                    quantidades[quantos++] = contada;
+                    publicarCorrecao(id, contada - atual.quantidade());
+                    auditar(OperacaoAuditada.CONTAGEM, id, atual, new RegistroAuditoria.Estado(atual.preco(), contada),
+                            "contagem física");
+                } else if (atual.quantidade() != contada) {
+                    abaixoDosLotes.add(id);
+                }
+            }
+            if (progresso != null) {
+                progresso.accept(new ProgressoAjuste(inicio + bloco.length, ids.length, quantos));
+            }
         }
-        return false;
+        return new ResultadoAjuste(ids.length, Arrays.copyOf(alterados, quantos), Arrays.copyOf(quantidades, quantos),
+                naoEncontrados, abaixoDosLotes);
     }
 
+    // ===== Histórico de preço e quantidade =====
+
     /**
-     * Gera um relatório PDF com todos os produtos.
+     * Preço e quantidade do produto em um instante passado.
+     *
+     * Procura primeiro nas versões recentes (produtos_versoes) e depois nos segmentos
+     * compactados (produtos_historico), ambos pelo índice (produto, instante). A ordem
+     * importa: a compactação só move versões das recentes para os segmentos, então
+     * nada se perde se ela rodar entre as duas consultas.
+     *
+     * @param instante milissegundos desde a época
+     * @return a versão vigente naquele instante, ou null se o produto ainda não existia
+     */
+    public VersaoProduto versaoEm(long id, long instante) {
+        String recentes = "SELECT instante_ms, preco, quantidade, excluido FROM produtos_versoes "
+                + "WHERE produto_id = ? AND instante_ms <= ? ORDER BY instante_ms DESC, seq DESC LIMIT 1";
+        String segmento = "SELECT inicio_ms, dados FROM produtos_historico "
+                + "WHERE produto_id = ? AND inicio_ms <= ? ORDER BY inicio_ms DESC, fim_ms DESC LIMIT 1";
+        return executarLeitura(null, true, true, conn -> {
+            try (PreparedStatement stmt = preparar(conn, recentes)) {
+                stmt.setLong(1, id);
+                stmt.setLong(2, instante);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new VersaoProduto(id, rs.getLong(1), rs.getDouble(2), rs.getInt(3), rs.getBoolean(4));
+                    }
+                }
+            }
+            try (PreparedStatement stmt = preparar(conn, segmento)) {
+                stmt.setLong(1, id);
+                stmt.setLong(2, instante);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? SegmentoHistorico.versaoEm(id, rs.getLong(1), rs.getBytes(2), instante) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Valor do estoque de todo o catálogo em um instante passado (ex.: fechamento do mês),
+     * sem restaurar backup: para cada produto vale a última versão até o instante.
+     *
+     * @param instante milissegundos desde a época
+     */
+    public ValorEstoque valorEstoqueEm(long instante) {
+        String recentes = "SELECT produto_id, instante_ms, preco, quantidade, excluido FROM produtos_versoes "
+                + "WHERE instante_ms <= ? ORDER BY produto_id, instante_ms, seq";
+        String segmentos = "SELECT h.produto_id, h.inicio_ms, h.dados FROM produtos_historico h "
+                + "WHERE h.inicio_ms = (SELECT MAX(inicio_ms) FROM produtos_historico "
+                + "WHERE produto_id = h.produto_id AND inicio_ms <= ?)";
+        return executarLeitura(null, true, false, conn -> {
+            Map<Long, VersaoProduto> vigentes = new HashMap<>();
+            try (PreparedStatement stmt = preparar(conn, recentes)) {
+                stmt.setLong(1, instante);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        vigentes.put(id, new VersaoProduto(id, rs.getLong(2), rs.getDouble(3), rs.getInt(4),
+                                rs.getBoolean(5)));
+                    }
+                }
+            }
+            // Lidos depois das recentes: se a compactação rodou no meio, o segmento traz a mesma versão
+            try (PreparedStatement stmt = preparar(conn, segmentos)) {
+                stmt.setLong(1, instante);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        VersaoProduto versao = SegmentoHistorico.versaoEm(id, rs.getLong(2), rs.getBytes(3), instante);
+                        VersaoProduto recente = vigentes.get(id);
+                        if (versao != null && (recente == null || versao.instante() >= recente.instante())) {
+                            vigentes.put(id, versao);
+                        }
+                    }
+                }
+            }
+            return somarEstoque(instante, vigentes.values());
+        });
+    }
+
+    /**
+     * Move as versões anteriores a {@code corte} de até {@code maxProdutos} produtos para
+     * segmentos compactados, emendando no último segmento do produto enquanto ele tiver espaço.
+     *
+     * @return quantidade de versões compactadas (0 se não havia pendências)
+     */
+    public int compactarHistorico(long corte, int maxProdutos) {
+        String selecionar = "SELECT DISTINCT produto_id FROM produtos_versoes WHERE instante_ms < ? "
+                + "ORDER BY produto_id LIMIT ?";
+        String versoes = "SELECT produto_id, instante_ms, preco, quantidade, excluido FROM produtos_versoes "
+                + "WHERE produto_id BETWEEN ? AND ? AND instante_ms < ? ORDER BY produto_id, instante_ms, seq FOR UPDATE";
+        String ultimoSegmento = "SELECT inicio_ms, fim_ms, versoes, dados FROM produtos_historico "
+                + "WHERE produto_id = ? ORDER BY inicio_ms DESC, fim_ms DESC LIMIT 1";
+        String apagarSegmento = "DELETE FROM produtos_historico WHERE produto_id = ? AND inicio_ms = ? AND fim_ms = ?";
+        String gravarSegmento = "INSERT INTO produtos_historico (produto_id, inicio_ms, fim_ms, versoes, dados) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        String apagarVersoes = "DELETE FROM produtos_versoes WHERE produto_id BETWEEN ? AND ? AND instante_ms < ?";
+
+        // Pode repetir: a transação inteira é desfeita em caso de falha
+        return executar(true, conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmtSelecionar = preparar(conn, selecionar);
+                 PreparedStatement stmtVersoes = preparar(conn, versoes);
+                 PreparedStatement stmtUltimo = preparar(conn, ultimoSegmento);
+                 PreparedStatement stmtApagarSegmento = preparar(conn, apagarSegmento);
+                 PreparedStatement stmtGravar = preparar(conn, gravarSegmento);
+                 PreparedStatement stmtApagarVersoes = preparar(conn, apagarVersoes)) {
+
+                stmtSelecionar.setLong(1, corte);
+                stmtSelecionar.setInt(2, maxProdutos);
+                long menorId = 0;
+                long maiorId = -1;
+                try (ResultSet rs = stmtSelecionar.executeQuery()) {
+                    while (rs.next()) {
+                        if (maiorId < 0) {
+                            menorId = rs.getLong(1);
+                        }
+                        maiorId = rs.getLong(1);
+                    }
+                }
+                if (maiorId < 0) {
+                    conn.rollback();
+                    return 0;
+                }
+
+                stmtVersoes.setLong(1, menorId);
+                stmtVersoes.setLong(2, maiorId);
+                stmtVersoes.setLong(3, corte);
+                int compactadas = 0;
+                List<VersaoProduto> doProduto = new ArrayList<>();
+                try (ResultSet rs = stmtVersoes.executeQuery()) {
+                    while (rs.next()) {
+                        VersaoProduto versao = new VersaoProduto(rs.getLong(1), rs.getLong(2), rs.getDouble(3),
+                                rs.getInt(4), rs.getBoolean(5));
+                        if (!doProduto.isEmpty() && doProduto.get(0).produtoId() != versao.produtoId()) {
+                            gravarSegmentos(doProduto, stmtUltimo, stmtApagarSegmento, stmtGravar);
+                            doProduto.clear();
+                        }
+                        doProduto.add(versao);
+                        compactadas++;
+                    }
+                }
+                if (!doProduto.isEmpty()) {
+                    gravarSegmentos(doProduto, stmtUltimo, stmtApagarSegmento, stmtGravar);
+                }
+                stmtGravar.executeBatch();
+
+                stmtApagarVersoes.setLong(1, menorId);
+                stmtApagarVersoes.setLong(2, maiorId);
+                stmtApagarVersoes.setLong(3, corte);
+                stmtApagarVersoes.executeUpdate();
+                conn.commit();
+                return compactadas;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Soma o valor das versões vigentes, ignorando os produtos excluídos até o instante.
+     */
+    protected static ValorEstoque somarEstoque(long instante, Iterable<VersaoProduto> vigentes) {
+        int produtos = 0;
+        long unidades = 0;
+        double valor = 0;
+        for (VersaoProduto versao : vigentes) {
+            if (!versao.excluido()) {
+                produtos++;
+                unidades += versao.quantidade();
+                valor += versao.valor();
+            }
+        }
+        return new ValorEstoque(instante, produtos, unidades, valor);
+    }
+
+    /**
+     * Gera um relatório PDF com todos os produtos, lido de uma réplica quando houver.
+     *
+     * As colunas são lidas pela posição da consulta e o preço é formatado em reais
+     * num StringBuilder reaproveitado; por linha sobram só as Strings das células,
+     * que o iText exige.
+     *
+     * @return false se o arquivo não pôde ser gravado
      */
     public boolean gerarRelatorio() {
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query);
-             PdfWriter writer = new PdfWriter("C:/Users/Usuario/Documents/relatorio_produtos.pdf");
-             PdfDocument pdf = new PdfDocument(writer);
-             Document document = new Document(pdf)) {
+        return executarLeitura(null, true, false, conn -> {
+            // No diagnóstico: a leitura das linhas conta como mapeamento e o resto como PDF,
+            // inclusive o fechamento do documento, que é quando a maior parte é gravada
+            Fase anterior = null;
+            try (Statement stmt = criar(conn);
+                 ResultSet rs = stmt.executeQuery(query);
+                 PdfWriter writer = new PdfWriter(arquivoRelatorio);
+                 PdfDocument pdf = new PdfDocument(writer);
+                 Document document = new Document(pdf)) {
+
+                anterior = Diagnostico.fase(Fase.PDF);
+                document.add(new Paragraph("Relatório de Produtos").setBold().setFontSize(14));
+
+                Table table = new Table(UnitValue.createPercentArray(new float[]{1, 3, 2}));
+                table.setWidth(UnitValue.createPercentValue(100));
+
+                table.addHeaderCell("Nome");
+                table.addHeaderCell("Preço");
+                table.addHeaderCell("Quantidade");
+
+                StringBuilder celula = new StringBuilder(32);
+                Fase escrita = Diagnostico.fase(Fase.MAPEAMENTO);
+                try {
+                    while (rs.next()) {
+                        table.addCell(rs.getString(1));
+                        celula.setLength(0);
+                        table.addCell(FormatadorMoeda.REAL.anexar(celula, rs.getDouble(2)).toString());
+                        table.addCell(Integer.toString(rs.getInt(3)));
+                    }
+                } finally {
+                    Diagnostico.voltar(escrita);
+                }
+
+                document.add(table);
+                System.out.println("Relatório PDF gerado com sucesso!");
+                return true;
+
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erro ao gerar relatório: " + e.getMessage());
+                return false;
+            } finally {
+                Diagnostico.voltar(anterior);
+            }
+        });
+    }
+
+    /**
+     * Grava um lote de registros de auditoria na tabela auditoria, em uma transação.
+     * É o destino da opção {@code AUDITORIA=banco} (ver {@link GravadorAuditoria}).
+     */
+    public void gravarAuditoria(List<RegistroAuditoria> registros) {
+        String sql = "INSERT INTO auditoria (instante_ms, ator, operacao, produto_id, preco_antes, quantidade_antes, "
+                + "preco_depois, quantidade_depois, detalhe) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        // Pode repetir: o lote inteiro é desfeito em caso de falha
+        executar(true, conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                for (RegistroAuditoria registro : registros) {
+                    stmt.setLong(1, registro.instante());
+                    stmt.setString(2, limitar(registro.ator(), 120));
+                    stmt.setString(3, registro.operacao().name());
+                    stmt.setLong(4, registro.produtoId());
+                    definirEstado(stmt, 5, registro.antes());
+                    definirEstado(stmt, 7, registro.depois());
+                    stmt.setString(9, limitar(registro.detalhe(), 500));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return null;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        });
+    }
+
+    private static String limitar(String texto, int tamanho) {
+        return texto != null && texto.length() > tamanho ? texto.substring(0, tamanho) : texto;
+    }
+
+    private static void definirEstado(PreparedStatement stmt, int indice, RegistroAuditoria.Estado estado)
+            throws SQLException {
+        if (estado != null) {
+            stmt.setDouble(indice, estado.preco());
+            stmt.setInt(indice + 1, estado.quantidade());
+        } else {
+            stmt.setNull(indice, Types.DOUBLE);
+            stmt.setNull(indice + 1, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Abre uma conexão com o primário e, se houver réplicas, com uma delas, para que a
+     * carga do driver, a resolução do endereço e a autenticação aconteçam na partida e
+     * não na primeira requisição. Não há pool: cada operação abre a sua conexão, então
+     * o que fica aquecido são o driver e o caminho até o banco.
+     *
+     * @throws ErroBanco se o banco não responder
+     */
+    public void aquecerConexoes() {
+        OperacaoBanco<Void> ping = conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setQueryTimeout(politica.getTimeoutConsultaSegundos());
+                stmt.execute("SELECT 1");
+            }
+            return null;
+        };
+        executar(true, ping);
+        if (roteadorLeitura != null) {
+            executarLeitura(null, true, true, ping);
+        }
+    }
+
+    /** @return estado atual do disjuntor do banco, para diagnóstico */
+    public Disjuntor.Estado getEstadoDisjuntor() {
+        return disjuntor.getEstado();
+    }
+
+    /** @return conexões em uso no momento, contadas só quando há limite de conexões */
+    public int getConexoesEmUso() {
+        return limite.getConexoesEmUso();
+    }
+
+    /** @return o roteador das réplicas de leitura, ou null se não houver réplicas */
+    public RoteadorLeitura getRoteadorLeitura() {
+        return roteadorLeitura;
+    }
+
+    // ===== Execução resiliente =====
+
+    /**
+     * Trecho de acesso ao banco executado com uma conexão aberta por {@link #executar}.
+     */
+    @FunctionalInterface
+    protected interface OperacaoBanco<T> {
+        T executar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Executa a operação com uma conexão nova, repetindo falhas transitórias.
+     *
+     * Falhas ao abrir a conexão e transações desfeitas pelo banco (deadlock,
+     * serialização) são sempre repetidas, pois nada foi aplicado. Quedas de conexão
+     * no meio do comando só são repetidas quando {@code repetivel} é true, já que uma
+     * escrita pode ter sido aplicada antes da queda. Tempo esgotado não é repetido:
+     * insistir só aumentaria a carga de um banco já lento.
+     *
+     * Antes de tudo a operação passa pelos limites de uso do repositório (cota de
+     * operações e conexões simultâneas); retentativas não consomem cota de novo.
+     *
+     * @param repetivel se a operação pode ser executada de novo sem efeito colateral
+     * @throws ErroBanco se o banco falhar, o disjuntor estiver aberto ou um limite de uso for atingido
+     */
+    protected <T> T executar(boolean repetivel, OperacaoBanco<T> operacao) {
+        entrarNoLimite();
+        try {
+            return executarNoPrimario(repetivel, operacao);
+        } finally {
+            limite.sair();
+        }
+    }
 
-            document.add(new Paragraph("Relatório de Produtos").setBold().setFontSize(14));
+    private <T> T executarNoPrimario(boolean repetivel, OperacaoBanco<T> operacao) {
+        boolean teste = disjuntor.permitir();
+        boolean registrado = false;
+        try {
+            for (int tentativa = 1; ; tentativa++) {
+                boolean conectado = false;
+                try (Connection conn = conectar(url)) {
+                    conectado = true;
+                    T resultado = executarMedindo(operacao, conn);
+                    disjuntor.registrarSucesso();
+                    registrado = true;
+                    return resultado;
 
-            Table table = new Table(UnitValue.createPercentArray(new float[]{1, 3, 2}));
-            table.setWidth(UnitValue.createPercentValue(100));
+                } catch (SQLException e) {
+                    TipoErroBanco tipo = classificar(e, conectado);
+                    if (tentativa < politica.getTentativas() && podeRepetir(e, tipo, conectado, repetivel)) {
+                        esperar(tentativa);
+                        continue;
+                    }
+                    if (tipo == TipoErroBanco.INDISPONIVEL || tipo == TipoErroBanco.TEMPO_ESGOTADO) {
+                        disjuntor.registrarFalha();
+                    } else {
+                        disjuntor.registrarSucesso(); // o banco respondeu, só recusou o comando
+                    }
+                    registrado = true;
+                    throw new ErroBanco(tipo, tipo.getDescricao() + ": " + e.getMessage(), e.getSQLState(), e);
+                }
+            }
+        } finally {
+            if (teste && !registrado) {
+                disjuntor.liberarTeste();
+            }
+        }
+    }
 
-            table.addHeaderCell("Nome");
-            table.addHeaderCell("Preço");
-            table.addHeaderCell("Quantidade");
+    /**
+     * Executa uma leitura em uma réplica, quando houver, ou no primário.
+     *
+     * Vai direto ao primário se o token indicar uma escrita recente do próprio fluxo.
+     * Se a réplica escolhida estiver fora do ar, ela sai do rodízio e a leitura segue
+     * para o primário (quando a operação é repetível ou nem chegou a conectar).
+     *
+     * @param token token de leitura das próprias escritas, ou null
+     * @param permitirPrimario false para leituras pesadas que não devem cair no primário
+     */
+    protected <T> T executarLeitura(TokenConsistencia token, boolean repetivel, boolean permitirPrimario,
+                                    OperacaoBanco<T> operacao) {
+        entrarNoLimite();
+        try {
+            return lerDeReplica(token, repetivel, permitirPrimario, operacao);
+        } finally {
+            limite.sair();
+        }
+    }
+
+    private <T> T lerDeReplica(TokenConsistencia token, boolean repetivel, boolean permitirPrimario,
+                               OperacaoBanco<T> operacao) {
+        if (roteadorLeitura == null || (token != null && token.exigePrimario(atrasoMaximoReplicaNanos))) {
+            return executarNoPrimario(repetivel, operacao);
+        }
 
-            while (rs.next()) {
-                table.addCell(rs.getString("nome"));
-                table.addCell("R$ " + rs.getDouble("preco"));
-                table.addCell(String.valueOf(rs.getInt("quantidade")));
+        RoteadorLeitura.Replica replica = roteadorLeitura.escolher();
+        if (replica != null) {
+            boolean conectado = false;
+            try (Connection conn = conectar(replica.url)) {
+                conectado = true;
+                return executarMedindo(operacao, conn);
+            } catch (SQLException e) {
+                TipoErroBanco tipo = classificar(e, conectado);
+                if (tipo != TipoErroBanco.INDISPONIVEL) {
+                    throw new ErroBanco(tipo, tipo.getDescricao() + ": " + e.getMessage(), e.getSQLState(), e);
+                }
+                roteadorLeitura.marcarFalha(replica);
+                if (!permitirPrimario || (conectado && !repetivel)) {
+                    throw new ErroBanco(tipo, tipo.getDescricao() + ": " + e.getMessage(), e.getSQLState(), e);
+                }
+            } finally {
+                replica.liberar();
             }
+        } else if (!permitirPrimario) {
+            throw new ErroBanco(TipoErroBanco.INDISPONIVEL, TipoErroBanco.INDISPONIVEL.getDescricao()
+                    + ": nenhuma réplica de leitura disponível");
+        }
+        return executarNoPrimario(repetivel, operacao);
+    }
+
+    // Espera por vaga nos limites de uso, contada como obtenção de conexão no diagnóstico
+    private void entrarNoLimite() {
+        Fase anterior = Diagnostico.fase(Fase.CONEXAO, false);
+        try {
+            limite.entrar();
+        } finally {
+            Diagnostico.voltar(anterior);
+        }
+    }
 
-            document.add(table);
-            System.out.println("Relatório PDF gerado com sucesso!");
+    // No diagnóstico, o que a operação não marcar como outra fase conta como consulta
+    private static <T> T executarMedindo(OperacaoBanco<T> operacao, Connection conn) throws SQLException {
+        Fase anterior = Diagnostico.fase(Fase.CONSULTA);
+        try {
+            return operacao.executar(conn);
+        } finally {
+            Diagnostico.voltar(anterior);
+        }
+    }
+
+    private Connection conectar(String url) throws SQLException {
+        Properties propriedades = new Properties();
+        if (user != null) {
+            propriedades.setProperty("user", user);
+        }
+        if (password != null) {
+            propriedades.setProperty("password", password);
+        }
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            // O Connector/J não usa o loginTimeout do DriverManager; o socketTimeout evita
+            // ficar preso em uma conexão que parou de responder no meio da consulta
+            int conexao = politica.getTimeoutConexaoSegundos();
+            int consulta = politica.getTimeoutConsultaSegundos();
+            propriedades.setProperty("connectTimeout", String.valueOf(conexao * 1000L));
+            if (consulta > 0) {
+                propriedades.setProperty("socketTimeout", String.valueOf((consulta + conexao) * 1000L));
+            }
+            // Envia os lotes (addBatch) como INSERTs de várias linhas em vez de uma ida ao banco por linha
+            propriedades.setProperty("rewriteBatchedStatements", "true");
+        }
+        Fase anterior = Diagnostico.fase(Fase.CONEXAO);
+        try {
+            return DriverManager.getConnection(url, propriedades);
+        } finally {
+            Diagnostico.voltar(anterior);
+        }
+    }
+
+    private PreparedStatement preparar(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setQueryTimeout(politica.getTimeoutConsultaSegundos());
+        return stmt;
+    }
+
+    private PreparedStatement preparar(Connection conn, String sql, int chavesGeradas) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, chavesGeradas);
+        stmt.setQueryTimeout(politica.getTimeoutConsultaSegundos());
+        return stmt;
+    }
+
+    private Statement criar(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        stmt.setQueryTimeout(politica.getTimeoutConsultaSegundos());
+        return stmt;
+    }
+
+    private static TipoErroBanco classificar(SQLException e, boolean conectado) {
+        String estado = e.getSQLState() != null ? e.getSQLState() : "";
+        if (e instanceof SQLTimeoutException || estado.equals("HYT00") || estado.equals("HYT01")
+                || estado.equals("57014") || estado.equals("70100")) {
+            return TipoErroBanco.TEMPO_ESGOTADO;
+        }
+        if (estado.startsWith("28")) {
+            return TipoErroBanco.FALHA; // credenciais inválidas: não adianta insistir
+        }
+        if (!conectado || estado.startsWith("08") || e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException) {
+            return TipoErroBanco.INDISPONIVEL;
+        }
+        if (estado.startsWith("23") || e instanceof SQLIntegrityConstraintViolationException) {
+            return TipoErroBanco.CONFLITO;
+        }
+        return TipoErroBanco.FALHA;
+    }
+
+    private static boolean podeRepetir(SQLException e, TipoErroBanco tipo, boolean conectado, boolean repetivel) {
+        if (e instanceof SQLTransactionRollbackException || "40001".equals(e.getSQLState())
+                || "40P01".equals(e.getSQLState())) {
             return true;
+        }
+        return tipo == TipoErroBanco.INDISPONIVEL && (!conectado || repetivel);
+    }
+
+    /**
+     * Espera antes da próxima tentativa: sorteio entre zero e a espera base
+     * dobrada a cada tentativa, para que terminais não voltem todos juntos.
+     */
+    private void esperar(int tentativa) {
+        long teto = politica.getEsperaBaseMillis() << Math.min(tentativa - 1, 10);
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(teto + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ErroBanco(TipoErroBanco.INDISPONIVEL, "interrompido aguardando nova tentativa", null, e);
+        }
+    }
+
+    /**
+     * @return o multiplicador do preço para o percentual de reajuste
+     * @throws IllegalArgumentException se o percentual é zero, zeraria o preço ou passa de 1000%
+     */
+    protected static double fatorReajuste(double percentual) {
+        if (!(percentual > -100) || percentual > 1000) {
+            throw new IllegalArgumentException("percentual de reajuste fora do intervalo (-100, 1000]: " + percentual);
+        }
+        if (percentual == 0) {
+            // Não mudaria preço algum, mas gravaria versões e eventos para todos os produtos
+            throw new IllegalArgumentException("percentual de reajuste deve ser diferente de zero");
+        }
+        return 1 + percentual / 100;
+    }
+
+    /** @return "(?, ?, ...)" com {@code quantidade} marcadores, para um IN */
+    private static String marcadores(int quantidade) {
+        StringBuilder sql = new StringBuilder(quantidade * 3 + 2).append('(');
+        for (int i = 0; i < quantidade; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static void definirIds(PreparedStatement stmt, int primeiro, long[] ids, int quantidade) throws SQLException {
+        for (int i = 0; i < quantidade; i++) {
+            stmt.setLong(primeiro + i, ids[i]);
+        }
+    }
+
+    /** @return os ids em ordem crescente, sem repetições */
+    protected static long[] ordenarSemRepetir(long[] ids) {
+        long[] ordenados = ids.clone();
+        Arrays.sort(ordenados);
+        int distintos = 0;
+        for (int i = 0; i < ordenados.length; i++) {
+            if (i == 0 || ordenados[i] != ordenados[i - 1]) {
+                ordenados[distintos++] = ordenados[i];
+            }
+        }
+        return Arrays.copyOf(ordenados, distintos);
+    }
+
+    private List<Produto> buscarPorColuna(String coluna, long[] valores) {
+        if (valores.length == 0) {
+            return new ArrayList<>();
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM produtos WHERE excluido_em IS NULL AND ")
+                .append(coluna).append(" IN (");
+        for (int i = 0; i < valores.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        return executarLeitura(null, true, true, conn -> {
+            List<Produto> produtos = new ArrayList<>();
+            try (PreparedStatement stmt = preparar(conn, sql.toString())) {
+                for (int i = 0; i < valores.length; i++) {
+                    stmt.setLong(i + 1, valores[i]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    MapeadorProduto mapeador = new MapeadorProduto(rs);
+                    while (rs.next()) {
+                        produtos.add(mapeador.mapear(rs));
+                    }
+                }
+            }
+            return produtos;
+        });
+    }
+
+    /**
+     * Executa uma alteração de um único produto e, se ela mudou alguma linha, grava a nova
+     * versão do produto no histórico na mesma transação.
+     *
+     * @param versao recebe a versão gravada quando a auditoria está ligada (ver {@link #registrarVersao})
+     */
+    private int alterarComVersao(long id, OperacaoBanco<Integer> alteracao, VersaoProduto[] versao) {
+        return executar(false, conn -> {
+            conn.setAutoCommit(false);
+            try {
+                int linhas = alteracao.executar(conn);
+                if (linhas > 0) {
+                    versao[0] = registrarVersao(conn, id);
+                }
+                conn.commit();
+                return linhas;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Copia o preço e a quantidade atuais do produto para produtos_versoes.
+     *
+     * Com a auditoria ligada, a linha é lida antes (já travada pela alteração da mesma
+     * transação) para que o registro de auditoria tenha os valores exatos; sem ela, a
+     * cópia é um único INSERT ... SELECT.
+     *
+     * @return a versão gravada, ou null se a auditoria está desligada
+     */
+    private VersaoProduto registrarVersao(Connection conn, long id) throws SQLException {
+        long instante = System.currentTimeMillis();
+        if (auditoria == null) {
+            String sql = "INSERT INTO produtos_versoes (produto_id, instante_ms, preco, quantidade, excluido) "
+                    + "SELECT id, ?, preco, quantidade, excluido_em IS NOT NULL FROM produtos WHERE id = ?";
+            try (PreparedStatement stmt = preparar(conn, sql)) {
+                stmt.setLong(1, instante);
+                stmt.setLong(2, id);
+                stmt.executeUpdate();
+            }
+            return null;
+        }
+
+        String ler = "SELECT preco, quantidade, excluido_em IS NOT NULL FROM produtos WHERE id = ?";
+        String gravar = "INSERT INTO produtos_versoes (produto_id, instante_ms, preco, quantidade, excluido) VALUES (?, ?, ?, ?, ?)";
+        VersaoProduto versao;
+        try (PreparedStatement stmt = preparar(conn, ler)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                versao = new VersaoProduto(id, instante, rs.getDouble(1), rs.getInt(2), rs.getBoolean(3));
+            }
+        }
+        try (PreparedStatement stmt = preparar(conn, gravar)) {
+            stmt.setLong(1, id);
+            stmt.setLong(2, instante);
+            stmt.setDouble(3, versao.preco());
+            stmt.setInt(4, versao.quantidade());
+            stmt.setBoolean(5, versao.excluido());
+            stmt.executeUpdate();
+        }
+        return versao;
+    }
 
-        } catch (Exception e) {
-            System.err.println("Erro ao gerar relatório: " + e.getMessage());
+    /**
+     * Grava as versões de um produto em segmentos, reabrindo o último segmento quando
+     * ele ainda tem espaço e termina antes da primeira versão nova.
+     */
+    private void gravarSegmentos(List<VersaoProduto> novas, PreparedStatement stmtUltimo,
+                                 PreparedStatement stmtApagar, PreparedStatement stmtGravar) throws SQLException {
+        long id = novas.get(0).produtoId();
+        List<VersaoProduto> versoes = novas;
+        stmtUltimo.setLong(1, id);
+        try (ResultSet rs = stmtUltimo.executeQuery()) {
+            if (rs.next() && rs.getInt(3) < SegmentoHistorico.MAX_VERSOES
+                    && rs.getLong(2) <= novas.get(0).instante()) {
+                versoes = SegmentoHistorico.decodificar(id, rs.getLong(1), rs.getBytes(4));
+                versoes.addAll(novas);
+                stmtApagar.setLong(1, id);
+                stmtApagar.setLong(2, rs.getLong(1));
+                stmtApagar.setLong(3, rs.getLong(2));
+                stmtApagar.executeUpdate();
+            }
+        }
+        for (int inicio = 0; inicio < versoes.size(); inicio += SegmentoHistorico.MAX_VERSOES) {
+            List<VersaoProduto> trecho = versoes.subList(inicio,
+                    Math.min(versoes.size(), inicio + SegmentoHistorico.MAX_VERSOES));
+            stmtGravar.setLong(1, id);
+            stmtGravar.setLong(2, trecho.get(0).instante());
+            stmtGravar.setLong(3, trecho.get(trecho.size() - 1).instante());
+            stmtGravar.setInt(4, trecho.size());
+            stmtGravar.setBytes(5, SegmentoHistorico.codificar(trecho));
+            stmtGravar.addBatch();
+        }
+    }
+
+    // ===== Publicação no feed de alterações (quando configurado) =====
+
+    /**
+     * Publica um registro de auditoria em nome do ator da thread atual.
+     */
+    protected void auditar(OperacaoAuditada operacao, long produtoId, RegistroAuditoria.Estado antes,
+                           RegistroAuditoria.Estado depois, String detalhe) {
+        GravadorAuditoria gravador = auditoria;
+        if (gravador != null) {
+            gravador.registrar(new RegistroAuditoria(System.currentTimeMillis(), Ator.atual(), operacao, produtoId,
+                    antes, depois, detalhe));
+        }
+    }
+
+    /**
+     * Audita uma variação de quantidade a partir da versão gravada: o estado anterior é
+     * o posterior menos a variação, já que a alteração foi um único UPDATE atômico.
+     *
+     * @param lotes lotes baixados ({@link BaixaLote}) ou recebidos ({@link LoteProduto}), para o detalhe
+     */
+    protected void auditarQuantidade(OperacaoAuditada operacao, long produtoId, int variacao, VersaoProduto depois,
+                                     List<?> lotes) {
+        if (depois == null) {
+            return;
+        }
+        String detalhe = null;
+        if (lotes != null && !lotes.isEmpty()) {
+            StringBuilder texto = new StringBuilder("lotes");
+            for (Object lote : lotes) {
+                if (lote instanceof BaixaLote baixa) {
+                    texto.append(' ').append(baixa.loteId()).append(':').append(baixa.quantidade());
+                } else if (lote instanceof LoteProduto recebido) {
+                    texto.append(' ').append(recebido.getId()).append(" (").append(recebido.getCodigo())
+                            .append(", validade ").append(recebido.getValidade()).append(')');
+                }
+            }
+            detalhe = texto.toString();
         }
-        return false;
+        auditar(operacao, produtoId, new RegistroAuditoria.Estado(depois.preco(), depois.quantidade() - variacao),
+                new RegistroAuditoria.Estado(depois.preco(), depois.quantidade()), detalhe);
+    }
+
+    protected void publicarCriacao(Produto produto) {
+        if (feedAlteracoes != null) {
+            feedAlteracoes.publicarCriacao(produto);
+        }
+    }
+
+    protected void publicarQuantidade(long id, int variacao) {
+        if (feedAlteracoes != null) {
+            feedAlteracoes.publicarQuantidade(id, variacao);
+        }
+    }
+
+    protected void publicarCorrecao(long id, int variacao) {
+        if (feedAlteracoes != null) {
+            feedAlteracoes.publicarCorrecao(id, variacao);
+        }
+    }
+
+    protected void publicarDescarte(long id, int variacao) {
+        if (feedAlteracoes != null) {
+            feedAlteracoes.publicarDescarte(id, variacao);
+        }
+    }
+
+    protected void publicarPreco(long id, double preco) {
+        if (feedAlteracoes != null) {
+            feedAlteracoes.publicarPreco(id, preco);
+        }
+    }
+
+    protected void publicarExclusao(long id) {
+        if (feedAlteracoes != null) {
+            feedAlteracoes.publicarExclusao(id);
+        }
+    }
+
+    /**
+     * Converte a linha de uma consulta "id, nome, preco, quantidade, tipo" em um resumo,
+     * lendo as colunas pela posição.
+     */
+    private ResumoProduto mapearResumo(ResultSet rs) throws SQLException {
+        return new ResumoProduto(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getDouble(3),
+                rs.getInt(4),
+                TipoProduto.doBanco(rs.getString(5))
+        );
+    }
+
+    /**
+     * Converte a linha atual do ResultSet em um Produto, para consultas de uma linha só;
+     * varreduras criam um {@link MapeadorProduto} antes do laço.
+     */
+    private Produto mapearProduto(ResultSet rs) throws SQLException {
+        return new MapeadorProduto(rs).mapear(rs);
     }
 
 }
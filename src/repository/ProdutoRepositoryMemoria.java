@@ -0,0 +1,564 @@
+package repository;
+
+import ajuste.ContagemFisica;
+import ajuste.ProgressoAjuste;
+import ajuste.ResultadoAjuste;
+import auditoria.OperacaoAuditada;
+import auditoria.RegistroAuditoria;
+import formatacao.FormatadorMoeda;
+import historico.ValorEstoque;
+import historico.VersaoProduto;
+import model.Produto;
+import model.ResumoProduto;
+import model.TipoProduto;
+import validade.BaixaLote;
+import validade.LoteProduto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Repositório de produtos mantido inteiramente em memória.
+ * Substitui o banco de dados em testes de carga e execuções locais,
+ * mantendo a mesma semântica de ProdutoRepository (inclusive a remoção
+ * condicional de estoque) e sendo seguro para acesso concorrente.
+ */
+public class ProdutoRepositoryMemoria extends ProdutoRepository {
+
+    private final Map<Long, Produto> produtos = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsPorNome = new ConcurrentHashMap<>();
+    private final Map<Long, Long> idsPorCodigoBarras = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    // Histórico completo de cada produto, em ordem de gravação (guardado pela própria lista)
+    private final Map<Long, List<VersaoProduto>> versoes = new ConcurrentHashMap<>();
+    // Lotes com saldo de cada produto; alterados só dentro do compute do produto, como o banco faria na transação
+    private final Map<Long, Map<Long, LoteProduto>> lotes = new ConcurrentHashMap<>();
+    private final AtomicLong sequenciaLotes = new AtomicLong();
+    // Caracteres formatados pelo último gerarRelatorio, no lugar do PDF que não é gravado
+    private volatile long caracteresRelatorio;
+
+    public ProdutoRepositoryMemoria() {
+        super(null, null, null);
+    }
+
+    /**
+     * Salva uma cópia do produto, atribuindo um novo id.
+     * Assim como o índice único do banco, recusa códigos de barras repetidos
+     * com um {@link ErroBanco} do tipo CONFLITO.
+     */
+    @Override
+    public boolean salvarProduto(Produto produto) {
+        long id = sequencia.incrementAndGet();
+        if (produto.getCodigoBarras() != 0
+                && idsPorCodigoBarras.putIfAbsent(produto.getCodigoBarras(), id) != null) {
+            throw new ErroBanco(TipoErroBanco.CONFLITO, TipoErroBanco.CONFLITO.getDescricao()
+                    + ": código de barras " + produto.getCodigoBarras() + " já cadastrado");
+        }
+        Produto copia = copiar(produto);
+        copia.setId(id);
+        produto.setId(id);
+        produtos.put(id, copia);
+        registrarVersao(copia, false);
+        idsPorNome.putIfAbsent(copia.getNome(), id);
+        publicarCriacao(copia);
+        auditar(OperacaoAuditada.CADASTRO, id, null,
+                new RegistroAuditoria.Estado(copia.getPreco(), copia.getQuantidade()), copia.getNome());
+        return true;
+    }
+
+    /**
+     * Adiciona quantidade ao estoque do produto.
+     */
+    @Override
+    public boolean adicionarQuantidade(Long id, int quantidadeAdicionar) {
+        VersaoProduto[] versao = {null};
+        boolean alterado = produtos.computeIfPresent(id, (chave, p) -> {
+            p.setQuantidade(p.getQuantidade() + quantidadeAdicionar);
+            versao[0] = registrarVersao(p, false);
+            return p;
+        }) != null;
+        if (alterado) {
+            publicarQuantidade(id, quantidadeAdicionar);
+            auditarQuantidade(OperacaoAuditada.ENTRADA, id, quantidadeAdicionar, versao[0], null);
+        }
+        return alterado;
+    }
+
+    /**
+     * Remove quantidade do estoque do produto, se houver suficiente, baixando os lotes indicados.
+     * A verificação e a baixa acontecem atomicamente, como no UPDATE condicional do banco.
+     */
+    @Override
+    protected boolean baixar(Long id, int quantidadeRemover, List<BaixaLote> baixas, boolean descarte) {
+        boolean[] removido = {false};
+        VersaoProduto[] versao = {null};
+        produtos.computeIfPresent(id, (chave, p) -> {
+            Map<Long, LoteProduto> doProduto = lotes.getOrDefault(id, Map.of());
+            int saldoLotes = 0;
+            for (LoteProduto lote : doProduto.values()) {
+                saldoLotes += lote.getSaldo();
+            }
+            for (BaixaLote baixa : baixas) {
+                LoteProduto lote = doProduto.get(baixa.loteId());
+                if (lote == null || lote.getSaldo() < baixa.quantidade()) {
+                    return p;
+                }
+                saldoLotes -= baixa.quantidade();
+            }
+            if (p.getQuantidade() - quantidadeRemover >= saldoLotes) {
+                for (BaixaLote baixa : baixas) {
+                    LoteProduto lote = doProduto.get(baixa.loteId());
+                    int saldo = lote.getSaldo() - baixa.quantidade();
+                    if (saldo == 0) {
+                        doProduto.remove(baixa.loteId());
+                    } else {
+                        doProduto.put(baixa.loteId(), new LoteProduto(lote.getId(), id, lote.getCodigo(),
+                                lote.getValidade(), saldo));
+                    }
+                }
+                p.setQuantidade(p.getQuantidade() - quantidadeRemover);
+                versao[0] = registrarVersao(p, false);
+                removido[0] = true;
+            }
+            return p;
+        });
+        if (removido[0]) {
+            if (descarte) {
+                publicarDescarte(id, -quantidadeRemover);
+            } else {
+                publicarQuantidade(id, -quantidadeRemover);
+            }
+            auditarQuantidade(OperacaoAuditada.BAIXA, id, -quantidadeRemover, versao[0], baixas);
+        }
+        return removido[0];
+    }
+
+    /**
+     * Recebe um lote de um produto de consumo, somando as unidades ao estoque.
+     */
+    @Override
+    public LoteProduto receberLote(long produtoId, String codigo, LocalDate validade, int quantidade) {
+        LoteProduto[] recebido = {null};
+        VersaoProduto[] versao = {null};
+        produtos.computeIfPresent(produtoId, (chave, p) -> {
+            if (p.getTipo() == TipoProduto.CONSUMO) {
+                LoteProduto lote = new LoteProduto(sequenciaLotes.incrementAndGet(), produtoId, codigo, validade,
+                        quantidade);
+                lotes.computeIfAbsent(produtoId, id -> new ConcurrentHashMap<>()).put(lote.getId(), lote);
+                p.setQuantidade(p.getQuantidade() + quantidade);
+                versao[0] = registrarVersao(p, false);
+                recebido[0] = lote;
+            }
+            return p;
+        });
+        if (recebido[0] != null) {
+            LoteProduto lote = new LoteProduto(recebido[0].getId(), produtoId, codigo, validade, quantidade);
+            publicarQuantidade(produtoId, quantidade);
+            auditarQuantidade(OperacaoAuditada.RECEBIMENTO_LOTE, produtoId, quantidade, versao[0], List.of(lote));
+            return lote;
+        }
+        return null;
+    }
+
+    /**
+     * Percorre cópias dos lotes com saldo.
+     */
+    @Override
+    public void percorrerLotes(Consumer<LoteProduto> acao) {
+        for (Map<Long, LoteProduto> doProduto : lotes.values()) {
+            for (LoteProduto lote : doProduto.values()) {
+                acao.accept(new LoteProduto(lote.getId(), lote.getProdutoId(), lote.getCodigo(), lote.getValidade(),
+                        lote.getSaldo()));
+            }
+        }
+    }
+
+    /**
+     * Retorna cópias de todos os produtos em ordem de id.
+     */
+    @Override
+    public List<Produto> listaProdutos() {
+        List<Produto> lista = new ArrayList<>(produtos.size());
+        for (Produto p : produtos.values()) {
+            lista.add(copiar(p));
+        }
+        lista.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return lista;
+    }
+
+    /**
+     * Busca um produto pelo nome.
+     */
+    @Override
+    public Produto buscarProduto(String nome) {
+        Long id = idsPorNome.get(nome);
+        if (id == null) {
+            return null;
+        }
+        Produto p = produtos.get(id);
+        return p != null ? copiar(p) : null;
+    }
+
+    /**
+     * Em memória não há réplicas: toda leitura já enxerga as próprias escritas.
+     */
+    @Override
+    public Produto buscarProduto(String nome, TokenConsistencia token) {
+        return buscarProduto(nome);
+    }
+
+    /**
+     * Percorre cópias dos produtos, sem montar a lista.
+     */
+    @Override
+    public void percorrerProdutos(Consumer<Produto> acao) {
+        for (Produto p : produtos.values()) {
+            acao.accept(copiar(p));
+        }
+    }
+
+    /**
+     * Lista os resumos (sem descrição) em ordem de id.
+     */
+    @Override
+    public List<ResumoProduto> listaResumos() {
+        List<ResumoProduto> lista = new ArrayList<>(produtos.size());
+        for (Produto p : produtos.values()) {
+            lista.add(resumir(p));
+        }
+        lista.sort((a, b) -> Long.compare(a.id(), b.id()));
+        return lista;
+    }
+
+    /**
+     * Busca o resumo de um produto pelo nome.
+     */
+    @Override
+    public ResumoProduto buscarResumo(String nome) {
+        Long id = idsPorNome.get(nome);
+        Produto p = id != null ? produtos.get(id) : null;
+        return p != null ? resumir(p) : null;
+    }
+
+    @Override
+    public ResumoProduto buscarResumo(String nome, TokenConsistencia token) {
+        return buscarResumo(nome);
+    }
+
+    /**
+     * Retorna a descrição de um produto.
+     */
+    @Override
+    public String carregarDescricao(long id) {
+        Produto p = produtos.get(id);
+        if (p == null) {
+            return null;
+        }
+        return p.getDescricao() != null ? p.getDescricao() : "";
+    }
+
+    /**
+     * Busca um produto pelo código de barras.
+     */
+    @Override
+    public Produto buscarPorCodigoBarras(long codigoBarras) {
+        Long id = idsPorCodigoBarras.get(codigoBarras);
+        Produto p = id != null ? produtos.get(id) : null;
+        return p != null ? copiar(p) : null;
+    }
+
+    /**
+     * Busca vários produtos pelo código de barras.
+     */
+    @Override
+    public List<Produto> buscarPorCodigosBarras(long[] codigosBarras) {
+        List<Produto> lista = new ArrayList<>(codigosBarras.length);
+        for (long codigo : codigosBarras) {
+            Produto p = buscarPorCodigoBarras(codigo);
+            if (p != null) {
+                lista.add(p);
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Busca vários produtos pelo id.
+     */
+    @Override
+    public List<Produto> buscarPorIds(long[] ids) {
+        List<Produto> lista = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Produto p = produtos.get(id);
+            if (p != null) {
+                lista.add(copiar(p));
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Exclui um produto pelo ID.
+     */
+    @Override
+    public boolean excluirProduto(long id) {
+        Produto removido = produtos.remove(id);
+        if (removido == null) {
+            return false;
+        }
+        lotes.remove(id);
+        registrarVersao(removido, true);
+        idsPorNome.remove(removido.getNome(), id);
+        if (removido.getCodigoBarras() != 0) {
+            idsPorCodigoBarras.remove(removido.getCodigoBarras(), id);
+        }
+        publicarExclusao(id);
+        auditar(OperacaoAuditada.EXCLUSAO, id,
+                new RegistroAuditoria.Estado(removido.getPreco(), removido.getQuantidade()), null, null);
+        return true;
+    }
+
+    /**
+     * Grava cópias dos produtos com os ids originais e avança a sequência para
+     * além do maior id restaurado. Ids ou códigos de barras repetidos geram
+     * {@link ErroBanco} do tipo CONFLITO.
+     */
+    @Override
+    public int restaurarProdutos(List<Produto> lista) {
+        for (Produto produto : lista) {
+            long id = produto.getId();
+            Produto copia = copiar(produto);
+            if (produtos.putIfAbsent(id, copia) != null) {
+                throw new ErroBanco(TipoErroBanco.CONFLITO, TipoErroBanco.CONFLITO.getDescricao()
+                        + ": id " + id + " já cadastrado");
+            }
+            if (produto.getCodigoBarras() != 0
+                    && idsPorCodigoBarras.putIfAbsent(produto.getCodigoBarras(), id) != null) {
+                produtos.remove(id);
+                throw new ErroBanco(TipoErroBanco.CONFLITO, TipoErroBanco.CONFLITO.getDescricao()
+                        + ": código de barras " + produto.getCodigoBarras() + " já cadastrado");
+            }
+            registrarVersao(copia, false);
+            idsPorNome.putIfAbsent(copia.getNome(), id);
+            sequencia.accumulateAndGet(id, Math::max);
+            publicarCriacao(copia);
+            auditar(OperacaoAuditada.RESTAURACAO, id, null,
+                    new RegistroAuditoria.Estado(copia.getPreco(), copia.getQuantidade()), copia.getNome());
+        }
+        return lista.size();
+    }
+
+    /**
+     * Reajusta os preços produto a produto, arredondando para centavos como o banco.
+     * Em memória não há transação: cada produto é reajustado atomicamente.
+     */
+    @Override
+    public ResultadoAjuste reajustarPrecos(double percentual, TipoProduto tipo, long[] ids,
+                                           Consumer<ProgressoAjuste> progresso) {
+        double fator = fatorReajuste(percentual);
+        String detalhe = String.format("reajuste de %+.2f%%", percentual);
+        long[] alvo = ids;
+        if (alvo == null) {
+            alvo = new long[produtos.size()];
+            int total = 0;
+            for (Long id : produtos.keySet()) {
+                if (total == alvo.length) {
+                    alvo = Arrays.copyOf(alvo, total * 2);
+                }
+                alvo[total++] = id;
+            }
+            alvo = Arrays.copyOf(alvo, total);
+        }
+        alvo = ordenarSemRepetir(alvo);
+
+        long[] alterados = new long[alvo.length];
+        double[] precos = new double[alvo.length];
+        int quantos = 0;
+        List<Long> naoEncontrados = new ArrayList<>();
+        for (int i = 0; i < alvo.length; i++) {
+            long id = alvo[i];
+            RegistroAuditoria.Estado[] antes = {null};
+            VersaoProduto[] versao = {null};
+            produtos.computeIfPresent(id, (chave, p) -> {
+                if (tipo == null || p.getTipo() == tipo) {
+                    antes[0] = new RegistroAuditoria.Estado(p.getPreco(), p.getQuantidade());
+                    p.setPreco(Math.round(p.getPreco() * fator * 100) / 100.0);
+                    versao[0] = registrarVersao(p, false);
+                }
+                return p;
+            });
+            if (versao[0] != null) {
+                alterados[quantos] = id;
+                precos[quantos++] = versao[0].preco();
+                publicarPreco(id, versao[0].preco());
+                auditar(OperacaoAuditada.REAJUSTE_PRECO, id, antes[0],
+                        new RegistroAuditoria.Estado(versao[0].preco(), versao[0].quantidade()), detalhe);
+            } else if (ids != null && !produtos.containsKey(id)) {
+                naoEncontrados.add(id);
+            }
+            if (progresso != null && ((i + 1) % 500 == 0 || i == alvo.length - 1)) {
+                progresso.accept(new ProgressoAjuste(i + 1, alvo.length, quantos));
+            }
+        }
+        return new ResultadoAjuste(ids != null ? alvo.length : quantos, Arrays.copyOf(alterados, quantos),
+                Arrays.copyOf(precos, quantos), naoEncontrados, List.of());
+    }
+
+    /**
+     * Grava as quantidades contadas produto a produto, com a mesma recusa do banco para
+     * contagens abaixo do saldo dos lotes.
+     */
+    @Override
+    public ResultadoAjuste conciliarContagem(List<ContagemFisica> contagens, Consumer<ProgressoAjuste> progresso) {
+        Map<Long, Integer> contadas = new TreeMap<>();
+        for (ContagemFisica contagem : contagens) {
+            contadas.put(contagem.chave(), contagem.quantidade());
+        }
+        long[] alterados = new long[contadas.size()];
+        double[] quantidades = new double[contadas.size()];
+        int quantos = 0;
+        int processados = 0;
+        List<Long> naoEncontrados = new ArrayList<>();
+        List<Long> abaixoDosLotes = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entrada : contadas.entrySet()) {
+            long id = entrada.getKey();
+            int contada = entrada.getValue();
+            RegistroAuditoria.Estado[] antes = {null};
+            VersaoProduto[] versao = {null};
+            boolean existe = produtos.computeIfPresent(id, (chave, p) -> {
+                int saldoLotes = 0;
+                for (LoteProduto lote : lotes.getOrDefault(id, Map.of()).values()) {
+                    saldoLotes += lote.getSaldo();
+                }
+                antes[0] = new RegistroAuditoria.Estado(p.getPreco(), p.getQuantidade());
+                if (p.getQuantidade() != contada && contada >= saldoLotes) {
+                    p.setQuantidade(contada);
+                    versao[0] = registrarVersao(p, false);
+                }
+                return p;
+            }) != null;
+            if (!existe) {
+                naoEncontrados.add(id);
+            } else if (versao[0] != null) {
+                alterados[quantos] = id;
+                quantidades[quantos++] = contada;
+                publicarCorrecao(id, contada - antes[0].quantidade());
+                auditar(OperacaoAuditada.CONTAGEM, id, antes[0],
+                        new RegistroAuditoria.Estado(antes[0].preco(), contada), "contagem física");
+            } else if (antes[0].quantidade() != contada) {
+                abaixoDosLotes.add(id);
+            }
+            processados++;
+            if (progresso != null && (processados % 500 == 0 || processados == contadas.size())) {
+                progresso.accept(new ProgressoAjuste(processados, contadas.size(), quantos));
+            }
+        }
+        return new ResultadoAjuste(contadas.size(), Arrays.copyOf(alterados, quantos),
+                Arrays.copyOf(quantidades, quantos), naoEncontrados, abaixoDosLotes);
+    }
+
+    /**
+     * A exclusão em memória já remove o produto do conjunto ativo; não há arquivo a manter.
+     */
+    @Override
+    public int arquivarExcluidos(int tamanhoLote) {
+        return 0;
+    }
+
+    /**
+     * Última versão do produto até o instante, procurada de trás para frente.
+     */
+    @Override
+    public VersaoProduto versaoEm(long id, long instante) {
+        List<VersaoProduto> lista = versoes.get(id);
+        if (lista == null) {
+            return null;
+        }
+        synchronized (lista) {
+            for (int i = lista.size() - 1; i >= 0; i--) {
+                if (lista.get(i).instante() <= instante) {
+                    return lista.get(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ValorEstoque valorEstoqueEm(long instante) {
+        List<VersaoProduto> vigentes = new ArrayList<>(versoes.size());
+        for (Long id : versoes.keySet()) {
+            VersaoProduto versao = versaoEm(id, instante);
+            if (versao != null) {
+                vigentes.add(versao);
+            }
+        }
+        return somarEstoque(instante, vigentes);
+    }
+
+    /**
+     * Em memória o histórico já fica em listas por produto; não há o que compactar.
+     */
+    @Override
+    public int compactarHistorico(long corte, int maxProdutos) {
+        return 0;
+    }
+
+    /**
+     * Formata as linhas do relatório (nome, preço, quantidade) sem gravar PDF,
+     * para que o custo de varredura e formatação seja exercitado. O tamanho do que
+     * foi formatado fica em {@link #getCaracteresRelatorio()}.
+     * @return sempre true: não há arquivo que possa falhar
+     */
+    @Override
+    public boolean gerarRelatorio() {
+        StringBuilder linha = new StringBuilder(128);
+        long caracteres = 0;
+        for (Produto p : produtos.values()) {
+            linha.setLength(0);
+            linha.append(p.getNome()).append(';');
+            FormatadorMoeda.REAL.anexar(linha, p.getPreco()).append(';').append(p.getQuantidade());
+            caracteres += linha.length();
+        }
+        caracteresRelatorio = caracteres;
+        return true;
+    }
+
+    /** @return caracteres formatados pelo último {@link #gerarRelatorio()} */
+    public long getCaracteresRelatorio() {
+        return caracteresRelatorio;
+    }
+
+    /**
+     * Não há banco a conectar.
+     */
+    @Override
+    public void aquecerConexoes() {
+    }
+
+    private VersaoProduto registrarVersao(Produto p, boolean excluido) {
+        VersaoProduto versao = new VersaoProduto(p.getId(), System.currentTimeMillis(), p.getPreco(),
+                p.getQuantidade(), excluido);
+        List<VersaoProduto> lista = versoes.computeIfAbsent(p.getId(), id -> new ArrayList<>());
+        synchronized (lista) {
+            lista.add(versao);
+        }
+        return versao;
+    }
+
+    private ResumoProduto resumir(Produto p) {
+        return new ResumoProduto(p.getId(), p.getNome(), p.getPreco(), p.getQuantidade(), p.getTipo());
+    }
+
+    private Produto copiar(Produto p) {
+        return new Produto(p.getId(), p.getNome(), p.getDescricao(), p.getPreco(), p.getQuantidade(), p.getTipo(),
+                p.getCodigoBarras());
+    }
+}
@@ -0,0 +1,179 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distribui as leituras entre as réplicas saudáveis.
+ *
+ * A escolha sorteia duas réplicas e fica com a que tem menos consultas em
+ * andamento, o que equilibra a carga sem coordenação entre terminais. Uma
+ * verificação de fundo testa cada réplica periodicamente (e, no MySQL, o atraso
+ * de replicação); réplicas que falham em uma leitura saem do rodízio na hora e
+ * só voltam quando passam na verificação.
+ */
+public class RoteadorLeitura implements AutoCloseable {
+
+    /**
+     * Abre uma conexão com a URL informada, com as credenciais e limites do repositório.
+     */
+    @FunctionalInterface
+    interface Conector {
+        Connection conectar(String url) throws SQLException;
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Conector conector;
+    private final int atrasoMaximoSegundos;
+    private final int timeoutSegundos;
+    private final ScheduledExecutorService verificador;
+
+    RoteadorLeitura(List<String> urls, Conector conector, int atrasoMaximoSegundos, int timeoutSegundos,
+                    int intervaloVerificacaoSegundos) {
+        for (String url : urls) {
+            replicas.add(new Replica(url));
+        }
+        this.conector = conector;
+        this.atrasoMaximoSegundos = atrasoMaximoSegundos;
+        this.timeoutSegundos = timeoutSegundos;
+        this.verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "verificador-replicas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        verificador.scheduleWithFixedDelay(this::verificarTodas, 0, intervaloVerificacaoSegundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Escolhe uma réplica saudável e a marca como em uso; a leitura deve terminar
+     * com {@link Replica#liberar()}.
+     * @return a réplica, ou null se nenhuma estiver disponível
+     */
+    Replica escolher() {
+        Replica primeira = sortear(null);
+        if (primeira == null) {
+            return null;
+        }
+        Replica segunda = sortear(primeira);
+        Replica escolhida = segunda != null && segunda.emUso.get() < primeira.emUso.get() ? segunda : primeira;
+        escolhida.emUso.incrementAndGet();
+        return escolhida;
+    }
+
+    /**
+     * Tira a réplica do rodízio até a próxima verificação bem-sucedida.
+     */
+    void marcarFalha(Replica replica) {
+        if (replica.saudavel) {
+            replica.saudavel = false;
+            System.err.println("Réplica fora do rodízio: " + replica.url);
+        }
+    }
+
+    /** @return quantidade de réplicas configuradas */
+    public int getTotalReplicas() {
+        return replicas.size();
+    }
+
+    /** @return quantidade de réplicas aptas a receber leituras */
+    public int getReplicasSaudaveis() {
+        int saudaveis = 0;
+        for (Replica replica : replicas) {
+            if (replica.saudavel) {
+                saudaveis++;
+            }
+        }
+        return saudaveis;
+    }
+
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+    }
+
+    private Replica sortear(Replica excluir) {
+        int total = replicas.size();
+        int inicio = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < total; i++) {
+            Replica replica = replicas.get((inicio + i) % total);
+            if (replica.saudavel && replica != excluir) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void verificarTodas() {
+        for (Replica replica : replicas) {
+            boolean saudavel = verificar(replica);
+            if (saudavel != replica.saudavel) {
+                System.err.println(saudavel ? "Réplica de volta ao rodízio: " + replica.url
+                        : "Réplica fora do rodízio: " + replica.url);
+                replica.saudavel = saudavel;
+            }
+        }
+    }
+
+    private boolean verificar(Replica replica) {
+        try (Connection conn = conector.conectar(replica.url);
+             Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(timeoutSegundos);
+            stmt.execute("SELECT 1");
+            if (replica.url.startsWith("jdbc:mysql:")) {
+                return atrasoReplicacao(stmt) <= atrasoMaximoSegundos;
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lê o atraso de replicação informado pelo MySQL.
+     * @return segundos de atraso (0 se o servidor não é réplica; infinito se a replicação parou)
+     */
+    private static long atrasoReplicacao(Statement stmt) throws SQLException {
+        try {
+            return lerAtraso(stmt, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+        } catch (SQLException e) {
+            // MySQL anterior ao 8.0.22
+            return lerAtraso(stmt, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+        }
+    }
+
+    private static long lerAtraso(Statement stmt, String comando, String coluna) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(comando)) {
+            if (!rs.next()) {
+                return 0;
+            }
+            long atraso = rs.getLong(coluna);
+            return rs.wasNull() ? Long.MAX_VALUE : atraso;
+        }
+    }
+
+    /**
+     * Uma réplica de leitura e o seu estado no rodízio.
+     */
+    static final class Replica {
+        final String url;
+        final AtomicInteger emUso = new AtomicInteger();
+        volatile boolean saudavel = true;
+
+        Replica(String url) {
+            this.url = url;
+        }
+
+        void liberar() {
+            emUso.decrementAndGet();
+        }
+    }
+}
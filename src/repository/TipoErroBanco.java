@@ -0,0 +1,33 @@
+package repository;
+
+/**
+ * Categoria de uma falha de acesso ao banco, para que a interface decida o que
+ * mostrar (ou se vale tentar de novo) sem interpretar mensagens do driver.
+ */
+public enum TipoErroBanco {
+
+    /** Banco fora do ar, conexão recusada ou disjuntor aberto. Tentar mais tarde. */
+    INDISPONIVEL("banco indisponível"),
+
+    /** A consulta passou do tempo limite configurado. */
+    TEMPO_ESGOTADO("tempo limite do banco esgotado"),
+
+    /** Violação de restrição (ex.: código de barras repetido). Tentar de novo não adianta. */
+    CONFLITO("registro em conflito"),
+
+    /** Cota de operações ou limite de conexões simultâneas atingido; o banco nem foi consultado. */
+    SOBRECARGA("limite de uso do banco excedido"),
+
+    /** Qualquer outro erro de SQL. */
+    FALHA("falha no banco");
+
+    private final String descricao;
+
+    TipoErroBanco(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,32 @@
+package repository;
+
+/**
+ * Token de leitura das próprias escritas. Um fluxo que altera um produto e logo
+ * depois volta a consultá-lo (como a movimentação de estoque) registra cada
+ * escrita no token e o passa nas leituras; enquanto a última escrita for mais
+ * recente que o atraso de replicação tolerado, a leitura vai ao primário em vez
+ * de a uma réplica que talvez ainda não tenha recebido a alteração.
+ *
+ * Cada terminal (ou fluxo) deve ter o seu token, para que suas escritas não
+ * desviem as leituras dos demais.
+ */
+public class TokenConsistencia {
+
+    // System.nanoTime() da última escrita; 0 = nenhuma
+    private volatile long ultimaEscrita;
+
+    /**
+     * Registra que o fluxo acabou de gravar no primário.
+     */
+    public void registrarEscrita() {
+        ultimaEscrita = System.nanoTime() | 1;
+    }
+
+    /**
+     * @return true se a última escrita ainda pode não ter chegado às réplicas
+     */
+    boolean exigePrimario(long atrasoMaximoNanos) {
+        long escrita = ultimaEscrita;
+        return escrita != 0 && System.nanoTime() - escrita < atrasoMaximoNanos;
+    }
+}
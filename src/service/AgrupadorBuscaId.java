@@ -0,0 +1,132 @@
+package service;
+
+import model.Produto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Junta buscas por id que chegam em uma janela curta em uma única consulta
+ * {@code WHERE id IN (...)}.
+ *
+ * Não usa threads próprias: o primeiro pedido de um lote espera a janela e então
+ * executa a consulta pelo lote inteiro; os demais só aguardam o resultado. Se o
+ * lote enche antes do fim da janela, quem o encheu dispara a consulta na hora.
+ * Pedidos repetidos do mesmo id dentro do lote compartilham o mesmo resultado.
+ */
+public class AgrupadorBuscaId {
+
+    private final Function<long[], List<Produto>> consulta;
+    private final long janelaNanos;
+    private final int tamanhoMaximo;
+
+    private Lote loteAtual = new Lote();
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong pedidos = new AtomicLong();
+
+    /**
+     * @param consulta busca os produtos de vários ids de uma vez
+     * @param janelaMicros quanto o primeiro pedido espera por outros antes de consultar
+     * @param tamanhoMaximo ids distintos por consulta
+     */
+    public AgrupadorBuscaId(Function<long[], List<Produto>> consulta, long janelaMicros, int tamanhoMaximo) {
+        this.consulta = consulta;
+        this.janelaNanos = TimeUnit.MICROSECONDS.toNanos(janelaMicros);
+        this.tamanhoMaximo = tamanhoMaximo;
+    }
+
+    /**
+     * Busca um produto pelo id, possivelmente junto com outros pedidos.
+     * @return o produto ou null se não existir
+     */
+    public Produto buscar(long id) {
+        pedidos.incrementAndGet();
+        Lote lote;
+        CompletableFuture<Produto> resultado;
+        boolean lider;
+        boolean cheio;
+        synchronized (this) {
+            lote = loteAtual;
+            lider = lote.pendentes.isEmpty();
+            resultado = lote.pendentes.computeIfAbsent(id, chave -> new CompletableFuture<>());
+            cheio = lote.pendentes.size() >= tamanhoMaximo;
+            if (cheio) {
+                loteAtual = new Lote();
+            }
+        }
+
+        if (cheio) {
+            despachar(lote);
+        } else if (lider) {
+            LockSupport.parkNanos(janelaNanos);
+            synchronized (this) {
+                if (loteAtual != lote) {
+                    lote = null; // já despachado por quem encheu o lote
+                } else {
+                    loteAtual = new Lote();
+                }
+            }
+            if (lote != null) {
+                despachar(lote);
+            }
+        }
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            // Repassa a falha da consulta (ex.: ErroBanco) como ela foi lançada
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /** @return consultas feitas ao banco */
+    public long getConsultas() {
+        return consultas.get();
+    }
+
+    /** @return buscas recebidas */
+    public long getPedidos() {
+        return pedidos.get();
+    }
+
+    private void despachar(Lote lote) {
+        consultas.incrementAndGet();
+        long[] ids = new long[lote.pendentes.size()];
+        int i = 0;
+        for (long id : lote.pendentes.keySet()) {
+            ids[i++] = id;
+        }
+        try {
+            for (Produto produto : consulta.apply(ids)) {
+                CompletableFuture<Produto> pedido = lote.pendentes.get(produto.getId());
+                if (pedido != null) {
+                    pedido.complete(produto);
+                }
+            }
+            for (CompletableFuture<Produto> pedido : lote.pendentes.values()) {
+                pedido.complete(null); // ids inexistentes
+            }
+        } catch (RuntimeException | Error e) {
+            for (CompletableFuture<Produto> pedido : lote.pendentes.values()) {
+                pedido.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Pedidos acumulados; só é alterado sob o monitor do agrupador até ser despachado.
+     */
+    private static final class Lote {
+        final Map<Long, CompletableFuture<Produto>> pendentes = new HashMap<>();
+    }
+}
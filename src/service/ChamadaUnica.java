@@ -0,0 +1,85 @@
+package service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalescência de chamadas idênticas ("single flight"): enquanto uma consulta com
+ * determinada chave está em andamento, quem pedir a mesma chave espera por ela e
+ * recebe o mesmo resultado, em vez de disparar outra ida ao banco.
+ *
+ * O resultado não fica guardado depois que a chamada termina, então não é um cache:
+ * só junta pedidos que chegam ao mesmo tempo. Como o mesmo objeto é entregue a
+ * vários chamadores, o resultado deve ser tratado como somente leitura.
+ *
+ * @param <K> tipo da chave que identifica chamadas equivalentes
+ * @param <V> tipo do resultado
+ */
+public class ChamadaUnica<K, V> {
+
+    private final Map<K, CompletableFuture<V>> emAndamento = new ConcurrentHashMap<>();
+    private final AtomicLong executadas = new AtomicLong();
+    private final AtomicLong compartilhadas = new AtomicLong();
+
+    /**
+     * Executa a chamada, ou aguarda a que já está em andamento para a mesma chave.
+     */
+    public V executar(K chave, Supplier<V> chamada) {
+        CompletableFuture<V> nova = new CompletableFuture<>();
+        CompletableFuture<V> existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente != null) {
+            compartilhadas.incrementAndGet();
+            return aguardar(existente);
+        }
+
+        executadas.incrementAndGet();
+        try {
+            V resultado = chamada.get();
+            // Sai do mapa antes de publicar: quem chegar depois do resultado pronto faz uma consulta nova
+            emAndamento.remove(chave, nova);
+            nova.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            emAndamento.remove(chave, nova);
+            nova.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Desvincula as chamadas em andamento: pedidos feitos a partir de agora não
+     * aproveitam consultas iniciadas antes. Usado depois de uma escrita, para que
+     * quem acabou de alterar um produto não receba uma leitura anterior à alteração.
+     */
+    public void invalidar() {
+        emAndamento.clear();
+    }
+
+    /** @return chamadas que foram de fato ao banco */
+    public long getExecutadas() {
+        return executadas.get();
+    }
+
+    /** @return chamadas atendidas pelo resultado de outra */
+    public long getCompartilhadas() {
+        return compartilhadas.get();
+    }
+
+    private V aguardar(CompletableFuture<V> chamada) {
+        try {
+            return chamada.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
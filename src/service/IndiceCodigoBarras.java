@@ -0,0 +1,358 @@
+package service;
+
+import model.Produto;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Índice em memória de código de barras para produto, usado como caminho rápido
+ * da leitura por scanner antes de consultar o banco.
+ *
+ * As chaves ficam em um array de {@code long} com endereçamento aberto (sondagem
+ * linear), apontando para a posição do produto em um array de slots, sem objetos
+ * {@code Long} nem entradas de mapa por produto. As leituras usam leitura otimista
+ * do {@link StampedLock} e não bloqueiam enquanto não houver escrita concorrente.
+ *
+ * Uma segunda tabela, do id para a mesma posição, permite acertar o preço e a
+ * quantidade de um produto guardado a cada alteração feita pelo serviço, sem
+ * percorrer os slots; assim a leitura por scanner não mostra saldo antigo.
+ */
+public class IndiceCodigoBarras {
+
+    /** Código 0 significa "sem código de barras", então serve como marcador de posição vazia. */
+    private static final long VAZIO = 0L;
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    private Tabela tabela = new Tabela(CAPACIDADE_INICIAL);
+    private Tabela porId = new Tabela(CAPACIDADE_INICIAL);
+    private Produto[] slots = new Produto[CAPACIDADE_INICIAL / 2];
+    private int[] slotsLivres = new int[CAPACIDADE_INICIAL / 2];
+    private int totalLivres;
+    private int proximoSlot;
+    private int tamanho;
+
+    /** Tabela de hash; trocada inteira quando cresce, para que leitores sempre vejam arrays coerentes. */
+    private static final class Tabela {
+        final long[] chaves;
+        final int[] posicoes;
+        final int mascara;
+
+        Tabela(int capacidade) {
+            chaves = new long[capacidade];
+            posicoes = new int[capacidade];
+            mascara = capacidade - 1;
+        }
+    }
+
+    /**
+     * Busca um produto pelo código de barras.
+     * @return cópia do produto, ou null se o código não estiver no índice
+     */
+    public Produto buscar(long codigoBarras) {
+        if (codigoBarras == VAZIO) {
+            return null;
+        }
+        long carimbo = lock.tryOptimisticRead();
+        Produto produto = localizar(codigoBarras);
+        if (!lock.validate(carimbo)) {
+            carimbo = lock.readLock();
+            try {
+                produto = localizar(codigoBarras);
+            } finally {
+                lock.unlockRead(carimbo);
+            }
+        }
+        return produto != null ? copiar(produto) : null;
+    }
+
+    /**
+     * Inclui ou substitui o produto no índice. Produtos sem código de barras são ignorados;
+     * se o produto já estava no índice com outro código, o código antigo sai.
+     */
+    public void registrar(Produto produto) {
+        long codigo = produto.getCodigoBarras();
+        long id = produto.getId();
+        if (codigo == VAZIO || id == VAZIO) {
+            return;
+        }
+        Produto copia = copiar(produto);
+        long carimbo = lock.writeLock();
+        try {
+            int slot = procurar(tabela, codigo);
+            if (slot >= 0 && slots[slot].getId() != id) {
+                // O código passou para outro produto
+                removerSlot(slot);
+                slot = -1;
+            }
+            int doId = procurar(porId, id);
+            if (doId >= 0 && doId != slot) {
+                removerSlot(doId);
+            }
+            if (slot < 0) {
+                slot = alocarSlot();
+                slots[slot] = copia;
+                inserir(tabela, codigo, slot);
+                inserir(porId, id, slot);
+                tamanho++;
+                if (tamanho * 2 > tabela.chaves.length) {
+                    redimensionar(tabela.chaves.length * 2);
+                }
+            } else {
+                slots[slot] = copia;
+            }
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Remove o código de barras do índice.
+     */
+    public void remover(long codigoBarras) {
+        if (codigoBarras == VAZIO) {
+            return;
+        }
+        long carimbo = lock.writeLock();
+        try {
+            int slot = procurar(tabela, codigoBarras);
+            if (slot >= 0) {
+                removerSlot(slot);
+            }
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Remove o produto com o id informado, qualquer que seja o seu código de barras.
+     */
+    public void removerPorId(long id) {
+        long carimbo = lock.writeLock();
+        try {
+            int slot = procurar(porId, id);
+            if (slot >= 0) {
+                removerSlot(slot);
+            }
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Troca o preço dos produtos guardados cujo id está na lista (depois de um reajuste
+     * em massa). Cada produto alterado é substituído por uma cópia nova, para que
+     * leitores otimistas nunca vejam um produto pela metade.
+     *
+     * @param ids ids dos produtos
+     * @param precos novo preço de cada id, na mesma ordem
+     * @return quantos produtos do índice foram atualizados
+     */
+    public int atualizarPrecos(long[] ids, double[] precos) {
+        int atualizados = 0;
+        long carimbo = lock.writeLock();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                int slot = procurar(porId, ids[i]);
+                if (slot >= 0) {
+                    Produto copia = copiar(slots[slot]);
+                    copia.setPreco(precos[i]);
+                    slots[slot] = copia;
+                    atualizados++;
+                }
+            }
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+        return atualizados;
+    }
+
+    /**
+     * Define a quantidade dos produtos guardados cujo id está na lista (depois de uma
+     * contagem física).
+     *
+     * @param ids ids dos produtos
+     * @param quantidades nova quantidade de cada id, na mesma ordem
+     */
+    public void atualizarQuantidades(long[] ids, double[] quantidades) {
+        long carimbo = lock.writeLock();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                int slot = procurar(porId, ids[i]);
+                if (slot >= 0) {
+                    Produto copia = copiar(slots[slot]);
+                    copia.setQuantidade((int) quantidades[i]);
+                    slots[slot] = copia;
+                }
+            }
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Soma {@code delta} (negativo numa baixa) à quantidade do produto guardado, se houver,
+     * depois de uma movimentação já gravada no banco.
+     */
+    public void ajustarQuantidade(long id, int delta) {
+        long carimbo = lock.writeLock();
+        try {
+            int slot = procurar(porId, id);
+            if (slot >= 0) {
+                Produto copia = copiar(slots[slot]);
+                copia.setQuantidade(copia.getQuantidade() + delta);
+                slots[slot] = copia;
+            }
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Descarta todo o conteúdo do índice.
+     */
+    public void limpar() {
+        long carimbo = lock.writeLock();
+        try {
+            tabela = new Tabela(CAPACIDADE_INICIAL);
+            porId = new Tabela(CAPACIDADE_INICIAL);
+            slots = new Produto[CAPACIDADE_INICIAL / 2];
+            slotsLivres = new int[CAPACIDADE_INICIAL / 2];
+            totalLivres = 0;
+            proximoSlot = 0;
+            tamanho = 0;
+        } finally {
+            lock.unlockWrite(carimbo);
+        }
+    }
+
+    public int tamanho() {
+        long carimbo = lock.readLock();
+        try {
+            return tamanho;
+        } finally {
+            lock.unlockRead(carimbo);
+        }
+    }
+
+    private Produto localizar(long codigo) {
+        Tabela t = tabela;
+        Produto[] s = slots;
+        int i = posicaoInicial(codigo, t.mascara);
+        // Limita a sondagem ao tamanho da tabela: uma leitura otimista pode ver a tabela em mutação
+        for (int passos = 0; passos < t.chaves.length; passos++) {
+            long chave = t.chaves[i];
+            if (chave == VAZIO) {
+                return null;
+            }
+            if (chave == codigo) {
+                int slot = t.posicoes[i];
+                return slot < s.length ? s[slot] : null;
+            }
+            i = (i + 1) & t.mascara;
+        }
+        return null;
+    }
+
+    private void removerSlot(int slot) {
+        Produto produto = slots[slot];
+        apagar(tabela, produto.getCodigoBarras());
+        apagar(porId, produto.getId());
+        slots[slot] = null;
+        slotsLivres[totalLivres++] = slot;
+        tamanho--;
+    }
+
+    /** @return posição do slot da chave, ou -1; só com o lock de escrita */
+    private static int procurar(Tabela t, long chave) {
+        int i = posicaoInicial(chave, t.mascara);
+        while (t.chaves[i] != VAZIO) {
+            if (t.chaves[i] == chave) {
+                return t.posicoes[i];
+            }
+            i = (i + 1) & t.mascara;
+        }
+        return -1;
+    }
+
+    private static void inserir(Tabela t, long chave, int slot) {
+        int i = posicaoInicial(chave, t.mascara);
+        while (t.chaves[i] != VAZIO) {
+            i = (i + 1) & t.mascara;
+        }
+        t.posicoes[i] = slot;
+        t.chaves[i] = chave;
+    }
+
+    private static void apagar(Tabela t, long chave) {
+        int i = posicaoInicial(chave, t.mascara);
+        while (t.chaves[i] != chave) {
+            if (t.chaves[i] == VAZIO) {
+                return;
+            }
+            i = (i + 1) & t.mascara;
+        }
+
+        // Remoção com deslocamento para trás: mantém as sequências de sondagem sem lápides
+        int vazio = i;
+        int j = (i + 1) & t.mascara;
+        while (t.chaves[j] != VAZIO) {
+            int ideal = posicaoInicial(t.chaves[j], t.mascara);
+            if (((j - ideal) & t.mascara) >= ((j - vazio) & t.mascara)) {
+                t.posicoes[vazio] = t.posicoes[j];
+                t.chaves[vazio] = t.chaves[j];
+                vazio = j;
+            }
+            j = (j + 1) & t.mascara;
+        }
+        t.chaves[vazio] = VAZIO;
+    }
+
+    private int alocarSlot() {
+        if (totalLivres > 0) {
+            return slotsLivres[--totalLivres];
+        }
+        if (proximoSlot == slots.length) {
+            Produto[] novos = new Produto[slots.length * 2];
+            System.arraycopy(slots, 0, novos, 0, slots.length);
+            slots = novos;
+            int[] livres = new int[novos.length];
+            System.arraycopy(slotsLivres, 0, livres, 0, totalLivres);
+            slotsLivres = livres;
+        }
+        return proximoSlot++;
+    }
+
+    private void redimensionar(int capacidade) {
+        tabela = redimensionada(tabela, capacidade);
+        porId = redimensionada(porId, capacidade);
+    }
+
+    private static Tabela redimensionada(Tabela antiga, int capacidade) {
+        Tabela nova = new Tabela(capacidade);
+        for (int i = 0; i < antiga.chaves.length; i++) {
+            if (antiga.chaves[i] != VAZIO) {
+                inserir(nova, antiga.chaves[i], antiga.posicoes[i]);
+            }
+        }
+        return nova;
+    }
+
+    private static int posicaoInicial(long codigo, int mascara) {
+        // Finalizador do MurmurHash3: códigos EAN sequenciais se espalham pela tabela
+        long h = codigo;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+
+    private static Produto copiar(Produto p) {
+        return new Produto(p.getId(), p.getNome(), p.getDescricao(), p.getPreco(), p.getQuantidade(), p.getTipo(),
+                p.getCodigoBarras());
+    }
+}
@@ -1,12 +1,42 @@
 package service;
 
+import ajuste.ArquivoContagem;
+import ajuste.ContagemFisica;
+import ajuste.ProgressoAjuste;
+import ajuste.ResultadoAjuste;
+import busca.Acerto;
+import busca.IndiceTextual;
+import busca.ResultadoBusca;
+import catalogo.CatalogoForaHeap;
+import catalogo.ReplicadorCatalogo;
 import controller.ScannerController;
+import diagnostico.Diagnostico;
+import diagnostico.Fase;
+import eventos.FeedAlteracoes;
+import historico.DataConsulta;
+import historico.ValorEstoque;
+import historico.VersaoProduto;
 import model.Produto;
+import model.ResumoProduto;
 import model.TipoProduto;
+import previsao.MotorPrevisao;
+import previsao.SugestaoReposicao;
+import repository.ErroBanco;
 import repository.ProdutoRepository;
+import repository.TokenConsistencia;
+import validade.EstoqueLotes;
+import validade.LoteProduto;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Serviço responsável pelas regras de negócio relacionadas a produtos.
@@ -14,13 +44,498 @@ import java.util.Scanner;
  */
 public class ProdutoService {
 
+    private static final int TAMANHO_PAGINA_BUSCA = 10;
+    // Códigos de barras por consulta ao resolver uma contagem física
+    private static final int BLOCO_CODIGOS = 1000;
+
     private final ProdutoRepository produtoRepository;
-    private final Scanner scanner = new Scanner(System.in); // Scanner direto (pode ser substituído pelo ScannerController)
     private final ScannerController scannerController;
+    private final IndiceCodigoBarras indiceCodigoBarras = new IndiceCodigoBarras();
+    private final IndiceTextual indiceTextual = new IndiceTextual();
+    private final MotorPrevisao motorPrevisao = new MotorPrevisao();
+    private final EstoqueLotes estoqueLotes = new EstoqueLotes();
+
+    // Leituras idênticas e simultâneas (ex.: abertura da loja) compartilham uma única consulta
+    private final ChamadaUnica<String, Produto> buscasPorNome = new ChamadaUnica<>();
+    private final ChamadaUnica<Boolean, List<Produto>> listagens = new ChamadaUnica<>();
+    private final ChamadaUnica<Boolean, List<ResumoProduto>> listagensResumo = new ChamadaUnica<>();
+    private final ChamadaUnica<Boolean, Boolean> relatorios = new ChamadaUnica<>();
+    private final AgrupadorBuscaId buscasPorId;
+
+    // Leituras da movimentação de estoque enxergam as escritas feitas por este terminal
+    private final TokenConsistencia tokenMovimentacao = new TokenConsistencia();
+    private volatile CatalogoForaHeap catalogoForaHeap;
 
     public ProdutoService(ProdutoRepository produtoRepository, ScannerController scannerController) {
         this.produtoRepository = produtoRepository;
         this.scannerController = scannerController;
+        this.buscasPorId = new AgrupadorBuscaId(produtoRepository::buscarPorIds, 500, 256);
+    }
+
+    /**
+     * Construtor para uso programático (sem console), como no gerador de carga.
+     */
+    public ProdutoService(ProdutoRepository produtoRepository) {
+        this(produtoRepository, null);
+    }
+
+    // ===== Operações sem interação com o usuário =====
+
+    /**
+     * Cadastra um produto já preenchido.
+     * @return true se o produto foi salvo
+     */
+    public boolean cadastrar(Produto produto) {
+        boolean salvo = alterou(produtoRepository.salvarProduto(produto));
+        if (salvo) {
+            indiceTextual.registrar(produto);
+        }
+        return salvo;
+    }
+
+    /**
+     * Busca um produto pelo nome. Buscas simultâneas pelo mesmo nome fazem uma só consulta
+     * e recebem o mesmo objeto, que não deve ser alterado.
+     * @return o produto ou null se não existir
+     */
+    public Produto buscarPorNome(String nome) {
+        return buscasPorNome.executar(nome, () -> produtoRepository.buscarProduto(nome));
+    }
+
+    /**
+     * Busca um produto pelo id. Buscas que chegam juntas são agrupadas em uma única
+     * consulta {@code WHERE id IN (...)}.
+     * @return o produto ou null se não existir
+     */
+    public Produto buscarPorId(long id) {
+        return buscasPorId.buscar(id);
+    }
+
+    /**
+     * Busca um produto pelo código de barras, consultando primeiro o índice em memória
+     * e só então o banco. Produtos vindos do banco passam a ficar no índice.
+     * @return o produto ou null se não existir
+     */
+    public Produto buscarPorCodigoBarras(long codigoBarras) {
+        Produto produto = indiceCodigoBarras.buscar(codigoBarras);
+        if (produto == null) {
+            produto = produtoRepository.buscarPorCodigoBarras(codigoBarras);
+            if (produto != null) {
+                indiceCodigoBarras.registrar(produto);
+            }
+        }
+        return produto;
+    }
+
+    /**
+     * Busca vários códigos de uma vez (ex.: leituras acumuladas no caixa).
+     * Os códigos ausentes do índice são resolvidos em uma única consulta ao banco.
+     * @return produtos na mesma ordem dos códigos, com null para os não encontrados
+     */
+    public Produto[] buscarPorCodigosBarras(long... codigosBarras) {
+        Produto[] encontrados = new Produto[codigosBarras.length];
+        long[] faltantes = new long[codigosBarras.length];
+        int totalFaltantes = 0;
+
+        for (int i = 0; i < codigosBarras.length; i++) {
+            encontrados[i] = indiceCodigoBarras.buscar(codigosBarras[i]);
+            if (encontrados[i] == null && codigosBarras[i] != 0) {
+                faltantes[totalFaltantes++] = codigosBarras[i];
+            }
+        }
+
+        if (totalFaltantes > 0) {
+            for (Produto produto : produtoRepository.buscarPorCodigosBarras(Arrays.copyOf(faltantes, totalFaltantes))) {
+                indiceCodigoBarras.registrar(produto);
+            }
+            for (int i = 0; i < codigosBarras.length; i++) {
+                if (encontrados[i] == null) {
+                    encontrados[i] = indiceCodigoBarras.buscar(codigosBarras[i]);
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Pré-carrega no índice todos os produtos que possuem código de barras.
+     * @return quantidade de produtos indexados
+     */
+    public int carregarIndiceCodigoBarras() {
+        indiceCodigoBarras.limpar();
+        for (Produto produto : produtoRepository.listaProdutos()) {
+            indiceCodigoBarras.registrar(produto);
+        }
+        return indiceCodigoBarras.tamanho();
+    }
+
+    /**
+     * Monta o índice textual com todos os produtos ativos.
+     * @return quantidade de produtos indexados
+     */
+    public int carregarIndiceTextual() {
+        indiceTextual.limpar();
+        produtoRepository.percorrerProdutos(indiceTextual::registrar);
+        return indiceTextual.tamanho();
+    }
+
+    /**
+     * Busca produtos por palavras do nome e da descrição, ordenados por relevância,
+     * sem consultar o banco.
+     *
+     * @param consulta texto livre (ex.: "arroz integral 5kg")
+     * @param tipo filtro por tipo, ou null para todos
+     * @param pagina página desejada, a partir de 1
+     * @param tamanhoPagina acertos por página
+     */
+    public ResultadoBusca pesquisar(String consulta, TipoProduto tipo, int pagina, int tamanhoPagina) {
+        return indiceTextual.buscar(consulta, tipo, pagina, tamanhoPagina);
+    }
+
+    /**
+     * Adiciona unidades ao estoque de um produto.
+     */
+    public boolean adicionarQuantidade(long id, int quantidade) {
+        boolean adicionado = alterou(produtoRepository.adicionarQuantidade(id, quantidade));
+        if (adicionado) {
+            indiceCodigoBarras.ajustarQuantidade(id, quantidade);
+        }
+        return adicionado;
+    }
+
+    /**
+     * Remove unidades do estoque de um produto, se houver saldo suficiente.
+     * Cada baixa bem-sucedida alimenta a previsão de consumo.
+     * Lotes vencidos não são usados; só saem por {@link #descartarVencidos()}.
+     */
+    public boolean removerQuantidade(long id, int quantidade) {
+        // Produtos com lotes baixam primeiro os lotes que vencem antes (FEFO)
+        boolean removido = alterou(estoqueLotes.retirar(id, quantidade, LocalDate.now(),
+                baixas -> produtoRepository.removerQuantidade(id, quantidade, baixas)));
+        if (removido) {
+            indiceCodigoBarras.ajustarQuantidade(id, -quantidade);
+            motorPrevisao.registrarConsumo(id, quantidade, System.currentTimeMillis());
+        }
+        return removido;
+    }
+
+    /**
+     * Exclui um produto pelo id, retirando-o também dos índices em memória.
+     */
+    public boolean excluir(long id) {
+        boolean excluido = alterou(produtoRepository.excluirProduto(id));
+        if (excluido) {
+            indiceCodigoBarras.removerPorId(id);
+            indiceTextual.remover(id);
+            estoqueLotes.removerProduto(id);
+        }
+        return excluido;
+    }
+
+    /**
+     * Carrega os lotes com saldo do banco, montando as filas FEFO e o índice de validade.
+     * @return quantidade de lotes carregados
+     */
+    public int carregarLotes() {
+        estoqueLotes.limpar();
+        LocalDate hoje = LocalDate.now();
+        int[] total = {0};
+        produtoRepository.percorrerLotes(lote -> {
+            estoqueLotes.registrar(lote, hoje);
+            total[0]++;
+        });
+        return total[0];
+    }
+
+    /**
+     * Recebe um lote com validade de um produto de consumo, somando as unidades ao estoque.
+     * @return o lote gravado, ou null se o produto não existe ou não é de consumo
+     */
+    public LoteProduto receberLote(long produtoId, String codigo, LocalDate validade, int quantidade) {
+        LoteProduto lote = produtoRepository.receberLote(produtoId, codigo, validade, quantidade);
+        if (lote != null) {
+            alterou(true);
+            indiceCodigoBarras.ajustarQuantidade(produtoId, quantidade);
+            estoqueLotes.registrar(lote, LocalDate.now());
+        }
+        return lote;
+    }
+
+    /**
+     * @return lotes com saldo do produto, na ordem em que serão retirados
+     */
+    public List<LoteProduto> lotesDoProduto(long produtoId) {
+        return estoqueLotes.lotes(produtoId);
+    }
+
+    /**
+     * @param dias dias a partir de hoje (0 para só os que vencem hoje)
+     * @return lotes com saldo que vencem até lá, inclusive os já vencidos, pela validade
+     */
+    public List<LoteProduto> lotesVencendo(int dias) {
+        return estoqueLotes.vencendoAte(LocalDate.now().plusDays(dias));
+    }
+
+    /**
+     * Dá baixa, como perda, no saldo de todos os lotes já vencidos.
+     * A baixa não entra na previsão de consumo.
+     * @return unidades descartadas
+     */
+    public int descartarVencidos() {
+        LocalDate hoje = LocalDate.now();
+        int[] descartadas = {0};
+        for (LoteProduto lote : estoqueLotes.vencidosEm(hoje)) {
+            alterou(estoqueLotes.descartar(lote, hoje, baixas -> {
+                int saldo = baixas.get(0).quantidade();
+                boolean aplicado = produtoRepository.descartarQuantidade(lote.getProdutoId(), saldo, baixas);
+                if (aplicado) {
+                    indiceCodigoBarras.ajustarQuantidade(lote.getProdutoId(), -saldo);
+                    descartadas[0] += saldo;
+                }
+                return aplicado;
+            }));
+        }
+        return descartadas[0];
+    }
+
+    /**
+     * Retorna o resumo (sem descrição) de todos os produtos, para listagens. Com o
+     * catálogo fora do heap ligado, lê dele em vez de consultar o banco.
+     */
+    public List<ResumoProduto> listarResumos() {
+        CatalogoForaHeap catalogo = catalogoForaHeap;
+        if (catalogo != null) {
+            List<ResumoProduto> resumos = new ArrayList<>(catalogo.tamanho());
+            catalogo.varrer(visao -> resumos.add(new ResumoProduto(visao.getId(), visao.getNome(), visao.getPreco(),
+                    visao.getQuantidade(), visao.getTipo())));
+            return resumos;
+        }
+        return listagensResumo.executar(Boolean.TRUE, produtoRepository::listaResumos);
+    }
+
+    /**
+     * Busca o resumo (sem descrição) de um produto pelo nome, para conferência de estoque.
+     */
+    public ResumoProduto buscarResumo(String nome) {
+        return produtoRepository.buscarResumo(nome);
+    }
+
+    /**
+     * Carrega sob demanda a descrição de um produto listado por resumo.
+     */
+    public String carregarDescricao(long id) {
+        return produtoRepository.carregarDescricao(id);
+    }
+
+    /**
+     * Retorna todos os produtos cadastrados. Listagens simultâneas compartilham a mesma
+     * consulta e a mesma lista, que não deve ser alterada.
+     */
+    public List<Produto> listar() {
+        return listagens.executar(Boolean.TRUE, produtoRepository::listaProdutos);
+    }
+
+    /**
+     * Calcula as sugestões de reposição a partir do consumo registrado.
+     * @return produtos de consumo que precisam de compra, do mais urgente para o menos urgente
+     */
+    public List<SugestaoReposicao> sugerirReposicao() {
+        return motorPrevisao.gerarSugestoes(listar());
+    }
+
+    /**
+     * Reconstrói o histórico de consumo a partir do log do feed de alterações,
+     * para que a previsão não recomece do zero a cada partida.
+     * @return quantidade de eventos lidos, ou -1 em caso de erro
+     */
+    public long reconstruirPrevisao(FeedAlteracoes feed) {
+        try {
+            return feed.reproduzir(motorPrevisao::aplicar);
+        } catch (IOException e) {
+            System.err.println("Erro ao reconstruir previsão de consumo: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Carrega o catálogo fora do heap e passa a servir as listagens a partir dele,
+     * mantido em dia pelo feed.
+     * @return o replicador, a ser fechado no encerramento
+     */
+    public ReplicadorCatalogo ligarCatalogoForaHeap(FeedAlteracoes feed, Path arquivoOffset) throws IOException {
+        ReplicadorCatalogo replicador = new ReplicadorCatalogo(new CatalogoForaHeap(), produtoRepository, feed, arquivoOffset);
+        catalogoForaHeap = replicador.getCatalogo();
+        return replicador;
+    }
+
+    /**
+     * Preço e quantidade de um produto em um instante passado.
+     * @return a versão vigente, ou null se o produto ainda não existia
+     */
+    public VersaoProduto versaoEm(long id, long instante) {
+        return produtoRepository.versaoEm(id, instante);
+    }
+
+    /**
+     * Valor do estoque de todo o catálogo em um instante passado.
+     */
+    public ValorEstoque valorEstoqueEm(long instante) {
+        return produtoRepository.valorEstoqueEm(instante);
+    }
+
+    /**
+     * Gera o relatório de produtos sem mensagens no console.
+     * @return true se o relatório foi gerado
+     */
+    public boolean emitirRelatorio() {
+        // Pedidos simultâneos geram o PDF uma vez só, em vez de reescreverem o mesmo arquivo
+        return relatorios.executar(Boolean.TRUE, produtoRepository::gerarRelatorio);
+    }
+
+    // ===== Ajustes em massa =====
+
+    /**
+     * Reajusta em percentual o preço dos produtos do tipo ou da lista de ids, em uma
+     * única transação (ver {@link ProdutoRepository#reajustarPrecos}), e atualiza os
+     * preços guardados no índice de código de barras.
+     *
+     * @param tipo só produtos deste tipo, ou null para todos
+     * @param ids só estes produtos, ou null para todos
+     * @param progresso recebe o andamento a cada bloco (pode ser null)
+     */
+    public ResultadoAjuste reajustarPrecos(double percentual, TipoProduto tipo, long[] ids,
+                                           Consumer<ProgressoAjuste> progresso) {
+        ResultadoAjuste resultado = produtoRepository.reajustarPrecos(percentual, tipo, ids, progresso);
+        if (alterou(resultado.totalAlterados() > 0)) {
+            indiceCodigoBarras.atualizarPrecos(resultado.alterados(), resultado.valores());
+        }
+        return resultado;
+    }
+
+    /**
+     * Concilia o estoque com uma contagem física, gravando as quantidades contadas como
+     * absolutas (ver {@link ProdutoRepository#conciliarContagem}). Chaves repetidas somam
+     * as contagens, como um produto contado em duas prateleiras.
+     *
+     * @param porCodigo true se as chaves são códigos de barras, false se são ids
+     * @param progresso recebe o andamento a cada bloco (pode ser null)
+     */
+    public ResultadoAjuste conciliarContagem(List<ContagemFisica> contagens, boolean porCodigo,
+                                             Consumer<ProgressoAjuste> progresso) {
+        Map<Long, Integer> somadas = new LinkedHashMap<>(contagens.size() * 2);
+        for (ContagemFisica contagem : contagens) {
+            somadas.merge(contagem.chave(), contagem.quantidade(), Math::addExact);
+        }
+        List<Long> semProduto = new ArrayList<>();
+        List<ContagemFisica> porId = new ArrayList<>(somadas.size());
+        if (porCodigo) {
+            long[] codigos = new long[somadas.size()];
+            int i = 0;
+            for (long codigo : somadas.keySet()) {
+                codigos[i++] = codigo;
+            }
+            Map<Long, Long> idsPorCodigo = new HashMap<>(codigos.length * 2);
+            for (int inicio = 0; inicio < codigos.length; inicio += BLOCO_CODIGOS) {
+                long[] bloco = Arrays.copyOfRange(codigos, inicio, Math.min(codigos.length, inicio + BLOCO_CODIGOS));
+                for (Produto produto : produtoRepository.buscarPorCodigosBarras(bloco)) {
+                    idsPorCodigo.put(produto.getCodigoBarras(), produto.getId());
+                }
+            }
+            for (Map.Entry<Long, Integer> entrada : somadas.entrySet()) {
+                Long id = idsPorCodigo.get(entrada.getKey());
+                if (id == null) {
+                    semProduto.add(entrada.getKey());
+                } else {
+                    porId.add(new ContagemFisica(id, entrada.getValue()));
+                }
+            }
+        } else {
+            for (Map.Entry<Long, Integer> entrada : somadas.entrySet()) {
+                porId.add(new ContagemFisica(entrada.getKey(), entrada.getValue()));
+            }
+        }
+
+        ResultadoAjuste resultado = produtoRepository.conciliarContagem(porId, progresso);
+        if (alterou(resultado.totalAlterados() > 0)) {
+            indiceCodigoBarras.atualizarQuantidades(resultado.alterados(), resultado.valores());
+        }
+        if (semProduto.isEmpty()) {
+            return resultado;
+        }
+        semProduto.addAll(resultado.naoEncontrados());
+        return new ResultadoAjuste(resultado.analisados() + semProduto.size() - resultado.naoEncontrados().size(),
+                resultado.alterados(), resultado.valores(), semProduto, resultado.abaixoDosLotes());
+    }
+
+    // ===== Aquecimento na partida =====
+
+    /**
+     * Abre as primeiras conexões com o banco (primário e uma réplica, se houver).
+     * @throws ErroBanco se o banco não responder
+     */
+    public void aquecerConexoes() {
+        produtoRepository.aquecerConexoes();
+    }
+
+    /**
+     * Põe no índice de código de barras os produtos de maior consumo, segundo a previsão,
+     * para que as primeiras leituras do caixa não esperem pelo banco.
+     * @return os produtos carregados, que servem de amostra para {@link #aquecerCaminhos}
+     */
+    public List<Produto> preCarregarMaisVendidos(int limite) {
+        long[] ids = motorPrevisao.maisConsumidos(limite);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Produto> produtos = produtoRepository.buscarPorIds(ids);
+        for (Produto produto : produtos) {
+            indiceCodigoBarras.registrar(produto);
+        }
+        return produtos;
+    }
+
+    /**
+     * Executa repetidamente, sem gravar nada, os trechos em memória das consultas e da
+     * movimentação (índice de código de barras, pesquisa por texto, plano FEFO dos lotes
+     * e formatação), para que o JIT os compile antes da primeira requisição.
+     *
+     * @param amostra produtos usados como chave; vazia, as buscas só erram, o que também aquece
+     * @return passadas em que o código de barras estava no índice; abaixo de {@code iteracoes}
+     *         com amostra cheia, parte dos produtos quentes não ficou no cache
+     */
+    public int aquecerCaminhos(List<Produto> amostra, int iteracoes) {
+        LocalDate hoje = LocalDate.now();
+        StringBuilder saida = new StringBuilder(256);
+        int encontrados = 0;
+        for (int i = 0; i < iteracoes; i++) {
+            Produto produto = amostra.isEmpty() ? null : amostra.get(i % amostra.size());
+            long codigo = produto != null && produto.getCodigoBarras() != 0 ? produto.getCodigoBarras() : -1L - i;
+            if (indiceCodigoBarras.buscar(codigo) != null) {
+                encontrados++;
+            }
+            String consulta = produto != null ? produto.getNome() : "produto " + (i & 63);
+            indiceTextual.buscar(consulta, null, 1, TAMANHO_PAGINA_BUSCA);
+            // O plano de baixa é montado e desfeito: a gravação recusa
+            estoqueLotes.retirar(produto != null ? produto.getId() : -1L, 1, hoje, baixas -> false);
+            if (produto != null) {
+                saida.setLength(0);
+                produto.formatar(saida);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Desvincula as leituras em andamento depois de uma escrita bem-sucedida,
+     * para que as próximas leituras já enxerguem a alteração.
+     */
+    private boolean alterou(boolean sucesso) {
+        if (sucesso) {
+            buscasPorNome.invalidar();
+            listagens.invalidar();
+            listagensResumo.invalidar();
+        }
+        return sucesso;
     }
 
     /**
@@ -54,9 +569,15 @@ public class ProdutoService {
                 TipoProduto tipoProduto = scannerController.lerTipoProdutoValido();
                 produto.setTipo(tipoProduto);
 
+                System.out.print("Digite o código de barras do Produto (ENTER para nenhum): ");
+                produto.setCodigoBarras(scannerController.lerCodigoBarrasOpcional());
+
                 // Salva produto no banco
-                produtoRepository.salvarProduto(produto);
-                System.out.println("Produto cadastrado com sucesso!");
+                if (cadastrar(produto)) {
+                    System.out.println("Produto cadastrado com sucesso!");
+                } else {
+                    System.out.println("Falha ao cadastrar produto!");
+                }
 
             } catch (Exception e) {
                 System.err.println("Erro ao cadastrar produto: " + e.getMessage());
@@ -79,7 +600,7 @@ public class ProdutoService {
                 System.out.print("Digite o ID do Produto para deletar: ");
                 long id = scannerController.lerIdValido();
 
-                boolean deletado = produtoRepository.excluirProduto(id);
+                boolean deletado = excluir(id);
                 if (deletado) {
                     System.out.println("Produto deletado com sucesso!");
                 } else {
@@ -95,20 +616,36 @@ public class ProdutoService {
     }
 
     /**
-     * Lista todos os produtos cadastrados.
+     * Lista todos os produtos cadastrados sem a descrição, que é carregada depois só
+     * para os produtos escolhidos pelo ID.
      */
     public void listarProdutos() {
         try {
-            List<Produto> produtos = produtoRepository.listaProdutos();
+            List<ResumoProduto> produtos = listarResumos();
 
             if (produtos == null || produtos.isEmpty()) {
                 System.out.println("Nenhum produto encontrado!");
             } else {
-                System.out.println("\n=== LISTA DE PRODUTOS ===");
-                for (Produto produto : produtos) {
-                    System.out.println(produto.toString());
+                Fase anterior = Diagnostico.fase(Fase.RENDERIZACAO);
+                try {
+                    System.out.println("\n=== LISTA DE PRODUTOS ===");
+                    // Uma linha por vez no mesmo buffer, enviado ao console em blocos.
+                    StringBuilder saida = new StringBuilder(8192);
+                    for (ResumoProduto produto : produtos) {
+                        produto.formatar(saida).append(System.lineSeparator());
+                        if (saida.length() > 7680) {
+                            System.out.append(saida);
+                            saida.setLength(0);
+                        }
+                    }
+                    System.out.append(saida);
                     System.out.println("-------------------------");
+                    System.out.println(produtos.size() + " produto(s).");
+                } finally {
+                    Diagnostico.voltar(anterior);
                 }
+                exibirDescricoes();
+                return;
             }
 
         } catch (Exception e) {
@@ -119,6 +656,28 @@ public class ProdutoService {
         scannerController.pausarSistema("Pressione Enter para continuar...");
     }
 
+    /**
+     * Mostra a descrição dos produtos da listagem escolhidos pelo ID, buscando só
+     * a descrição de cada um, até o usuário deixar o ID em branco.
+     */
+    private void exibirDescricoes() {
+        String entrada;
+        while (!(entrada = scannerController.lerTexto("ID do produto para ver a descrição (Enter para continuar)")).isEmpty()) {
+            try {
+                String descricao = carregarDescricao(Long.parseLong(entrada));
+                if (descricao == null) {
+                    System.out.println("Produto não encontrado!");
+                } else {
+                    System.out.println("📝 " + (descricao.isEmpty() ? "(sem descrição)" : descricao));
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("❌ ID inválido!");
+            } catch (Exception e) {
+                System.err.println("Erro ao carregar a descrição: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Busca um produto pelo nome.
      */
@@ -130,7 +689,7 @@ public class ProdutoService {
                 System.out.print("Digite o nome do Produto para buscar: ");
                 String nome = scannerController.lerTextoValido("Nome não pode ser vazio!");
 
-                Produto produto = produtoRepository.buscarProduto(nome);
+                Produto produto = buscarPorNome(nome);
                 if (produto != null) {
                     System.out.println("\n=== PRODUTO ENCONTRADO ===");
                     System.out.println(produto.toString());
@@ -146,6 +705,173 @@ public class ProdutoService {
         }
     }
 
+    /**
+     * Busca produtos por código de barras. Aceita vários códigos na mesma linha,
+     * como em leituras consecutivas do scanner.
+     */
+    public void buscarProdutoPorCodigoBarras() {
+        boolean continuar = true;
+
+        while (continuar) {
+            try {
+                System.out.print("Escaneie ou digite o(s) código(s) de barras: ");
+                long[] codigos = scannerController.lerCodigosBarras();
+
+                Produto[] produtos = buscarPorCodigosBarras(codigos);
+                for (int i = 0; i < codigos.length; i++) {
+                    if (produtos[i] != null) {
+                        System.out.println("\n=== PRODUTO ENCONTRADO ===");
+                        System.out.println(produtos[i].toString());
+                    } else {
+                        System.out.println("Produto não encontrado para o código " + codigos[i] + "!");
+                    }
+                }
+
+            } catch (Exception e) {
+                System.err.println("Erro ao buscar produto: " + e.getMessage());
+            }
+
+            continuar = scannerController.perguntarContinuarOperacao("buscar por outro código");
+        }
+    }
+
+    /**
+     * Busca produtos por palavras do nome ou da descrição, página a página.
+     */
+    public void pesquisarTexto() {
+        boolean continuar = true;
+
+        while (continuar) {
+            try {
+                System.out.print("Digite o que procura (nome ou descrição): ");
+                String consulta = scannerController.lerTextoValido("A busca não pode ser vazia!");
+
+                TipoProduto tipo = null;
+                if (scannerController.perguntarSimNao("Filtrar por tipo de produto?")) {
+                    tipo = scannerController.lerTipoProdutoValido();
+                }
+
+                int pagina = 1;
+                while (true) {
+                    long inicio = System.nanoTime();
+                    ResultadoBusca resultado = pesquisar(consulta, tipo, pagina, TAMANHO_PAGINA_BUSCA);
+                    long micros = (System.nanoTime() - inicio) / 1_000;
+
+                    if (resultado.total() == 0) {
+                        System.out.println("Nenhum produto encontrado!");
+                        break;
+                    }
+                    System.out.println("\n=== RESULTADOS (página " + pagina + ") ===");
+                    for (Acerto acerto : resultado.acertos()) {
+                        System.out.println(acerto.toString());
+                    }
+                    System.out.printf("%d produto(s) encontrado(s) em %.2f ms.%n", resultado.total(), micros / 1000.0);
+
+                    if (!resultado.temProximaPagina()
+                            || !scannerController.perguntarSimNao("Ver a próxima página?")) {
+                        break;
+                    }
+                    pagina++;
+                }
+
+            } catch (Exception e) {
+                System.err.println("Erro ao pesquisar produtos: " + e.getMessage());
+            }
+
+            continuar = scannerController.perguntarContinuarOperacao("fazer outra busca");
+        }
+    }
+
+    /**
+     * Consulta o preço e a quantidade de um produto, ou o valor do estoque inteiro,
+     * em uma data passada (ex.: fechamento do mês para a auditoria).
+     */
+    public void consultarHistorico() {
+        boolean continuar = true;
+
+        while (continuar) {
+            try {
+                System.out.print("Data da consulta (AAAA-MM-DD para o fim do dia, ou AAAA-MM-DDTHH:MM): ");
+                long instante = DataConsulta.instante(scannerController.lerTextoValido("A data não pode ser vazia!"));
+
+                if (scannerController.perguntarSimNao("Consultar um produto específico?")) {
+                    System.out.print("Digite o ID do produto: ");
+                    long id = scannerController.lerIdValido();
+                    VersaoProduto versao = versaoEm(id, instante);
+                    System.out.println(versao != null ? versao.toString() : "O produto ainda não existia nessa data.");
+                } else {
+                    long inicio = System.nanoTime();
+                    ValorEstoque valor = valorEstoqueEm(instante);
+                    System.out.println(valor.toString());
+                    System.out.printf("Calculado em %d ms.%n", (System.nanoTime() - inicio) / 1_000_000);
+                }
+
+            } catch (IllegalArgumentException e) {
+                System.out.println("❌ " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("Erro ao consultar o histórico: " + e.getMessage());
+            }
+
+            continuar = scannerController.perguntarContinuarOperacao("fazer outra consulta");
+        }
+    }
+
+    /**
+     * Recebe lotes com validade, mostra o que está para vencer e descarta os vencidos.
+     */
+    public void gerenciarLotes() {
+        boolean continuar = true;
+
+        while (continuar) {
+            try {
+                int opcao = scannerController.lerInteiroValido(1, 4,
+                        "1 - Receber lote | 2 - Lotes vencendo | 3 - Lotes de um produto | 4 - Descartar vencidos");
+                switch (opcao) {
+                    case 1 -> {
+                        System.out.print("Digite o ID do produto (de consumo): ");
+                        long id = scannerController.lerIdValido();
+                        scannerController.limparBuffer();
+                        System.out.print("Código do lote: ");
+                        String codigo = scannerController.lerTextoValido("O código não pode ser vazio!");
+                        LocalDate validade = scannerController.lerDataValida("Validade (AAAA-MM-DD)");
+                        System.out.print("Quantidade recebida: ");
+                        int quantidade = scannerController.lerQuantidadeValida();
+                        LoteProduto lote = receberLote(id, codigo, validade, quantidade);
+                        System.out.println(lote != null ? "Lote recebido: " + lote
+                                : "Produto não encontrado ou não é de consumo!");
+                    }
+                    case 2 -> {
+                        int dias = scannerController.lerInteiroValido(0, 3650, "Vencendo nos próximos quantos dias");
+                        List<LoteProduto> lotes = lotesVencendo(dias);
+                        if (lotes.isEmpty()) {
+                            System.out.println("Nenhum lote vence nesse período.");
+                        }
+                        for (LoteProduto lote : lotes) {
+                            System.out.println(lote.toString());
+                        }
+                    }
+                    case 3 -> {
+                        System.out.print("Digite o ID do produto: ");
+                        List<LoteProduto> lotes = lotesDoProduto(scannerController.lerIdValido());
+                        scannerController.limparBuffer();
+                        if (lotes.isEmpty()) {
+                            System.out.println("O produto não tem lotes com saldo.");
+                        }
+                        for (LoteProduto lote : lotes) {
+                            System.out.println(lote.toString());
+                        }
+                    }
+                    case 4 -> System.out.println(descartarVencidos() + " unidade(s) vencida(s) descartada(s).");
+                }
+
+            } catch (Exception e) {
+                System.err.println("Erro ao gerenciar lotes: " + e.getMessage());
+            }
+
+            continuar = scannerController.perguntarContinuarOperacao("fazer outra operação com lotes");
+        }
+    }
+
     /**
      * Atualiza a quantidade de um produto no estoque.
      * Permite adicionar ou remover unidades.
@@ -158,15 +884,15 @@ public class ProdutoService {
                 System.out.print("Digite o nome do Produto para atualizar quantidade: ");
                 String nome = scannerController.lerTextoValido("Nome não pode ser vazio!");
 
-                Produto produto = produtoRepository.buscarProduto(nome);
+                ResumoProduto produto = produtoRepository.buscarResumo(nome, tokenMovimentacao);
                 if (produto == null) {
                     System.out.println("Produto não encontrado!");
                     continuar = scannerController.perguntarContinuarOperacao("tentar novamente");
                     continue;
                 }
 
-                System.out.println("Produto encontrado: " + produto.getNome());
-                System.out.println("Quantidade atual: " + produto.getQuantidade());
+                System.out.println("Produto encontrado: " + produto.nome());
+                System.out.println("Quantidade atual: " + produto.quantidade());
 
                 int opcaoQuantidade = scannerController.lerOpcaoQuantidade();
                 int quantidade = scannerController.lerQuantidadeValida();
@@ -174,17 +900,19 @@ public class ProdutoService {
                 boolean sucesso = false;
                 switch (opcaoQuantidade) {
                     case 1 -> {
-                        sucesso = produtoRepository.adicionarQuantidade(produto.getId(), quantidade);
+                        sucesso = adicionarQuantidade(produto.id(), quantidade);
                         if (sucesso) {
+                            tokenMovimentacao.registrarEscrita();
                             System.out.println("Quantidade adicionada com sucesso!");
                         }
                     }
                     case 2 -> {
-                        if (produto.getQuantidade() < quantidade) {
-                            System.out.println("Quantidade insuficiente! Quantidade atual: " + produto.getQuantidade());
+                        if (produto.quantidade() < quantidade) {
+                            System.out.println("Quantidade insuficiente! Quantidade atual: " + produto.quantidade());
                         } else {
-                            sucesso = produtoRepository.removerQuantidade(produto.getId(), quantidade);
+                            sucesso = removerQuantidade(produto.id(), quantidade);
                             if (sucesso) {
+                                tokenMovimentacao.registrarEscrita();
                                 System.out.println("Quantidade removida com sucesso!");
                             }
                         }
@@ -203,13 +931,127 @@ public class ProdutoService {
         }
     }
 
+    /**
+     * Ajustes em massa pelo console: reajuste de preços por tipo, por lista de ids ou
+     * de todo o catálogo, e conciliação com uma contagem física lida de arquivo.
+     */
+    public void ajustesEmMassa() {
+        Consumer<ProgressoAjuste> progresso = p -> System.out.print("\r  Progresso: " + p + "   ");
+        try {
+            int opcao = scannerController.lerInteiroValido(1, 2, "1 - Reajustar preços | 2 - Conciliar contagem física");
+            if (opcao == 1) {
+                try {
+                    double percentual = scannerController.lerPercentualValido("Percentual de reajuste (ex.: 10 ou -5)");
+                    int filtro = scannerController.lerInteiroValido(1, 3, "Aplicar a: 1 - Um tipo | 2 - Lista de IDs | 3 - Todos");
+                    TipoProduto tipo = null;
+                    long[] ids = null;
+                    if (filtro == 1) {
+                        tipo = scannerController.lerTipoProdutoValido();
+                    } else if (filtro == 2) {
+                        ids = lerIds(scannerController.lerTexto("IDs separados por vírgula"));
+                    }
+                    String alvo = tipo != null ? "produtos do tipo " + tipo.name()
+                            : ids != null ? ids.length + " produto(s)" : "todos os produtos";
+                    if (!scannerController.perguntarSimNao(String.format("Reajustar em %+.2f%% o preço de %s?", percentual, alvo))) {
+                        System.out.println("Reajuste cancelado.");
+                        return;
+                    }
+                    ResultadoAjuste resultado = reajustarPrecos(percentual, tipo, ids, progresso);
+                    System.out.println();
+                    System.out.println("✅ Reajuste concluído: " + resultado);
+                } catch (IllegalArgumentException e) {
+                    System.out.println();
+                    System.err.println("Erro no reajuste de preços: " + e.getMessage());
+                }
+            } else {
+                Path arquivo = Path.of(scannerController.lerTexto("Arquivo da contagem (linhas chave;quantidade)"));
+                boolean porCodigo = scannerController.perguntarConfirmacao("A chave de cada linha é o",
+                        "Código de barras", "ID do produto");
+                List<ContagemFisica> contagens = ArquivoContagem.ler(arquivo);
+                if (!scannerController.perguntarSimNao("Gravar a quantidade contada de " + contagens.size()
+                        + " linha(s) como o novo estoque?")) {
+                    System.out.println("Conciliação cancelada.");
+                    return;
+                }
+                ResultadoAjuste resultado = conciliarContagem(contagens, porCodigo, progresso);
+                System.out.println();
+                System.out.println("✅ Contagem conciliada: " + resultado);
+            }
+
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println();
+            System.err.println("Erro ao ler a contagem: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println();
+            System.err.println("Erro no ajuste em massa: " + e.getMessage());
+        }
+
+        scannerController.pausarSistema("Pressione Enter para continuar...");
+    }
+
+    /**
+     * Converte "1, 2, 3" em ids.
+     * @throws IllegalArgumentException se algum item não for um id válido
+     */
+    public static long[] lerIds(String texto) {
+        String[] partes = texto.split("[,;\\s]+");
+        long[] ids = new long[partes.length];
+        int total = 0;
+        for (String parte : partes) {
+            if (parte.isEmpty()) {
+                continue;
+            }
+            try {
+                ids[total] = Long.parseLong(parte);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("id inválido: " + parte);
+            }
+            if (ids[total++] <= 0) {
+                throw new IllegalArgumentException("id inválido: " + parte);
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("nenhum id informado");
+        }
+        return Arrays.copyOf(ids, total);
+    }
+
+    /**
+     * Mostra as sugestões de reposição dos produtos de consumo.
+     */
+    public void exibirSugestoesReposicao() {
+        try {
+            List<SugestaoReposicao> sugestoes = sugerirReposicao();
+
+            if (sugestoes.isEmpty()) {
+                System.out.println("Nenhum produto precisa de reposição no momento.");
+            } else {
+                System.out.println("\n=== SUGESTÕES DE REPOSIÇÃO ===");
+                for (SugestaoReposicao sugestao : sugestoes) {
+                    System.out.println(sugestao.toString());
+                }
+            }
+
+        } catch (Exception e) {
+            System.err.println("Erro ao calcular sugestões de reposição: " + e.getMessage());
+        }
+
+        scannerController.pausarSistema("Pressione Enter para continuar...");
+    }
+
     /**
      * Gera relatório PDF com todos os produtos.
      */
     public void gerarRelatorio() {
         try {
-            produtoRepository.gerarRelatorio();
-            System.out.println("✅ Relatório gerado com sucesso!");
+            if (emitirRelatorio()) {
+                System.out.println("✅ Relatório gerado com sucesso!");
+            } else {
+                System.out.println("❌ Não foi possível gravar o arquivo do relatório.");
+            }
+        } catch (ErroBanco e) {
+            // Falha do banco já vem descrita; o stack trace não ajuda o operador
+            System.out.println("❌ Houve um erro ao gerar o relatório: " + e.getMessage());
         } catch (Exception e) {
             System.out.println("❌ Houve um erro ao gerar o relatório:");
             e.printStackTrace();
@@ -0,0 +1,242 @@
+package snapshot;
+
+import model.Produto;
+import model.TipoProduto;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Codificação colunar de um bloco de produtos, antes da compressão.
+ *
+ * Cada coluna é gravada inteira antes da próxima, o que deixa valores parecidos
+ * lado a lado e favorece o compressor:
+ * <pre>
+ * linhas                      varint
+ * id                          varint zigzag da diferença para o anterior
+ * preco                       8 bytes (bits do double)
+ * quantidade                  varint zigzag
+ * tipo                        dicionário (qtd + nomes) e 1 byte de índice por linha
+ * codigo_barras               varint zigzag da diferença para o anterior
+ * nome, descricao             tamanhos (varint, tamanho + 1; 0 = nulo) e depois os bytes UTF-8
+ * </pre>
+ */
+final class BlocoColunar {
+
+    private static final TipoProduto[] TIPOS = TipoProduto.values();
+
+    private BlocoColunar() {
+    }
+
+    static byte[] codificar(List<Produto> produtos) {
+        Saida saida = new Saida(produtos.size() * 48 + 64);
+        saida.varint(produtos.size());
+
+        long anterior = 0;
+        for (Produto p : produtos) {
+            saida.varint(zigzag(p.getId() - anterior));
+            anterior = p.getId();
+        }
+        for (Produto p : produtos) {
+            saida.int64(Double.doubleToRawLongBits(p.getPreco()));
+        }
+        for (Produto p : produtos) {
+            saida.varint(zigzag(p.getQuantidade()));
+        }
+
+        // Dicionário pelo nome, para o arquivo não depender da ordem do enum
+        saida.varint(TIPOS.length);
+        for (TipoProduto tipo : TIPOS) {
+            saida.texto(tipo.name().getBytes(StandardCharsets.UTF_8));
+        }
+        for (Produto p : produtos) {
+            saida.byte1(p.getTipo().ordinal());
+        }
+
+        anterior = 0;
+        for (Produto p : produtos) {
+            saida.varint(zigzag(p.getCodigoBarras() - anterior));
+            anterior = p.getCodigoBarras();
+        }
+
+        byte[][] nomes = new byte[produtos.size()][];
+        byte[][] descricoes = new byte[produtos.size()][];
+        for (int i = 0; i < nomes.length; i++) {
+            nomes[i] = utf8(produtos.get(i).getNome());
+            descricoes[i] = utf8(produtos.get(i).getDescricao());
+        }
+        saida.colunaTexto(nomes);
+        saida.colunaTexto(descricoes);
+        return saida.paraBytes();
+    }
+
+    static List<Produto> decodificar(byte[] dados, int tamanho) throws IOException {
+        try {
+            ByteBuffer entrada = ByteBuffer.wrap(dados, 0, tamanho);
+            int linhas = (int) lerVarint(entrada);
+            long[] ids = new long[linhas];
+            long anterior = 0;
+            for (int i = 0; i < linhas; i++) {
+                anterior += unzigzag(lerVarint(entrada));
+                ids[i] = anterior;
+            }
+            double[] precos = new double[linhas];
+            for (int i = 0; i < linhas; i++) {
+                precos[i] = Double.longBitsToDouble(entrada.getLong());
+            }
+            int[] quantidades = new int[linhas];
+            for (int i = 0; i < linhas; i++) {
+                quantidades[i] = (int) unzigzag(lerVarint(entrada));
+            }
+
+            TipoProduto[] dicionario = new TipoProduto[(int) lerVarint(entrada)];
+            for (int i = 0; i < dicionario.length; i++) {
+                dicionario[i] = TipoProduto.valueOf(lerTexto(entrada));
+            }
+            TipoProduto[] tipos = new TipoProduto[linhas];
+            for (int i = 0; i < linhas; i++) {
+                tipos[i] = dicionario[entrada.get() & 0xFF];
+            }
+
+            long[] codigos = new long[linhas];
+            anterior = 0;
+            for (int i = 0; i < linhas; i++) {
+                anterior += unzigzag(lerVarint(entrada));
+                codigos[i] = anterior;
+            }
+            String[] nomes = lerColunaTexto(entrada, linhas);
+            String[] descricoes = lerColunaTexto(entrada, linhas);
+            if (entrada.hasRemaining()) {
+                throw new IOException("Snapshot corrompido: sobram bytes no bloco");
+            }
+
+            List<Produto> produtos = new ArrayList<>(linhas);
+            for (int i = 0; i < linhas; i++) {
+                produtos.add(new Produto(ids[i], nomes[i], descricoes[i], precos[i], quantidades[i], tipos[i], codigos[i]));
+            }
+            return produtos;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Snapshot corrompido: bloco ilegível", e);
+        }
+    }
+
+    // ===== Auxiliares =====
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unzigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto != null ? texto.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static long lerVarint(ByteBuffer entrada) throws IOException {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+            byte b = entrada.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Snapshot corrompido: varint inválido");
+    }
+
+    private static String lerTexto(ByteBuffer entrada) throws IOException {
+        int tamanho = (int) lerVarint(entrada);
+        String texto = new String(entrada.array(), entrada.arrayOffset() + entrada.position(), tamanho,
+                StandardCharsets.UTF_8);
+        entrada.position(entrada.position() + tamanho);
+        return texto;
+    }
+
+    private static String[] lerColunaTexto(ByteBuffer entrada, int linhas) throws IOException {
+        int[] tamanhos = new int[linhas];
+        for (int i = 0; i < linhas; i++) {
+            tamanhos[i] = (int) lerVarint(entrada);
+        }
+        String[] textos = new String[linhas];
+        for (int i = 0; i < linhas; i++) {
+            if (tamanhos[i] == 0) {
+                continue; // nulo
+            }
+            int tamanho = tamanhos[i] - 1;
+            textos[i] = new String(entrada.array(), entrada.arrayOffset() + entrada.position(), tamanho,
+                    StandardCharsets.UTF_8);
+            entrada.position(entrada.position() + tamanho);
+        }
+        return textos;
+    }
+
+    /**
+     * Buffer de bytes que cresce conforme a necessidade.
+     */
+    private static final class Saida {
+        private byte[] bytes;
+        private int tamanho;
+
+        Saida(int capacidade) {
+            bytes = new byte[capacidade];
+        }
+
+        void byte1(int valor) {
+            garantir(1);
+            bytes[tamanho++] = (byte) valor;
+        }
+
+        void int64(long valor) {
+            garantir(8);
+            for (int i = 56; i >= 0; i -= 8) {
+                bytes[tamanho++] = (byte) (valor >>> i);
+            }
+        }
+
+        void varint(long valor) {
+            garantir(10);
+            while ((valor & ~0x7FL) != 0) {
+                bytes[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            bytes[tamanho++] = (byte) valor;
+        }
+
+        void texto(byte[] utf8) {
+            varint(utf8.length);
+            garantir(utf8.length);
+            System.arraycopy(utf8, 0, bytes, tamanho, utf8.length);
+            tamanho += utf8.length;
+        }
+
+        void colunaTexto(byte[][] textos) {
+            for (byte[] texto : textos) {
+                varint(texto == null ? 0 : texto.length + 1);
+            }
+            for (byte[] texto : textos) {
+                if (texto != null) {
+                    garantir(texto.length);
+                    System.arraycopy(texto, 0, bytes, tamanho, texto.length);
+                    tamanho += texto.length;
+                }
+            }
+        }
+
+        byte[] paraBytes() {
+            return Arrays.copyOf(bytes, tamanho);
+        }
+
+        private void garantir(int adicional) {
+            if (tamanho + adicional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, tamanho + adicional));
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package snapshot;
+
+import model.Produto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/**
+ * Grava um snapshot do catálogo em blocos colunares comprimidos.
+ *
+ * Formato do arquivo:
+ * <pre>
+ * cabeçalho   mágico (int) | versão (short) | criado em (long, ms)
+ * bloco       tamanho comprimido (int) | tamanho original (int) | linhas (int) | CRC32C do original (int) | dados Deflate
+ * ...
+ * rodapé      0 (int) | total de linhas (long) | CRC32C de todos os dados comprimidos (int)
+ * </pre>
+ *
+ * O arquivo é montado em um temporário ao lado do destino e só substitui o destino
+ * em {@link #concluir()}; fechar sem concluir descarta o temporário, então um
+ * snapshot interrompido nunca fica no lugar de um válido.
+ */
+public class EscritorSnapshot implements Closeable {
+
+    static final int MAGICO = 0x47455350; // "GESP"
+    static final short VERSAO = 1;
+    static final int LINHAS_POR_BLOCO = 8192;
+
+    private final Path destino;
+    private final Path temporario;
+    private final FileChannel canal;
+    private final List<Produto> bloco = new ArrayList<>(LINHAS_POR_BLOCO);
+    private final Deflater compressor = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32C crcArquivo = new CRC32C();
+    private final ByteBuffer cabecalhoBloco = ByteBuffer.allocate(16);
+    private byte[] comprimido = new byte[256 * 1024];
+    private long totalLinhas;
+    private long bytesGravados;
+    private boolean concluido;
+
+    public EscritorSnapshot(Path destino) throws IOException {
+        this.destino = destino;
+        this.temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        this.canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer cabecalho = ByteBuffer.allocate(14)
+                .putInt(MAGICO)
+                .putShort(VERSAO)
+                .putLong(System.currentTimeMillis());
+        escrever(cabecalho.flip());
+    }
+
+    /**
+     * Acrescenta um produto; a cada {@value #LINHAS_POR_BLOCO} produtos um bloco é gravado.
+     */
+    public void adicionar(Produto produto) throws IOException {
+        bloco.add(produto);
+        if (bloco.size() == LINHAS_POR_BLOCO) {
+            gravarBloco();
+        }
+    }
+
+    /**
+     * Grava o último bloco e o rodapé, força os dados para o disco e coloca o
+     * arquivo no destino.
+     * @return total de produtos gravados
+     */
+    public long concluir() throws IOException {
+        if (!bloco.isEmpty()) {
+            gravarBloco();
+        }
+        ByteBuffer rodape = ByteBuffer.allocate(16)
+                .putInt(0)
+                .putLong(totalLinhas)
+                .putInt((int) crcArquivo.getValue());
+        escrever(rodape.flip());
+        canal.force(true);
+        canal.close();
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        concluido = true;
+        return totalLinhas;
+    }
+
+    /** @return bytes gravados até agora */
+    public long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    @Override
+    public void close() throws IOException {
+        compressor.end();
+        if (!concluido) {
+            canal.close();
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    private void gravarBloco() throws IOException {
+        byte[] original = BlocoColunar.codificar(bloco);
+        CRC32C crc = new CRC32C();
+        crc.update(original);
+
+        compressor.reset();
+        compressor.setInput(original);
+        compressor.finish();
+        int tamanho = 0;
+        while (!compressor.finished()) {
+            if (tamanho == comprimido.length) {
+                comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+            }
+            tamanho += compressor.deflate(comprimido, tamanho, comprimido.length - tamanho);
+        }
+
+        cabecalhoBloco.clear()
+                .putInt(tamanho)
+                .putInt(original.length)
+                .putInt(bloco.size())
+                .putInt((int) crc.getValue());
+        escrever(cabecalhoBloco.flip());
+        escrever(ByteBuffer.wrap(comprimido, 0, tamanho));
+        crcArquivo.update(comprimido, 0, tamanho);
+
+        totalLinhas += bloco.size();
+        bloco.clear();
+    }
+
+    private void escrever(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            bytesGravados += canal.write(buffer);
+        }
+    }
+}
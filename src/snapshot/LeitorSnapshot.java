@@ -0,0 +1,151 @@
+package snapshot;
+
+import model.Produto;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Lê um snapshot gravado por {@link EscritorSnapshot}, um bloco por vez, conferindo
+ * o CRC de cada bloco e, no rodapé, o total de linhas e o CRC do arquivo inteiro.
+ * Qualquer divergência (arquivo truncado, bytes alterados) gera {@link IOException}.
+ */
+public class LeitorSnapshot implements Closeable {
+
+    // Limite de sanidade para não alocar memória demais com um cabeçalho corrompido
+    private static final int TAMANHO_MAXIMO_BLOCO = 256 * 1024 * 1024;
+
+    private final FileChannel canal;
+    private final Inflater descompressor = new Inflater();
+    private final CRC32C crcArquivo = new CRC32C();
+    private final long criadoEm;
+    private byte[] comprimido = new byte[256 * 1024];
+    private byte[] original = new byte[1024 * 1024];
+    private long linhasLidas;
+    private boolean fim;
+
+    public LeitorSnapshot(Path origem) throws IOException {
+        this.canal = FileChannel.open(origem, StandardOpenOption.READ);
+        ByteBuffer cabecalho = ler(14);
+        if (cabecalho.getInt() != EscritorSnapshot.MAGICO) {
+            canal.close();
+            throw new IOException("Arquivo não é um snapshot do catálogo: " + origem);
+        }
+        short versao = cabecalho.getShort();
+        if (versao != EscritorSnapshot.VERSAO) {
+            canal.close();
+            throw new IOException("Versão de snapshot não suportada: " + versao);
+        }
+        this.criadoEm = cabecalho.getLong();
+    }
+
+    /**
+     * @return os produtos do próximo bloco, ou null quando o snapshot terminou e foi conferido
+     */
+    public List<Produto> proximoBloco() throws IOException {
+        if (fim) {
+            return null;
+        }
+        int tamanhoComprimido = ler(4).getInt();
+        if (tamanhoComprimido == 0) {
+            conferirRodape();
+            fim = true;
+            return null;
+        }
+
+        ByteBuffer cabecalho = ler(12);
+        int tamanhoOriginal = cabecalho.getInt();
+        int linhas = cabecalho.getInt();
+        int crcEsperado = cabecalho.getInt();
+        if (tamanhoComprimido < 0 || tamanhoComprimido > TAMANHO_MAXIMO_BLOCO
+                || tamanhoOriginal < 0 || tamanhoOriginal > TAMANHO_MAXIMO_BLOCO) {
+            throw new IOException("Snapshot corrompido: tamanho de bloco inválido");
+        }
+
+        if (comprimido.length < tamanhoComprimido) {
+            comprimido = new byte[tamanhoComprimido];
+        }
+        lerCompleto(ByteBuffer.wrap(comprimido, 0, tamanhoComprimido));
+        crcArquivo.update(comprimido, 0, tamanhoComprimido);
+
+        if (original.length < tamanhoOriginal) {
+            original = new byte[tamanhoOriginal];
+        }
+        descompressor.reset();
+        descompressor.setInput(comprimido, 0, tamanhoComprimido);
+        try {
+            int descomprimidos = 0;
+            while (descomprimidos < tamanhoOriginal && !descompressor.finished()) {
+                int n = descompressor.inflate(original, descomprimidos, tamanhoOriginal - descomprimidos);
+                if (n == 0 && (descompressor.needsInput() || descompressor.needsDictionary())) {
+                    break;
+                }
+                descomprimidos += n;
+            }
+            if (descomprimidos != tamanhoOriginal || !descompressor.finished()) {
+                throw new IOException("Snapshot corrompido: bloco com tamanho divergente");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Snapshot corrompido: " + e.getMessage(), e);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(original, 0, tamanhoOriginal);
+        if ((int) crc.getValue() != crcEsperado) {
+            throw new IOException("Snapshot corrompido: CRC do bloco não confere");
+        }
+
+        List<Produto> produtos = BlocoColunar.decodificar(original, tamanhoOriginal);
+        if (produtos.size() != linhas) {
+            throw new IOException("Snapshot corrompido: quantidade de linhas do bloco não confere");
+        }
+        linhasLidas += linhas;
+        return produtos;
+    }
+
+    /** @return instante (ms) em que o snapshot foi criado */
+    public long getCriadoEm() {
+        return criadoEm;
+    }
+
+    @Override
+    public void close() throws IOException {
+        descompressor.end();
+        canal.close();
+    }
+
+    private void conferirRodape() throws IOException {
+        ByteBuffer rodape = ler(12);
+        long total = rodape.getLong();
+        int crc = rodape.getInt();
+        if (total != linhasLidas) {
+            throw new IOException("Snapshot corrompido: esperadas " + total + " linhas, lidas " + linhasLidas);
+        }
+        if (crc != (int) crcArquivo.getValue()) {
+            throw new IOException("Snapshot corrompido: CRC do arquivo não confere");
+        }
+    }
+
+    private ByteBuffer ler(int tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        lerCompleto(buffer);
+        return buffer.flip();
+    }
+
+    private void lerCompleto(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer) < 0) {
+                throw new EOFException("Snapshot truncado");
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package snapshot;
+
+import model.Produto;
+import repository.ProdutoRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Exportação e restauração do catálogo inteiro em snapshot binário, para
+ * provisionar lojas novas e recuperar desastres sem dump SQL.
+ *
+ * A exportação percorre os produtos ativos em streaming e a restauração grava
+ * bloco a bloco pelo próprio repositório, então funciona com qualquer
+ * implementação (MySQL, H2 ou memória) e preserva os ids.
+ */
+public final class SnapshotCatalogo {
+
+    private SnapshotCatalogo() {
+    }
+
+    /**
+     * Grava todos os produtos ativos no arquivo.
+     * @return quantidade de produtos exportados
+     */
+    public static long exportar(ProdutoRepository origem, Path arquivo) throws IOException {
+        try (EscritorSnapshot escritor = new EscritorSnapshot(arquivo)) {
+            try {
+                origem.percorrerProdutos(produto -> {
+                    try {
+                        escritor.adicionar(produto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return escritor.concluir();
+        }
+    }
+
+    /**
+     * Restaura o snapshot no repositório de destino, que não deve conter os mesmos ids.
+     * O arquivo inteiro é conferido antes de gravar qualquer produto (CRC de cada bloco,
+     * total de linhas e CRC do rodapé), então um arquivo truncado ou alterado é recusado
+     * sem restauração parcial. Depois disso a gravação segue bloco a bloco, cada um na
+     * sua transação.
+     * @return quantidade de produtos restaurados
+     */
+    public static long importar(Path arquivo, ProdutoRepository destino) throws IOException {
+        conferir(arquivo);
+        long total = 0;
+        try (LeitorSnapshot leitor = new LeitorSnapshot(arquivo)) {
+            List<Produto> bloco;
+            while ((bloco = leitor.proximoBloco()) != null) {
+                total += destino.restaurarProdutos(bloco);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lê o snapshot inteiro sem gravar nada, conferindo todos os blocos e o rodapé.
+     * @return quantidade de produtos no arquivo
+     * @throws IOException se o arquivo estiver truncado ou corrompido
+     */
+    public static long conferir(Path arquivo) throws IOException {
+        long total = 0;
+        try (LeitorSnapshot leitor = new LeitorSnapshot(arquivo)) {
+            List<Produto> bloco;
+            while ((bloco = leitor.proximoBloco()) != null) {
+                total += bloco.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,11 @@
+package validade;
+
+/**
+ * Parte de uma retirada de estoque atribuída a um lote pela ordem FEFO.
+ *
+ * @param loteId lote de onde as unidades saem
+ * @param quantidade unidades retiradas do lote
+ * @param esgota true se a retirada zera o saldo do lote
+ */
+public record BaixaLote(long loteId, int quantidade, boolean esgota) {
+}
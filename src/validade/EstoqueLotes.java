@@ -0,0 +1,147 @@
+package validade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Lotes com validade dos produtos de consumo, mantidos em memória para escolher
+ * de qual lote sai cada retirada (FEFO) e responder quais lotes estão vencendo.
+ *
+ * O banco continua sendo a fonte da verdade: a retirada calcula as baixas por lote,
+ * entrega-as ao repositório, que as aplica na mesma transação da baixa do produto,
+ * e só então atualiza os saldos em memória. Se o banco recusar, nada muda aqui.
+ * A fila de cada produto fica travada durante a gravação, para que duas retiradas
+ * do mesmo produto não escolham o mesmo lote; produtos diferentes não se bloqueiam.
+ */
+public class EstoqueLotes {
+
+    private final Map<Long, FilaLotes> filas = new ConcurrentHashMap<>();
+    private final IndiceValidade indice = new IndiceValidade();
+
+    /**
+     * Passa a controlar um lote já gravado (recebimento ou carga inicial).
+     */
+    public void registrar(LoteProduto lote, LocalDate hoje) {
+        if (lote.getSaldo() <= 0) {
+            return;
+        }
+        FilaLotes fila = filas.computeIfAbsent(lote.getProdutoId(), id -> new FilaLotes());
+        synchronized (fila) {
+            fila.incluir(lote, hoje);
+            indice.registrar(lote);
+        }
+    }
+
+    /**
+     * Retira unidades de um produto pelos lotes que vencem primeiro.
+     *
+     * @param aplicar grava as baixas calculadas (lista vazia se o produto não tem lotes)
+     *                e diz se a retirada foi aceita
+     * @return o resultado de {@code aplicar}
+     */
+    public boolean retirar(long produtoId, int quantidade, LocalDate hoje, Predicate<List<BaixaLote>> aplicar) {
+        FilaLotes fila = filas.get(produtoId);
+        if (fila == null) {
+            return aplicar.test(List.of());
+        }
+        synchronized (fila) {
+            FilaLotes.Plano plano = fila.planejar(quantidade, hoje);
+            boolean aplicado = false;
+            try {
+                aplicado = aplicar.test(plano.baixas);
+            } finally {
+                if (aplicado) {
+                    fila.confirmar(plano);
+                    for (LoteProduto lote : plano.esgotados) {
+                        indice.remover(lote);
+                    }
+                } else {
+                    fila.desfazer(plano);
+                }
+            }
+            return aplicado;
+        }
+    }
+
+    /**
+     * Dá baixa no saldo inteiro de um lote vencido (perda).
+     *
+     * @param aplicar grava a baixa do lote e diz se foi aceita
+     * @return false se o lote não estava vencido ou a baixa foi recusada
+     */
+    public boolean descartar(LoteProduto lote, LocalDate hoje, Predicate<List<BaixaLote>> aplicar) {
+        FilaLotes fila = filas.get(lote.getProdutoId());
+        if (fila == null) {
+            return false;
+        }
+        synchronized (fila) {
+            fila.separarVencidos(hoje);
+            int saldo = lote.getSaldo();
+            if (saldo <= 0 || !fila.descartar(lote)) {
+                return false;
+            }
+            boolean aplicado = false;
+            try {
+                aplicado = aplicar.test(List.of(new BaixaLote(lote.getId(), saldo, true)));
+            } finally {
+                if (aplicado) {
+                    lote.setSaldo(0);
+                    indice.remover(lote);
+                } else {
+                    fila.incluir(lote, hoje);
+                }
+            }
+            return aplicado;
+        }
+    }
+
+    /**
+     * Esquece os lotes de um produto excluído.
+     */
+    public void removerProduto(long produtoId) {
+        FilaLotes fila = filas.remove(produtoId);
+        if (fila != null) {
+            synchronized (fila) {
+                for (LoteProduto lote : fila.todos()) {
+                    indice.remover(lote);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return lotes do produto em ordem FEFO, vencidos primeiro
+     */
+    public List<LoteProduto> lotes(long produtoId) {
+        FilaLotes fila = filas.get(produtoId);
+        if (fila == null) {
+            return new ArrayList<>();
+        }
+        synchronized (fila) {
+            return fila.todos();
+        }
+    }
+
+    /**
+     * @return lotes com saldo que vencem até {@code limite} (inclusive), pela validade
+     */
+    public List<LoteProduto> vencendoAte(LocalDate limite) {
+        return indice.vencendoAte(limite);
+    }
+
+    /**
+     * @return lotes com saldo cuja validade já passou
+     */
+    public List<LoteProduto> vencidosEm(LocalDate hoje) {
+        return indice.vencidosEm(hoje);
+    }
+
+    public void limpar() {
+        filas.clear();
+        indice.limpar();
+    }
+}
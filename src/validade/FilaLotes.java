@@ -0,0 +1,114 @@
+package validade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Lotes de um produto em ordem FEFO (primeiro a vencer, primeiro a sair).
+ *
+ * Os lotes ficam em um heap mínimo pela validade: achar o próximo lote é O(1) e tirar
+ * um lote esgotado é O(log lotes), então uma retirada que toca k lotes custa
+ * O(k log lotes) mesmo com milhares de lotes no produto. Lotes vencidos não são
+ * entregues numa retirada: ao chegarem ao topo saem do heap e aguardam o descarte.
+ *
+ * Não é thread-safe; a {@link EstoqueLotes} trava a fila durante cada operação.
+ */
+final class FilaLotes {
+
+    // Validade mais próxima primeiro; no mesmo dia, o lote recebido antes
+    private static final Comparator<LoteProduto> ORDEM_FEFO =
+            Comparator.comparing(LoteProduto::getValidade).thenComparingLong(LoteProduto::getId);
+
+    private final PriorityQueue<LoteProduto> disponiveis = new PriorityQueue<>(ORDEM_FEFO);
+    private final List<LoteProduto> vencidos = new ArrayList<>();
+
+    /**
+     * Retirada calculada e ainda não aplicada: os lotes esgotados já saíram do heap e
+     * voltam para ele em {@link #desfazer}; o saldo dos lotes só muda em {@link #confirmar}.
+     */
+    static final class Plano {
+        final List<BaixaLote> baixas = new ArrayList<>();
+        final List<LoteProduto> esgotados = new ArrayList<>();
+        LoteProduto parcial;
+        int retiradaParcial;
+    }
+
+    void incluir(LoteProduto lote, LocalDate hoje) {
+        if (lote.vencidoEm(hoje)) {
+            vencidos.add(lote);
+        } else {
+            disponiveis.offer(lote);
+        }
+    }
+
+    /**
+     * Distribui a retirada pelos lotes em ordem FEFO. Se os lotes não cobrem a
+     * quantidade inteira, o restante sai do saldo sem lote do produto.
+     */
+    Plano planejar(int quantidade, LocalDate hoje) {
+        separarVencidos(hoje);
+        Plano plano = new Plano();
+        int falta = quantidade;
+        while (falta > 0 && !disponiveis.isEmpty()) {
+            LoteProduto lote = disponiveis.peek();
+            int saldo = lote.getSaldo();
+            if (saldo <= falta) {
+                disponiveis.poll();
+                plano.esgotados.add(lote);
+                plano.baixas.add(new BaixaLote(lote.getId(), saldo, true));
+                falta -= saldo;
+            } else {
+                // O lote continua no topo: a validade, que ordena o heap, não muda
+                plano.parcial = lote;
+                plano.retiradaParcial = falta;
+                plano.baixas.add(new BaixaLote(lote.getId(), falta, false));
+                falta = 0;
+            }
+        }
+        return plano;
+    }
+
+    void confirmar(Plano plano) {
+        for (LoteProduto lote : plano.esgotados) {
+            lote.setSaldo(0);
+        }
+        if (plano.parcial != null) {
+            plano.parcial.setSaldo(plano.parcial.getSaldo() - plano.retiradaParcial);
+        }
+    }
+
+    void desfazer(Plano plano) {
+        for (LoteProduto lote : plano.esgotados) {
+            disponiveis.offer(lote);
+        }
+    }
+
+    /**
+     * Tira do heap os lotes que venceram. Como o heap é ordenado pela validade,
+     * eles estão sempre no topo.
+     */
+    void separarVencidos(LocalDate hoje) {
+        while (!disponiveis.isEmpty() && disponiveis.peek().vencidoEm(hoje)) {
+            vencidos.add(disponiveis.poll());
+        }
+    }
+
+    /** @return true se o lote estava entre os vencidos à espera de descarte */
+    boolean descartar(LoteProduto lote) {
+        return vencidos.remove(lote);
+    }
+
+    List<LoteProduto> todos() {
+        List<LoteProduto> lotes = new ArrayList<>(vencidos);
+        lotes.addAll(disponiveis);
+        lotes.sort(ORDEM_FEFO);
+        return lotes;
+    }
+
+    boolean vazia() {
+        return disponiveis.isEmpty() && vencidos.isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package validade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Lotes agrupados por dia de validade, para responder "o que vence até tal dia"
+ * percorrendo só os dias que têm lotes, sem passar pelos produtos um a um.
+ *
+ * Cada dia é um conjunto próprio, então incluir e retirar um lote custa a busca do
+ * dia no mapa ordenado mais uma operação de conjunto, independente de quantos lotes
+ * vencem no mesmo dia.
+ */
+class IndiceValidade {
+
+    private final ConcurrentSkipListMap<Long, Set<LoteProduto>> porDia = new ConcurrentSkipListMap<>();
+
+    void registrar(LoteProduto lote) {
+        porDia.computeIfAbsent(lote.getValidade().toEpochDay(), dia -> ConcurrentHashMap.newKeySet()).add(lote);
+    }
+
+    void remover(LoteProduto lote) {
+        // Dias que ficam vazios saem do mapa, para a consulta não percorrê-los
+        porDia.computeIfPresent(lote.getValidade().toEpochDay(), (dia, lotes) -> {
+            lotes.remove(lote);
+            return lotes.isEmpty() ? null : lotes;
+        });
+    }
+
+    /**
+     * @param limite último dia de validade incluído
+     * @return lotes com saldo que vencem até {@code limite}, do que vence primeiro ao último
+     */
+    List<LoteProduto> vencendoAte(LocalDate limite) {
+        return coletar(porDia.headMap(limite.toEpochDay(), true));
+    }
+
+    /**
+     * @return lotes com saldo cuja validade já passou em {@code hoje}
+     */
+    List<LoteProduto> vencidosEm(LocalDate hoje) {
+        return coletar(porDia.headMap(hoje.toEpochDay(), false));
+    }
+
+    void limpar() {
+        porDia.clear();
+    }
+
+    private static List<LoteProduto> coletar(ConcurrentNavigableMap<Long, Set<LoteProduto>> dias) {
+        List<LoteProduto> lotes = new ArrayList<>();
+        for (Map.Entry<Long, Set<LoteProduto>> dia : dias.entrySet()) {
+            for (LoteProduto lote : dia.getValue()) {
+                if (lote.getSaldo() > 0) {
+                    lotes.add(lote);
+                }
+            }
+        }
+        return lotes;
+    }
+}
@@ -0,0 +1,61 @@
+package validade;
+
+import java.time.LocalDate;
+
+/**
+ * Lote de um produto de consumo, com a sua validade e o saldo ainda em estoque.
+ *
+ * O saldo só muda pela {@link EstoqueLotes}, com a fila do produto travada; as
+ * consultas de vencimento leem o valor mais recente sem travar.
+ */
+public final class LoteProduto {
+
+    private final long id;
+    private final long produtoId;
+    private final String codigo;
+    private final LocalDate validade;
+    private volatile int saldo;
+
+    public LoteProduto(long id, long produtoId, String codigo, LocalDate validade, int saldo) {
+        this.id = id;
+        this.produtoId = produtoId;
+        this.codigo = codigo;
+        this.validade = validade;
+        this.saldo = saldo;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getProdutoId() {
+        return produtoId;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public LocalDate getValidade() {
+        return validade;
+    }
+
+    public int getSaldo() {
+        return saldo;
+    }
+
+    void setSaldo(int saldo) {
+        this.saldo = saldo;
+    }
+
+    /** @return true se a validade já passou em {@code hoje} */
+    public boolean vencidoEm(LocalDate hoje) {
+        return validade.isBefore(hoje);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Lote %s (#%d) do produto #%d: %d un., validade %s",
+                codigo, id, produtoId, saldo, validade);
+    }
+}